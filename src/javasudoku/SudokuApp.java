@@ -2,17 +2,42 @@ package javasudoku;
 
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.nio.file.Paths;
+import javasudoku.bulk.MappedPuzzleStore;
 import javasudoku.controller.SudokuController;
-import javasudoku.dbaccess.SudokuDBManager;
+import javasudoku.dbaccess.AsyncSudokuGameDAO;
+import javasudoku.dbaccess.AutosaveJournal;
+import javasudoku.dbaccess.RetentionPolicy;
+import javasudoku.dbaccess.SudokuGameDAOFactory;
 import javasudoku.model.SudokuModel;
 import javasudoku.view.SudokuView;
 import javax.swing.UIManager;
 
 /**
  * Entry point for the JavaSudoku program
+ * 
+ * New puzzles are generated as they are needed, unless the system property
+ * javasudoku.puzzleStore is set to the path of a puzzle store built by MappedPuzzleStore.build,
+ * in which case puzzles are taken from the store until it runs out.
+ * 
+ * Games are stored in the storage chosen by the system property javasudoku.storage, as
+ * described by SudokuGameDAOFactory. The progress of the active game is journaled to the file named by the system property
+ * javasudoku.autosaveJournal, or autosave.journal in the working directory if it is not set.
+ * 
+ * If the system property javasudoku.restoreFile is set to a backup written by GameBackup, its games are
+ * added to the storage when the program starts, as long as the storage does not hold any games yet. If javasudoku.backupFile is set, a backup of the storage
+ * is written to it each time the program starts. The Derby database is copied whole into it as a folder,
+ * as described by SudokuDBManager.backupDatabase, and the games of other storage are written to it by GameBackup. Games are then removed as set by the retention properties
+ * described by RetentionPolicy, which appends each removed game to its archive file first. All of these run
+ * in the background while the game is played.
  * @author Ishaiah Cross
  */
 public class SudokuApp {
+    private static final String PUZZLE_STORE_PROPERTY = "javasudoku.puzzleStore";
+    private static final String AUTOSAVE_JOURNAL_PROPERTY = "javasudoku.autosaveJournal";
+    private static final String DEFAULT_AUTOSAVE_JOURNAL = "autosave.journal";
+    private static final String RESTORE_FILE_PROPERTY = "javasudoku.restoreFile";
+    private static final String BACKUP_FILE_PROPERTY = "javasudoku.backupFile";
 
     public static void main(String[] args) {
         
@@ -25,8 +50,47 @@ public class SudokuApp {
         
         //Set up the model, view, and controller, and connect the model and view using the controller
        SudokuModel model = new SudokuModel();
+       
+       //Serve puzzles from a pre-built store if one was configured
+       String puzzleStorePath = System.getProperty(PUZZLE_STORE_PROPERTY);
+       MappedPuzzleStore puzzleStore = puzzleStorePath != null ? MappedPuzzleStore.open(Paths.get(puzzleStorePath)) : null;
+       model.setPuzzleSource(puzzleStore);
+       
+       //Start the configured storage in the background while the window is shown
+       AsyncSudokuGameDAO db = new AsyncSudokuGameDAO(SudokuGameDAOFactory::fromConfiguration);
+       db.connect();
+       
+       //Backups are restored before they are written, and written before old games are purged, since all run on the same background thread
+       String restorePath = System.getProperty(RESTORE_FILE_PROPERTY);
+       if(restorePath != null) {
+           db.restore(Paths.get(restorePath)).thenAccept((Integer count) -> {
+               if(count >= 0)
+                   System.out.println("Restored " + count + " games from " + restorePath);
+           });
+       }
+       
+       String backupPath = System.getProperty(BACKUP_FILE_PROPERTY);
+       if(backupPath != null) {
+           db.backup(Paths.get(backupPath)).thenAccept((Boolean written) -> {
+               if(written)
+                   System.out.println("Backed up storage to " + backupPath);
+           });
+       }
+       
+       //Replay any game that was not saved when the program last stopped
+       AutosaveJournal journal = AutosaveJournal.open(Paths.get(System.getProperty(AUTOSAVE_JOURNAL_PROPERTY, DEFAULT_AUTOSAVE_JOURNAL)), db);
+       
+       //The game held by the journal is never purged, as it would be added again as a new game when it is next saved
+       RetentionPolicy retention = RetentionPolicy.fromConfiguration();
+       if(retention != null) {
+           db.purge(retention, (int gameID) -> Integer.valueOf(gameID).equals(journal.getGameID())).thenAccept((Integer count) -> {
+               if(count > 0)
+                   System.out.println("Archived and removed " + count + " games that are no longer kept");
+           });
+       }
+       
        SudokuView view = new SudokuView();
-       SudokuController controller = new SudokuController(model, view);
+       SudokuController controller = new SudokuController(model, view, db, journal);
        controller.connectModelView();
        
        //Display the main form
@@ -36,7 +100,12 @@ public class SudokuApp {
        view.addWindowListener(new WindowAdapter() {
           @Override
           public void windowClosing(WindowEvent event) {
-              SudokuDBManager.getInstance().closeConnection();
+              //Write the active game, and let any save that is being written finish before closing the storage
+              journal.close();
+              db.close();
+              
+              if(puzzleStore != null)
+                  puzzleStore.close();
           }
        });
     }
@@ -0,0 +1,317 @@
+package javasudoku.bulk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import javasudoku.model.PuzzleSource;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuBoardCodec;
+
+/**
+ * A file of pre-rated puzzles that is memory mapped, so that the puzzles are read by the operating
+ * system on demand instead of being loaded onto the heap.
+ *
+ * The file starts with a header holding a table of difficulty buckets, followed by fixed width
+ * records holding puzzles encoded by SudokuBoardCodec, including their givens. Puzzles are rated
+ * by RatingBatchHandler.rate, and the records are grouped by rating so that each bucket is a
+ * contiguous range of records. Any puzzle can be read in constant time from its record index.
+ *
+ * Each bucket has a claim cursor, so that nextPuzzle never hands out the same puzzle twice, even
+ * when called from several threads. Claims are written back to the header, so a store that is
+ * opened again continues from where it stopped.
+ * @author Ishaiah Cross
+ */
+public class MappedPuzzleStore implements PuzzleSource, AutoCloseable {
+    //Identifies a puzzle store file, and the version of its layout
+    private static final int MAGIC = 0x53444B50;
+    private static final int VERSION = 1;
+
+    //There is one bucket for each possible number of unassigned cells
+    private static final int BUCKET_COUNT = SudokuBoard.TOTAL_CELLS + 1;
+    //Each bucket is stored as its first record index, its record count, and its number of claimed records
+    private static final int BUCKET_BYTES = 3 * Integer.BYTES;
+    private static final int BUCKET_TABLE_OFFSET = 4 * Integer.BYTES;
+    private static final int HEADER_BYTES = BUCKET_TABLE_OFFSET + BUCKET_COUNT * BUCKET_BYTES;
+    public static final int RECORD_BYTES = SudokuBoardCodec.ENCODED_BYTES_WITH_GIVENS;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final int recordCount;
+    private final int[] bucketStarts;
+    private final int[] bucketCounts;
+    private final AtomicIntegerArray claimCursors;
+
+    private MappedPuzzleStore(FileChannel channel, MappedByteBuffer data) {
+        this.channel = channel;
+        this.data = data;
+        this.recordCount = data.getInt(2 * Integer.BYTES);
+        this.bucketStarts = new int[BUCKET_COUNT];
+        this.bucketCounts = new int[BUCKET_COUNT];
+        this.claimCursors = new AtomicIntegerArray(BUCKET_COUNT);
+
+        for(int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            int offset = BUCKET_TABLE_OFFSET + bucket * BUCKET_BYTES;
+            bucketStarts[bucket] = data.getInt(offset);
+            bucketCounts[bucket] = data.getInt(offset + Integer.BYTES);
+            claimCursors.set(bucket, data.getInt(offset + 2 * Integer.BYTES));
+        }
+    }
+
+    /**
+     * Opens an existing puzzle store
+     * @param storeFile The file created by build
+     * @return The opened store, or null if the file could not be opened or is not a puzzle store
+     */
+    public static MappedPuzzleStore open(Path storeFile) {
+        FileChannel channel = null;
+
+        try {
+            channel = FileChannel.open(storeFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long fileSize = channel.size();
+            if(fileSize < HEADER_BYTES || fileSize > Integer.MAX_VALUE)
+                throw new IOException("File has an invalid size of " + fileSize + " bytes");
+
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            if(data.getInt(0) != MAGIC || data.getInt(Integer.BYTES) != VERSION
+                    || data.getInt(3 * Integer.BYTES) != BUCKET_COUNT)
+                throw new IOException("File is not a puzzle store");
+
+            if(HEADER_BYTES + (long)data.getInt(2 * Integer.BYTES) * RECORD_BYTES > fileSize)
+                throw new IOException("File is missing puzzle records");
+
+            return new MappedPuzzleStore(channel, data);
+        } catch (IOException ex) {
+            System.out.println("Failed to open puzzle store " + storeFile);
+            System.out.println(ex.getMessage());
+
+            closeChannel(channel);
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a puzzle store from a file of puzzle lines. The file is read twice, first to
+     * count the puzzles in each bucket, and then to write each puzzle to its record.
+     * The filled cells of each puzzle are marked as its givens.
+     * @param puzzleFile The file of puzzle lines to read
+     * @param storeFile The file to write the store to, which is replaced if it already exists
+     * @param processor The processor used to read the puzzle file
+     * @return True if the store was created, false otherwise
+     */
+    public static boolean build(Path puzzleFile, Path storeFile, PuzzleFileProcessor processor) {
+        RatingBatchHandler ratings = new RatingBatchHandler();
+        long numPuzzles = processor.importPuzzles(puzzleFile, ratings);
+        if(numPuzzles < 0)
+            return false;
+
+        if(HEADER_BYTES + numPuzzles * RECORD_BYTES > Integer.MAX_VALUE) {
+            System.out.println("Too many puzzles for a single store: " + numPuzzles);
+            return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + numPuzzles * RECORD_BYTES);
+
+            //Lay out the buckets one after another, in order of rating
+            int[] bucketStarts = new int[BUCKET_COUNT];
+            int[] bucketCounts = new int[BUCKET_COUNT];
+            int nextStart = 0;
+            for(int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                int count = (int)ratings.getCount(bucket);
+                int offset = BUCKET_TABLE_OFFSET + bucket * BUCKET_BYTES;
+                data.putInt(offset, nextStart);
+                data.putInt(offset + Integer.BYTES, count);
+                data.putInt(offset + 2 * Integer.BYTES, 0);
+
+                bucketStarts[bucket] = nextStart;
+                bucketCounts[bucket] = count;
+                nextStart += count;
+            }
+
+            //Each worker thread writes the records of its puzzles through its own view of the file
+            AtomicIntegerArray writeCursors = new AtomicIntegerArray(BUCKET_COUNT);
+            ThreadLocal<ByteBuffer> writers = ThreadLocal.withInitial(data::duplicate);
+
+            long numWritten = processor.importPuzzles(puzzleFile, (boards, count) -> {
+                ByteBuffer writer = writers.get();
+
+                for(int i = 0; i < count; i++) {
+                    int bucket = RatingBatchHandler.rate(boards[i]);
+                    int cursor = writeCursors.getAndIncrement(bucket);
+
+                    //A bucket that fills up means the file changed since it was counted, and the record would
+                    //overwrite the next bucket. Failing the batch fails the import, so the build is abandoned.
+                    if(cursor >= bucketCounts[bucket])
+                        throw new IllegalStateException("More puzzles with rating " + bucket + " than were counted");
+
+                    int record = bucketStarts[bucket] + cursor;
+                    boards[i].markGivens();
+
+                    writer.position(HEADER_BYTES + record * RECORD_BYTES);
+                    SudokuBoardCodec.encode(boards[i], true, writer);
+                }
+            });
+
+            if(numWritten != numPuzzles) {
+                System.out.println("Puzzle file changed while the store was being built");
+                return false;
+            }
+
+            //The header is only completed once every record is written
+            data.putInt(2 * Integer.BYTES, (int)numPuzzles);
+            data.putInt(3 * Integer.BYTES, BUCKET_COUNT);
+            data.putInt(Integer.BYTES, VERSION);
+            data.putInt(0, MAGIC);
+            data.force();
+
+            return true;
+        } catch (IOException ex) {
+            System.out.println("Failed to build puzzle store " + storeFile);
+            System.out.println(ex.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The total number of puzzles in the store
+     */
+    public int getPuzzleCount() {
+        return recordCount;
+    }
+
+    /**
+     * @param rating The rating of the bucket, from 0 to TOTAL_CELLS
+     * @return The number of puzzles in the store with the rating
+     */
+    public int getBucketCount(int rating) {
+        return bucketCounts[rating];
+    }
+
+    /**
+     * @param rating The rating of the bucket, from 0 to TOTAL_CELLS
+     * @return The number of puzzles with the rating that have not been claimed
+     */
+    public int getUnclaimedCount(int rating) {
+        return Math.max(0, bucketCounts[rating] - claimCursors.get(rating));
+    }
+
+    /**
+     * Reads a puzzle from the store, without claiming it
+     * @param recordIndex The index of the record, from 0 to getPuzzleCount() - 1
+     * @return The puzzle, or null if the record was invalid
+     */
+    public SudokuBoard getPuzzle(int recordIndex) {
+        if(recordIndex < 0 || recordIndex >= recordCount)
+            return null;
+
+        ByteBuffer reader = data.duplicate();
+        reader.position(HEADER_BYTES + recordIndex * RECORD_BYTES);
+
+        SudokuBoard puzzle = new SudokuBoard();
+        if(!SudokuBoardCodec.decodeInto(reader, true, puzzle))
+            return null;
+
+        return puzzle;
+    }
+
+    /**
+     * Reads a puzzle with a certain rating from the store, without claiming it
+     * @param rating The rating of the bucket, from 0 to TOTAL_CELLS
+     * @param index The position of the puzzle within the bucket
+     * @return The puzzle, or null if the bucket does not have a puzzle at the position
+     */
+    public SudokuBoard getPuzzle(int rating, int index) {
+        if(index < 0 || index >= bucketCounts[rating])
+            return null;
+
+        return getPuzzle(bucketStarts[rating] + index);
+    }
+
+    /**
+     * Claims the next unclaimed puzzle of the bucket closest to the requested difficulty.
+     * A difficulty corresponds to the number of unassigned cells of a puzzle.
+     * @param difficulty The desired difficulty of the puzzle
+     * @return The puzzle, or null if every puzzle in the store has been claimed
+     */
+    @Override
+    public SudokuBoard nextPuzzle(int difficulty) {
+        int target = Math.max(0, Math.min(SudokuBoard.TOTAL_CELLS, difficulty));
+
+        //Search outwards from the requested bucket, preferring easier puzzles at equal distances
+        for(int distance = 0; distance < BUCKET_COUNT; distance++) {
+            int lower = target - distance;
+            int upper = target + distance;
+
+            if(lower >= 0) {
+                int record = claim(lower);
+                if(record != -1)
+                    return getPuzzle(record);
+            }
+
+            if(distance > 0 && upper < BUCKET_COUNT) {
+                int record = claim(upper);
+                if(record != -1)
+                    return getPuzzle(record);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Atomically claims the next unclaimed record of a bucket, and saves the claim in the header
+     * @param bucket The bucket to claim from
+     * @return The index of the claimed record, or -1 if every record of the bucket has been claimed
+     */
+    private int claim(int bucket) {
+        while(true) {
+            int cursor = claimCursors.get(bucket);
+            if(cursor >= bucketCounts[bucket])
+                return -1;
+
+            if(claimCursors.compareAndSet(bucket, cursor, cursor + 1)) {
+                int offset = BUCKET_TABLE_OFFSET + bucket * BUCKET_BYTES + 2 * Integer.BYTES;
+
+                //Claims may finish out of order, so only ever move the saved cursor forward
+                synchronized(data) {
+                    if(data.getInt(offset) < cursor + 1)
+                        data.putInt(offset, cursor + 1);
+                }
+
+                return bucketStarts[bucket] + cursor;
+            }
+        }
+    }
+
+    /**
+     * Writes any claims to the file and closes it
+     */
+    @Override
+    public void close() {
+        data.force();
+        closeChannel(channel);
+    }
+
+    /**
+     * Closes a file channel, ignoring any errors
+     * @param channel The channel to close, or null
+     */
+    private static void closeChannel(FileChannel channel) {
+        if(channel == null)
+            return;
+
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            System.out.println("Failed to close puzzle store.");
+            System.out.println(ex.getMessage());
+        }
+    }
+}
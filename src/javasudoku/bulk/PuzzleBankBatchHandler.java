@@ -0,0 +1,52 @@
+package javasudoku.bulk;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javasudoku.dbaccess.SudokuDBManager;
+import javasudoku.model.SudokuBoard;
+
+/**
+ * A PuzzleBatchHandler that adds each puzzle and its solution to the puzzles table of the database,
+ * so that games can later be started from them. Each batch is added in a single transaction, and
+ * puzzles that are already stored are skipped. The boards are not changed.
+ *
+ * SudokuDBManager takes a pooled connection for each batch, so batches from several worker threads
+ * are added at once.
+ * @author Ishaiah Cross
+ */
+public class PuzzleBankBatchHandler implements PuzzleBatchHandler {
+    private final SudokuDBManager db;
+    private final AtomicLong numAdded;
+    private final AtomicLong numFailed;
+    
+    /**
+     * @param db The database to add the puzzles to
+     */
+    public PuzzleBankBatchHandler(SudokuDBManager db) {
+        this.db = db;
+        this.numAdded = new AtomicLong();
+        this.numFailed = new AtomicLong();
+    }
+    
+    @Override
+    public void handleBatch(SudokuBoard[] boards, int count) {
+        int added = db.addPuzzles(boards, count);
+        if(added >= 0)
+            numAdded.addAndGet(added);
+        else
+            numFailed.addAndGet(count);
+    }
+    
+    /**
+     * @return The number of puzzles that have been added to the database
+     */
+    public long getNumAdded() {
+        return numAdded.get();
+    }
+    
+    /**
+     * @return The number of puzzles in batches that could not be added because of an error
+     */
+    public long getNumFailed() {
+        return numFailed.get();
+    }
+}
@@ -0,0 +1,23 @@
+package javasudoku.bulk;
+
+import javasudoku.model.SudokuBoard;
+
+/**
+ * Defines the expected behavior for objects that process puzzles read in bulk by a PuzzleFileProcessor.
+ *
+ * Puzzles are passed to the handler in batches. The boards of a batch are reused for the
+ * batches that follow it, so a handler must fork any board it needs to keep after handleBatch
+ * returns. A handler may modify the boards it is given, and any changes are written to the output
+ * file if the puzzles are being processed with PuzzleFileProcessor.processPuzzles.
+ *
+ * handleBatch is called from several worker threads at once, so implementations must be thread safe.
+ * @author Ishaiah Cross
+ */
+public interface PuzzleBatchHandler {
+    /**
+     * Processes a batch of puzzles
+     * @param boards The boards of the batch. Only the first count boards belong to the batch.
+     * @param count The number of boards in the batch
+     */
+    public void handleBatch(SudokuBoard[] boards, int count);
+}
@@ -0,0 +1,352 @@
+package javasudoku.bulk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuStringifier;
+
+/**
+ * Reads and writes large files of puzzle lines, as defined by SudokuStringifier.parseLine.
+ *
+ * Files are memory mapped and divided into chunks that end on line boundaries, and each chunk
+ * is parsed by a worker thread. Each worker reuses the same boards for every batch of puzzles it
+ * passes to a PuzzleBatchHandler, so no objects are created per line.
+ *
+ * A line may contain other columns after the puzzle, as long as they are separated from it by a
+ * character that is not a digit or '.'. Blank lines and lines starting with '#' are skipped.
+ * @author Ishaiah Cross
+ */
+public class PuzzleFileProcessor {
+    //The largest number of bytes mapped for a single chunk
+    private static final int MAX_CHUNK_BYTES = 64 * 1024 * 1024;
+    //The number of chunks to create per thread, so that threads given easier chunks can take more
+    private static final int CHUNKS_PER_THREAD = 4;
+    //The number of bytes read at a time while searching for the end of a line
+    private static final int SCAN_BUFFER_BYTES = 4096;
+    private static final byte COMMENT_CHAR = '#';
+
+    private final int numThreads;
+    private final int batchSize;
+    //The number of lines skipped by the last file read because they did not hold a valid puzzle
+    private volatile long lastInvalidCount;
+
+    /**
+     * Creates a processor that uses one thread per available processor
+     * @param batchSize The number of puzzles passed to a handler at a time
+     */
+    public PuzzleFileProcessor(int batchSize) {
+        this(Runtime.getRuntime().availableProcessors(), batchSize);
+    }
+
+    /**
+     * @param numThreads The number of worker threads used to parse each file
+     * @param batchSize The number of puzzles passed to a handler at a time
+     */
+    public PuzzleFileProcessor(int numThreads, int batchSize) {
+        this.numThreads = Math.max(1, numThreads);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Reads every puzzle in a file and passes them to a handler in batches.
+     * Puzzles from different chunks of the file are handled in no particular order.
+     * @param file The file to read
+     * @param handler The handler to pass the puzzles to
+     * @return The number of puzzles that were read, or -1 if the file could not be read
+     */
+    public long importPuzzles(Path file, PuzzleBatchHandler handler) {
+        try (FileChannel input = FileChannel.open(file, StandardOpenOption.READ)) {
+            return processChunks(input, null, handler);
+        } catch (IOException ex) {
+            System.out.println("Failed to import puzzles from " + file);
+            System.out.println(ex.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * Reads every puzzle in a file, passes them to a handler in batches, and writes the
+     * resulting boards to an output file. The output file has the same lines as the input
+     * file, except that the puzzles are replaced by the boards as left by the handler. For
+     * example, processing a file with a SolvingBatchHandler writes the solution of each puzzle.
+     * @param inputFile The file to read
+     * @param outputFile The file to write, which is replaced if it already exists
+     * @param handler The handler to pass the puzzles to
+     * @return The number of puzzles that were processed, or -1 if either file could not be used
+     */
+    public long processPuzzles(Path inputFile, Path outputFile, PuzzleBatchHandler handler) {
+        try (FileChannel input = FileChannel.open(inputFile, StandardOpenOption.READ);
+                FileChannel output = FileChannel.open(outputFile, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return processChunks(input, output, handler);
+        } catch (IOException ex) {
+            System.out.println("Failed to process puzzles from " + inputFile + " into " + outputFile);
+            System.out.println(ex.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * Blank lines and comments are not counted as invalid
+     * @return The number of lines skipped by the last call to importPuzzles or processPuzzles because
+     * they did not hold a valid puzzle
+     */
+    public long getLastInvalidCount() {
+        return lastInvalidCount;
+    }
+
+    /**
+     * Writes a list of boards to a file, with one puzzle line per board
+     * @param file The file to write, which is replaced if it already exists
+     * @param boards The boards to write
+     * @return True if the file was written, false otherwise
+     */
+    public boolean exportBoards(Path file, List<SudokuBoard> boards) {
+        int lineBytes = SudokuStringifier.LINE_LENGTH + 1;
+        int boardsPerChunk = MAX_CHUNK_BYTES / lineBytes;
+
+        try (FileChannel output = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ArrayList<Callable<Long>> tasks = new ArrayList<>();
+
+            //Each chunk has a fixed size, so the chunks can be mapped before any lines are written
+            for(int first = 0; first < boards.size(); first += boardsPerChunk) {
+                List<SudokuBoard> chunkBoards = boards.subList(first, Math.min(boards.size(), first + boardsPerChunk));
+                MappedByteBuffer chunk = output.map(FileChannel.MapMode.READ_WRITE,
+                        (long)first * lineBytes, (long)chunkBoards.size() * lineBytes);
+
+                tasks.add(() -> {
+                    for(SudokuBoard board: chunkBoards) {
+                        SudokuStringifier.formatLine(board, chunk);
+                        chunk.put((byte)'\n');
+                    }
+
+                    return (long)chunkBoards.size();
+                });
+            }
+
+            return runTasks(tasks) == boards.size();
+        } catch (IOException ex) {
+            System.out.println("Failed to export puzzles to " + file);
+            System.out.println(ex.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Divides the input file into chunks, and processes each chunk on a worker thread
+     * @param input The file to read
+     * @param output The file to write, or null if the boards should not be written
+     * @param handler The handler to pass the puzzles to
+     * @return The number of puzzles that were processed, or -1 if any chunk failed
+     * @throws IOException If a chunk could not be mapped
+     */
+    private long processChunks(FileChannel input, FileChannel output, PuzzleBatchHandler handler) throws IOException {
+        long fileSize = input.size();
+        long targetChunkSize = Math.min(MAX_CHUNK_BYTES, fileSize / ((long)numThreads * CHUNKS_PER_THREAD) + 1);
+        AtomicLong numInvalid = new AtomicLong();
+        ArrayList<Callable<Long>> tasks = new ArrayList<>();
+
+        long chunkStart = 0;
+        while(chunkStart < fileSize) {
+            long chunkEnd = findLineEnd(input, Math.min(fileSize, chunkStart + targetChunkSize));
+            if(chunkEnd - chunkStart > Integer.MAX_VALUE)
+                throw new IOException("Line starting after byte " + chunkStart + " is too long to map");
+
+            MappedByteBuffer inputChunk = input.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart);
+            MappedByteBuffer outputChunk = null;
+            if(output != null)
+                outputChunk = output.map(FileChannel.MapMode.READ_WRITE, chunkStart, chunkEnd - chunkStart);
+
+            tasks.add(new ChunkTask(inputChunk, outputChunk, handler, numInvalid));
+            chunkStart = chunkEnd;
+        }
+
+        long numProcessed = runTasks(tasks);
+        this.lastInvalidCount = numInvalid.get();
+        if(numInvalid.get() > 0)
+            System.out.println("Skipped " + numInvalid.get() + " lines that did not contain a valid puzzle");
+
+        return numProcessed;
+    }
+
+    /**
+     * Finds the end of the line containing a position in a file
+     * @param input The file to search
+     * @param position The position to search from
+     * @return The position just after the next line break at or after the position, or the size of the file
+     * @throws IOException If the file could not be read
+     */
+    private static long findLineEnd(FileChannel input, long position) throws IOException {
+        ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+
+        while(position < input.size()) {
+            scanBuffer.clear();
+            int numRead = input.read(scanBuffer, position);
+            if(numRead <= 0)
+                break;
+
+            for(int i = 0; i < numRead; i++) {
+                if(scanBuffer.get(i) == '\n')
+                    return position + i + 1;
+            }
+
+            position += numRead;
+        }
+
+        return input.size();
+    }
+
+    /**
+     * Runs tasks on a pool of worker threads and waits for all of them to finish
+     * @param tasks The tasks to run
+     * @return The sum of the results of the tasks, or -1 if any task failed
+     */
+    private long runTasks(List<Callable<Long>> tasks) {
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(numThreads, Math.max(1, tasks.size())));
+        long total = 0;
+
+        try {
+            for(Future<Long> result: workers.invokeAll(tasks))
+                total += result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            total = -1;
+        } catch (ExecutionException ex) {
+            System.out.println("Failed to process a chunk of puzzles.");
+            System.out.println(ex.getCause());
+            total = -1;
+        } finally {
+            workers.shutdownNow();
+        }
+
+        return total;
+    }
+
+    /**
+     * Parses the puzzle lines of a single chunk of a file, and passes them to a handler in batches.
+     * If an output chunk is provided, the boards of each batch are written to it after being handled.
+     */
+    private class ChunkTask implements Callable<Long> {
+        private final ByteBuffer input;
+        private final ByteBuffer output;
+        private final PuzzleBatchHandler handler;
+        private final AtomicLong numInvalid;
+
+        //The boards of the current batch, and the position in the chunk of each of their lines
+        private final SudokuBoard[] boards;
+        private final int[] lineOffsets;
+        private int batchCount;
+
+        ChunkTask(ByteBuffer input, ByteBuffer output, PuzzleBatchHandler handler, AtomicLong numInvalid) {
+            this.input = input;
+            this.output = output;
+            this.handler = handler;
+            this.numInvalid = numInvalid;
+            this.boards = new SudokuBoard[batchSize];
+            this.lineOffsets = new int[batchSize];
+            this.batchCount = 0;
+
+            for(int i = 0; i < batchSize; i++)
+                this.boards[i] = new SudokuBoard();
+        }
+
+        @Override
+        public Long call() {
+            long numProcessed = 0;
+            int lineStart = 0;
+            int limit = input.limit();
+
+            //Lines that do not hold a puzzle are copied to the output unchanged
+            if(output != null)
+                output.put(input.duplicate());
+
+            while(lineStart < limit) {
+                int lineEnd = lineStart;
+                while(lineEnd < limit && input.get(lineEnd) != '\n')
+                    lineEnd++;
+
+                if(!isSkippedLine(lineStart, lineEnd)) {
+                    if(isPuzzleLine(lineStart, lineEnd)
+                            && SudokuStringifier.parseLine(input, lineStart, boards[batchCount])) {
+                        lineOffsets[batchCount++] = lineStart;
+                        numProcessed++;
+
+                        if(batchCount == batchSize)
+                            flushBatch();
+                    } else {
+                        numInvalid.incrementAndGet();
+                    }
+                }
+
+                lineStart = lineEnd + 1;
+            }
+
+            flushBatch();
+            return numProcessed;
+        }
+
+        /**
+         * @param lineStart The position of the first character of the line
+         * @param lineEnd The position of the line break at the end of the line
+         * @return True if the line is blank or is a comment, false otherwise
+         */
+        private boolean isSkippedLine(int lineStart, int lineEnd) {
+            if(lineStart == lineEnd || input.get(lineStart) == COMMENT_CHAR)
+                return true;
+
+            return lineEnd - lineStart == 1 && input.get(lineStart) == '\r';
+        }
+
+        /**
+         * @param lineStart The position of the first character of the line
+         * @param lineEnd The position of the line break at the end of the line
+         * @return True if the line is long enough to hold a puzzle, and the puzzle is not followed
+         * by any other cell characters
+         */
+        private boolean isPuzzleLine(int lineStart, int lineEnd) {
+            int lineLength = lineEnd - lineStart;
+            if(lineLength < SudokuStringifier.LINE_LENGTH)
+                return false;
+            if(lineLength == SudokuStringifier.LINE_LENGTH)
+                return true;
+
+            byte next = input.get(lineStart + SudokuStringifier.LINE_LENGTH);
+            return next != SudokuStringifier.EMPTY_CELL_CHAR && (next < '0' || next > '9');
+        }
+
+        /**
+         * Passes the current batch to the handler, and writes the handled boards to the output chunk
+         */
+        private void flushBatch() {
+            if(batchCount == 0)
+                return;
+
+            handler.handleBatch(boards, batchCount);
+
+            if(output != null) {
+                for(int i = 0; i < batchCount; i++) {
+                    output.position(lineOffsets[i]);
+                    SudokuStringifier.formatLine(boards[i], output);
+                }
+            }
+
+            batchCount = 0;
+        }
+    }
+}
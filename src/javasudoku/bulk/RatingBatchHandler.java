@@ -0,0 +1,41 @@
+package javasudoku.bulk;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import javasudoku.model.SudokuBoard;
+
+/**
+ * A PuzzleBatchHandler that rates each puzzle by its number of unassigned cells, which is the same
+ * measure of difficulty used by the SudokuGenerator, and counts the number of puzzles with each rating.
+ * @author Ishaiah Cross
+ */
+public class RatingBatchHandler implements PuzzleBatchHandler {
+    //The number of puzzles with each rating, indexed by rating
+    private final AtomicLongArray ratingCounts;
+    
+    public RatingBatchHandler() {
+        this.ratingCounts = new AtomicLongArray(SudokuBoard.TOTAL_CELLS + 1);
+    }
+    
+    /**
+     * Rates a puzzle
+     * @param board The puzzle to rate
+     * @return The rating of the puzzle, from 0 to TOTAL_CELLS
+     */
+    public static int rate(SudokuBoard board) {
+        return SudokuBoard.TOTAL_CELLS - board.getFilledCount();
+    }
+    
+    @Override
+    public void handleBatch(SudokuBoard[] boards, int count) {
+        for(int i = 0; i < count; i++)
+            ratingCounts.incrementAndGet(rate(boards[i]));
+    }
+    
+    /**
+     * @param rating The rating to look up, from 0 to TOTAL_CELLS
+     * @return The number of puzzles handled so far that had the rating
+     */
+    public long getCount(int rating) {
+        return ratingCounts.get(rating);
+    }
+}
@@ -0,0 +1,55 @@
+package javasudoku.bulk;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javasudoku.model.SudokuBoard;
+import javasudoku.solver.SudokuSolver;
+
+/**
+ * A PuzzleBatchHandler that solves each puzzle in place, so that the solutions are written
+ * out when used with PuzzleFileProcessor.processPuzzles. Puzzles that contain conflicting
+ * values or cannot be solved are left unchanged.
+ *
+ * SudokuSolver is not thread safe, so each worker thread uses its own solver.
+ * @author Ishaiah Cross
+ */
+public class SolvingBatchHandler implements PuzzleBatchHandler {
+    private final ThreadLocal<SudokuSolver> solvers;
+    private final AtomicLong numSolved;
+    private final AtomicLong numUnsolved;
+    
+    public SolvingBatchHandler() {
+        this.solvers = ThreadLocal.withInitial(SudokuSolver::new);
+        this.numSolved = new AtomicLong();
+        this.numUnsolved = new AtomicLong();
+    }
+    
+    @Override
+    public void handleBatch(SudokuBoard[] boards, int count) {
+        SudokuSolver solver = solvers.get();
+        
+        for(int i = 0; i < count; i++) {
+            SudokuBoard board = boards[i];
+            if(!board.hasConflicts())
+                solver.solveBoard(board);
+            
+            if(board.isSolved())
+                numSolved.incrementAndGet();
+            else
+                numUnsolved.incrementAndGet();
+        }
+    }
+    
+    /**
+     * @return The number of puzzles that have been solved
+     */
+    public long getNumSolved() {
+        return numSolved.get();
+    }
+    
+    /**
+     * @return The number of puzzles that could not be solved
+     */
+    public long getNumUnsolved() {
+        return numUnsolved.get();
+    }
+}
@@ -0,0 +1,9 @@
+package javasudoku.controller;
+
+/**
+ * Defines the expected behavior for objects to perform when the user changes a cell of a Sudoku board.
+ * @author Ishaiah Cross
+ */
+interface CellChangedListener {
+    public void onCellChanged(int index, int value);
+}
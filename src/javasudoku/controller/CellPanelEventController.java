@@ -29,8 +29,9 @@ class CellPanelEventController implements AWTEventListener, SimpleDocumentListen
     private CellPanel activePanel;
     private JTextField activeField;
     private final BoardSolvedListener solveCallback;
+    private final CellChangedListener changeCallback;
     
-    public CellPanelEventController(SudokuView view, SudokuModel model, BoardSolvedListener solveCallback) {
+    public CellPanelEventController(SudokuView view, SudokuModel model, BoardSolvedListener solveCallback, CellChangedListener changeCallback) {
         this.view = view;
         this.model = model;
         
@@ -39,8 +40,9 @@ class CellPanelEventController implements AWTEventListener, SimpleDocumentListen
         
         //Begin listening to mouse events, so that we can determine what cells were clicked
         Toolkit.getDefaultToolkit().addAWTEventListener(this, AWTEvent.MOUSE_EVENT_MASK);
-        //Register the solved callback
+        //Register the solved and changed callbacks
         this.solveCallback = solveCallback;
+        this.changeCallback = changeCallback;
     }
     
     /**
@@ -111,17 +113,16 @@ class CellPanelEventController implements AWTEventListener, SimpleDocumentListen
         String cellText = activeField.getText();
 
         SudokuBoard modelBoard = model.getBoard();
-        //If the text was removed, remove the cell and do nothing
+        //If the text was removed, remove the cell
         if(cellText.isEmpty()) {    
-            modelBoard.setCell(selectedCoord, 0);
+            modelBoard.setCellUnchecked(selectedCoord, 0);
+            changeCallback.onCellChanged(selectedCoord.getIndex(), 0);
         } else {
             try {
                 int userValue = activePanel.getValue(); //get the value the user entered
-                //Update the underlying model
-                boolean couldPlace = modelBoard.setCell(selectedCoord, userValue);
-                
-                //Display the number as red if it was not a valid placement
-                activePanel.setValid(couldPlace);
+                //Update the underlying model. Conflicting values are kept by the model so that they can be highlighted
+                modelBoard.setCellUnchecked(selectedCoord, userValue);
+                changeCallback.onCellChanged(selectedCoord.getIndex(), userValue);
                 
                 //If the board is solved, trigger the solved callback
                 if(modelBoard.isSolved())
@@ -132,5 +133,8 @@ class CellPanelEventController implements AWTEventListener, SimpleDocumentListen
                 activeField.setText(""); //Clear the text if invalid input somehow occurs
             }
         }
+        
+        //Display every cell that conflicts with another cell as red
+        view.showConflicts(modelBoard);
     }
 }
@@ -1,9 +1,16 @@
 package javasudoku.controller;
 import java.awt.event.ActionEvent;
+import java.awt.event.WindowEvent;
 import java.util.ArrayList;
-import javasudoku.dbaccess.SudokuDBManager;
+import java.util.concurrent.CompletableFuture;
+import javasudoku.dbaccess.AsyncSudokuGameDAO;
+import javasudoku.dbaccess.AutosaveJournal;
+import javasudoku.model.GameSortOrder;
 import javasudoku.model.SavedGameModel;
+import javasudoku.model.SudokuBoard;
 import javasudoku.model.SudokuGame;
+import javasudoku.model.SudokuGameDAO;
+import javasudoku.model.SudokuGameSummary;
 import javasudoku.model.SudokuModel;
 import javasudoku.view.NumberSliderDialog;
 import javasudoku.view.YesNoDialog;
@@ -14,23 +21,35 @@ import javax.swing.JOptionPane;
 
 /**
  * Connects a SudokuModel and SudokuView instance
+ * 
+ * Saved games are read and written through an AsyncSudokuGameDAO, so the view stays responsive
+ * while the database is busy. The view is put in a loading state until each request is finished,
+ * and the rest of the request is then continued on the event dispatch thread.
+ * 
+ * Each move of the active game is recorded in an AutosaveJournal, which also owns the ID of the
+ * game in the database. Saving commits the journaled game, and declining to save discards it.
  * @author Ishaiah Cross
  */
 public class SudokuController {
     private final SudokuModel model;
     private final SudokuView view;
+    private final AsyncSudokuGameDAO db;
+    private final AutosaveJournal journal;
     private CellPanelEventController boardInputListener;
     private boolean enableSaving;
-    private Integer activeGameDB_ID; //The ID of the active game in the database
+    private Long lastSavedHash; //The hash of the board when it was last saved or loaded, or null if it has not been
+    private int pendingRequests; //The number of database requests that have not finished
     
-    public SudokuController(SudokuModel model, SudokuView view) {   
+    public SudokuController(SudokuModel model, SudokuView view, AsyncSudokuGameDAO db, AutosaveJournal journal) {   
         this.model = model;
         this.view = view;
+        this.db = db;
+        this.journal = journal;
         
         //Disable the text inputs on the board until a game has been started
         view.sudokuBoardPanel.setActive(false);
-        //Set the active game ID to null. When a game is loaded, this field is initialized
-        this.activeGameDB_ID = null;
+        this.lastSavedHash = null;
+        this.pendingRequests = 0;
     }
     
     /**
@@ -53,12 +72,15 @@ public class SudokuController {
         
         //Quit Game button clicked
         view.quitButton.addActionListener((ActionEvent e) -> {
-             //If there is a game in progress, prompt the user to save
-            if(!model.isBoardEmpty())
-                requestSaveGame();
-            
-            view.setVisible(false);
-            view.dispose();
+             //If there is a game in progress, prompt the user to save, and wait for it to be written before closing
+            requestSaveInProgressGame().thenAcceptAsync((Boolean saved) -> {
+                if(!saved)
+                    return;
+                
+                //Close the same way as the window's close button, so the journal and database are closed before exiting
+                journal.stopGame();
+                view.dispatchEvent(new WindowEvent(view, WindowEvent.WINDOW_CLOSING));
+            }, AsyncSudokuGameDAO.EDT);
         });
         
         //Show Solution button clicked
@@ -81,9 +103,11 @@ public class SudokuController {
             requestShowHelp();
         });
         
-        //Set up listener for when cell values are changed or clicked on
+        //Set up listener for when cell values are changed or clicked on, recording each move in the journal
         this.boardInputListener = new CellPanelEventController(view, model, () -> {
             onBoardSolved();
+        }, (int index, int value) -> {
+            journal.recordMove(index, value);
         });
     }
     
@@ -98,8 +122,32 @@ public class SudokuController {
         JOptionPane.showMessageDialog(null, "To play again, start a new game or load an existing game using the options on the right.", 
                     "Puzzle Completed", JOptionPane.INFORMATION_MESSAGE);
         
-        //Disable saving of a solved board
+        //Save the solved board with its solve time, then disable saving of it
         this.enableSaving = false;
+        whileLoading(journal.commit());
+        journal.stopGame();
+    }
+    
+    /**
+     * Shows the view as loading until a database request has finished. Any error is printed,
+     * and the returned future completes on the event dispatch thread.
+     * @param <T> The type of the result of the request
+     * @param request The request to wait for
+     * @return A future that is completed in the same way as the request
+     */
+    private <T> CompletableFuture<T> whileLoading(CompletableFuture<T> request) {
+        if(pendingRequests++ == 0)
+            view.setLoading(true);
+        
+        return request.whenCompleteAsync((T result, Throwable error) -> {
+            if(--pendingRequests == 0)
+                view.setLoading(false);
+            
+            if(error != null) {
+                System.out.println("Database request failed.");
+                System.out.println(error);
+            }
+        }, AsyncSudokuGameDAO.EDT);
     }
     
     /**
@@ -121,10 +169,23 @@ public class SudokuController {
         
         //Solve the board
         if(reveal) {
-            model.solveBoard();
+            //The solution of a saved game is read from the database, and any other game is solved
+            Integer gameID = journal.getGameID();
+            if(gameID != null) {
+                whileLoading(db.getSolution(gameID)).thenAccept((SudokuBoard solution) -> {
+                    if(solution != null)
+                        model.showSolution(solution);
+                    else
+                        model.solveBoard();
+                });
+            } else {
+                model.solveBoard();
+            }
+            
             //Disable the board and disable saving
             view.activateBoard(false);
             this.enableSaving = false;
+            journal.discard();
         }
     }
     
@@ -132,68 +193,103 @@ public class SudokuController {
      * Prompts the user to select a user from a list of existing users
      */
     private void requestChangeUser() {
-        //Get the unique user names from the database
-        ArrayList<String> userOptions = SudokuDBManager.getInstance().getPlayerNames();
-        
-        if(userOptions.isEmpty()) {
-            //If there were no users, prompt the user to create a new one and exit
-            JOptionPane.showMessageDialog(null, "No users found. Please create a new user using the 'New User' button.", 
-                    "No existing users", JOptionPane.INFORMATION_MESSAGE);
-            return;
-        }
-        
-        //Display a prompt and get the user's selection from the list
-        Integer selectedRow = ListOptionDialog.prompt("Select a user", "User selection", userOptions);
-        
-        if(selectedRow == null) //If the user clicked cancel, do nothing
-            return;
+        //Get the unique user names from the database, then continue once they have been read
+        whileLoading(db.getPlayerNames()).thenAcceptAsync((ArrayList<String> userOptions) -> {
+            if(userOptions.isEmpty()) {
+                //If there were no users, prompt the user to create a new one and exit
+                JOptionPane.showMessageDialog(null, "No users found. Please create a new user using the 'New User' button.", 
+                        "No existing users", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
 
-        if(selectedRow == -1) { //If the user did not select a row, display an error
-            JOptionPane.showMessageDialog(null, "Please select a row.", 
-                "Error", JOptionPane.INFORMATION_MESSAGE);
-            
-            return;
-        }
-        
-        //If there is a game in progress, prompt the user to save
-        if(!model.isBoardEmpty()) {
-            requestSaveGame();
-            model.startEmptyBoard(); //Clear the board
-        }
-        
-        //Get the selection and update the model
-        String name = userOptions.get(selectedRow);
-        model.setPlayerName(name);
+            //Display a prompt and get the user's selection from the list
+            Integer selectedRow = ListOptionDialog.prompt("Select a user", "User selection", userOptions);
+
+            if(selectedRow == null) //If the user clicked cancel, do nothing
+                return;
+
+            if(selectedRow == -1) { //If the user did not select a row, display an error
+                JOptionPane.showMessageDialog(null, "Please select a row.", 
+                    "Error", JOptionPane.INFORMATION_MESSAGE);
+
+                return;
+            }
+
+            //If there is a game in progress, prompt the user to save and clear the board
+            String name = userOptions.get(selectedRow);
+            requestSaveInProgressGame().thenAcceptAsync((Boolean saved) -> {
+                if(!saved)
+                    return;
+                
+                if(!model.isBoardEmpty())
+                    model.startEmptyBoard();
+                
+                //The selected user's first save must not be skipped as unchanged from the previous user's game
+                journal.stopGame();
+                this.lastSavedHash = null;
+                
+                //Update the model with the selection
+                model.setPlayerName(name);
+            }, AsyncSudokuGameDAO.EDT);
+        }, AsyncSudokuGameDAO.EDT);
     }
     
     /**
      * Prompts the user to save their game
      * A dialog with options 'yes' and 'no' will be displayed
      * If 'yes' is selected, the game will be written to the database
-     * @return True if the user selected to save, false if not
+     * 
+     * The user is not prompted if the board has not changed since it was last saved or loaded.
+     * If the game could not be written, an error is displayed.
+     * @return A future completed on the event dispatch thread once the game has been written, holding
+     * false if the game could not be written, or true if it was written or did not need to be, so that
+     * callers only leave the current game once it is safe to
      */
-    private boolean requestSaveGame() {
+    private CompletableFuture<Boolean> requestSaveGame() {
         //If saving is not permitted (The board is solved), do nothing
         if(!this.enableSaving)
-            return false;
+            return CompletableFuture.completedFuture(true);
+        
+        //If nothing has changed since the last save, there is nothing new to write
+        SudokuGame exportedGame = model.exportGame();
+        long boardHash = exportedGame.boardState.getZobristHash();
+        if(this.lastSavedHash != null && this.lastSavedHash == boardHash)
+            return CompletableFuture.completedFuture(true);
         
         //Prompt user to save their game to the database, confirming the current username
         boolean save = YesNoDialog.prompt("Save your game under '" + model.getPlayerName() 
                 + "'? Any invalid cells will not be saved.", "Save Game");
 
-        if(save) {
-            //Use the database manager to save the game to the database
-            SudokuDBManager dbaccess = SudokuDBManager.getInstance();
-            
-            //If the game's ID already exists in the database, remove it so it can be updated
-            if(this.activeGameDB_ID != null)
-                dbaccess.removeGame(this.activeGameDB_ID);
-                
-            //Add the game to the database
-            dbaccess.addGame(model.exportGame());
+        if(!save) {
+            //Undo any progress that was autosaved since the game was last saved, and wait for it to be undone
+            return whileLoading(journal.discard()).handle((Void done, Throwable error) -> true);
         }
         
-        return save;
+        //The journal holds the same board as the model. If the game already exists in the database, its row is updated in place
+        return whileLoading(journal.commit()).handleAsync((Integer savedID, Throwable error) -> {
+            //The game stays active, and its progress stays in the journal, so the user can try again
+            if(error != null || savedID == null) {
+                JOptionPane.showMessageDialog(null, "Your game could not be saved. Please try again.", 
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                return false;
+            }
+            
+            this.lastSavedHash = boardHash;
+            return true;
+        }, AsyncSudokuGameDAO.EDT);
+    }
+    
+    /**
+     * Prompts the user to save their game if a game is in progress
+     * @return A future completed on the event dispatch thread once any save has finished, holding
+     * false if the game could not be saved
+     * @see #requestSaveGame()
+     */
+    private CompletableFuture<Boolean> requestSaveInProgressGame() {
+        if(model.isBoardEmpty())
+            return CompletableFuture.completedFuture(true);
+        
+        return requestSaveGame();
     }
     
     /**
@@ -216,15 +312,24 @@ public class SudokuController {
             return false;
         }
         
-        //Ask if the user wishes to save their game before finalizing the update
-        if(!model.isBoardEmpty()) {
-            requestSaveGame();
-            model.startEmptyBoard();
-        }
-                
         //Trim the name to a maximum of 15 characters
-        name = name.substring(0, Math.min(name.length(), 15));
-        model.setPlayerName(name);
+        String trimmedName = name.substring(0, Math.min(name.length(), 15));
+        
+        //Ask if the user wishes to save their game before finalizing the update
+        requestSaveInProgressGame().thenAcceptAsync((Boolean saved) -> {
+            if(!saved)
+                return;
+            
+            if(!model.isBoardEmpty())
+                model.startEmptyBoard();
+            
+            //The new user's first save must not overwrite the previous user's game
+            journal.stopGame();
+            this.lastSavedHash = null;
+            
+            model.setPlayerName(trimmedName);
+        }, AsyncSudokuGameDAO.EDT);
+        
         return true;
     }
     
@@ -234,31 +339,34 @@ public class SudokuController {
      * If a game is already in progress, the user will be asked if they wish to save their game
      */
     private void requestStartNewGame() {
-        //Check if a game is already in progress
-        if(!model.isBoardEmpty()) {
-            requestSaveGame();
-        }
-        
-        //Prompt the user to select a user or enter their name if no user has been set
-        if(!model.hasValidPlayer()) {
-            JOptionPane.showMessageDialog(null, "Please select a user or create a new user before starting a new game.", 
-                    "Select a User", JOptionPane.INFORMATION_MESSAGE);
+        //Check if a game is already in progress, and continue once it has been saved
+        requestSaveInProgressGame().thenAcceptAsync((Boolean saved) -> {
+            if(!saved)
+                return;
             
-            return;
-        }
-        
-        Integer difficulty = NumberSliderDialog.prompt("Please select a difficulty (0 easiest, 100 hardest)", 
-                "Difficulty Select", 0, 100); 
-        
-        if(difficulty == null) //If the user clicked cancel, do nothing
-            return;
+            //Prompt the user to select a user or enter their name if no user has been set
+            if(!model.hasValidPlayer()) {
+                JOptionPane.showMessageDialog(null, "Please select a user or create a new user before starting a new game.", 
+                        "Select a User", JOptionPane.INFORMATION_MESSAGE);
 
-        model.startPuzzle(difficulty);
-        view.activateBoard(true);
-        
-        //Re-enable saving
-        this.enableSaving = true;
-        view.setValid(); //Clear away any red (invalid) cells, as a new game will not have any
+                return;
+            }
+
+            Integer difficulty = NumberSliderDialog.prompt("Please select a difficulty (0 easiest, 100 hardest)", 
+                    "Difficulty Select", 0, 100); 
+
+            if(difficulty == null) //If the user clicked cancel, do nothing
+                return;
+
+            model.startPuzzle(difficulty);
+            view.activateBoard(model.getBoard());
+            journal.startGame(model.exportGame());
+            this.lastSavedHash = null;
+
+            //Re-enable saving
+            this.enableSaving = true;
+            view.setValid(); //Clear away any red (invalid) cells, as a new game will not have any
+        }, AsyncSudokuGameDAO.EDT);
     }
     
     /**
@@ -275,46 +383,89 @@ public class SudokuController {
             return;
         }
         
-        //Check if a game is already in progress
-        if(!model.isBoardEmpty()) {
-            requestSaveGame();
-        }
-        
-        //Query the database for games the user has previously played
-        SudokuDBManager db = SudokuDBManager.getInstance();
-        ArrayList<SudokuGame> pastGames = db.getGamesByName(model.getPlayerName());
+        String name = model.getPlayerName();
         
-        if(pastGames.isEmpty()) { //If this user has not played any games previously, display an error
-            JOptionPane.showMessageDialog(null, "You do not have any saved games. Please start a new game or select a new user.", 
-                    "Error", JOptionPane.INFORMATION_MESSAGE);
-        } else {    
+        //Check if a game is already in progress
+        requestSaveInProgressGame().thenComposeAsync((Boolean saved) -> {
+            if(!saved)
+                return CompletableFuture.completedFuture(null);
+            
+            //Count the games the user has previously played, and read the first page of them in the background
+            //Later pages are read in the background as they are displayed
+            return whileLoading(db.submit((SudokuGameDAO games) -> {
+                int count = games.getGameCount(name);
+                ArrayList<SudokuGameSummary> firstPage = count > 0 
+                        ? games.getGameSummaries(name, 0, SavedGameModel.PAGE_SIZE, GameSortOrder.NEWEST_FIRST) : new ArrayList<>();
+                
+                return new SavedGameModel(count, firstPage, 
+                        (int offset, int limit) -> db.getGameSummaries(name, offset, limit, GameSortOrder.NEWEST_FIRST));
+            }));
+        }, AsyncSudokuGameDAO.EDT).thenAcceptAsync((SavedGameModel tableModel) -> {
+            //The game in progress could not be saved, or the games could not be counted
+            if(tableModel == null)
+                return;
+            
+            if(tableModel.getRowCount() == 0) { //If this user has not played any games previously, display an error
+                JOptionPane.showMessageDialog(null, "You do not have any saved games. Please start a new game or select a new user.", 
+                        "Error", JOptionPane.INFORMATION_MESSAGE);
+                
+                return;
+            }
+            
             //Prompt the user to select a saved game from the database
-            SavedGameModel tableModel = new SavedGameModel(pastGames);
             Integer selectedRow = TableDialog.prompt("Select a game: ", tableModel);
-            
-                        
+
             if(selectedRow == null) //If the user clicked cancel, do nothing
                 return;
-            
+
             if(selectedRow == -1) { //If the user did not select a row, display an error
                 JOptionPane.showMessageDialog(null, "Please select a row.", 
                     "Error", JOptionPane.INFORMATION_MESSAGE);
-                
+
                 return;
             }
-                        
-            //Valid selection received, get the game object from the table model and load it into the game model
-            SudokuGame selectedGame = tableModel.getGame(selectedRow);
-            model.importGame(selectedGame);
-            view.activateBoard(true);
-            
-            //Re-enable saving
-            this.enableSaving = true;
+
+            //Valid selection received, get the game object from the database and load it into the game model
+            //Only the selected game's board is read from the database
+            Integer selectedID = tableModel.getGameID(selectedRow);
+            CompletableFuture<SudokuGame> selection = selectedID != null ? whileLoading(db.getGame(selectedID))
+                    : CompletableFuture.completedFuture(null);
             
-            //Track the ID so that the database record can be updated later
-            this.activeGameDB_ID = selectedGame.getGameID();
-            view.setValid(); //Clear away any red (invalid) cells, as a loaded game will not have any
+            selection.thenAcceptAsync((SudokuGame selectedGame) -> loadSelectedGame(selectedGame), AsyncSudokuGameDAO.EDT);
+        }, AsyncSudokuGameDAO.EDT);
+    }
+    
+    /**
+     * Loads a game chosen by the user into the model
+     * @param selectedGame The game read from the database, or null if it could not be read
+     */
+    private void loadSelectedGame(SudokuGame selectedGame) {
+        if(selectedGame == null) { //The game could not be read from the database
+            JOptionPane.showMessageDialog(null, "The selected game could not be loaded.", 
+                "Error", JOptionPane.INFORMATION_MESSAGE);
+
+            return;
         }
+
+        model.importGame(selectedGame);
+        view.activateBoard(model.getBoard());
+
+        //A solved game can be viewed, but not changed or saved again
+        if(selectedGame.isSolved) {
+            view.activateBoard(false);
+            view.setValid();
+            this.enableSaving = false;
+            journal.stopGame();
+            return;
+        }
+
+        //Re-enable saving
+        this.enableSaving = true;
+
+        //Journal the game and track its state, so that the database record can be updated later
+        journal.startGame(selectedGame);
+        this.lastSavedHash = selectedGame.boardState.getZobristHash();
+        view.setValid(); //Clear away any red (invalid) cells, as a loaded game will not have any
     }
     
     /**
@@ -334,7 +485,8 @@ public class SudokuController {
                 + "This will overwrite your previously saved progress."
                 + "\n"
                 + "If the solution for a puzzle is revealed, the option to save the puzzle will not be given.\n"
-                + "Warning: If the window is closed using the top-right X icon, the game will not be saved.", 
+                + "A puzzle that you solve is saved automatically, along with the time you took to solve it.\n"
+                + "If the window is closed using the top-right X icon, your progress will be saved automatically.", 
                     "Instructions", JOptionPane.INFORMATION_MESSAGE);
     }
    
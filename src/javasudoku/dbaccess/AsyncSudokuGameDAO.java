@@ -0,0 +1,267 @@
+package javasudoku.dbaccess;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import javasudoku.model.GameSortOrder;
+import javasudoku.model.PlayerStats;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuGame;
+import javasudoku.model.SudokuGameDAO;
+import javasudoku.model.SudokuGameSummary;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs the methods of a SudokuGameDAO on a dedicated I/O thread, so that the Swing event
+ * dispatch thread is not blocked while the database starts up or reads from disk.
+ * 
+ * Each method returns a CompletableFuture holding the result of the DAO method. Continuations
+ * that update the view should be run on the event dispatch thread using the EDT executor, e.g.
+ * dao.getPlayerNames().thenAcceptAsync(names -> ..., AsyncSudokuGameDAO.EDT)
+ * 
+ * Tasks are run one at a time in the order that they were submitted, so a game that is saved
+ * will always be visible to any task submitted after it. The DAO itself is only created when the
+ * first task is run, on the I/O thread.
+ * 
+ * Backups and purges of old games are run on a separate maintenance thread, since they visit every game,
+ * and would otherwise hold up the games that the player loads and saves until they finished.
+ * @author Ishaiah Cross
+ */
+public class AsyncSudokuGameDAO implements AutoCloseable {
+    //Runs continuations on the Swing event dispatch thread
+    public static final Executor EDT = SwingUtilities::invokeLater;
+    
+    //The number of seconds to wait for submitted tasks to finish when closing
+    private static final long CLOSE_TIMEOUT = 10;
+    
+    private final Supplier<? extends SudokuGameDAO> daoSupplier;
+    private final ExecutorService ioExecutor;
+    private final ExecutorService maintenanceExecutor;
+    private SudokuGameDAO dao; //Only assigned on the I/O thread. Maintenance tasks are handed it by a task on the I/O thread.
+    
+    /**
+     * @param daoSupplier Creates the DAO that tasks are run against, e.g. SudokuDBManager::getInstance
+     */
+    public AsyncSudokuGameDAO(Supplier<? extends SudokuGameDAO> daoSupplier) {
+        this.daoSupplier = daoSupplier;
+        
+        //The thread is a daemon so that it does not keep the program running once the window is closed
+        this.ioExecutor = Executors.newSingleThreadExecutor((Runnable task) -> {
+            Thread thread = new Thread(task, "SudokuGameDAO I/O");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        this.maintenanceExecutor = Executors.newSingleThreadExecutor((Runnable task) -> {
+            Thread thread = new Thread(task, "SudokuGameDAO maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Runs a task against the DAO on the I/O thread
+     * @param <T> The type of the result of the task
+     * @param task The task to run
+     * @return A future that is completed with the result of the task, or exceptionally if the task failed
+     */
+    public <T> CompletableFuture<T> submit(Function<SudokuGameDAO, T> task) {
+        return CompletableFuture.supplyAsync(() -> task.apply(getDAO()), ioExecutor);
+    }
+    
+    /**
+     * Creates the DAO in the background if it has not been created yet, so that
+     * the first request made by the user does not have to wait for the database to start
+     * @return A future that is completed once the DAO is ready
+     */
+    public CompletableFuture<Void> connect() {
+        return submit((SudokuGameDAO ready) -> null);
+    }
+    
+    /**
+     * @return A future holding the unique player names in data storage
+     * @see SudokuGameDAO#getPlayerNames()
+     */
+    public CompletableFuture<ArrayList<String>> getPlayerNames() {
+        return submit(SudokuGameDAO::getPlayerNames);
+    }
+    
+    /**
+     * @param gameID The ID of the game to retrieve
+     * @return A future holding the game, or null if it could not be retrieved
+     * @see SudokuGameDAO#getGame(int)
+     */
+    public CompletableFuture<SudokuGame> getGame(int gameID) {
+        return submit((SudokuGameDAO games) -> games.getGame(gameID));
+    }
+    
+    /**
+     * @param gameID The ID of the game whose puzzle to get the solution of
+     * @return A future holding the solved board, or null if there is no known solution
+     * @see SudokuGameDAO#getSolution(int)
+     */
+    public CompletableFuture<SudokuBoard> getSolution(int gameID) {
+        return submit((SudokuGameDAO games) -> games.getSolution(gameID));
+    }
+    
+    /**
+     * @param name The player name to count the games of
+     * @return A future holding the number of games saved under the name
+     * @see SudokuGameDAO#getGameCount(String)
+     */
+    public CompletableFuture<Integer> getGameCount(String name) {
+        return submit((SudokuGameDAO games) -> games.getGameCount(name));
+    }
+    
+    /**
+     * @param name The player name to get the statistics of
+     * @return A future holding the statistics of the player, or null if they have never saved a game
+     * @see SudokuGameDAO#getPlayerStats(String)
+     */
+    public CompletableFuture<PlayerStats> getPlayerStats(String name) {
+        return submit((SudokuGameDAO games) -> games.getPlayerStats(name));
+    }
+    
+    /**
+     * @param limit The largest number of players to return
+     * @return A future holding the statistics of the players with the fastest solved games
+     * @see SudokuGameDAO#getLeaderboard(int)
+     */
+    public CompletableFuture<ArrayList<PlayerStats>> getLeaderboard(int limit) {
+        return submit((SudokuGameDAO games) -> games.getLeaderboard(limit));
+    }
+    
+    /**
+     * @param name The player name to search for
+     * @param offset The number of matching games to skip
+     * @param limit The largest number of summaries to return
+     * @param sort The order of the matching games
+     * @return A future holding the summaries of the matching games
+     * @see SudokuGameDAO#getGameSummaries(String, int, int, GameSortOrder)
+     */
+    public CompletableFuture<ArrayList<SudokuGameSummary>> getGameSummaries(String name, int offset, int limit, GameSortOrder sort) {
+        return submit((SudokuGameDAO games) -> games.getGameSummaries(name, offset, limit, sort));
+    }
+    
+    /**
+     * @param game The game to save, which should not be modified until the future is completed
+     * @return A future holding the ID of the saved game, or null if it could not be saved
+     * @see SudokuGameDAO#saveGame(SudokuGame)
+     */
+    public CompletableFuture<Integer> saveGame(SudokuGame game) {
+        return submit((SudokuGameDAO games) -> games.saveGame(game));
+    }
+    
+    /**
+     * Backs up the storage on the maintenance thread, while other tasks continue to run. A Derby database
+     * is copied whole into the backup folder, with every table as of one point in time. The games of any
+     * other storage are written to the backup file by GameBackup.
+     * @param backupPath The folder to copy a Derby database to, or the file to write the games of other storage to
+     * @return A future holding true if the backup was written, or false otherwise
+     * @see SudokuDBManager#backupDatabase(Path)
+     * @see GameBackup#write(SudokuGameDAO, Path)
+     */
+    public CompletableFuture<Boolean> backup(Path backupPath) {
+        return submit((SudokuGameDAO games) -> games)
+                .thenApplyAsync((SudokuGameDAO games) -> {
+                    SudokuGameDAO storage = games instanceof CachingSudokuGameDAO ? ((CachingSudokuGameDAO)games).getStorage() : games;
+                    if(storage instanceof SudokuDBManager)
+                        return ((SudokuDBManager)storage).backupDatabase(backupPath);
+                    
+                    return GameBackup.write(games, backupPath) >= 0;
+                }, maintenanceExecutor);
+    }
+    
+    /**
+     * Adds the games in a backup to the DAO on the maintenance thread, while other tasks continue to run.
+     * Nothing is restored if the DAO already holds games, so a backup is not added again each time the
+     * program starts with the same backup configured.
+     * @param backupFile The backup file to read
+     * @return A future holding the number of games added, or -1 if the DAO was not empty or the backup could not be read
+     * @see GameBackup#restore(SudokuGameDAO, Path)
+     */
+    public CompletableFuture<Integer> restore(Path backupFile) {
+        //A failed read is not taken to mean that the DAO is empty
+        return submit((SudokuGameDAO games) -> {
+                    ArrayList<SudokuGame> first = games.getGamesAfter(0, 1);
+                    return first != null && first.isEmpty() ? games : null;
+                })
+                .thenApplyAsync((SudokuGameDAO games) -> {
+                    if(games == null) {
+                        System.out.println("Not restoring " + backupFile + ", as games are already stored or could not be read");
+                        return -1;
+                    }
+                    
+                    return GameBackup.restore(games, backupFile);
+                }, maintenanceExecutor);
+    }
+    
+    /**
+     * Removes the games that a retention policy does not keep on the maintenance thread, while other tasks continue to run
+     * @param policy The retention policy
+     * @param inUse Tests whether a game is in use, so that it is kept. It is called from the maintenance thread.
+     * @return A future holding the number of games removed
+     * @see RetentionPolicy#purge(SudokuGameDAO, IntPredicate)
+     */
+    public CompletableFuture<Integer> purge(RetentionPolicy policy, IntPredicate inUse) {
+        return submit((SudokuGameDAO games) -> games)
+                .thenApplyAsync((SudokuGameDAO games) -> policy.purge(games, inUse), maintenanceExecutor);
+    }
+    
+    /**
+     * Stops accepting tasks, and waits a short time for the submitted tasks to finish. A backup or purge
+     * that is still running after that is interrupted, and a purge stops before its next batch.
+     * The DAO is then closed if it was created and can be closed. If a task is still running after
+     * that, the DAO is left open rather than closed from under it.
+     */
+    @Override
+    public void close() {
+        maintenanceExecutor.shutdown();
+        ioExecutor.shutdown();
+        
+        try {
+            if(!ioExecutor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS)) {
+                System.out.println("Timed out waiting for database tasks to finish.");
+                return;
+            }
+            
+            if(!maintenanceExecutor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS)) {
+                maintenanceExecutor.shutdownNow();
+                if(!maintenanceExecutor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS)) {
+                    System.out.println("Timed out waiting for a backup or purge to stop.");
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        
+        //No task is running, so the DAO can be read from this thread
+        if(dao instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable)dao).close();
+            } catch (Exception ex) {
+                System.out.println("Failed to close data storage.");
+                System.out.println(ex.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * @return The DAO, which is created the first time it is needed
+     */
+    private SudokuGameDAO getDAO() {
+        if(dao == null)
+            dao = daoSupplier.get();
+        
+        return dao;
+    }
+}
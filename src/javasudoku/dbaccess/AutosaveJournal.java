@@ -0,0 +1,564 @@
+package javasudoku.dbaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuBoardCodec;
+import javasudoku.model.SudokuGame;
+import javasudoku.model.SudokuGameDAO;
+
+/**
+ * Saves the progress of the active game in the background, so that it is not lost if the program
+ * is closed without saving or stops unexpectedly.
+ *
+ * Every move is appended to a small journal file, which is forced to disk every FSYNC_INTERVAL
+ * milliseconds. Every CONSOLIDATE_INTERVAL milliseconds, and when the journal is closed, the
+ * active game is written to data storage through an AsyncSudokuGameDAO and the journal is
+ * compacted to a single checkpoint. A journal left behind by a previous run is replayed into
+ * data storage when it is opened.
+ *
+ * A checkpoint is written to a temporary file, which is forced to disk and then moved over the journal,
+ * so a journal cut off part way through being compacted still holds either the old or the new checkpoint.
+ *
+ * The journal file is made up of records, each starting with a record type byte:
+ * CHECKPOINT  gameID (int, -1 if not saved), name length (byte), player name (UTF-8), board encoded by SudokuBoardCodec with givens,
+ *             play time in milliseconds (long), unsaved (byte, 1 if the board has moves that are not in data storage)
+ * MOVE        cell index (byte), cell value (byte)
+ *
+ * The journal also times how long the active game has been played for, adding the time since it was started
+ * to the play time it was started with, and the play time is written to data storage with the game.
+ *
+ * If the player chooses not to save a game, discard undoes any changes that were written to
+ * data storage since the game was started or last committed.
+ * @author Ishaiah Cross
+ */
+public class AutosaveJournal implements AutoCloseable {
+    //The number of milliseconds between each time the journal is forced to disk
+    public static final long FSYNC_INTERVAL = 1000;
+    //The number of milliseconds between each time the active game is written to data storage
+    public static final long CONSOLIDATE_INTERVAL = 30000;
+
+    private static final byte MOVE_RECORD = 2;
+    private static final byte CHECKPOINT_RECORD = 4;
+    private static final int MOVE_RECORD_BYTES = 3;
+    private static final int MAX_NAME_BYTES = 255;
+
+    private final Path journalFile;
+    private FileChannel channel; //Null if the journal file could not be opened. Replaced by each checkpoint.
+    private final AsyncSudokuGameDAO db;
+    private final ScheduledExecutorService scheduler;
+    private final ByteBuffer moveBuffer;
+
+    private JournaledGame activeGame; //The game being journaled, or null if there is none
+    private boolean unsynced; //True if records were written since the journal was last forced to disk
+
+    /**
+     * The state of a game being journaled. Tasks that run on the I/O thread keep a reference to
+     * the game that they were created for, so a game that has been replaced is not affected by them.
+     */
+    private static class JournaledGame {
+        final String playerName;
+        final SudokuBoard board;
+        Integer gameID;
+        SudokuGame baseline; //The game as it was last committed, or null if it has not been committed
+        boolean autosaved; //True if the game was written to data storage since it was last committed
+        long moveCount; //The number of moves made since the game was started
+        long savedMoveCount; //The number of moves that have been written to data storage
+        final long previousPlayTime; //The play time of the game when it was started
+        final long startTime; //The time the game was started, as given by System.currentTimeMillis
+
+        JournaledGame(String playerName, SudokuBoard board, Integer gameID, long previousPlayTime) {
+            this.playerName = playerName;
+            this.board = board;
+            this.gameID = gameID;
+            this.previousPlayTime = previousPlayTime;
+            this.startTime = System.currentTimeMillis();
+        }
+
+        /**
+         * @return The number of milliseconds the game has been played for, including before it was started
+         */
+        long getPlayTime() {
+            return previousPlayTime + Math.max(0, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private AutosaveJournal(Path journalFile, FileChannel channel, AsyncSudokuGameDAO db) {
+        this.journalFile = journalFile;
+        this.channel = channel;
+        this.db = db;
+        this.moveBuffer = ByteBuffer.allocate(MOVE_RECORD_BYTES);
+        this.activeGame = null;
+        this.unsynced = false;
+
+        //The thread is a daemon so that it does not keep the program running once the window is closed
+        this.scheduler = Executors.newSingleThreadScheduledExecutor((Runnable task) -> {
+            Thread thread = new Thread(task, "Autosave journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a journal, replaying any game left in it into data storage, and starts saving in the background.
+     * If the journal file cannot be opened, games are still written to data storage at intervals.
+     * @param journalFile The file to keep the journal in, which is created if it does not exist
+     * @param db The data storage to write games to
+     * @return The opened journal
+     */
+    public static AutosaveJournal open(Path journalFile, AsyncSudokuGameDAO db) {
+        FileChannel channel = null;
+
+        try {
+            channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            System.out.println("Failed to open autosave journal " + journalFile + ", progress will only be saved at intervals.");
+            System.out.println(ex.getMessage());
+        }
+
+        AutosaveJournal journal = new AutosaveJournal(journalFile, channel, db);
+        journal.replay();
+        journal.scheduler.scheduleWithFixedDelay(journal::sync, FSYNC_INTERVAL, FSYNC_INTERVAL, TimeUnit.MILLISECONDS);
+        journal.scheduler.scheduleWithFixedDelay(journal::consolidate, CONSOLIDATE_INTERVAL, CONSOLIDATE_INTERVAL, TimeUnit.MILLISECONDS);
+
+        return journal;
+    }
+
+    /**
+     * Starts journaling a game, replacing the previous game without writing it to data storage.
+     * A game that has a game ID is treated as already committed.
+     * @param game The game to journal, which is copied
+     */
+    public synchronized void startGame(SudokuGame game) {
+        activeGame = new JournaledGame(game.playerName, game.boardState.fork(), game.getGameID(), game.getPlayTime());
+
+        if(game.getGameID() != null)
+            activeGame.baseline = copyGame(game, game.getGameID());
+
+        writeCheckpoint();
+    }
+
+    /**
+     * Stops journaling the active game, without writing it to data storage
+     */
+    public synchronized void stopGame() {
+        activeGame = null;
+        writeCheckpoint();
+    }
+
+    /**
+     * @return The ID of the active game in data storage, or null if it has not been written yet
+     */
+    public synchronized Integer getGameID() {
+        return activeGame != null ? activeGame.gameID : null;
+    }
+
+    /**
+     * Records a change to a cell of the active game. Moves made when no game is active are ignored.
+     * @param index The index of the cell, as defined by SudokuCoordinate
+     * @param value The new value of the cell, or 0 if it was cleared
+     */
+    public synchronized void recordMove(int index, int value) {
+        if(activeGame == null)
+            return;
+
+        activeGame.board.setCellUnchecked(index, value);
+        activeGame.moveCount++;
+
+        if(channel == null)
+            return;
+
+        moveBuffer.clear();
+        moveBuffer.put(MOVE_RECORD).put((byte)index).put((byte)value).flip();
+
+        try {
+            while(moveBuffer.hasRemaining())
+                channel.write(moveBuffer);
+
+            unsynced = true;
+        } catch (IOException ex) {
+            System.out.println("Failed to write move to autosave journal.");
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Writes the active game to data storage as the player's saved progress. Any invalid cells are not saved.
+     * @return A future holding the ID of the saved game, or null if it could not be saved
+     */
+    public synchronized CompletableFuture<Integer> commit() {
+        if(activeGame == null)
+            return CompletableFuture.completedFuture(null);
+
+        JournaledGame game = activeGame;
+        SudokuGame snapshot = exportGame(game);
+        long moveCount = game.moveCount;
+
+        return db.submit((SudokuGameDAO games) -> {
+            Integer savedID = save(games, game, snapshot, moveCount);
+
+            if(savedID != null) {
+                synchronized(this) {
+                    game.baseline = copyGame(snapshot, savedID);
+                    game.autosaved = false;
+                }
+            }
+
+            return savedID;
+        });
+    }
+
+    /**
+     * Stops journaling the active game, and undoes any changes written to data storage since it was
+     * started or last committed. A game that was never committed is removed from data storage.
+     * @return A future that is completed once the changes have been undone
+     */
+    public synchronized CompletableFuture<Void> discard() {
+        if(activeGame == null)
+            return CompletableFuture.completedFuture(null);
+
+        JournaledGame game = activeGame;
+        activeGame = null;
+        writeCheckpoint();
+
+        //Queued after any write of the game that is still pending, so it sees the final game ID
+        return db.submit((SudokuGameDAO games) -> {
+            SudokuGame baseline;
+            Integer gameID;
+            synchronized(this) {
+                if(!game.autosaved)
+                    return null;
+
+                baseline = game.baseline;
+                gameID = game.gameID;
+            }
+
+            if(baseline != null)
+                games.saveGame(copyGame(baseline, gameID));
+            else if(gameID != null)
+                games.removeGames(gameID);
+
+            return null;
+        });
+    }
+
+    /**
+     * Writes the active game to data storage now, and compacts the journal, if any moves were made since it was last written
+     * @return A future that is completed once the game has been written
+     */
+    public synchronized CompletableFuture<Integer> consolidate() {
+        if(activeGame == null || activeGame.savedMoveCount == activeGame.moveCount)
+            return CompletableFuture.completedFuture(null);
+
+        JournaledGame game = activeGame;
+        SudokuGame snapshot = exportGame(game);
+        long moveCount = game.moveCount;
+
+        return db.submit((SudokuGameDAO games) -> {
+            Integer savedID = save(games, game, snapshot, moveCount);
+
+            if(savedID != null) {
+                synchronized(this) {
+                    game.autosaved = true;
+                }
+            }
+
+            return savedID;
+        });
+    }
+
+    /**
+     * Writes the active game to data storage and closes the journal. The journal is only emptied
+     * if the game was written, so that it can be replayed the next time it is opened otherwise.
+     */
+    @Override
+    public void close() {
+        //Periodic tasks are cancelled, without interrupting one that is running, which would close the file
+        scheduler.shutdown();
+
+        try {
+            //A sync that is running is let finish before the file is closed
+            scheduler.awaitTermination(FSYNC_INTERVAL, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            consolidate().join();
+        } catch (RuntimeException ex) {
+            System.out.println("Failed to write autosaved game.");
+            System.out.println(ex.getMessage());
+        }
+
+        synchronized(this) {
+            sync();
+            closeChannel();
+        }
+    }
+
+    /**
+     * Forces any records written since the last call to disk. The lock is not held while forcing,
+     * so moves can still be recorded while the disk is slow.
+     */
+    private void sync() {
+        FileChannel synced;
+        synchronized(this) {
+            if(channel == null || !unsynced)
+                return;
+
+            //Records written while forcing are forced by the next call
+            synced = channel;
+            unsynced = false;
+        }
+
+        try {
+            synced.force(false);
+        } catch (ClosedChannelException ex) {
+            //The journal was replaced by a checkpoint, which was forced to disk when it was written
+        } catch (IOException ex) {
+            synchronized(this) {
+                unsynced = true;
+            }
+
+            System.out.println("Failed to sync autosave journal.");
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Writes a game to data storage, and compacts the journal if the game is still active.
+     * Called on the I/O thread of the AsyncSudokuGameDAO.
+     * @param games The data storage to write to
+     * @param game The journaled game that the snapshot was taken from
+     * @param snapshot The state of the game to write
+     * @param moveCount The number of moves included in the snapshot
+     * @return The ID of the saved game, or null if it could not be saved
+     */
+    private Integer save(SudokuGameDAO games, JournaledGame game, SudokuGame snapshot, long moveCount) {
+        //The ID is read when the task runs, as an earlier write may have just created the row
+        synchronized(this) {
+            snapshot.setGameID(game.gameID);
+        }
+
+        Integer savedID = games.saveGame(snapshot);
+        if(savedID == null)
+            return null;
+
+        synchronized(this) {
+            game.gameID = savedID;
+            game.savedMoveCount = Math.max(game.savedMoveCount, moveCount);
+
+            //The checkpoint holds the current board, so moves made during the write are kept
+            if(game == activeGame)
+                writeCheckpoint();
+        }
+
+        return savedID;
+    }
+
+    /**
+     * Replaces the journal with one holding a checkpoint of the active game, or an empty one if there
+     * is no active game. If the checkpoint cannot be written, the journal is left as it was.
+     * Must be called while holding the lock on this journal.
+     */
+    private void writeCheckpoint() {
+        if(channel == null)
+            return;
+
+        Path tempFile = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+        FileChannel written = null;
+
+        try {
+            written = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            if(activeGame != null) {
+                byte[] name = activeGame.playerName.getBytes(StandardCharsets.UTF_8);
+                int nameLength = Math.min(name.length, MAX_NAME_BYTES);
+
+                ByteBuffer record = ByteBuffer.allocate(1 + Integer.BYTES + 1 + nameLength + SudokuBoardCodec.ENCODED_BYTES_WITH_GIVENS
+                        + Long.BYTES + 1);
+                record.put(CHECKPOINT_RECORD);
+                record.putInt(activeGame.gameID != null ? activeGame.gameID : -1);
+                record.put((byte)nameLength);
+                record.put(name, 0, nameLength);
+                SudokuBoardCodec.encode(activeGame.board, true, record);
+                record.putLong(activeGame.getPlayTime());
+                //Moves made while the game was being written are in the board, but not in data storage
+                record.put((byte)(activeGame.moveCount > activeGame.savedMoveCount ? 1 : 0));
+                record.flip();
+
+                while(record.hasRemaining())
+                    written.write(record);
+            }
+
+            //The checkpoint must be on disk before it replaces the journal, or a crash could leave an empty journal
+            written.force(false);
+            Files.move(tempFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            System.out.println("Failed to write autosave journal checkpoint.");
+            System.out.println(ex.getMessage());
+
+            try {
+                if(written != null)
+                    written.close();
+            } catch (IOException closeEx) {
+                //The temporary file is replaced by the next checkpoint
+            }
+
+            return;
+        }
+
+        //Moves are appended to the new journal, which was moved while it was open
+        closeChannel();
+        channel = written;
+        unsynced = false;
+    }
+
+    /**
+     * Reads the game left in the journal by a previous run, if any, and queues it to be written to
+     * data storage. The journal is emptied once the game has been written. Reading stops at the first
+     * incomplete record, which may have been cut off when the program stopped.
+     */
+    private synchronized void replay() {
+        if(channel == null)
+            return;
+
+        JournaledGame recovered = null;
+        boolean unsaved = false; //True if the checkpoint holds moves that are not in data storage
+
+        try {
+            if(channel.size() == 0 || channel.size() > Integer.MAX_VALUE)
+                return;
+
+            ByteBuffer journal = ByteBuffer.allocate((int)channel.size());
+            while(journal.hasRemaining() && channel.read(journal, journal.position()) > 0) {
+                //Keep reading until the whole file is in the buffer
+            }
+            journal.flip();
+
+            while(journal.hasRemaining()) {
+                byte type = journal.get();
+
+                if(type == CHECKPOINT_RECORD) {
+                    if(journal.remaining() < Integer.BYTES + 1)
+                        break;
+
+                    int gameID = journal.getInt();
+                    int nameLength = journal.get() & 0xFF;
+                    if(journal.remaining() < nameLength + SudokuBoardCodec.ENCODED_BYTES_WITH_GIVENS)
+                        break;
+
+                    byte[] name = new byte[nameLength];
+                    journal.get(name);
+
+                    SudokuBoard board = new SudokuBoard();
+                    if(!SudokuBoardCodec.decodeInto(journal, true, board))
+                        break;
+
+                    if(journal.remaining() < Long.BYTES + 1)
+                        break;
+
+                    long playTime = journal.getLong();
+                    unsaved = journal.get() != 0;
+                    recovered = new JournaledGame(new String(name, StandardCharsets.UTF_8), board, gameID != -1 ? gameID : null, playTime);
+                } else if(type == MOVE_RECORD && recovered != null) {
+                    if(journal.remaining() < MOVE_RECORD_BYTES - 1)
+                        break;
+
+                    int index = journal.get();
+                    int value = journal.get();
+                    if(index < 0 || index >= SudokuBoard.TOTAL_CELLS || value < 0 || value > SudokuBoard.GRID_SIZE)
+                        break;
+
+                    recovered.board.setCellUnchecked(index, value);
+                    recovered.moveCount++;
+                } else { //The record is unreadable
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            System.out.println("Failed to read autosave journal " + journalFile);
+            System.out.println(ex.getMessage());
+            return;
+        }
+
+        if(recovered == null || (recovered.moveCount == 0 && !unsaved)) {
+            writeCheckpoint();
+            return;
+        }
+
+        //Write the recovered game, and empty the journal once it is safely in data storage
+        JournaledGame game = recovered;
+        SudokuGame snapshot = exportGame(game);
+        snapshot.setGameID(game.gameID);
+
+        db.submit((SudokuGameDAO games) -> {
+            Integer savedID = games.saveGame(snapshot);
+
+            if(savedID != null) {
+                System.out.println("Recovered autosaved game for " + game.playerName);
+                synchronized(this) {
+                    if(activeGame == null)
+                        writeCheckpoint();
+                }
+            }
+
+            return savedID;
+        });
+    }
+
+    /**
+     * Closes the journal file, ignoring any errors
+     */
+    private void closeChannel() {
+        if(channel == null)
+            return;
+
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            System.out.println("Failed to close autosave journal.");
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Creates a game holding a copy of the current board of a journaled game, without any invalid cells
+     * @param game The journaled game
+     * @return The new game, dated now
+     */
+    private static SudokuGame exportGame(JournaledGame game) {
+        SudokuBoard exportedBoard = game.board.fork();
+        exportedBoard.clearConflictingCells();
+
+        SudokuGame exportedGame = new SudokuGame(game.playerName, exportedBoard);
+        exportedGame.saveLastPlayedDate();
+        exportedGame.setPlayTime(game.getPlayTime());
+        return exportedGame;
+    }
+
+    /**
+     * @param game The game to copy
+     * @param gameID The game ID of the copy
+     * @return A copy of the game that is unaffected by changes to its board
+     */
+    private static SudokuGame copyGame(SudokuGame game, Integer gameID) {
+        SudokuGame copy = new SudokuGame(game.playerName, game.boardState.fork());
+        copy.setDate(game.lastPlayedDate);
+        copy.setGameID(gameID);
+        copy.setPlayTime(game.getPlayTime());
+        return copy;
+    }
+}
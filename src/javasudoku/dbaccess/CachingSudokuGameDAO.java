@@ -0,0 +1,496 @@
+package javasudoku.dbaccess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import javasudoku.model.GameSortOrder;
+import javasudoku.model.LruCache;
+import javasudoku.model.PlayerStats;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuGame;
+import javasudoku.model.SudokuGameDAO;
+import javasudoku.model.SudokuGameSummary;
+
+/**
+ * Caches the results of another SudokuGameDAO, so that repeated reads do not reach data storage.
+ * The most recently used games are kept by game ID, along with the player names, and the game counts,
+ * statistics, and listings of the most recently used players. The leaderboard can change whenever any
+ * player saves a game, so it is not cached. Each cache is emptied in least recently used order
+ * once it is full.
+ *
+ * Every write is passed on to the other DAO, and then only the cached results that it could change
+ * are removed. Changing a game removes that game and the listings of its player, and the player names
+ * are only removed when a player may have been added or lost their last game. Games are copied when they
+ * are cached and when they are returned from the cache, so callers can change the games they receive.
+ *
+ * The methods of this class can be called from several threads at once. Reads that miss the cache do not
+ * hold the lock while the other DAO is queried, and their result is not cached if a write happened meanwhile.
+ * @author Ishaiah Cross
+ */
+public class CachingSudokuGameDAO implements SudokuGameDAO, AutoCloseable {
+    //The number of players whose listings are cached
+    private static final int MAX_CACHED_PLAYERS = 16;
+    //The number of different pages cached for each player
+    private static final int MAX_CACHED_PAGES = 16;
+    //The number of games whose player is remembered
+    private static final int MAX_TRACKED_GAMES = 4096;
+
+    private final SudokuGameDAO dao;
+    private final LruCache<Integer, SudokuGame> games;
+    private final LruCache<String, PlayerListings> listings;
+    //The player that each cached game or summary belongs to, so that removing a game by ID can find its listings
+    private final LruCache<Integer, String> playerOfGame;
+    private ArrayList<String> playerNames;
+    private long writeCount; //Incremented by every write, so reads can tell whether their result is still current
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    /**
+     * The cached results for a single player
+     */
+    private static class PlayerListings {
+        Integer gameCount;
+        PlayerStats stats;
+        ArrayList<SudokuGame> allGames; //The result of getGamesByName(name)
+        final LruCache<String, ArrayList<SudokuGameSummary>> summaryPages = new LruCache<>(MAX_CACHED_PAGES);
+        final LruCache<String, ArrayList<SudokuGame>> gamePages = new LruCache<>(MAX_CACHED_PAGES);
+    }
+
+    /**
+     * @param dao The DAO to cache the results of
+     * @param maxGames The largest number of games to cache by game ID
+     */
+    public CachingSudokuGameDAO(SudokuGameDAO dao, int maxGames) {
+        this.dao = dao;
+        this.games = new LruCache<>(Math.max(1, maxGames));
+        this.listings = new LruCache<>(MAX_CACHED_PLAYERS);
+        this.playerOfGame = new LruCache<>(MAX_TRACKED_GAMES);
+        this.playerNames = null;
+        this.writeCount = 0;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * @return The storage that the cache is in front of
+     */
+    SudokuGameDAO getStorage() {
+        return dao;
+    }
+
+    /**
+     * @return The number of reads that were answered from the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of reads that had to query the other DAO
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return The fraction of reads that were answered from the cache, or 0 if there have been no reads
+     */
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total > 0 ? (double)hits.get() / total : 0;
+    }
+
+    /**
+     * Sets the hit and miss counts back to 0
+     */
+    public void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Removes every cached result
+     */
+    public synchronized void clear() {
+        games.clear();
+        listings.clear();
+        playerOfGame.clear();
+        playerNames = null;
+        writeCount++;
+    }
+
+    @Override
+    public SudokuGame getGame(int id) {
+        long version;
+        synchronized(this) {
+            SudokuGame cached = games.get(id);
+            if(cached != null) {
+                hits.incrementAndGet();
+                return InMemorySudokuGameDAO.copyGame(cached, id);
+            }
+
+            version = writeCount;
+        }
+
+        misses.incrementAndGet();
+        SudokuGame game = dao.getGame(id);
+
+        if(game != null) {
+            synchronized(this) {
+                if(version == writeCount) {
+                    games.put(id, InMemorySudokuGameDAO.copyGame(game, id));
+                    playerOfGame.put(id, game.playerName);
+                }
+            }
+        }
+
+        return game;
+    }
+
+    @Override
+    public SudokuBoard getSolution(int id) {
+        //Solutions are only read when the player gives up on a game, so they are not cached
+        return dao.getSolution(id);
+    }
+
+    @Override
+    public ArrayList<String> getPlayerNames() {
+        long version;
+        synchronized(this) {
+            if(playerNames != null) {
+                hits.incrementAndGet();
+                return new ArrayList<>(playerNames);
+            }
+
+            version = writeCount;
+        }
+
+        misses.incrementAndGet();
+        ArrayList<String> names = dao.getPlayerNames();
+
+        synchronized(this) {
+            if(version == writeCount)
+                playerNames = new ArrayList<>(names);
+        }
+
+        return names;
+    }
+
+    @Override
+    public int getGameCount(String name) {
+        long version;
+        synchronized(this) {
+            PlayerListings player = listings.get(name);
+            if(player != null && player.gameCount != null) {
+                hits.incrementAndGet();
+                return player.gameCount;
+            }
+
+            version = writeCount;
+        }
+
+        misses.incrementAndGet();
+        int count = dao.getGameCount(name);
+
+        synchronized(this) {
+            if(version == writeCount)
+                getListings(name).gameCount = count;
+        }
+
+        return count;
+    }
+
+    @Override
+    public ArrayList<SudokuGame> getGamesByName(String name) {
+        long version;
+        synchronized(this) {
+            PlayerListings player = listings.get(name);
+            if(player != null && player.allGames != null) {
+                hits.incrementAndGet();
+                return copyGames(player.allGames);
+            }
+
+            version = writeCount;
+        }
+
+        misses.incrementAndGet();
+        ArrayList<SudokuGame> results = dao.getGamesByName(name);
+
+        synchronized(this) {
+            if(version == writeCount) {
+                getListings(name).allGames = copyGames(results);
+                recordPlayers(results);
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public ArrayList<SudokuGame> getGamesByName(String name, int offset, int limit, GameSortOrder sort) {
+        String pageKey = getPageKey(offset, limit, sort);
+        long version;
+        synchronized(this) {
+            PlayerListings player = listings.get(name);
+            ArrayList<SudokuGame> page = player != null ? player.gamePages.get(pageKey) : null;
+            if(page != null) {
+                hits.incrementAndGet();
+                return copyGames(page);
+            }
+
+            version = writeCount;
+        }
+
+        misses.incrementAndGet();
+        ArrayList<SudokuGame> results = dao.getGamesByName(name, offset, limit, sort);
+
+        synchronized(this) {
+            if(version == writeCount) {
+                getListings(name).gamePages.put(pageKey, copyGames(results));
+                recordPlayers(results);
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public ArrayList<SudokuGame> getGamesAfter(int afterID, int limit) {
+        //Pages by ID are read to visit every game, so caching them would only evict the games players use
+        return dao.getGamesAfter(afterID, limit);
+    }
+
+    @Override
+    public ArrayList<SudokuGameSummary> getGameSummaries(String name, int offset, int limit, GameSortOrder sort) {
+        String pageKey = getPageKey(offset, limit, sort);
+        long version;
+        synchronized(this) {
+            PlayerListings player = listings.get(name);
+            ArrayList<SudokuGameSummary> page = player != null ? player.summaryPages.get(pageKey) : null;
+            if(page != null) {
+                hits.incrementAndGet();
+                return new ArrayList<>(page);
+            }
+
+            version = writeCount;
+        }
+
+        misses.incrementAndGet();
+        ArrayList<SudokuGameSummary> results = dao.getGameSummaries(name, offset, limit, sort);
+
+        synchronized(this) {
+            if(version == writeCount) {
+                //Summaries cannot be changed, so they are not copied
+                getListings(name).summaryPages.put(pageKey, new ArrayList<>(results));
+                for(SudokuGameSummary summary: results)
+                    playerOfGame.put(summary.gameID, summary.playerName);
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public PlayerStats getPlayerStats(String name) {
+        long version;
+        synchronized(this) {
+            PlayerListings player = listings.get(name);
+            if(player != null && player.stats != null) {
+                hits.incrementAndGet();
+                return player.stats;
+            }
+
+            version = writeCount;
+        }
+
+        misses.incrementAndGet();
+        PlayerStats stats = dao.getPlayerStats(name);
+
+        synchronized(this) {
+            //Statistics cannot be changed, so they are not copied
+            if(version == writeCount && stats != null)
+                getListings(name).stats = stats;
+        }
+
+        return stats;
+    }
+
+    @Override
+    public ArrayList<PlayerStats> getLeaderboard(int limit) {
+        return dao.getLeaderboard(limit);
+    }
+
+    @Override
+    public Integer addGame(SudokuGame game) {
+        Integer gameID = dao.addGame(game);
+
+        if(gameID != null)
+            invalidateAdded(game.playerName);
+
+        return gameID;
+    }
+
+    @Override
+    public boolean updateGame(SudokuGame game) {
+        boolean updated = dao.updateGame(game);
+
+        if(updated)
+            invalidateGame(game.getGameID(), game.playerName);
+
+        return updated;
+    }
+
+    @Override
+    public Integer saveGame(SudokuGame game) {
+        Integer previousID = game.getGameID();
+        Integer gameID = dao.saveGame(game);
+
+        if(gameID != null) {
+            if(gameID.equals(previousID))
+                invalidateGame(gameID, game.playerName);
+            else
+                invalidateAdded(game.playerName);
+        }
+
+        return gameID;
+    }
+
+    @Override
+    public boolean addGames(Collection<SudokuGame> newGames) {
+        boolean added = dao.addGames(newGames);
+
+        if(added) {
+            for(SudokuGame game: newGames)
+                invalidateAdded(game.playerName);
+        }
+
+        return added;
+    }
+
+    @Override
+    public void removeGame(int id) {
+        dao.removeGame(id);
+        invalidateRemoved(id);
+    }
+
+    @Override
+    public boolean removeGames(int... ids) {
+        boolean removed = dao.removeGames(ids);
+
+        if(removed) {
+            for(int id: ids)
+                invalidateRemoved(id);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Closes the other DAO if it can be closed
+     */
+    @Override
+    public void close() {
+        if(!(dao instanceof AutoCloseable))
+            return;
+
+        try {
+            ((AutoCloseable)dao).close();
+        } catch (Exception ex) {
+            System.out.println("Failed to close data storage.");
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Removes the cached results that change when a game is added for a player
+     * @param playerName The player of the added game
+     */
+    private synchronized void invalidateAdded(String playerName) {
+        writeCount++;
+        listings.remove(playerName);
+
+        //The names only change if this is the player's first game
+        if(playerNames != null && !playerNames.contains(playerName))
+            playerNames.add(playerName);
+    }
+
+    /**
+     * Removes the cached results that change when an existing game is updated
+     * @param gameID The ID of the game
+     * @param playerName The player of the game
+     */
+    private synchronized void invalidateGame(Integer gameID, String playerName) {
+        writeCount++;
+        games.remove(gameID);
+        listings.remove(playerName);
+    }
+
+    /**
+     * Removes the cached results that change when a game is removed
+     * @param gameID The ID of the removed game
+     */
+    private synchronized void invalidateRemoved(int gameID) {
+        writeCount++;
+        games.remove(gameID);
+        String playerName = playerOfGame.remove(gameID);
+
+        if(playerName != null) {
+            listings.remove(playerName);
+        } else {
+            //The player of the game is not known, so any player's listings may have changed
+            listings.clear();
+        }
+
+        //The player may have lost their last game
+        playerNames = null;
+    }
+
+    /**
+     * @param name The player name
+     * @return The cached results of the player, which are created if there are none
+     */
+    private PlayerListings getListings(String name) {
+        PlayerListings player = listings.get(name);
+
+        if(player == null) {
+            player = new PlayerListings();
+            listings.put(name, player);
+        }
+
+        return player;
+    }
+
+    /**
+     * Remembers the player of each game in a list, so that removing one of the games can find the player's listings
+     * @param results The games
+     */
+    private void recordPlayers(ArrayList<SudokuGame> results) {
+        for(SudokuGame game: results) {
+            if(game.getGameID() != null)
+                playerOfGame.put(game.getGameID(), game.playerName);
+        }
+    }
+
+    /**
+     * @param offset The number of games skipped by a page
+     * @param limit The largest number of games on the page
+     * @param sort The order of the games
+     * @return A key identifying the page among the pages of a player
+     */
+    private static String getPageKey(int offset, int limit, GameSortOrder sort) {
+        return sort + ":" + offset + ":" + limit;
+    }
+
+    /**
+     * @param source The games to copy
+     * @return Copies of the games, in the same order
+     */
+    private static ArrayList<SudokuGame> copyGames(ArrayList<SudokuGame> source) {
+        ArrayList<SudokuGame> copies = new ArrayList<>(source.size());
+        for(SudokuGame game: source)
+            copies.add(InMemorySudokuGameDAO.copyGame(game, game.getGameID()));
+
+        return copies;
+    }
+}
@@ -0,0 +1,298 @@
+package javasudoku.dbaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuBoardCodec;
+import javasudoku.model.SudokuGame;
+import javasudoku.model.SudokuGameDAO;
+
+/**
+ * Writes every game in a SudokuGameDAO to a compressed backup file, and adds the games in a backup
+ * file back to a SudokuGameDAO. Backups work with any storage, and can be restored into a different
+ * kind of storage from the one they were taken from.
+ *
+ * Games are read from the storage a page at a time in order of ID, so the storage is never locked for
+ * longer than one page takes to read, and games can still be saved while the backup is written. A game
+ * that is saved while the backup is being written may or may not be included in it, so the backup is not
+ * a copy of the storage at one point in time. Only the games are written, and player statistics are
+ * worked out again from the games when they are restored. The Derby database is instead backed up
+ * whole by SudokuDBManager.backupDatabase, which keeps every table as of one point in time.
+ *
+ * The backup is compressed with GZIP, and holds a header of MAGIC (int) and VERSION (byte), then one
+ * record per game, then an END_RECORD byte and the number of games written (int). Each game record is:
+ * GAME_RECORD (byte), name length (byte), player name (UTF-8), date length (byte), date (UTF-8),
+ * play time in milliseconds (long), board encoded by SudokuBoardCodec with givens
+ *
+ * An archive is a file that batches of games are appended to, such as the games removed by a
+ * RetentionPolicy. Each batch is appended as a complete backup in its own GZIP member, and is forced
+ * to disk before append returns. An archive is restored in the same way as a backup, by restoring
+ * each of its batches in turn.
+ *
+ * The backup is written to a temporary file that replaces the backup file once it is complete, so an
+ * existing backup is never lost to a backup that could not be finished, including one that stopped
+ * because the storage failed or was closed part way through.
+ * @author Ishaiah Cross
+ */
+public final class GameBackup {
+    private static final int MAGIC = 0x53444B42;
+    private static final byte VERSION = 1;
+    private static final byte GAME_RECORD = 1;
+    private static final byte END_RECORD = 0;
+    private static final int MAX_STRING_BYTES = 255;
+    //The number of games read from, or added to, the storage at a time
+    private static final int PAGE_SIZE = 100;
+
+    private GameBackup() {
+
+    }
+
+    /**
+     * Writes every game in a storage to a backup file, replacing the file if it exists
+     * @param games The storage to back up
+     * @param backupFile The file to write the backup to
+     * @return The number of games written, or -1 if the backup could not be written
+     */
+    public static int write(SudokuGameDAO games, Path backupFile) {
+        Path tempFile = backupFile.resolveSibling(backupFile.getFileName() + ".tmp");
+        int count = 0;
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+
+                //Each page starts after the last game of the previous page
+                int lastID = 0;
+                ArrayList<SudokuGame> page;
+                do {
+                    page = games.getGamesAfter(lastID, PAGE_SIZE);
+                    if(page == null)
+                        throw new IOException("Failed to read the games after game " + lastID);
+
+                    for(SudokuGame game: page) {
+                        writeGame(out, game);
+                        lastID = game.getGameID();
+                        count++;
+                    }
+                } while(page.size() == PAGE_SIZE);
+
+                out.writeByte(END_RECORD);
+                out.writeInt(count);
+            }
+
+            Files.move(tempFile, backupFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } catch (IOException ex) {
+            System.out.println("Failed to write backup " + backupFile);
+            System.out.println(ex.getMessage());
+
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException deleteEx) {
+                //The incomplete backup is replaced by the next backup
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Appends a batch of games to an archive file, creating it if it does not exist. If the games
+     * could not be appended, the archive is left as it was.
+     * @param archiveFile The archive file
+     * @param archived The games to append
+     * @return True if the games were appended and forced to disk, false otherwise
+     */
+    public static boolean append(Path archiveFile, List<SudokuGame> archived) {
+        //The batch is small, so it is compressed in memory and then appended in one write
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+
+        try (FileChannel channel = FileChannel.open(archiveFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(batch))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                for(SudokuGame game: archived)
+                    writeGame(out, game);
+
+                out.writeByte(END_RECORD);
+                out.writeInt(archived.size());
+            }
+
+            long size = channel.size();
+            try {
+                ByteBuffer data = ByteBuffer.wrap(batch.toByteArray());
+                while(data.hasRemaining())
+                    channel.write(data, size + data.position());
+
+                channel.force(false);
+            } catch (IOException ex) {
+                //Remove any part of the batch that was written, so the archive can still be restored
+                channel.truncate(size);
+                throw ex;
+            }
+
+            return true;
+        } catch (IOException ex) {
+            System.out.println("Failed to append " + archived.size() + " games to archive " + archiveFile);
+            System.out.println(ex.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds every game in a backup or archive file to a storage as new games, a page at a time. Restoring
+     * the same backup twice adds its games twice, so backups should be restored into empty storage.
+     * @param games The storage to add the games to
+     * @param backupFile The backup or archive file to read
+     * @return The number of games added, or -1 if the backup could not be read. If the backup was
+     * damaged part way through, the games before the damage have already been added.
+     */
+    public static int restore(SudokuGameDAO games, Path backupFile) {
+        int count = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(backupFile))))) {
+            //A backup has one section, and an archive has one for each batch appended to it
+            do {
+                if(in.readInt() != MAGIC || in.readByte() != VERSION)
+                    throw new IOException("Not a backup, or written by a newer version");
+
+                ArrayList<SudokuGame> page = new ArrayList<>(PAGE_SIZE);
+                int sectionCount = 0;
+                byte recordType;
+                while((recordType = in.readByte()) == GAME_RECORD) {
+                    page.add(readGame(in));
+                    sectionCount++;
+
+                    if(page.size() == PAGE_SIZE) {
+                        count += addPage(games, page);
+                        page.clear();
+                    }
+                }
+
+                count += addPage(games, page);
+                if(recordType != END_RECORD || in.readInt() != sectionCount)
+                    throw new IOException("Unknown record or wrong game count");
+            } while(hasMoreSections(in));
+
+            return count;
+        } catch (EOFException ex) {
+            System.out.println("Backup " + backupFile + " was cut off after " + count + " games");
+        } catch (IOException ex) {
+            System.out.println("Failed to restore backup " + backupFile);
+            System.out.println(ex.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param in The backup, positioned at the end of a section
+     * @return True if another section follows, false if the end of the backup was reached
+     * @throws IOException If the backup could not be read
+     */
+    private static boolean hasMoreSections(DataInputStream in) throws IOException {
+        in.mark(1);
+        boolean more = in.read() != -1;
+        in.reset();
+        return more;
+    }
+
+    /**
+     * Adds a page of restored games to a storage in one batch
+     * @param games The storage
+     * @param page The games to add
+     * @return The number of games added
+     * @throws IOException If the games could not be added
+     */
+    private static int addPage(SudokuGameDAO games, ArrayList<SudokuGame> page) throws IOException {
+        if(!page.isEmpty() && !games.addGames(page))
+            throw new IOException("Failed to add " + page.size() + " games to storage");
+
+        return page.size();
+    }
+
+    /**
+     * Writes the record of a game
+     * @param out The backup
+     * @param game The game to write
+     * @throws IOException If the record could not be written
+     */
+    private static void writeGame(DataOutputStream out, SudokuGame game) throws IOException {
+        if(game.boardState == null)
+            throw new IOException("Unreadable board in game " + game.getGameID());
+
+        out.writeByte(GAME_RECORD);
+        writeString(out, game.playerName);
+        writeString(out, game.lastPlayedDate);
+        out.writeLong(game.getPlayTime());
+        out.write(SudokuBoardCodec.encode(game.boardState, true));
+    }
+
+    /**
+     * Reads the record of a game, after its record type
+     * @param in The backup
+     * @return The game, without a game ID
+     * @throws IOException If the record could not be read
+     */
+    private static SudokuGame readGame(DataInputStream in) throws IOException {
+        String playerName = readString(in);
+        String date = readString(in);
+        long playTime = in.readLong();
+
+        byte[] boardData = new byte[SudokuBoardCodec.ENCODED_BYTES_WITH_GIVENS];
+        in.readFully(boardData);
+        SudokuBoard board = SudokuBoardCodec.decode(boardData);
+        if(board == null)
+            throw new IOException("Unreadable board for player " + playerName);
+
+        SudokuGame game = new SudokuGame(playerName, board);
+        game.setDate(date);
+        game.setPlayTime(playTime);
+        return game;
+    }
+
+    /**
+     * @param out The backup
+     * @param value The string to write, of at most MAX_STRING_BYTES bytes in UTF-8
+     * @throws IOException If the string could not be written
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if(bytes.length > MAX_STRING_BYTES)
+            throw new IOException("String is too long to back up: " + value);
+
+        out.writeByte(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @param in The backup
+     * @return The string that was read
+     * @throws IOException If the string could not be read
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedByte()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
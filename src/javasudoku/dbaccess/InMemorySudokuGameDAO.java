@@ -0,0 +1,403 @@
+package javasudoku.dbaccess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javasudoku.model.GameSortOrder;
+import javasudoku.model.PlayerStats;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuGame;
+import javasudoku.model.SudokuGameDAO;
+import javasudoku.model.SudokuGameSummary;
+import javasudoku.solver.SudokuSolver;
+
+/**
+ * Stores SudokuGame objects in memory only, so that nothing is kept once the program stops.
+ * This avoids the cost of starting a database and committing to disk, which is useful for tests,
+ * load simulations, and deployments that do not need saved games to persist.
+ *
+ * Games are copied when they are stored and when they are returned, so changes made to a
+ * game by the caller do not affect the stored game. The games of each player are kept together,
+ * so a player's games can be counted and listed without visiting the games of other players.
+ * The statistics of each player are updated whenever one of their games is stored or removed.
+ * Player names are matched exactly. All methods are synchronized, so the store can be shared
+ * between threads.
+ *
+ * Subclasses can make the store durable by overriding persist, which is called before each change
+ * is applied.
+ * @author Ishaiah Cross
+ */
+public class InMemorySudokuGameDAO implements SudokuGameDAO {
+    private static final int[] NO_IDS = new int[0];
+
+    //The games in order of ID, so that they can be read in pages by ID
+    private final TreeMap<Integer, SudokuGame> games;
+    //The summaries of the games of each player, in the order that they were added
+    private final HashMap<String, LinkedHashMap<Integer, SudokuGameSummary>> gamesByPlayer;
+    //The statistics of every player that has stored a game, which are kept after their games are removed
+    private final HashMap<String, PlayerTotals> playerTotals;
+    private int nextGameID;
+
+    /**
+     * The running totals used to give the statistics of a player
+     */
+    private static class PlayerTotals {
+        int gamesSaved;
+        int gamesCompleted;
+        double totalCompletion;
+        Long bestSolveTime;
+    }
+
+    public InMemorySudokuGameDAO() {
+        this.games = new TreeMap<>();
+        this.gamesByPlayer = new LinkedHashMap<>();
+        this.playerTotals = new HashMap<>();
+        this.nextGameID = 1;
+    }
+
+    /**
+     * Makes a set of changes durable before they are applied. The in-memory store does nothing.
+     * @param stored The games being added or replaced, which already have their game IDs
+     * @param removedIDs The IDs of the games being removed
+     * @return True if the changes can be applied, false if they must be abandoned
+     */
+    protected boolean persist(List<SudokuGame> stored, int[] removedIDs) {
+        return true;
+    }
+
+    /**
+     * Stores a copy of a game without persisting it, replacing any game with the same ID
+     * @param game The game to store, which must have a game ID
+     */
+    protected final synchronized void putGame(SudokuGame game) {
+        int gameID = game.getGameID();
+        SudokuGame previous = games.put(gameID, game);
+
+        //A game never changes player, but remove it from its old player in case it did
+        if(previous != null && !previous.playerName.equals(game.playerName))
+            removeSummary(previous);
+
+        gamesByPlayer.computeIfAbsent(game.playerName, (String name) -> new LinkedHashMap<>())
+                .put(gameID, new SudokuGameSummary(gameID, game.playerName, game.lastPlayedDate, game.completionPercentage));
+        nextGameID = Math.max(nextGameID, gameID + 1);
+        updateTotals(previous, game);
+    }
+
+    /**
+     * Removes a game without persisting the removal
+     * @param id The ID of the game to remove
+     * @return True if a game was removed, false if no game had the ID
+     */
+    protected final synchronized boolean deleteGame(int id) {
+        SudokuGame removed = games.remove(id);
+        if(removed == null)
+            return false;
+
+        removeSummary(removed);
+        updateTotals(removed, null);
+        return true;
+    }
+
+    /**
+     * @param id The ID of a game
+     * @return True if a game with the ID is stored, false otherwise
+     */
+    protected final synchronized boolean containsGame(int id) {
+        return games.containsKey(id);
+    }
+
+    /**
+     * @return The ID that the next added game will be given
+     */
+    protected final synchronized int getNextGameID() {
+        return nextGameID;
+    }
+
+    /**
+     * Ensures that no game is given an ID below a value, so that IDs of removed games are not reused
+     * @param gameID The lowest ID that the next added game can be given
+     */
+    protected final synchronized void reserveGameIDs(int gameID) {
+        nextGameID = Math.max(nextGameID, gameID);
+    }
+
+    /**
+     * @return Copies of every stored game, in no particular order
+     */
+    protected final synchronized ArrayList<SudokuGame> getAllGames() {
+        ArrayList<SudokuGame> results = new ArrayList<>(games.size());
+        for(SudokuGame game: games.values())
+            results.add(copyGame(game, game.getGameID()));
+
+        return results;
+    }
+
+    /**
+     * Updates the statistics of the player of a game that was replaced or removed
+     * @param before The game as it was stored before, or null if it was added
+     * @param after The game as it is stored now, or null if it was removed
+     */
+    private void updateTotals(SudokuGame before, SudokuGame after) {
+        if(before != null) {
+            PlayerTotals totals = playerTotals.get(before.playerName);
+            totals.gamesSaved--;
+            totals.gamesCompleted -= before.isSolved ? 1 : 0;
+            totals.totalCompletion -= before.completionPercentage;
+
+            //The best time can only be found again from the player's remaining games
+            if(before.isSolved && Long.valueOf(before.getPlayTime()).equals(totals.bestSolveTime))
+                totals.bestSolveTime = findBestSolveTime(before.playerName);
+        }
+
+        if(after != null) {
+            PlayerTotals totals = playerTotals.computeIfAbsent(after.playerName, (String name) -> new PlayerTotals());
+            totals.gamesSaved++;
+            totals.gamesCompleted += after.isSolved ? 1 : 0;
+            totals.totalCompletion += after.completionPercentage;
+
+            if(after.isSolved && (totals.bestSolveTime == null || after.getPlayTime() < totals.bestSolveTime))
+                totals.bestSolveTime = after.getPlayTime();
+        }
+    }
+
+    /**
+     * @param name The player name
+     * @return The shortest play time of the player's stored solved games, or null if none are solved
+     */
+    private Long findBestSolveTime(String name) {
+        Long best = null;
+        LinkedHashMap<Integer, SudokuGameSummary> playerGames = gamesByPlayer.get(name);
+
+        if(playerGames != null) {
+            for(int gameID: playerGames.keySet()) {
+                SudokuGame game = games.get(gameID);
+                if(game.isSolved && (best == null || game.getPlayTime() < best))
+                    best = game.getPlayTime();
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * @param name The player name
+     * @param totals The running totals of the player
+     * @return The statistics of the player
+     */
+    private static PlayerStats toStats(String name, PlayerTotals totals) {
+        float averageCompletion = totals.gamesSaved > 0 ? (float)(totals.totalCompletion / totals.gamesSaved) : 0;
+        return new PlayerStats(name, totals.gamesSaved, totals.gamesCompleted, averageCompletion, totals.bestSolveTime);
+    }
+
+    /**
+     * @param game The game to remove from the summaries of its player
+     */
+    private void removeSummary(SudokuGame game) {
+        LinkedHashMap<Integer, SudokuGameSummary> playerGames = gamesByPlayer.get(game.playerName);
+        if(playerGames == null)
+            return;
+
+        playerGames.remove(game.getGameID());
+        if(playerGames.isEmpty())
+            gamesByPlayer.remove(game.playerName);
+    }
+
+    @Override
+    public synchronized SudokuGame getGame(int id) {
+        SudokuGame game = games.get(id);
+        if(game == null) {
+            System.out.println("No game with UID " + id);
+            return null;
+        }
+
+        return copyGame(game, id);
+    }
+
+    @Override
+    public synchronized SudokuBoard getSolution(int id) {
+        SudokuGame game = games.get(id);
+        if(game == null || !game.boardState.hasGivens())
+            return null;
+
+        //Solutions are not stored, so the puzzle is solved again
+        SudokuBoard solution = game.boardState.fork();
+        solution.resetToPuzzle();
+        new SudokuSolver().solveBoard(solution);
+        return solution.isSolved() ? solution : null;
+    }
+
+    @Override
+    public synchronized Integer addGame(SudokuGame game) {
+        int gameID = nextGameID;
+        SudokuGame stored = copyGame(game, gameID);
+
+        if(!persist(Collections.singletonList(stored), NO_IDS))
+            return null;
+
+        putGame(stored);
+        game.setGameID(gameID);
+        return gameID;
+    }
+
+    @Override
+    public synchronized boolean updateGame(SudokuGame game) {
+        Integer gameID = game.getGameID();
+        if(gameID == null || !games.containsKey(gameID))
+            return false;
+
+        SudokuGame stored = copyGame(game, gameID);
+        if(!persist(Collections.singletonList(stored), NO_IDS))
+            return false;
+
+        putGame(stored);
+        return true;
+    }
+
+    @Override
+    public synchronized Integer saveGame(SudokuGame game) {
+        //A stored game that could not be persisted is not added again as a copy
+        Integer gameID = game.getGameID();
+        if(gameID != null && games.containsKey(gameID))
+            return updateGame(game) ? gameID : null;
+
+        return addGame(game);
+    }
+
+    @Override
+    public synchronized boolean addGames(Collection<SudokuGame> newGames) {
+        ArrayList<SudokuGame> stored = new ArrayList<>(newGames.size());
+        int gameID = nextGameID;
+        for(SudokuGame game: newGames)
+            stored.add(copyGame(game, gameID++));
+
+        //The games are persisted together, so either all of them are added or none are
+        if(!persist(stored, NO_IDS))
+            return false;
+
+        int index = 0;
+        for(SudokuGame game: newGames) {
+            putGame(stored.get(index));
+            game.setGameID(stored.get(index).getGameID());
+            index++;
+        }
+
+        return true;
+    }
+
+    @Override
+    public synchronized void removeGame(int id) {
+        if(games.containsKey(id) && persist(Collections.emptyList(), new int[] {id}))
+            deleteGame(id);
+    }
+
+    @Override
+    public synchronized boolean removeGames(int... ids) {
+        if(!persist(Collections.emptyList(), ids))
+            return false;
+
+        for(int id: ids)
+            deleteGame(id);
+
+        return true;
+    }
+
+    @Override
+    public synchronized ArrayList<SudokuGame> getGamesByName(String name) {
+        ArrayList<SudokuGame> results = new ArrayList<>();
+        LinkedHashMap<Integer, SudokuGameSummary> playerGames = gamesByPlayer.get(name);
+
+        if(playerGames != null) {
+            for(int gameID: playerGames.keySet())
+                results.add(copyGame(games.get(gameID), gameID));
+        }
+
+        return results;
+    }
+
+    @Override
+    public synchronized ArrayList<SudokuGame> getGamesByName(String name, int offset, int limit, GameSortOrder sort) {
+        ArrayList<SudokuGame> results = new ArrayList<>();
+
+        for(SudokuGameSummary summary: getGameSummaries(name, offset, limit, sort))
+            results.add(copyGame(games.get(summary.gameID), summary.gameID));
+
+        return results;
+    }
+
+    @Override
+    public synchronized ArrayList<SudokuGame> getGamesAfter(int afterID, int limit) {
+        ArrayList<SudokuGame> results = new ArrayList<>();
+
+        for(SudokuGame game: games.tailMap(afterID, false).values()) {
+            if(results.size() >= Math.max(1, limit))
+                break;
+
+            results.add(copyGame(game, game.getGameID()));
+        }
+
+        return results;
+    }
+
+    @Override
+    public synchronized ArrayList<SudokuGameSummary> getGameSummaries(String name, int offset, int limit, GameSortOrder sort) {
+        LinkedHashMap<Integer, SudokuGameSummary> playerGames = gamesByPlayer.get(name);
+        if(playerGames == null)
+            return new ArrayList<>();
+
+        ArrayList<SudokuGameSummary> sorted = new ArrayList<>(playerGames.values());
+        sorted.sort(sort.getComparator());
+
+        int start = Math.min(sorted.size(), Math.max(0, offset));
+        int end = Math.min(sorted.size(), start + Math.max(1, limit));
+        return new ArrayList<>(sorted.subList(start, end));
+    }
+
+    @Override
+    public synchronized int getGameCount(String name) {
+        LinkedHashMap<Integer, SudokuGameSummary> playerGames = gamesByPlayer.get(name);
+        return playerGames != null ? playerGames.size() : 0;
+    }
+
+    @Override
+    public synchronized ArrayList<String> getPlayerNames() {
+        return new ArrayList<>(gamesByPlayer.keySet());
+    }
+
+    @Override
+    public synchronized PlayerStats getPlayerStats(String name) {
+        PlayerTotals totals = playerTotals.get(name);
+        return totals != null ? toStats(name, totals) : null;
+    }
+
+    @Override
+    public synchronized ArrayList<PlayerStats> getLeaderboard(int limit) {
+        ArrayList<PlayerStats> leaders = new ArrayList<>();
+        for(Map.Entry<String, PlayerTotals> entry: playerTotals.entrySet()) {
+            if(entry.getValue().bestSolveTime != null)
+                leaders.add(toStats(entry.getKey(), entry.getValue()));
+        }
+
+        leaders.sort(Comparator.comparingLong((PlayerStats stats) -> stats.bestSolveTime)
+                .thenComparing((PlayerStats stats) -> stats.playerName));
+        return new ArrayList<>(leaders.subList(0, Math.min(leaders.size(), Math.max(0, limit))));
+    }
+
+    /**
+     * @param game The game to copy
+     * @param gameID The game ID of the copy
+     * @return A copy of the game that is unaffected by changes to the board of the original
+     */
+    static SudokuGame copyGame(SudokuGame game, Integer gameID) {
+        SudokuGame copy = new SudokuGame(game.playerName, game.boardState.fork());
+        copy.setDate(game.lastPlayedDate);
+        copy.setGameID(gameID);
+        copy.setPlayTime(game.getPlayTime());
+        return copy;
+    }
+}
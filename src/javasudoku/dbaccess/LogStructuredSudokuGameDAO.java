@@ -0,0 +1,447 @@
+package javasudoku.dbaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuBoardCodec;
+import javasudoku.model.SudokuGame;
+
+/**
+ * Stores SudokuGame objects in a single append-only log file, without a database. Every change is
+ * appended to the end of the log, and the games are kept in memory, where they are read from.
+ * When the log is opened, it is replayed from the start to rebuild the games.
+ *
+ * Each record in the log is stored as its payload length (int), a CRC32 checksum of its payload (int),
+ * and then its payload, which starts with a record type byte:
+ * PUT     gameID (int), name length (byte), player name (UTF-8), date length (byte), date (UTF-8), board encoded by SudokuBoardCodec with givens,
+ *         play time in milliseconds (long)
+ * REMOVE  gameID (int)
+ * NEXT_ID gameID (int), the lowest ID that can be given to a new game, written at the start of a compacted log
+ *         so that the IDs of games removed before compaction are not given out again
+ *
+ * Each change is forced to disk before it is applied, so a change is never lost once it has been
+ * reported as successful. A record that was cut off or corrupted when the program stopped is removed
+ * when the log is next opened. Once more than half of the records in the log have been replaced or
+ * removed, the live games are rewritten to a new log, which then replaces the old one.
+ * @author Ishaiah Cross
+ */
+public class LogStructuredSudokuGameDAO extends InMemorySudokuGameDAO implements AutoCloseable {
+    private static final byte PUT_RECORD = 1;
+    private static final byte REMOVE_RECORD = 2;
+    private static final byte NEXT_ID_RECORD = 3;
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int MAX_STRING_BYTES = 255;
+    //Logs with fewer records than this are never compacted
+    private static final int MIN_COMPACTION_RECORDS = 1000;
+
+    private final Path logFile;
+    private FileChannel channel;
+    private long recordCount; //The number of records in the log
+    private long liveCount; //The number of games in the store
+
+    private LogStructuredSudokuGameDAO(Path logFile, FileChannel channel) {
+        this.logFile = logFile;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a log, creating it if it does not exist, and replays it to load the stored games
+     * @param logFile The file of the log
+     * @return The opened store, or null if the log could not be opened
+     */
+    public static LogStructuredSudokuGameDAO open(Path logFile) {
+        FileChannel channel = null;
+
+        try {
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            LogStructuredSudokuGameDAO store = new LogStructuredSudokuGameDAO(logFile, channel);
+            store.replay();
+            return store;
+        } catch (IOException ex) {
+            System.out.println("Failed to open game log " + logFile);
+            System.out.println(ex.getMessage());
+
+            if(channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException closeEx) {
+                    //The log is not used either way
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads every complete record in the log and applies it, then removes any incomplete
+     * record at the end of the log
+     * @throws IOException If the log could not be read
+     */
+    private synchronized void replay() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        CRC32 checksum = new CRC32();
+
+        while(position + RECORD_HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+
+            int length = header.getInt();
+            int expectedChecksum = header.getInt();
+            if(length <= 0 || position + RECORD_HEADER_BYTES + length > size)
+                break;
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + RECORD_HEADER_BYTES);
+
+            checksum.reset();
+            checksum.update(payload.array(), 0, length);
+            payload.flip();
+            if((int)checksum.getValue() != expectedChecksum || !applyRecord(payload))
+                break;
+
+            position += RECORD_HEADER_BYTES + length;
+            recordCount++;
+        }
+
+        if(position < size) {
+            System.out.println("Removing " + (size - position) + " unreadable bytes from the end of game log " + logFile);
+            channel.truncate(position);
+            channel.force(true);
+        }
+
+        channel.position(position);
+        liveCount = getAllGames().size();
+    }
+
+    /**
+     * Applies a record read from the log to the games in memory
+     * @param payload The payload of the record
+     * @return True if the record was applied, false if it could not be read
+     */
+    private boolean applyRecord(ByteBuffer payload) {
+        try {
+            byte type = payload.get();
+            int gameID = payload.getInt();
+
+            if(type == REMOVE_RECORD) {
+                deleteGame(gameID);
+                return true;
+            }
+
+            if(type == NEXT_ID_RECORD) {
+                reserveGameIDs(gameID);
+                return true;
+            }
+
+            if(type != PUT_RECORD)
+                return false;
+
+            String playerName = readString(payload);
+            String saveDate = readString(payload);
+            SudokuBoard board = new SudokuBoard();
+            if(!SudokuBoardCodec.decodeInto(payload, true, board))
+                return false;
+
+            SudokuGame game = new SudokuGame(playerName, board);
+            game.setDate(saveDate);
+            game.setGameID(gameID);
+            game.setPlayTime(payload.getLong());
+            putGame(game);
+            return true;
+        } catch (RuntimeException ex) {
+            //The payload was shorter than its record type requires
+            return false;
+        }
+    }
+
+    /**
+     * Appends records for a set of changes to the log, and forces them to disk
+     * @param stored The games being added or replaced
+     * @param removedIDs The IDs of the games being removed
+     * @return True if the records were written, false otherwise
+     */
+    @Override
+    protected synchronized boolean persist(List<SudokuGame> stored, int[] removedIDs) {
+        if(channel == null)
+            return false;
+
+        ArrayList<ByteBuffer> records = new ArrayList<>();
+        for(SudokuGame game: stored)
+            records.add(encodePut(game));
+        for(int gameID: removedIDs)
+            records.add(encodeRemove(gameID));
+
+        ByteBuffer[] buffers = records.toArray(new ByteBuffer[records.size()]);
+        long remaining = 0;
+        for(ByteBuffer record: buffers)
+            remaining += record.remaining();
+
+        long startPosition = 0;
+        try {
+            startPosition = channel.position();
+            while(remaining > 0)
+                remaining -= channel.write(buffers);
+
+            channel.force(false);
+        } catch (IOException ex) {
+            System.out.println("Failed to write to game log " + logFile);
+            System.out.println(ex.getMessage());
+
+            //Remove any part of the changes that was written, so that they are not replayed
+            try {
+                channel.truncate(startPosition);
+                channel.position(startPosition);
+            } catch (IOException truncateEx) {
+                System.out.println(truncateEx.getMessage());
+            }
+
+            return false;
+        }
+
+        //The changes have not been applied yet, so the store still holds the previous games
+        recordCount += records.size();
+        for(SudokuGame game: stored) {
+            if(!containsGame(game.getGameID()))
+                liveCount++;
+        }
+        for(int gameID: removedIDs) {
+            if(containsGame(gameID))
+                liveCount--;
+        }
+
+        return true;
+    }
+
+    /**
+     * Called after each change is applied, so that the log is compacted once most of it is obsolete
+     */
+    private synchronized void compactIfNeeded() {
+        if(recordCount >= MIN_COMPACTION_RECORDS && recordCount > 2 * liveCount)
+            compact();
+    }
+
+    /**
+     * Rewrites the live games to a new log, and replaces the current log with it
+     * @return True if the log was compacted, false otherwise
+     */
+    public synchronized boolean compact() {
+        if(channel == null)
+            return false;
+
+        Path compactedFile = logFile.resolveSibling(logFile.getFileName() + ".compact");
+        ArrayList<SudokuGame> liveGames = getAllGames();
+
+        try (FileChannel compacted = FileChannel.open(compactedFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            //The removed games with the highest IDs are no longer in the log, so the next ID is kept separately
+            ByteBuffer nextID = encodeNextID(getNextGameID());
+            while(nextID.hasRemaining())
+                compacted.write(nextID);
+
+            for(SudokuGame game: liveGames) {
+                ByteBuffer record = encodePut(game);
+                while(record.hasRemaining())
+                    compacted.write(record);
+            }
+
+            compacted.force(true);
+        } catch (IOException ex) {
+            System.out.println("Failed to compact game log " + logFile);
+            System.out.println(ex.getMessage());
+            return false;
+        }
+
+        boolean replaced = false;
+        try {
+            //The old log stays complete until the new log replaces it in a single step
+            channel.close();
+            Files.move(compactedFile, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            replaced = true;
+        } catch (IOException ex) {
+            System.out.println("Failed to replace game log " + logFile);
+            System.out.println(ex.getMessage());
+
+            try {
+                Files.deleteIfExists(compactedFile);
+            } catch (IOException deleteEx) {
+                //The compacted log is replaced by the next compaction
+            }
+        }
+
+        try {
+            //If the log was not replaced, the old log is reopened and its counts are kept
+            channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            if(!replaced)
+                return false;
+
+            recordCount = liveGames.size() + 1;
+            liveCount = liveGames.size();
+            return true;
+        } catch (IOException ex) {
+            System.out.println("Failed to reopen game log " + logFile);
+            System.out.println(ex.getMessage());
+            channel = null;
+        }
+
+        return false;
+    }
+
+    @Override
+    public synchronized Integer addGame(SudokuGame game) {
+        Integer gameID = super.addGame(game);
+        compactIfNeeded();
+        return gameID;
+    }
+
+    @Override
+    public synchronized boolean updateGame(SudokuGame game) {
+        boolean updated = super.updateGame(game);
+        compactIfNeeded();
+        return updated;
+    }
+
+    @Override
+    public synchronized void removeGame(int id) {
+        super.removeGame(id);
+        compactIfNeeded();
+    }
+
+    @Override
+    public synchronized boolean removeGames(int... ids) {
+        boolean removed = super.removeGames(ids);
+        compactIfNeeded();
+        return removed;
+    }
+
+    /**
+     * Closes the log. The store cannot be changed once it is closed.
+     */
+    @Override
+    public synchronized void close() {
+        if(channel == null)
+            return;
+
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            System.out.println("Failed to close game log " + logFile);
+            System.out.println(ex.getMessage());
+        }
+
+        channel = null;
+    }
+
+    /**
+     * @param game The game to write
+     * @return A record that adds or replaces the game
+     */
+    private static ByteBuffer encodePut(SudokuGame game) {
+        byte[] name = truncate(game.playerName.getBytes(StandardCharsets.UTF_8));
+        byte[] date = truncate(game.lastPlayedDate != null ? game.lastPlayedDate.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+
+        ByteBuffer payload = ByteBuffer.allocate(1 + Integer.BYTES + 1 + name.length + 1 + date.length
+                + SudokuBoardCodec.ENCODED_BYTES_WITH_GIVENS + Long.BYTES);
+        payload.put(PUT_RECORD);
+        payload.putInt(game.getGameID());
+        payload.put((byte)name.length).put(name);
+        payload.put((byte)date.length).put(date);
+        SudokuBoardCodec.encode(game.boardState, true, payload);
+        payload.putLong(game.getPlayTime());
+
+        return encodeRecord(payload);
+    }
+
+    /**
+     * @param gameID The ID of the game to remove
+     * @return A record that removes the game
+     */
+    private static ByteBuffer encodeRemove(int gameID) {
+        ByteBuffer payload = ByteBuffer.allocate(1 + Integer.BYTES);
+        payload.put(REMOVE_RECORD);
+        payload.putInt(gameID);
+
+        return encodeRecord(payload);
+    }
+
+    /**
+     * @param gameID The lowest ID that can be given to a new game
+     * @return A record that keeps new games from being given a lower ID
+     */
+    private static ByteBuffer encodeNextID(int gameID) {
+        ByteBuffer payload = ByteBuffer.allocate(1 + Integer.BYTES);
+        payload.put(NEXT_ID_RECORD);
+        payload.putInt(gameID);
+
+        return encodeRecord(payload);
+    }
+
+    /**
+     * Adds the length and checksum to the payload of a record
+     * @param payload The full payload
+     * @return The record, ready to be written
+     */
+    private static ByteBuffer encodeRecord(ByteBuffer payload) {
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.array(), 0, payload.position());
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.position());
+        record.putInt(payload.position());
+        record.putInt((int)checksum.getValue());
+        record.put(payload.array(), 0, payload.position());
+        record.flip();
+        return record;
+    }
+
+    /**
+     * @param source The buffer positioned at a string written by encodePut
+     * @return The string
+     */
+    private static String readString(ByteBuffer source) {
+        byte[] bytes = new byte[source.get() & 0xFF];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param bytes The encoded string
+     * @return The bytes, cut to the longest length a record can hold
+     */
+    private static byte[] truncate(byte[] bytes) {
+        if(bytes.length <= MAX_STRING_BYTES)
+            return bytes;
+
+        byte[] truncated = new byte[MAX_STRING_BYTES];
+        System.arraycopy(bytes, 0, truncated, 0, MAX_STRING_BYTES);
+        return truncated;
+    }
+
+    /**
+     * Reads from the log until a buffer is full
+     * @param target The buffer to fill
+     * @param position The position in the log to read from
+     * @throws IOException If the log could not be read, or ended before the buffer was full
+     */
+    private void readFully(ByteBuffer target, long position) throws IOException {
+        while(target.hasRemaining()) {
+            int read = channel.read(target, position);
+            if(read < 0)
+                throw new IOException("Unexpected end of game log");
+
+            position += read;
+        }
+    }
+}
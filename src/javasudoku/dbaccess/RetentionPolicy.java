@@ -0,0 +1,254 @@
+package javasudoku.dbaccess;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.function.IntPredicate;
+import javasudoku.model.GameSortOrder;
+import javasudoku.model.SudokuGame;
+import javasudoku.model.SudokuGameDAO;
+import javasudoku.model.SudokuGameSummary;
+
+/**
+ * Limits how many saved games are kept, by removing games that were last played too long ago,
+ * and the oldest games of players who have saved more than a set number of games.
+ *
+ * Games are found from the summaries of each player's games, which are read without their boards,
+ * and are removed in batches of at most BATCH_SIZE games. Each batch is its own call to removeGames,
+ * so the storage is only locked for one short transaction at a time, and the purge pauses between
+ * batches to let the player's own loads and saves run. The statistics of each player are updated
+ * in the same transaction as each batch, as they are whenever a game is removed.
+ *
+ * Before each batch is removed, its games are appended to an archive file by GameBackup.append, and
+ * the batch is only removed once the archive has been forced to disk, so a purged game can always
+ * be restored from the archive. If the games cannot be archived, the purge stops without removing them.
+ *
+ * Games whose date cannot be read are never removed for their age, and a game that is in use, such as
+ * the game held by the autosave journal, is never removed. If none of the games of a batch can be read,
+ * the purge stops, so a storage that is failing is not asked for the same batch again and again.
+ * @author Ishaiah Cross
+ */
+public final class RetentionPolicy {
+    public static final String MAX_AGE_DAYS_PROPERTY = "javasudoku.retention.maxAgeDays";
+    public static final String MAX_GAMES_PROPERTY = "javasudoku.retention.maxGamesPerPlayer";
+    public static final String ARCHIVE_FILE_PROPERTY = "javasudoku.retention.archiveFile";
+
+    private static final String DEFAULT_ARCHIVE_FILE = "SudokuGames.archive";
+
+    //The largest number of games removed in one transaction
+    private static final int BATCH_SIZE = 100;
+    //The number of milliseconds to wait between batches
+    private static final long BATCH_PAUSE = 50;
+
+    private final int maxAgeDays;
+    private final int maxGamesPerPlayer;
+    private final Path archiveFile;
+
+    /**
+     * @param maxAgeDays The number of days after a game was last played that it is removed, or 0 to keep games of any age
+     * @param maxGamesPerPlayer The number of each player's most recent games that are kept, or 0 to keep any number
+     * @param archiveFile The archive that removed games are appended to, or null to remove games without archiving them
+     */
+    public RetentionPolicy(int maxAgeDays, int maxGamesPerPlayer, Path archiveFile) {
+        this.maxAgeDays = Math.max(0, maxAgeDays);
+        this.maxGamesPerPlayer = Math.max(0, maxGamesPerPlayer);
+        this.archiveFile = archiveFile;
+    }
+
+    /**
+     * Creates the policy set by the system properties javasudoku.retention.maxAgeDays and
+     * javasudoku.retention.maxGamesPerPlayer. Neither limit is applied if its property is not set.
+     * Removed games are archived to the file named by javasudoku.retention.archiveFile, or
+     * SudokuGames.archive in the working directory if it is not set.
+     * @return The policy, or null if neither limit is set
+     */
+    public static RetentionPolicy fromConfiguration() {
+        int maxAgeDays = Integer.getInteger(MAX_AGE_DAYS_PROPERTY, 0);
+        int maxGamesPerPlayer = Integer.getInteger(MAX_GAMES_PROPERTY, 0);
+        if(maxAgeDays <= 0 && maxGamesPerPlayer <= 0)
+            return null;
+
+        return new RetentionPolicy(maxAgeDays, maxGamesPerPlayer,
+                Paths.get(System.getProperty(ARCHIVE_FILE_PROPERTY, DEFAULT_ARCHIVE_FILE)));
+    }
+
+    /**
+     * Removes every game that the policy does not keep
+     * @param games The storage to remove games from
+     * @return The number of games removed
+     */
+    public int purge(SudokuGameDAO games) {
+        return purge(games, (int gameID) -> false);
+    }
+
+    /**
+     * Removes every game that the policy does not keep, except for the games that are in use
+     * @param games The storage to remove games from
+     * @param inUse Tests whether a game ID belongs to a game that is in use, just before its batch is removed
+     * @return The number of games removed
+     */
+    public int purge(SudokuGameDAO games, IntPredicate inUse) {
+        int removed = 0;
+
+        try {
+            for(String name: games.getPlayerNames()) {
+                //Removing the extra games first leaves fewer games to check the age of
+                if(maxGamesPerPlayer > 0)
+                    removed += purgeExtraGames(games, name, inUse);
+
+                if(maxAgeDays > 0)
+                    removed += purgeOldGames(games, name, LocalDateTime.now().minusDays(maxAgeDays), inUse);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        return removed;
+    }
+
+    /**
+     * Removes the games of a player that come after their most recent maxGamesPerPlayer games
+     * @param games The storage
+     * @param name The player name
+     * @param inUse Tests whether a game is in use
+     * @return The number of games removed
+     * @throws InterruptedException If the thread was interrupted between batches
+     */
+    private int purgeExtraGames(SudokuGameDAO games, String name, IntPredicate inUse) throws InterruptedException {
+        int removed = 0;
+        int offset = maxGamesPerPlayer; //The kept games, and any games that could not be removed, come first
+
+        //The games after the kept games move up as each batch is removed, so each batch starts at the same offset
+        ArrayList<SudokuGameSummary> page;
+        do {
+            page = games.getGameSummaries(name, offset, BATCH_SIZE, GameSortOrder.NEWEST_FIRST);
+            ArrayList<Integer> gameIDs = new ArrayList<>();
+            for(SudokuGameSummary summary: page)
+                gameIDs.add(summary.gameID);
+
+            int batchRemoved = removeBatch(games, gameIDs, inUse);
+            if(batchRemoved < 0)
+                break;
+
+            removed += batchRemoved;
+            offset += gameIDs.size() - batchRemoved;
+        } while(page.size() == BATCH_SIZE);
+
+        return removed;
+    }
+
+    /**
+     * Removes the games of a player that were last played before a date
+     * @param games The storage
+     * @param name The player name
+     * @param cutoff The date before which games are removed
+     * @param inUse Tests whether a game is in use
+     * @return The number of games removed
+     * @throws InterruptedException If the thread was interrupted between batches
+     */
+    private int purgeOldGames(SudokuGameDAO games, String name, LocalDateTime cutoff, IntPredicate inUse)
+            throws InterruptedException {
+        int removed = 0;
+        int offset = 0; //The number of games with unreadable dates, or that could not be removed, that come first
+
+        while(true) {
+            ArrayList<SudokuGameSummary> page = games.getGameSummaries(name, offset, BATCH_SIZE, GameSortOrder.OLDEST_FIRST);
+            ArrayList<Integer> gameIDs = new ArrayList<>();
+            boolean reachedCutoff = false;
+
+            for(SudokuGameSummary summary: page) {
+                LocalDateTime date = SudokuGame.parseDate(summary.lastPlayedDate);
+                if(date == null) {
+                    offset++;
+                } else if(date.isBefore(cutoff)) {
+                    gameIDs.add(summary.gameID);
+                } else {
+                    //The rest of the games are newer
+                    reachedCutoff = true;
+                    break;
+                }
+            }
+
+            int batchRemoved = removeBatch(games, gameIDs, inUse);
+            if(batchRemoved < 0)
+                break;
+
+            removed += batchRemoved;
+            offset += gameIDs.size() - batchRemoved;
+            if(reachedCutoff || page.size() < BATCH_SIZE)
+                break;
+        }
+
+        return removed;
+    }
+
+    /**
+     * Archives and then removes a batch of games, then pauses before the next batch. Games that are in use
+     * are skipped, as are games that cannot be read, which may have been removed since they were listed.
+     * @param games The storage
+     * @param gameIDs The IDs of the games to remove
+     * @param inUse Tests whether a game is in use
+     * @return The number of games removed, or -1 if the purge should stop because none of the games could
+     * be read, or they could not be archived or removed
+     * @throws InterruptedException If the thread was interrupted while pausing
+     */
+    private int removeBatch(SudokuGameDAO games, ArrayList<Integer> gameIDs, IntPredicate inUse) throws InterruptedException {
+        if(gameIDs.isEmpty())
+            return 0;
+
+        try {
+            ArrayList<SudokuGame> removed = new ArrayList<>();
+            int unreadable = 0;
+            for(int gameID: gameIDs) {
+                if(inUse.test(gameID))
+                    continue;
+
+                SudokuGame game = games.getGame(gameID);
+                if(game != null)
+                    removed.add(game);
+                else
+                    unreadable++;
+            }
+
+            //A read that fails looks the same as a game that was removed, so the same batch would be listed again
+            if(removed.isEmpty())
+                return unreadable > 0 ? -1 : 0;
+
+            if(archiveFile != null && !GameBackup.append(archiveFile, removed))
+                return -1;
+
+            //The game may have come into use while the batch was archived
+            int[] ids = removed.stream().mapToInt(SudokuGame::getGameID).filter(inUse.negate()).toArray();
+            if(ids.length > 0 && !games.removeGames(ids)) {
+                System.out.println("Failed to remove " + ids.length + " games that are no longer kept");
+                return -1;
+            }
+
+            return ids.length;
+        } finally {
+            Thread.sleep(BATCH_PAUSE);
+        }
+    }
+
+    /**
+     * @return The number of days after a game was last played that it is removed, or 0 if games of any age are kept
+     */
+    public int getMaxAgeDays() {
+        return maxAgeDays;
+    }
+
+    /**
+     * @return The number of each player's most recent games that are kept, or 0 if any number are kept
+     */
+    public int getMaxGamesPerPlayer() {
+        return maxGamesPerPlayer;
+    }
+
+    /**
+     * @return The archive that removed games are appended to, or null if they are not archived
+     */
+    public Path getArchiveFile() {
+        return archiveFile;
+    }
+}
@@ -0,0 +1,197 @@
+package javasudoku.dbaccess;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed size pool of database connections that can be shared between threads.
+ * Each connection keeps the statements that were prepared on it for as long as it is open.
+ *
+ * Connections are only opened when no idle connection is available, up to the size of the pool.
+ * Once every connection is in use, threads wait for another thread to release one. Each connection
+ * is validated before it is handed out, and replaced if it is no longer usable.
+ *
+ * This class is not accessible outside of the javasudoku.dbaccess package.
+ * @author Ishaiah Cross
+ */
+class SudokuConnectionPool {
+    //The number of seconds to wait for the database to confirm that a connection is valid
+    private static final int VALIDATION_TIMEOUT = 2;
+    //The number of milliseconds to wait for a connection to be released before checking the pool again
+    private static final long WAIT_INTERVAL = 100;
+
+    private final String url;
+    private final String user;
+    private final String pass;
+    private final int size;
+
+    private final BlockingQueue<SudokuPooledConnection> idleConnections;
+    //Every connection opened by the pool that has not been discarded, whether idle or in use
+    private final ArrayList<SudokuPooledConnection> openConnections;
+    private boolean closed;
+
+    /**
+     * @param url The JDBC URL of the database
+     * @param user The user name to connect with
+     * @param pass The password to connect with
+     * @param size The largest number of connections that can be open at once
+     */
+    SudokuConnectionPool(String url, String user, String pass, int size) {
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+        this.size = Math.max(1, size);
+        this.idleConnections = new ArrayBlockingQueue<>(this.size);
+        this.openConnections = new ArrayList<>();
+        this.closed = false;
+    }
+
+    /**
+     * @return The largest number of connections that can be open at once
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Takes a connection from the pool, opening a new connection if there are no idle connections
+     * and the pool is not full. Otherwise, waits until another thread releases a connection.
+     * Every connection that is acquired must be returned using release.
+     * @return A valid connection to the database
+     * @throws SQLException If a new connection could not be opened, or the pool has been closed
+     */
+    SudokuPooledConnection acquire() throws SQLException {
+        while(true) {
+            SudokuPooledConnection connection = idleConnections.poll();
+
+            if(connection == null) {
+                connection = openIfNotFull();
+                if(connection != null)
+                    return connection;
+
+                //Wait for a short time only, as a discarded connection also makes room for a new one
+                try {
+                    connection = idleConnections.poll(WAIT_INTERVAL, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection");
+                }
+
+                if(connection == null)
+                    continue;
+            }
+
+            if(isValid(connection))
+                return connection;
+
+            //The connection was lost, so discard it to make room for a new one
+            discard(connection);
+        }
+    }
+
+    /**
+     * Returns a connection to the pool so that it can be used by another thread. Any uncommitted
+     * changes are rolled back, and the connection is returned to auto-commit mode.
+     * @param connection The connection to release, which must have been acquired from this pool
+     */
+    void release(SudokuPooledConnection connection) {
+        if(connection == null)
+            return;
+
+        try {
+            if(!connection.getConnection().getAutoCommit()) {
+                connection.getConnection().rollback();
+                connection.getConnection().setAutoCommit(true);
+            }
+        } catch (SQLException se) {
+            System.out.println("Discarding database connection that could not be reset.");
+            System.out.println(se.getMessage());
+            discard(connection);
+            return;
+        }
+
+        synchronized(this) {
+            if(closed) {
+                discard(connection);
+                return;
+            }
+        }
+
+        idleConnections.offer(connection);
+    }
+
+    /**
+     * Closes every connection that is idle, and prevents any more connections from being opened.
+     * Connections that are still in use are closed when they are released.
+     */
+    void closeAll() {
+        synchronized(this) {
+            closed = true;
+        }
+
+        SudokuPooledConnection connection;
+        while((connection = idleConnections.poll()) != null)
+            discard(connection);
+    }
+
+    /**
+     * Opens a new connection if the pool has room for it
+     * @return The new connection, or null if the pool is full
+     * @throws SQLException If the connection could not be opened, or the pool has been closed
+     */
+    private SudokuPooledConnection openIfNotFull() throws SQLException {
+        synchronized(this) {
+            if(closed)
+                throw new SQLException("The connection pool has been closed");
+            if(openConnections.size() >= size)
+                return null;
+
+            //Reserve the slot before connecting, so that other threads do not exceed the size
+            openConnections.add(null);
+        }
+
+        SudokuPooledConnection connection = null;
+        try {
+            connection = new SudokuPooledConnection(DriverManager.getConnection(url, user, pass));
+            return connection;
+        } finally {
+            synchronized(this) {
+                openConnections.remove(null);
+                if(connection != null)
+                    openConnections.add(connection);
+            }
+        }
+    }
+
+    /**
+     * @param connection The connection to check
+     * @return True if the connection can still be used, false otherwise
+     */
+    private boolean isValid(SudokuPooledConnection connection) {
+        try {
+            return connection.getConnection().isValid(VALIDATION_TIMEOUT);
+        } catch (SQLException se) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes a connection and removes it from the pool
+     * @param connection The connection to discard
+     */
+    private void discard(SudokuPooledConnection connection) {
+        synchronized(this) {
+            openConnections.remove(connection);
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException se) {
+            //The connection is no longer usable either way
+        }
+    }
+}
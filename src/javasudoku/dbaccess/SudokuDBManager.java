@@ -1,41 +1,260 @@
 package javasudoku.dbaccess;
 
+import javasudoku.model.GameSortOrder;
+import javasudoku.model.PlayerStats;
 import javasudoku.model.SudokuGameDAO;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuBoardCodec;
 import javasudoku.model.SudokuGame;
+import javasudoku.model.SudokuGameSummary;
 import javasudoku.model.SudokuStringifier;
+import javasudoku.solver.SudokuSolver;
 
 /**
  * Initializes and maintains a connection with a database used to store SudokuGame objects.
  * This class realizes the Singleton design pattern, and as such only one SudokuDBManager instance
  * exists at a time. Using the Singleton design pattern allows the implementation of the
  * SudokuGameDAO interface for performing database operations using SudokuGame objects.
+ * 
+ * Connections are taken from a SudokuConnectionPool for each operation, so the methods of this
+ * class can be called from several threads at once. The size of the pool can be configured with
+ * the system property javasudoku.db.poolSize. The statements used by each operation are prepared
+ * once per connection and reused for later operations on that connection.
+ * 
+ * The database is the SudokuDB folder in the working directory, unless another JDBC URL is set
+ * with the system property javasudoku.db.url. How the database is reached is chosen by the system
+ * property javasudoku.db.mode:
+ * 
+ * embedded  The database is opened inside this program, and cannot be used by any other program. This is the default.
+ * server    As embedded, but the Derby Network Server is also started, so that other instances can connect in
+ *           client mode. This requires derbynet.jar on the classpath, and the server stops when this program exits.
+ * client    The database is reached through a Derby Network Server that is already running.
+ * 
+ * The server listens on, and clients connect to, the host and port set by the system properties
+ * javasudoku.db.host and javasudoku.db.port, which are localhost and 1527 by default. The page cache
+ * and lock timeouts of the database engine are set in derby.properties.
+ * 
+ * Each player name is stored once in the players table, and games refer to their player by its PlayerID.
+ * A player is added the first time one of their games is saved, and is never removed, so player names
+ * are only listed if the player still has a saved game.
+ * 
+ * The statistics of each player are kept in the player statistics table, which is updated in the same
+ * transaction as each game that is added, updated, or removed, so that the statistics and leaderboard
+ * never need to be calculated from the games table.
+ * 
+ * Each puzzle is stored once in the puzzles table, along with its solution, and found by the hash of its givens.
+ * A game refers to the puzzle it was started from by its PuzzleID, and only stores the player entries made
+ * on it. Games saved before the puzzles table was added are converted in small batches when the database is opened.
  * @author Ishaiah Cross
  */
-public class SudokuDBManager implements SudokuGameDAO {
+public class SudokuDBManager implements SudokuGameDAO, AutoCloseable {
     //Database configuration
     private static final String USER = "SudokuGame";
     private static final String PASS = "pdc";
-    private static final String URL = "jdbc:derby:SudokuDB;create=true";
+    private static final String DATABASE_NAME = "SudokuDB";
+    private static final String URL_PROPERTY = "javasudoku.db.url";
+    private static final String DEFAULT_URL = "jdbc:derby:" + DATABASE_NAME + ";create=true";
+    private static final String CLIENT_URL_PREFIX = "jdbc:derby://";
     private static final String TABLE_NAME = "SudokuGames";
+    private static final String PLAYERS_TABLE_NAME = "Players";
+    private static final String STATS_TABLE_NAME = "PlayerStats";
+    private static final String PUZZLES_TABLE_NAME = "Puzzles";
     public static final int MAX_NAME_LENGTH = 15;
     
+    //Statements run by the DAO methods, which are prepared once per connection
+    private static final String GAMES_WITH_PLAYERS = TABLE_NAME + " g JOIN " + PLAYERS_TABLE_NAME 
+            + " p ON g.PlayerID = p.PlayerID";
+    private static final String GAMES_WITH_PUZZLES = GAMES_WITH_PLAYERS + " LEFT JOIN " + PUZZLES_TABLE_NAME 
+            + " z ON g.PuzzleID = z.PuzzleID";
+    private static final String SELECT_PLAYER_NAMES_SQL = "SELECT PlayerName FROM " + PLAYERS_TABLE_NAME + " p"
+            + " WHERE EXISTS (SELECT 1 FROM " + TABLE_NAME + " g WHERE g.PlayerID = p.PlayerID)";
+    private static final String SELECT_PLAYER_ID_SQL = "SELECT PlayerID FROM " + PLAYERS_TABLE_NAME + " WHERE PlayerName = ?";
+    private static final String INSERT_PLAYER_SQL = "INSERT INTO " + PLAYERS_TABLE_NAME + " (PlayerName) VALUES (?)";
+    private static final String SELECT_GAME_SQL = "SELECT * FROM " + GAMES_WITH_PUZZLES + " WHERE g.UID = ?";
+    private static final String SELECT_GAMES_BY_NAME_SQL = "SELECT * FROM " + GAMES_WITH_PUZZLES + " WHERE p.PlayerName LIKE ?";
+    private static final String SELECT_GAME_PAGE_SQL = "SELECT * FROM " + GAMES_WITH_PUZZLES + " WHERE p.PlayerName = ?"
+            + " ORDER BY %s OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+    private static final String SELECT_GAMES_AFTER_SQL = "SELECT * FROM " + GAMES_WITH_PUZZLES + " WHERE g.UID > ?"
+            + " ORDER BY g.UID FETCH FIRST ? ROWS ONLY";
+    private static final String SELECT_SUMMARY_PAGE_SQL = "SELECT UID, PlayerName, SaveDate, FilledCells FROM " + GAMES_WITH_PLAYERS 
+            + " WHERE p.PlayerName = ? ORDER BY %s OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+    private static final String COUNT_GAMES_SQL = "SELECT COUNT(*) FROM " + GAMES_WITH_PLAYERS + " WHERE p.PlayerName = ?";
+    private static final String INSERT_GAME_SQL = "INSERT INTO " + TABLE_NAME 
+            + " (SaveDate, FilledCells, PlayerID, PuzzleID, Entries, PlayTime, Solved) VALUES (?,?,?,?,?,?,?)";
+    private static final String UPDATE_GAME_SQL = "UPDATE " + TABLE_NAME 
+            + " SET SaveDate = ?, FilledCells = ?, PuzzleID = ?, Entries = ?, PlayTime = ?, Solved = ?,"
+            + " GameData = NULL, Givens = NULL, GameBinary = NULL WHERE UID = ?";
+    private static final String DELETE_GAME_SQL = "DELETE FROM " + TABLE_NAME + " WHERE UID = ?";
+    private static final String LOCK_GAME_SQL = "UPDATE " + TABLE_NAME + " SET PlayTime = PlayTime WHERE UID = ?";
+    private static final String SELECT_STORED_GAME_SQL = "SELECT PlayerID, FilledCells, PlayTime, Solved FROM " + TABLE_NAME 
+            + " WHERE UID = ?";
+    
+    //Statements that find, add, and solve shared puzzles
+    private static final String SELECT_PUZZLE_ID_SQL = "SELECT PuzzleID FROM " + PUZZLES_TABLE_NAME 
+            + " WHERE PuzzleHash = ? AND Clues = ?";
+    private static final String INSERT_PUZZLE_SQL = "INSERT INTO " + PUZZLES_TABLE_NAME 
+            + " (PuzzleHash, Clues, Solution) VALUES (?,?,?)";
+    private static final String SELECT_SOLUTION_SQL = "SELECT z.Clues, z.Solution FROM " + TABLE_NAME + " g JOIN " 
+            + PUZZLES_TABLE_NAME + " z ON g.PuzzleID = z.PuzzleID WHERE g.UID = ?";
+    private static final String SELECT_LEGACY_GAMES_SQL = "SELECT UID, GameData, Givens, GameBinary FROM " + TABLE_NAME 
+            + " WHERE Entries IS NULL AND UID > ? ORDER BY UID FETCH FIRST ? ROWS ONLY";
+    private static final String CONVERT_LEGACY_GAME_SQL = "UPDATE " + TABLE_NAME + " SET PuzzleID = ?, Entries = ?,"
+            + " GameData = NULL, Givens = NULL, GameBinary = NULL WHERE UID = ?";
+    private static final int CONVERSION_BATCH_SIZE = 100;
+    private static final String BACKUP_DATABASE_SQL = "CALL SYSCS_UTIL.SYSCS_BACKUP_DATABASE(?)";
+    
+    //Statements that read and maintain the statistics of each player
+    private static final String STATS_WITH_PLAYERS = "SELECT p.PlayerName, s.GamesSaved, s.GamesCompleted, s.TotalCompletion,"
+            + " s.BestSolveTime FROM " + STATS_TABLE_NAME + " s JOIN " + PLAYERS_TABLE_NAME + " p ON s.PlayerID = p.PlayerID";
+    private static final String SELECT_PLAYER_STATS_SQL = STATS_WITH_PLAYERS + " WHERE p.PlayerName = ?";
+    private static final String SELECT_LEADERBOARD_SQL = STATS_WITH_PLAYERS + " WHERE s.BestSolveTime IS NOT NULL"
+            + " ORDER BY s.BestSolveTime, p.PlayerName FETCH FIRST ? ROWS ONLY";
+    private static final String INSERT_STATS_SQL = "INSERT INTO " + STATS_TABLE_NAME 
+            + " (PlayerID, GamesSaved, GamesCompleted, TotalCompletion) VALUES (?, 0, 0, 0)";
+    private static final String UPDATE_STATS_SQL = "UPDATE " + STATS_TABLE_NAME + " SET GamesSaved = GamesSaved + ?,"
+            + " GamesCompleted = GamesCompleted + ?, TotalCompletion = TotalCompletion + ? WHERE PlayerID = ?";
+    private static final String IMPROVE_BEST_TIME_SQL = "UPDATE " + STATS_TABLE_NAME + " SET BestSolveTime = ?"
+            + " WHERE PlayerID = ? AND (BestSolveTime IS NULL OR BestSolveTime > ?)";
+    private static final String FIND_BEST_TIME_SQL = "UPDATE " + STATS_TABLE_NAME + " SET BestSolveTime ="
+            + " (SELECT MIN(PlayTime) FROM " + TABLE_NAME + " WHERE PlayerID = ? AND Solved) WHERE PlayerID = ?";
+    
+    //Connection mode configuration
+    private static final String MODE_PROPERTY = "javasudoku.db.mode";
+    private static final String HOST_PROPERTY = "javasudoku.db.host";
+    private static final String PORT_PROPERTY = "javasudoku.db.port";
+    private static final String DEFAULT_HOST = "localhost";
+    private static final int DEFAULT_PORT = 1527;
+    
+    //Connection pool configuration
+    private static final String POOL_SIZE_PROPERTY = "javasudoku.db.poolSize";
+    private static final int DEFAULT_POOL_SIZE = 4;
+    
     //Instance information
     private static SudokuDBManager dbManagerInstance = null;
-    private Connection dbConnection;
+    private final SudokuConnectionPool connectionPool;
+    private final boolean embedded; //True if the database engine runs inside this program
+    private final boolean shared; //True if other programs can change the database while it is open
+    private final Object puzzleInsertLock; //Held by addPuzzles while it inserts a batch
+    
+    /**
+     * The values of a stored game that the statistics of its player are calculated from
+     */
+    private static class StoredGame {
+        final int playerID;
+        final float completion;
+        final boolean solved;
+        final long playTime;
+        
+        StoredGame(int playerID, float completion, boolean solved, long playTime) {
+            this.playerID = playerID;
+            this.completion = completion;
+            this.solved = solved;
+            this.playTime = playTime;
+        }
+        
+        StoredGame(int playerID, SudokuGame game) {
+            this(playerID, game.completionPercentage, game.isSolved, game.getPlayTime());
+        }
+    }
+    
+    /**
+     * The puzzle that a board was started from, encoded for the puzzles table. It is found or solved by
+     * preparePuzzle before the transaction that writes the board starts, so that the solver never runs
+     * while the transaction holds locks.
+     */
+    private static class EncodedPuzzle {
+        final long hash;
+        final byte[] clues;
+        final Integer puzzleID; //The PuzzleID of the puzzle if it was already stored, otherwise null
+        final byte[] solution; //The encoded solution if the puzzle must be added and could be solved, otherwise null
+        
+        EncodedPuzzle(long hash, byte[] clues, Integer puzzleID, byte[] solution) {
+            this.hash = hash;
+            this.clues = clues;
+            this.puzzleID = puzzleID;
+            this.solution = solution;
+        }
+    }
     
     
     private SudokuDBManager() {
-        connectDatabase();
+        String url = System.getProperty(URL_PROPERTY);
+        String mode = System.getProperty(MODE_PROPERTY, "embedded");
+        if(url == null)
+            url = getModeURL(mode);
+        
+        this.embedded = !url.startsWith(CLIENT_URL_PREFIX);
+        this.shared = !embedded || (System.getProperty(URL_PROPERTY) == null && mode.equalsIgnoreCase("server"));
+        this.puzzleInsertLock = new Object();
+        this.connectionPool = new SudokuConnectionPool(url, USER, PASS, Integer.getInteger(POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE));
         initializeTable();
     }
     
-    public static SudokuDBManager getInstance() {
+    /**
+     * Gets the JDBC URL of the database for a connection mode, starting the network server if the mode requires it
+     * @param mode The connection mode: embedded, server, or client
+     * @return The JDBC URL
+     */
+    private static String getModeURL(String mode) {
+        String host = System.getProperty(HOST_PROPERTY, DEFAULT_HOST);
+        int port = Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT);
+        
+        switch(mode.toLowerCase()) {
+            case "client":
+                return CLIENT_URL_PREFIX + host + ":" + port + "/" + DATABASE_NAME + ";create=true";
+            case "server":
+                startNetworkServer(host, port);
+                return DEFAULT_URL;
+            case "embedded":
+                return DEFAULT_URL;
+            default:
+                System.out.println("Unknown database mode '" + mode + "', using embedded mode instead.");
+                return DEFAULT_URL;
+        }
+    }
+    
+    /**
+     * Has the embedded database engine start the Derby Network Server when it boots. The server
+     * is stopped when the engine is shut down.
+     * @param host The host name or address to listen on
+     * @param port The port to listen on
+     */
+    private static void startNetworkServer(String host, int port) {
+        try {
+            Class.forName("org.apache.derby.drda.NetworkServerControl");
+        } catch (ClassNotFoundException ex) {
+            System.out.println("derbynet.jar is not on the classpath, so other instances will not be able to connect.");
+            return;
+        }
+        
+        System.setProperty("derby.drda.startNetworkServer", "true");
+        System.setProperty("derby.drda.host", host);
+        System.setProperty("derby.drda.portNumber", Integer.toString(port));
+    }
+    
+    /**
+     * Gets the single SudokuDBManager instance, creating it on the first call.
+     * This method is synchronized so that threads calling it at the same time
+     * cannot create more than one instance.
+     * @return The SudokuDBManager instance
+     */
+    public static synchronized SudokuDBManager getInstance() {
         if(dbManagerInstance == null) {
             dbManagerInstance = new SudokuDBManager();
         }
@@ -44,28 +263,94 @@ public class SudokuDBManager implements SudokuGameDAO {
     }
     
     /**
-     * Attempts to connect to the Sudoku database using the configured URL, username, and password.
+     * @return True if the database is reached through, or served by, the Derby Network Server, so other
+     * programs can change it while it is open
      */
-    private void connectDatabase() {
-        if(this.dbConnection == null) {
-            try {
-                this.dbConnection = DriverManager.getConnection(URL, USER, PASS);
-            } catch (SQLException ex) {
-                System.out.println("Failed to set up database connection.");
-                System.out.println(ex.getMessage());
-                System.out.println(ex.getNextException());
+    public boolean isShared() {
+        return shared;
+    }
+    
+    /**
+     * Copies the whole database into a backup folder while it stays open. The copy holds every table as it
+     * was at one point in time, and games can still be saved while it is written. It is written to a folder
+     * named SudokuDB in the backup folder, and only replaces an earlier copy there once it is complete.
+     * 
+     * The copy is restored by opening the database with the restoreFrom attribute, for example by setting
+     * javasudoku.db.url to jdbc:derby:SudokuDB;restoreFrom=backups/SudokuDB
+     * In client mode, the backup folder is on the computer running the server.
+     * @param backupDirectory The folder to write the copy to
+     * @return True if the copy was written, false otherwise
+     */
+    public boolean backupDatabase(Path backupDirectory) {
+        SudokuPooledConnection connection = null;
+        
+        try {
+            connection = getConnection();
+            try (CallableStatement sql = connection.getConnection().prepareCall(BACKUP_DATABASE_SQL)) {
+                sql.setString(1, backupDirectory.toString());
+                sql.execute();
             }
+            
+            return true;
+        } catch (SQLException se) {
+            System.out.println("Failed to back up the database to " + backupDirectory);
+            System.out.println(se);
+        } finally {
+            releaseConnection(connection);
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Takes a connection to the Sudoku database from the connection pool. 
+     * Every connection must be returned using releaseConnection.
+     * @return A connection to the database
+     * @throws SQLException If no connection could be made
+     */
+    private SudokuPooledConnection getConnection() throws SQLException {
+        try {
+            return connectionPool.acquire();
+        } catch (SQLException ex) {
+            System.out.println("Failed to set up database connection.");
+            System.out.println(ex.getMessage());
+            System.out.println(ex.getNextException());
+            throw ex;
         }
     }
     
     /**
-     * Attempts to close the connection to the Sudoku database.
+     * Returns a connection to the connection pool
+     * @param connection The connection to return, or null if none was taken
+     */
+    private void releaseConnection(SudokuPooledConnection connection) {
+        connectionPool.release(connection);
+    }
+    
+    /**
+     * Closes all connections to the Sudoku database
+     * @see #closeConnection()
+     */
+    @Override
+    public void close() {
+        closeConnection();
+    }
+    
+    /**
+     * Attempts to close all connections to the Sudoku database.
      */
      public void closeConnection() {
-        if (dbConnection != null) {
+        //The engine of a network server belongs to the server, so only this program's connections are closed
+        if (connectionPool != null && !embedded) {
+            connectionPool.closeAll();
+            System.out.println("Closed Derby connection");
+            return;
+        }
+        
+        if (connectionPool != null) {
             try {
                 //In embedded mode, shutdown the database using shutdown=true
-                this.dbConnection.close();
+                connectionPool.closeAll();
                 DriverManager.getConnection("jdbc:derby:;shutdown=true");
             } catch (SQLException ex) {
                 if(ex.getSQLState().equals("XJ015")) {
@@ -81,19 +366,63 @@ public class SudokuDBManager implements SudokuGameDAO {
     }
      
      /**
-      * Initializes the table that the SudokuDB needs to store game data
+      * Initializes the tables that the SudokuDB needs to store game data
       */
      private void initializeTable() {
+         SudokuPooledConnection connection = null;
+         
          try {
-             PreparedStatement sql = dbConnection.prepareStatement("CREATE TABLE " + TABLE_NAME + " ("
-                     + "UID INT NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1),"
-                     + "SaveDate VARCHAR(50) NOT NULL,"
-                     + "FilledCells FLOAT,"
+             connection = getConnection();
+             createTable(connection.getConnection(), "CREATE TABLE " + PLAYERS_TABLE_NAME + " ("
+                     + "PlayerID INT NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1),"
                      + "PlayerName VARCHAR(" + MAX_NAME_LENGTH + ") NOT NULL,"
-                     + "GameData VARCHAR(500) NOT NULL,"
-                     + "PRIMARY KEY (UID))");
+                     + "PRIMARY KEY (PlayerID),"
+                     + "CONSTRAINT " + PLAYERS_TABLE_NAME + "Name UNIQUE (PlayerName))");
              
-             sql.executeUpdate();
+             //Different puzzles may share a hash, so a puzzle is only the same if its clues are also the same
+             createTable(connection.getConnection(), "CREATE TABLE " + PUZZLES_TABLE_NAME + " ("
+                     + "PuzzleID INT NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1),"
+                     + "PuzzleHash BIGINT NOT NULL,"
+                     + "Clues VARCHAR(" + SudokuBoardCodec.VALUES_BYTES + ") FOR BIT DATA NOT NULL,"
+                     + "Solution VARCHAR(" + SudokuBoardCodec.VALUES_BYTES + ") FOR BIT DATA,"
+                     + "PRIMARY KEY (PuzzleID),"
+                     + "CONSTRAINT " + PUZZLES_TABLE_NAME + "Content UNIQUE (PuzzleHash, Clues))");
+             
+             createTable(connection.getConnection(), "CREATE TABLE " + TABLE_NAME + " ("
+                     + "UID INT NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1),"
+                     + "SaveDate TIMESTAMP NOT NULL,"
+                     + "FilledCells FLOAT,"
+                     + "PlayerID INT NOT NULL,"
+                     + "GameData VARCHAR(500),"
+                     + "Givens VARCHAR(" + SudokuBoard.GIVENS_MASK_BYTES + ") FOR BIT DATA,"
+                     + "GameBinary VARCHAR(" + SudokuBoardCodec.ENCODED_BYTES_WITH_GIVENS + ") FOR BIT DATA,"
+                     + "PlayTime BIGINT NOT NULL DEFAULT 0,"
+                     + "Solved BOOLEAN NOT NULL DEFAULT FALSE,"
+                     + "PuzzleID INT,"
+                     + "Entries VARCHAR(" + SudokuBoardCodec.VALUES_BYTES + ") FOR BIT DATA,"
+                     + "PRIMARY KEY (UID),"
+                     + "CONSTRAINT " + TABLE_NAME + "Player FOREIGN KEY (PlayerID) REFERENCES " + PLAYERS_TABLE_NAME + ","
+                     + "CONSTRAINT " + TABLE_NAME + "Puzzle FOREIGN KEY (PuzzleID) REFERENCES " + PUZZLES_TABLE_NAME + ")");
+         } catch (SQLException se) {
+             //The connection could not be made, and getConnection has already reported why
+         }
+         
+         if(connection != null) {
+             upgradeTable(connection.getConnection());
+             convertLegacyGames(connection);
+         }
+         
+         releaseConnection(connection);
+     }
+     
+     /**
+      * Creates a table if it does not already exist
+      * @param connection The connection to the database
+      * @param statement The CREATE TABLE statement
+      */
+     private void createTable(Connection connection, String statement) {
+         try {
+             runUpdate(connection, statement);
          } catch (SQLException se) {
              //Error code XOY32 means that the table already existed, so no error needs to be thrown in such a case
              if(!se.getSQLState().equals("X0Y32")) {
@@ -102,6 +431,311 @@ public class SudokuDBManager implements SudokuGameDAO {
              }
          }
      }
+     
+     /**
+      * Adds any columns that are missing from tables created by earlier versions of the game
+      * @param connection The connection to the database
+      */
+     private void upgradeTable(Connection connection) {
+         //Games saved before givens were tracked will have a null value in this column
+         runUpgrade(connection, "ALTER TABLE " + TABLE_NAME 
+                 + " ADD COLUMN Givens VARCHAR(" + SudokuBoard.GIVENS_MASK_BYTES + ") FOR BIT DATA");
+         
+         //Games saved before the binary encoding was used will have a null value in this column
+         runUpgrade(connection, "ALTER TABLE " + TABLE_NAME 
+                 + " ADD COLUMN GameBinary VARCHAR(" + SudokuBoardCodec.ENCODED_BYTES_WITH_GIVENS + ") FOR BIT DATA");
+         
+         //New games only store the binary encoding, so the text column must allow null values
+         runUpgrade(connection, "ALTER TABLE " + TABLE_NAME + " ALTER COLUMN GameData NULL");
+         
+         //Games saved before the players table was added store the player name in each row
+         upgradePlayers(connection);
+         
+         //Games saved before play time was tracked were not saved once solved, and their play time is unknown
+         runUpgrade(connection, "ALTER TABLE " + TABLE_NAME + " ADD COLUMN PlayTime BIGINT NOT NULL DEFAULT 0");
+         runUpgrade(connection, "ALTER TABLE " + TABLE_NAME + " ADD COLUMN Solved BOOLEAN NOT NULL DEFAULT FALSE");
+         
+         //Games saved before dates were stored as timestamps store them as text
+         upgradeSaveDate(connection);
+         
+         //Lets a player's games be found and listed by date without scanning the whole table
+         runUpgrade(connection, "CREATE INDEX " + TABLE_NAME + "PlayerIDDate ON " + TABLE_NAME + " (PlayerID, SaveDate)");
+         
+         createStatsTable(connection);
+         
+         //Games saved before the puzzles table was added store the whole board, and are converted by convertLegacyGames
+         runUpgrade(connection, "ALTER TABLE " + TABLE_NAME + " ADD COLUMN PuzzleID INT");
+         runUpgrade(connection, "ALTER TABLE " + TABLE_NAME 
+                 + " ADD COLUMN Entries VARCHAR(" + SudokuBoardCodec.VALUES_BYTES + ") FOR BIT DATA");
+         runUpgrade(connection, "ALTER TABLE " + TABLE_NAME + " ADD CONSTRAINT " + TABLE_NAME 
+                 + "Puzzle FOREIGN KEY (PuzzleID) REFERENCES " + PUZZLES_TABLE_NAME);
+     }
+     
+     /**
+      * Converts the games that were saved before the puzzles table was added, which store the whole board,
+      * into a reference to their puzzle and the player entries made on it. Each batch of games is converted
+      * in its own short transaction, so the games table is never locked for long, and a conversion that
+      * stops part way through continues from the first unconverted game the next time the database is opened.
+      * @param connection The connection to the database
+      */
+     private void convertLegacyGames(SudokuPooledConnection connection) {
+         int lastID = 0;
+         int converted = 0;
+         
+         try {
+             connection.getConnection().setAutoCommit(false);
+             
+             while(true) {
+                 PreparedStatement select = connection.prepare(SELECT_LEGACY_GAMES_SQL);
+                 select.setInt(1, lastID);
+                 select.setInt(2, CONVERSION_BATCH_SIZE);
+                 
+                 //Read the whole batch first, since adding its puzzles uses the same connection
+                 ArrayList<Integer> gameIDs = new ArrayList<>();
+                 ArrayList<SudokuBoard> boards = new ArrayList<>();
+                 int rows = 0;
+                 try (ResultSet query = select.executeQuery()) {
+                     while(query.next()) {
+                         rows++;
+                         lastID = query.getInt("UID");
+                         SudokuBoard board = readLegacyBoard(query);
+                         
+                         //Boards that cannot be read are left as they are
+                         if(board != null) {
+                             gameIDs.add(lastID);
+                             boards.add(board);
+                         }
+                     }
+                 }
+                 
+                 if(rows == 0)
+                     break;
+                 
+                 //The batch has only been read so far, so no locks are held while its puzzles are solved
+                 ArrayList<EncodedPuzzle> puzzles = new ArrayList<>(boards.size());
+                 for(SudokuBoard board: boards)
+                     puzzles.add(preparePuzzle(connection, board));
+                 
+                 PreparedStatement update = connection.prepare(CONVERT_LEGACY_GAME_SQL);
+                 for(int i = 0; i < gameIDs.size(); i++) {
+                     setPuzzleParameters(connection, update, 1, boards.get(i), puzzles.get(i));
+                     update.setInt(3, gameIDs.get(i));
+                     update.executeUpdate();
+                 }
+                 
+                 connection.getConnection().commit();
+                 converted += gameIDs.size();
+             }
+         } catch (SQLException se) {
+             System.out.println("Failed to convert saved games.");
+             System.out.println(se.getMessage());
+         }
+         
+         if(converted > 0)
+             System.out.println("Converted " + converted + " saved games to shared puzzles");
+     }
+     
+     /**
+      * Runs several statements that change the structure of existing tables in one transaction, so that either
+      * all of the changes are made, or none are if the program stops part way through
+      * @param connection The connection to the database
+      * @param statements The SQL to run on the database, in order
+      * @throws SQLException If a statement failed, once the changes have been rolled back
+      */
+     private void runMigration(Connection connection, String... statements) throws SQLException {
+         connection.setAutoCommit(false);
+         
+         try {
+             for(String statement: statements)
+                 runUpdate(connection, statement);
+             
+             connection.commit();
+         } catch (SQLException se) {
+             connection.rollback();
+             throw se;
+         } finally {
+             connection.setAutoCommit(true);
+         }
+     }
+     
+     /**
+      * Converts the text SaveDate column of a games table created before dates were stored as timestamps
+      * into a TIMESTAMP column, so that ranges of dates can be found using an index
+      * @param connection The connection to the database
+      */
+     private void upgradeSaveDate(Connection connection) {
+         try {
+             try (ResultSet column = connection.getMetaData().getColumns(null, connection.getSchema(), 
+                     TABLE_NAME.toUpperCase(), "SAVEDATE")) {
+                 if(!column.next() || column.getInt("DATA_TYPE") == Types.TIMESTAMP)
+                     return;
+             }
+             
+             //The text dates are in the form yyyy/MM/dd HH:mm:ss, and dropping the column also drops the index on it
+             runMigration(connection,
+                     "ALTER TABLE " + TABLE_NAME + " ADD COLUMN SaveTime TIMESTAMP",
+                     "UPDATE " + TABLE_NAME + " SET SaveTime = TIMESTAMP(SUBSTR(SaveDate, 1, 4) || '-' || SUBSTR(SaveDate, 6, 2)"
+                             + " || '-' || SUBSTR(SaveDate, 9, 2) || ' ' || SUBSTR(SaveDate, 12, 8))",
+                     "ALTER TABLE " + TABLE_NAME + " DROP COLUMN SaveDate",
+                     "RENAME COLUMN " + TABLE_NAME + ".SaveTime TO SaveDate",
+                     "ALTER TABLE " + TABLE_NAME + " ALTER COLUMN SaveDate NOT NULL");
+         } catch (SQLException se) {
+             System.out.println("Failed to upgrade tables.");
+             System.out.println(se.getMessage());
+         }
+     }
+     
+     /**
+      * Creates the player statistics table if it does not exist, filling it from the games that were saved before it existed.
+      * This is the only time that the statistics are calculated from the games table.
+      * @param connection The connection to the database
+      */
+     private void createStatsTable(Connection connection) {
+         try {
+             runMigration(connection, 
+                     "CREATE TABLE " + STATS_TABLE_NAME + " ("
+                             + "PlayerID INT NOT NULL,"
+                             + "GamesSaved INT NOT NULL,"
+                             + "GamesCompleted INT NOT NULL,"
+                             + "TotalCompletion DOUBLE NOT NULL,"
+                             + "BestSolveTime BIGINT,"
+                             + "PRIMARY KEY (PlayerID),"
+                             + "CONSTRAINT " + STATS_TABLE_NAME + "Player FOREIGN KEY (PlayerID) REFERENCES " + PLAYERS_TABLE_NAME + ")",
+                     "CREATE INDEX " + STATS_TABLE_NAME + "BestTime ON " + STATS_TABLE_NAME + " (BestSolveTime)",
+                     "INSERT INTO " + STATS_TABLE_NAME + " (PlayerID, GamesSaved, GamesCompleted, TotalCompletion, BestSolveTime)"
+                             + " SELECT p.PlayerID, COUNT(g.UID), SUM(CASE WHEN g.Solved THEN 1 ELSE 0 END), COALESCE(SUM(g.FilledCells), 0),"
+                             + " MIN(CASE WHEN g.Solved THEN g.PlayTime END) FROM " + PLAYERS_TABLE_NAME + " p LEFT JOIN " + TABLE_NAME 
+                             + " g ON g.PlayerID = p.PlayerID GROUP BY p.PlayerID");
+         } catch (SQLException se) {
+             //Error code XOY32 means that the table already existed
+             if(!se.getSQLState().equals("X0Y32")) {
+                 System.out.println("Failed to initialize tables.");
+                 System.out.println(se.getMessage());
+             }
+         }
+     }
+     
+     /**
+      * Moves the player names of a games table created before the players table was added into the players table,
+      * replacing the PlayerName column of the games with a PlayerID column. The changes are made in one transaction,
+      * so the move is either finished or not started if the program stops part way through.
+      * @param connection The connection to the database
+      */
+     private void upgradePlayers(Connection connection) {
+         try {
+             //Dropping the PlayerName column also drops the index on PlayerName and SaveDate
+             runMigration(connection,
+                     "ALTER TABLE " + TABLE_NAME + " ADD COLUMN PlayerID INT",
+                     "INSERT INTO " + PLAYERS_TABLE_NAME + " (PlayerName) SELECT DISTINCT PlayerName FROM " + TABLE_NAME,
+                     "UPDATE " + TABLE_NAME + " SET PlayerID = (SELECT p.PlayerID FROM " + PLAYERS_TABLE_NAME 
+                             + " p WHERE p.PlayerName = " + TABLE_NAME + ".PlayerName)",
+                     "ALTER TABLE " + TABLE_NAME + " ALTER COLUMN PlayerID NOT NULL",
+                     "ALTER TABLE " + TABLE_NAME + " DROP COLUMN PlayerName",
+                     "ALTER TABLE " + TABLE_NAME + " ADD CONSTRAINT " + TABLE_NAME 
+                             + "Player FOREIGN KEY (PlayerID) REFERENCES " + PLAYERS_TABLE_NAME);
+         } catch (SQLException se) {
+             //Error code X0Y32 means that the PlayerID column already existed, so the table has already been upgraded
+             if(!se.getSQLState().equals("X0Y32")) {
+                 System.out.println("Failed to upgrade tables.");
+                 System.out.println(se.getMessage());
+             }
+         }
+     }
+     
+     /**
+      * Runs a single statement that changes the structure of an existing table
+      * @param connection The connection to the database
+      * @param statement The SQL to run on the database
+      */
+     private void runUpgrade(Connection connection, String statement) {
+         try {
+             runUpdate(connection, statement);
+         } catch (SQLException se) {
+             //Error code XOY32 means that the column or index already existed
+             if(!se.getSQLState().equals("X0Y32")) {
+                 System.out.println("Failed to upgrade tables.");
+                 System.out.println(se.getMessage());
+             }
+         }
+     }
+     
+     /**
+      * Prepares and runs a statement that is only run once, and so is not cached
+      * @param connection The connection to the database
+      * @param statement The SQL to run on the database
+      * @throws SQLException If the statement failed
+      */
+     private void runUpdate(Connection connection, String statement) throws SQLException {
+         try (PreparedStatement sql = connection.prepareStatement(statement)) {
+             sql.executeUpdate();
+         }
+     }
+     
+     /**
+      * Creates a SudokuGame object from the current row of a query on the games table
+      * @param query The query, positioned at the row to read
+      * @return The SudokuGame object
+      * @throws SQLException If the row could not be read
+      */
+     private SudokuGame readGame(ResultSet query) throws SQLException {
+         Integer gameID = query.getInt("UID");
+         String saveDate = fromTimestamp(query.getTimestamp("SaveDate"));
+         String playerName = query.getString("PlayerName");
+         byte[] entries = query.getBytes("Entries");
+         
+         //Create the object by placing the player entries on the puzzle and setting the date manually
+         SudokuBoard board;
+         if(entries != null)
+             board = SudokuBoardCodec.decodeEntries(query.getBytes("Clues"), entries);
+         else
+             board = readLegacyBoard(query);
+         
+         SudokuGame game = new SudokuGame(playerName, board);
+         game.setDate(saveDate);
+         game.setGameID(gameID);
+         game.setPlayTime(query.getLong("PlayTime"));
+         return game;
+     }
+     
+     /**
+      * Reads the board of the current row of a query on the games table, from a game that was saved
+      * before the puzzles table was added
+      * @param query The query, positioned at the row to read
+      * @return The board, or null if it could not be read
+      * @throws SQLException If the row could not be read
+      */
+     private SudokuBoard readLegacyBoard(ResultSet query) throws SQLException {
+         byte[] binaryData = query.getBytes("GameBinary");
+         if(binaryData != null)
+             return SudokuBoardCodec.decode(binaryData);
+         
+         //Games saved before the binary encoding was used only have the text form
+         String boardData = query.getString("GameData");
+         byte[] givens = query.getBytes("Givens");
+         
+         SudokuBoard board = SudokuStringifier.parseBoard(boardData);
+         if(board != null && givens != null)
+             board.setGivensMask(givens);
+         
+         return board;
+     }
+     
+     /**
+      * @param date A date in the form used by SudokuGame
+      * @return The date as a timestamp, or the current time if the date could not be read
+      */
+     private static Timestamp toTimestamp(String date) {
+         LocalDateTime parsed = SudokuGame.parseDate(date);
+         return Timestamp.valueOf(parsed != null ? parsed : LocalDateTime.now());
+     }
+     
+     /**
+      * @param timestamp A timestamp read from the database
+      * @return The timestamp as a date in the form used by SudokuGame
+      */
+     private static String fromTimestamp(Timestamp timestamp) {
+         return SudokuGame.formatDate(timestamp.toLocalDateTime());
+     }
          
      /**
       * Runs an SQL query on the Sudoku database
@@ -127,20 +761,25 @@ public class SudokuDBManager implements SudokuGameDAO {
     @Override
     public ArrayList<String> getPlayerNames() {
         ArrayList<String> names = new ArrayList<>();
+        SudokuPooledConnection connection = null;
         
         try {
-            //Create the SQL statement
-            PreparedStatement sql = dbConnection.prepareStatement("SELECT DISTINCT PlayerName FROM " + TABLE_NAME);
-            ResultSet query = sql.executeQuery();
+            connection = getConnection();
+            //Get the SQL statement
+            PreparedStatement sql = connection.prepare(SELECT_PLAYER_NAMES_SQL);
             
             //Process the results to get all of the player names
-            while(query.next()) {
-                String name = query.getString("PlayerName");
-                names.add(name);
+            try (ResultSet query = sql.executeQuery()) {
+                while(query.next()) {
+                    String name = query.getString("PlayerName");
+                    names.add(name);
+                }
             }
             
         } catch(SQLException SE) {
             System.out.println("Failed to retrieve column PlayerName from the database");
+        } finally {
+            releaseConnection(connection);
         }
         
         return names;
@@ -154,36 +793,74 @@ public class SudokuDBManager implements SudokuGameDAO {
     @Override
     public SudokuGame getGame(int id) {
         SudokuGame result = null;
+        SudokuPooledConnection connection = null;
         
         try {
-            //Create the SQL statement
-            PreparedStatement sql = dbConnection.prepareStatement("SELECT * FROM " + TABLE_NAME + " WHERE UID = ?");
+            connection = getConnection();
+            //Get the SQL statement
+            PreparedStatement sql = connection.prepare(SELECT_GAME_SQL);
             sql.setInt(1, id);
 
-            ResultSet query = sql.executeQuery();
-            
             //Process the results to initialize a SudokuGame object
-            if(query.next()) {
-                String saveDate = query.getString("SaveDate");
-                String playerName = query.getString("PlayerName");
-                String boardData = query.getString("GameData");
-                
-                //Create the object by parsing the raw board data and setting the date manually
-                result = new SudokuGame(playerName, SudokuStringifier.parseBoard(boardData));
-                result.setDate(saveDate);
-            } else {
-                //Throw an exception if there was no game with the provided ID
-                throw new SQLException();
+            try (ResultSet query = sql.executeQuery()) {
+                if(query.next()) {
+                    result = readGame(query);
+                } else {
+                    //Throw an exception if there was no game with the provided ID
+                    throw new SQLException();
+                }
             }
             
         } catch (SQLException se) {
             System.out.println("Failed to remove game with UID " + id);
             System.out.println(se);
+        } finally {
+            releaseConnection(connection);
         }
         
         return result;
     }
     
+    /**
+     * Reads the stored solution of the puzzle that a game was started from
+     * @param id The UID of the game
+     * @return The solved board, with the givens of the puzzle set, or null if there is no stored solution
+     */
+    @Override
+    public SudokuBoard getSolution(int id) {
+        SudokuPooledConnection connection = null;
+        
+        try {
+            connection = getConnection();
+            PreparedStatement sql = connection.prepare(SELECT_SOLUTION_SQL);
+            sql.setInt(1, id);
+
+            try (ResultSet query = sql.executeQuery()) {
+                if(query.next()) {
+                    byte[] solution = query.getBytes("Solution");
+                    SudokuBoard puzzle = SudokuBoardCodec.decode(query.getBytes("Clues"));
+                    if(solution == null || puzzle == null)
+                        return null;
+                    
+                    //The solution is stored without givens, so they are taken from the puzzle
+                    SudokuBoard board = SudokuBoardCodec.decode(solution);
+                    puzzle.markGivens();
+                    if(board != null)
+                        board.setGivensMask(puzzle.getGivensMask());
+                    return board;
+                }
+            }
+            
+        } catch (SQLException se) {
+            System.out.println("Failed to get solution of game with UID " + id);
+            System.out.println(se);
+        } finally {
+            releaseConnection(connection);
+        }
+        
+        return null;
+    }
+    
     /**
      * Queries the Sudoku database for SudokuGame objects based on the attached user name
      * @param name The name to search for
@@ -192,86 +869,880 @@ public class SudokuDBManager implements SudokuGameDAO {
     @Override
     public ArrayList<SudokuGame> getGamesByName(String name) {
         ArrayList<SudokuGame> results = new ArrayList<>();
+        SudokuPooledConnection connection = null;
         
         try {
-            //Create the SQL statement
-            PreparedStatement sql = dbConnection.prepareStatement("SELECT * FROM " + TABLE_NAME + " WHERE PlayerName LIKE ?");
+            connection = getConnection();
+            //Get the SQL statement
+            PreparedStatement sql = connection.prepare(SELECT_GAMES_BY_NAME_SQL);
             sql.setString(1, name);
 
-            ResultSet query = sql.executeQuery();
+            //Iterate over all of the results
+            try (ResultSet query = sql.executeQuery()) {
+                while(query.next()) {
+                    //Add the result to the arraylist
+                    results.add(readGame(query));
+                }
+            }
             
+        } catch (SQLException se) {
+            System.out.println("Failed to run query when supplied name " + name);
+            System.out.println(se);
+        } finally {
+            releaseConnection(connection);
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Converts a sort order into the ORDER BY clause of a query. Games saved at the same
+     * time are ordered by UID, so that pages never overlap.
+     * @param sort The sort order
+     * @return The columns to sort by
+     */
+    private static String getOrderByClause(GameSortOrder sort) {
+        switch(sort) {
+            case OLDEST_FIRST:
+                return "SaveDate ASC, UID ASC";
+            case MOST_COMPLETE_FIRST:
+                return "FilledCells DESC, UID DESC";
+            case LEAST_COMPLETE_FIRST:
+                return "FilledCells ASC, UID ASC";
+            default:
+                return "SaveDate DESC, UID DESC";
+        }
+    }
+    
+    /**
+     * Queries the Sudoku database for one page of the games saved under a player name.
+     * The player is found by name in the players table, and pages sorted by date are read through the
+     * index on PlayerID and SaveDate, so only the games on the page are read.
+     * @param name The name to search for
+     * @param offset The number of matching games to skip
+     * @param limit The largest number of games to return
+     * @param sort The order of the matching games
+     * @return An ArrayList containing the results
+     */
+    @Override
+    public ArrayList<SudokuGame> getGamesByName(String name, int offset, int limit, GameSortOrder sort) {
+        ArrayList<SudokuGame> results = new ArrayList<>();
+        SudokuPooledConnection connection = null;
+        
+        try {
+            connection = getConnection();
+            //Get the SQL statement for the sort order
+            PreparedStatement sql = connection.prepare(String.format(SELECT_GAME_PAGE_SQL, getOrderByClause(sort)));
+            sql.setString(1, name);
+            sql.setInt(2, Math.max(0, offset));
+            sql.setInt(3, Math.max(1, limit));
+
             //Iterate over all of the results
-            while(query.next()) {
-                Integer gameID = query.getInt("UID");
-                String saveDate = query.getString("SaveDate");
-                String playerName = query.getString("PlayerName");
-                String boardData = query.getString("GameData");
-                
-                //Create the object by parsing the raw board data and setting the date manually
-                SudokuGame resultGame = new SudokuGame(playerName, SudokuStringifier.parseBoard(boardData));
-                resultGame.setDate(saveDate);
-                resultGame.setGameID(gameID);
-                
-                //Add the result to the arraylist
-                results.add(resultGame);
+            try (ResultSet query = sql.executeQuery()) {
+                while(query.next())
+                    results.add(readGame(query));
             }
             
         } catch (SQLException se) {
             System.out.println("Failed to run query when supplied name " + name);
             System.out.println(se);
+        } finally {
+            releaseConnection(connection);
         }
         
         return results;
     }
     
     /**
-     * Adds a SudokuGame to the database
-     * @param game The game to add
+     * Queries the Sudoku database for the games with the lowest UIDs after a UID, using the primary key
+     * so that no other games are read
+     * @param afterID The UID to start after, or 0 to start from the first game
+     * @param limit The largest number of games to return
+     * @return An ArrayList containing the results, in order of UID, or null if the query failed
      */
     @Override
-    public void addGame(SudokuGame game) {
-        //Get the game, completion status, and the board data
-        String dateAsString = game.lastPlayedDate;
-        float completion = game.completionPercentage;
-        String boardData = SudokuStringifier.boardToString(game.boardState);
+    public ArrayList<SudokuGame> getGamesAfter(int afterID, int limit) {
+        ArrayList<SudokuGame> results = new ArrayList<>();
+        SudokuPooledConnection connection = null;
+        
+        try {
+            connection = getConnection();
+            PreparedStatement sql = connection.prepare(SELECT_GAMES_AFTER_SQL);
+            sql.setInt(1, afterID);
+            sql.setInt(2, Math.max(1, limit));
 
-        //Create the SQL statement
+            //Iterate over all of the results
+            try (ResultSet query = sql.executeQuery()) {
+                while(query.next())
+                    results.add(readGame(query));
+            }
+            
+        } catch (SQLException se) {
+            System.out.println("Failed to read games after UID " + afterID);
+            System.out.println(se);
+            results = null;
+        } finally {
+            releaseConnection(connection);
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Queries the Sudoku database for summaries of one page of the games saved under a player name.
+     * Only the columns that are listed are read, so no boards are decoded.
+     * @param name The name to search for
+     * @param offset The number of matching games to skip
+     * @param limit The largest number of summaries to return
+     * @param sort The order of the matching games
+     * @return An ArrayList containing the results
+     */
+    @Override
+    public ArrayList<SudokuGameSummary> getGameSummaries(String name, int offset, int limit, GameSortOrder sort) {
+        ArrayList<SudokuGameSummary> results = new ArrayList<>();
+        SudokuPooledConnection connection = null;
+        
         try {
- 
-            PreparedStatement sql = dbConnection.prepareStatement(
-                "INSERT INTO " + TABLE_NAME + " (SaveDate, FilledCells, PlayerName, GameData) VALUES ("
-                        + "?,?,?,?)");
+            connection = getConnection();
+            //Get the SQL statement for the sort order
+            PreparedStatement sql = connection.prepare(String.format(SELECT_SUMMARY_PAGE_SQL, getOrderByClause(sort)));
+            sql.setString(1, name);
+            sql.setInt(2, Math.max(0, offset));
+            sql.setInt(3, Math.max(1, limit));
 
-            //Append the parameters
-            sql.setString(1, dateAsString);
-            sql.setFloat(2, completion);
-            sql.setString(3, game.playerName);
-            sql.setString(4, boardData);
+            //Iterate over all of the results
+            try (ResultSet query = sql.executeQuery()) {
+                while(query.next()) {
+                    results.add(new SudokuGameSummary(query.getInt("UID"), query.getString("PlayerName"),
+                            fromTimestamp(query.getTimestamp("SaveDate")), query.getFloat("FilledCells")));
+                }
+            }
+            
+        } catch (SQLException se) {
+            System.out.println("Failed to run query when supplied name " + name);
+            System.out.println(se);
+        } finally {
+            releaseConnection(connection);
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Counts the games saved under a player name
+     * @param name The name to search for
+     * @return The number of matching games, or 0 if the query failed
+     */
+    @Override
+    public int getGameCount(String name) {
+        int count = 0;
+        SudokuPooledConnection connection = null;
+        
+        try {
+            connection = getConnection();
+            PreparedStatement sql = connection.prepare(COUNT_GAMES_SQL);
+            sql.setString(1, name);
+
+            try (ResultSet query = sql.executeQuery()) {
+                if(query.next())
+                    count = query.getInt(1);
+            }
+            
+        } catch (SQLException se) {
+            System.out.println("Failed to count games when supplied name " + name);
+            System.out.println(se);
+        } finally {
+            releaseConnection(connection);
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Gets the PlayerID of a player name, adding the player to the players table if they have no games yet
+     * @param connection The connection to the database
+     * @param name The player name
+     * @return The PlayerID of the player
+     * @throws SQLException If the player could not be found or added
+     */
+    private int getPlayerID(SudokuPooledConnection connection, String name) throws SQLException {
+        PreparedStatement select = connection.prepare(SELECT_PLAYER_ID_SQL);
+        select.setString(1, name);
+        
+        try (ResultSet query = select.executeQuery()) {
+            if(query.next())
+                return query.getInt(1);
+        }
+        
+        PreparedStatement insert = connection.prepare(INSERT_PLAYER_SQL, true);
+        insert.setString(1, name);
+        
+        try {
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                if(keys.next()) {
+                    int playerID = keys.getInt(1);
+                    
+                    //Every player has a row of statistics, which is updated as their games are saved
+                    PreparedStatement stats = connection.prepare(INSERT_STATS_SQL);
+                    stats.setInt(1, playerID);
+                    stats.executeUpdate();
+                    return playerID;
+                }
+            }
+        } catch (SQLException se) {
+            //Error code 23505 means that another connection added the player first
+            if(!se.getSQLState().equals("23505"))
+                throw se;
+        }
+        
+        try (ResultSet query = select.executeQuery()) {
+            if(query.next())
+                return query.getInt(1);
+        }
+        
+        throw new SQLException("Failed to add player " + name);
+    }
+    
+    /**
+     * Finds the puzzle that a board was started from in the puzzles table, and solves it if it is not
+     * stored yet. Must be called before the transaction that writes the board starts.
+     * @param connection The connection to the database
+     * @param board The board
+     * @return The encoded puzzle, or null if the board has no givens
+     * @throws SQLException If the puzzles table could not be read
+     */
+    private EncodedPuzzle preparePuzzle(SudokuPooledConnection connection, SudokuBoard board) throws SQLException {
+        return preparePuzzle(connection, board, new SudokuSolver());
+    }
+    
+    /**
+     * Finds the puzzle that a board was started from in the puzzles table, and solves it with a given
+     * solver if it is not stored yet. Must be called before the transaction that writes the board starts.
+     * @param connection The connection to the database
+     * @param board The board
+     * @param solver The solver used if the puzzle is not stored
+     * @return The encoded puzzle, or null if the board has no givens
+     * @throws SQLException If the puzzles table could not be read
+     */
+    private EncodedPuzzle preparePuzzle(SudokuPooledConnection connection, SudokuBoard board, SudokuSolver solver) throws SQLException {
+        if(!board.hasGivens())
+            return null;
+        
+        SudokuBoard puzzle = board.fork();
+        puzzle.resetToPuzzle();
+        long hash = puzzle.getZobristHash();
+        byte[] clues = SudokuBoardCodec.encodePuzzle(puzzle);
+        
+        Integer puzzleID = findPuzzleID(connection, hash, clues);
+        if(puzzleID != null)
+            return new EncodedPuzzle(hash, clues, puzzleID, null);
+        
+        //The puzzle is only solved once, when the first game started from it is saved
+        solver.solveBoard(puzzle);
+        return new EncodedPuzzle(hash, clues, null, puzzle.isSolved() ? SudokuBoardCodec.encode(puzzle, false) : null);
+    }
+    
+    /**
+     * @param connection The connection to the database
+     * @param hash The hash of the givens of the puzzle
+     * @param clues The givens of the puzzle, encoded by SudokuBoardCodec.encodePuzzle
+     * @return The PuzzleID of the puzzle, or null if it is not stored
+     * @throws SQLException If the puzzles table could not be read
+     */
+    private Integer findPuzzleID(SudokuPooledConnection connection, long hash, byte[] clues) throws SQLException {
+        PreparedStatement select = connection.prepare(SELECT_PUZZLE_ID_SQL);
+        select.setLong(1, hash);
+        select.setBytes(2, clues);
+        
+        try (ResultSet query = select.executeQuery()) {
+            if(query.next())
+                return query.getInt(1);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Gets the PuzzleID of a puzzle found by preparePuzzle, adding the puzzle and its solution to the
+     * puzzles table if no other game has been saved from it yet. Puzzles are never removed, so a puzzle
+     * that was already stored is not looked up again.
+     * @param connection The connection to the database
+     * @param puzzle The encoded puzzle
+     * @return The PuzzleID of the puzzle
+     * @throws SQLException If the puzzle could not be added
+     */
+    private Integer getPuzzleID(SudokuPooledConnection connection, EncodedPuzzle puzzle) throws SQLException {
+        if(puzzle.puzzleID != null)
+            return puzzle.puzzleID;
+        
+        //Another game in the same transaction, or another connection, may have added the puzzle since it was prepared
+        Integer storedID = findPuzzleID(connection, puzzle.hash, puzzle.clues);
+        if(storedID != null)
+            return storedID;
+        
+        PreparedStatement insert = connection.prepare(INSERT_PUZZLE_SQL, true);
+        setPuzzleParameters(insert, puzzle);
+        
+        try {
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                if(keys.next())
+                    return keys.getInt(1);
+            }
+        } catch (SQLException se) {
+            //Error code 23505 means that another connection added the puzzle first
+            if(!se.getSQLState().equals("23505"))
+                throw se;
+        }
+        
+        Integer puzzleID = findPuzzleID(connection, puzzle.hash, puzzle.clues);
+        if(puzzleID != null)
+            return puzzleID;
+        
+        throw new SQLException("Failed to add puzzle");
+    }
+    
+    /**
+     * Sets the parameters of a statement that inserts a puzzle
+     * @param sql The statement, prepared from INSERT_PUZZLE_SQL
+     * @param puzzle The encoded puzzle
+     * @throws SQLException If the parameters could not be set
+     */
+    private static void setPuzzleParameters(PreparedStatement sql, EncodedPuzzle puzzle) throws SQLException {
+        sql.setLong(1, puzzle.hash);
+        sql.setBytes(2, puzzle.clues);
+        if(puzzle.solution != null)
+            sql.setBytes(3, puzzle.solution);
+        else
+            sql.setNull(3, Types.VARBINARY);
+    }
+    
+    /**
+     * Sets the PuzzleID and Entries parameters of a statement that writes the board of a game
+     * @param connection The connection to the database
+     * @param sql The statement
+     * @param index The index of the PuzzleID parameter, which is followed by the Entries parameter
+     * @param board The board of the game
+     * @param puzzle The puzzle of the board found by preparePuzzle, or null if the board has no givens
+     * @throws SQLException If the puzzle could not be added, or a parameter could not be set
+     */
+    private void setPuzzleParameters(SudokuPooledConnection connection, PreparedStatement sql, int index, 
+            SudokuBoard board, EncodedPuzzle puzzle) throws SQLException {
+        if(puzzle != null)
+            sql.setInt(index, getPuzzleID(connection, puzzle));
+        else
+            sql.setNull(index, Types.INTEGER);
+        
+        sql.setBytes(index + 1, SudokuBoardCodec.encodeEntries(board));
+    }
+    
+    /**
+     * Reads the values of a stored game that the statistics of its player are calculated from. The row of
+     * the game is locked first, until the end of the transaction, so that no other connection can change
+     * or remove the game between it being read and being written.
+     * @param connection The connection to the database, in a transaction
+     * @param id The UID of the game
+     * @return The values of the game, or null if no game has the UID
+     * @throws SQLException If the game could not be read
+     */
+    private StoredGame readStoredGame(SudokuPooledConnection connection, int id) throws SQLException {
+        //Updating the row without changing it takes a lock on it that is held until the transaction ends
+        PreparedStatement lock = connection.prepare(LOCK_GAME_SQL);
+        lock.setInt(1, id);
+        if(lock.executeUpdate() != 1)
+            return null;
+        
+        PreparedStatement sql = connection.prepare(SELECT_STORED_GAME_SQL);
+        sql.setInt(1, id);
+        
+        try (ResultSet query = sql.executeQuery()) {
+            if(!query.next())
+                return null;
+            
+            return new StoredGame(query.getInt("PlayerID"), query.getFloat("FilledCells"), 
+                    query.getBoolean("Solved"), query.getLong("PlayTime"));
+        }
+    }
+    
+    /**
+     * Updates the statistics of the player of a game that was added, updated, or removed.
+     * This must be run in the same transaction as the change to the game.
+     * @param connection The connection to the database
+     * @param before The game as it was stored before, or null if it was added
+     * @param after The game as it is stored now, or null if it was removed
+     * @throws SQLException If the statistics could not be updated
+     */
+    private void updateStats(SudokuPooledConnection connection, StoredGame before, StoredGame after) throws SQLException {
+        int playerID = after != null ? after.playerID : before.playerID;
+        
+        PreparedStatement sql = connection.prepare(UPDATE_STATS_SQL);
+        sql.setInt(1, (after != null ? 1 : 0) - (before != null ? 1 : 0));
+        sql.setInt(2, (after != null && after.solved ? 1 : 0) - (before != null && before.solved ? 1 : 0));
+        sql.setDouble(3, (after != null ? after.completion : 0) - (before != null ? before.completion : 0));
+        sql.setInt(4, playerID);
+        sql.executeUpdate();
+        
+        //If the game may have had the best time, the best time can only be found again from the player's remaining games
+        if(before != null && before.solved && (after == null || !after.solved || after.playTime > before.playTime)) {
+            sql = connection.prepare(FIND_BEST_TIME_SQL);
+            sql.setInt(1, playerID);
+            sql.setInt(2, playerID);
+            sql.executeUpdate();
+        }
+        
+        if(after != null && after.solved) {
+            sql = connection.prepare(IMPROVE_BEST_TIME_SQL);
+            sql.setLong(1, after.playTime);
+            sql.setInt(2, playerID);
+            sql.setLong(3, after.playTime);
+            sql.executeUpdate();
+        }
+    }
+    
+    /**
+     * Sets the parameters of the statement that inserts a game
+     * @param sql The insert statement
+     * @param connection The connection to the database
+     * @param game The game to insert
+     * @param playerID The PlayerID of the player of the game
+     * @param puzzle The puzzle of the game found by preparePuzzle, or null if the game has no givens
+     * @throws SQLException If the puzzle of the game could not be added, or a parameter could not be set
+     */
+    private void setInsertParameters(SudokuPooledConnection connection, PreparedStatement sql, SudokuGame game, 
+            int playerID, EncodedPuzzle puzzle) throws SQLException {
+        //Get the game and completion status
+        Timestamp saveDate = toTimestamp(game.lastPlayedDate);
+        float completion = game.completionPercentage;
+        
+        //Append the parameters
+        sql.setTimestamp(1, saveDate);
+        sql.setFloat(2, completion);
+        sql.setInt(3, playerID);
+        setPuzzleParameters(connection, sql, 4, game.boardState, puzzle);
+        sql.setLong(6, game.getPlayTime());
+        sql.setBoolean(7, game.isSolved);
+    }
+    
+    /**
+     * Adds a SudokuGame to the database, and sets the ID of the game to its generated UID.
+     * The game and the statistics of its player are written in one transaction.
+     * @param game The game to add
+     * @return The UID of the added game, or null if it could not be added
+     */
+    @Override
+    public Integer addGame(SudokuGame game) {
+        Integer gameID = null;
+        
+        //Get the SQL statement
+        SudokuPooledConnection connection = null;
+        try {
+            connection = getConnection();
+            EncodedPuzzle puzzle = preparePuzzle(connection, game.boardState);
+            connection.getConnection().setAutoCommit(false);
+            int playerID = getPlayerID(connection, game.playerName);
+            PreparedStatement sql = connection.prepare(INSERT_GAME_SQL, true);
+            setInsertParameters(connection, sql, game, playerID, puzzle);
 
-            //Run the update
+            //Run the update, and read the UID the database generated for the new row
+            Integer newID = null;
             sql.executeUpdate();
+            try (ResultSet keys = sql.getGeneratedKeys()) {
+                if(keys.next())
+                    newID = keys.getInt(1);
+            }
+            
+            updateStats(connection, null, new StoredGame(playerID, game));
+            connection.getConnection().commit();
+            
+            gameID = newID;
+            game.setGameID(gameID);
         } catch (SQLException se) {
             System.out.println("Failed to add game to table");
             System.out.println(se);
+        } finally {
+            releaseConnection(connection);
+        }
+        
+        return gameID;
+    }
+    
+    /**
+     * Updates the date, completion, play time, and board of an existing game in the database in place.
+     * The player name of a game never changes, so it is not written. The game and the statistics of
+     * its player are written in one transaction.
+     * @param game The game to update, with the UID of its row
+     * @return True if the game was updated, false otherwise
+     */
+    @Override
+    public boolean updateGame(SudokuGame game) {
+        return writeUpdate(game) == 1;
+    }
+    
+    /**
+     * Updates an existing game in the database, as updateGame does, telling a game that is not in the
+     * database apart from a game that could not be written
+     * @param game The game to update, with the UID of its row
+     * @return 1 if the game was updated, 0 if it has no UID or no row has its UID, or -1 if the
+     * database could not be written
+     */
+    private int writeUpdate(SudokuGame game) {
+        if(game.getGameID() == null)
+            return 0;
+        
+        SudokuPooledConnection connection = null;
+        try {
+            connection = getConnection();
+            EncodedPuzzle puzzle = preparePuzzle(connection, game.boardState);
+            connection.getConnection().setAutoCommit(false);
+            
+            //The game is not updated if it was removed from the database
+            StoredGame before = readStoredGame(connection, game.getGameID());
+            if(before == null)
+                return 0;
+            
+            PreparedStatement sql = connection.prepare(UPDATE_GAME_SQL);
+            
+            //Append the parameters
+            sql.setTimestamp(1, toTimestamp(game.lastPlayedDate));
+            sql.setFloat(2, game.completionPercentage);
+            setPuzzleParameters(connection, sql, 3, game.boardState, puzzle);
+            sql.setLong(5, game.getPlayTime());
+            sql.setBoolean(6, game.isSolved);
+            sql.setInt(7, game.getGameID());
+            
+            //The row is locked, so it can only be missing if it was removed before it was locked
+            int updated = sql.executeUpdate();
+            if(updated != 1)
+                return 0;
+            
+            updateStats(connection, before, new StoredGame(before.playerID, game));
+            connection.getConnection().commit();
+            return 1;
+        } catch (SQLException se) {
+            System.out.println("Failed to update game with UID " + game.getGameID());
+            System.out.println(se);
+        } finally {
+            releaseConnection(connection);
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Updates a game in the database if it has the UID of an existing row, otherwise adds it.
+     * A game is only added when its row does not exist, so a game that failed to update, such as
+     * after a lock timeout, is not added again as a copy with a new UID.
+     * @param game The game to save
+     * @return The UID of the saved game, or null if it could not be saved
+     */
+    @Override
+    public Integer saveGame(SudokuGame game) {
+        int updated = writeUpdate(game);
+        if(updated == 1)
+            return game.getGameID();
+        if(updated < 0)
+            return null;
+        
+        return addGame(game);
+    }
+    
+    /**
+     * Adds several SudokuGames to the database as a single batch in one transaction,
+     * so that the database only has to commit once
+     * @param games The games to add
+     * @return True if every game was added, false if none were added
+     */
+    @Override
+    public boolean addGames(Collection<SudokuGame> games) {
+        if(games.isEmpty())
+            return true;
+        
+        SudokuPooledConnection connection = null;
+        try {
+            connection = getConnection();
+            ArrayList<EncodedPuzzle> puzzles = new ArrayList<>(games.size());
+            for(SudokuGame game: games)
+                puzzles.add(preparePuzzle(connection, game.boardState));
+            
+            connection.getConnection().setAutoCommit(false);
+            
+            //Find each player once, since most batches only contain the games of a few players
+            HashMap<String, Integer> playerIDs = new HashMap<>();
+            for(SudokuGame game: games) {
+                if(!playerIDs.containsKey(game.playerName))
+                    playerIDs.put(game.playerName, getPlayerID(connection, game.playerName));
+            }
+            
+            PreparedStatement sql = connection.prepare(INSERT_GAME_SQL);
+            
+            //Queue an insert for each game
+            int index = 0;
+            for(SudokuGame game: games) {
+                setInsertParameters(connection, sql, game, playerIDs.get(game.playerName), puzzles.get(index++));
+                sql.addBatch();
+            }
+            
+            sql.executeBatch();
+            
+            for(SudokuGame game: games)
+                updateStats(connection, null, new StoredGame(playerIDs.get(game.playerName), game));
+            
+            connection.getConnection().commit();
+            return true;
+        } catch (SQLException se) {
+            //Releasing the connection rolls back any games that were inserted
+            System.out.println("Failed to add " + games.size() + " games to table");
+            System.out.println(se);
+        } finally {
+            releaseConnection(connection);
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Adds a batch of puzzles and their solutions to the puzzles table, skipping any puzzle that is
+     * already stored or has conflicting values. The filled cells of each board are taken as the givens
+     * of its puzzle, and the boards are not changed. New puzzles are solved before the transaction that
+     * adds them starts, and are then inserted in a single batch so that the database only has to commit once.
+     * @param boards The boards of the puzzles. Only the first count boards are added.
+     * @param count The number of boards to add
+     * @return The number of puzzles that were added, or -1 if none were added because of an error
+     */
+    public int addPuzzles(SudokuBoard[] boards, int count) {
+        SudokuPooledConnection connection = null;
+        
+        try {
+            connection = getConnection();
+            SudokuSolver solver = new SudokuSolver();
+            ArrayList<EncodedPuzzle> puzzles = new ArrayList<>(count);
+            HashSet<ByteBuffer> batchClues = new HashSet<>();
+            
+            for(int i = 0; i < count; i++) {
+                if(boards[i].hasConflicts())
+                    continue;
+                
+                SudokuBoard puzzle = boards[i].fork();
+                puzzle.markGivens();
+                
+                //Boards that are empty, already stored, or repeated earlier in the batch are skipped
+                EncodedPuzzle encoded = preparePuzzle(connection, puzzle, solver);
+                if(encoded != null && encoded.puzzleID == null && batchClues.add(ByteBuffer.wrap(encoded.clues)))
+                    puzzles.add(encoded);
+            }
+            
+            if(puzzles.isEmpty())
+                return 0;
+            
+            //Batches from several threads are inserted one at a time, since inserts into the puzzles table
+            //from concurrent transactions can fail to lock its identity column
+            synchronized(puzzleInsertLock) {
+                connection.getConnection().setAutoCommit(false);
+                PreparedStatement sql = connection.prepare(INSERT_PUZZLE_SQL);
+                
+                for(EncodedPuzzle puzzle: puzzles) {
+                    setPuzzleParameters(sql, puzzle);
+                    sql.addBatch();
+                }
+                
+                try {
+                    sql.executeBatch();
+                    connection.getConnection().commit();
+                    return puzzles.size();
+                } catch (SQLException se) {
+                    //Error code 23505 means that another batch, or another program, added one of the puzzles first
+                    if(!se.getSQLState().equals("23505"))
+                        throw se;
+                }
+                
+                //Add the puzzles one at a time instead, leaving out the ones that are stored now
+                connection.getConnection().rollback();
+                sql.clearBatch();
+                int numAdded = 0;
+                for(EncodedPuzzle puzzle: puzzles) {
+                    setPuzzleParameters(sql, puzzle);
+                    try {
+                        sql.executeUpdate();
+                        numAdded++;
+                    } catch (SQLException se) {
+                        if(!se.getSQLState().equals("23505"))
+                            throw se;
+                    }
+                }
+                
+                connection.getConnection().commit();
+                return numAdded;
+            }
+        } catch (SQLException se) {
+            //Releasing the connection rolls back any puzzles that were inserted
+            System.out.println("Failed to add " + count + " puzzles to table");
+            System.out.println(se);
+        } finally {
+            releaseConnection(connection);
         }
+        
+        return -1;
     }
     
     /**
-     * Removes an existing game from the database
+     * Removes an existing game from the database, along with its part of the statistics of its player
      * @param id The ID of the game to remove
      */
     @Override
     public void removeGame(int id) {
+        SudokuPooledConnection connection = null;
+        
         try {
-            //Create the SQL statement
-            PreparedStatement sql = dbConnection.prepareStatement(
-                    "DELETE FROM " + TABLE_NAME + " WHERE UID = ?");
+            connection = getConnection();
+            connection.getConnection().setAutoCommit(false);
+            StoredGame before = readStoredGame(connection, id);
+            if(before == null)
+                return;
+            
+            //Get the SQL statement
+            PreparedStatement sql = connection.prepare(DELETE_GAME_SQL);
             sql.setInt(1, id);
 
-            sql.executeUpdate();
+            if(sql.executeUpdate() != 1)
+                return;
+            
+            updateStats(connection, before, null);
+            connection.getConnection().commit();
         } catch (SQLException se) {
             System.out.println("Failed to remove game with UID " + id);
             System.out.println(se);
+        } finally {
+            releaseConnection(connection);
+        }
+    }
+    
+    /**
+     * Removes several existing games from the database as a single batch in one transaction
+     * @param ids The IDs of the games to remove
+     * @return True if every game was removed, false if none were removed
+     */
+    @Override
+    public boolean removeGames(int... ids) {
+        if(ids.length == 0)
+            return true;
+        
+        SudokuPooledConnection connection = null;
+        try {
+            connection = getConnection();
+            connection.getConnection().setAutoCommit(false);
+            
+            //Read each game before it is removed, so that the statistics of its player can be updated
+            StoredGame[] removed = new StoredGame[ids.length];
+            for(int i = 0; i < ids.length; i++)
+                removed[i] = readStoredGame(connection, ids[i]);
+            
+            PreparedStatement sql = connection.prepare(DELETE_GAME_SQL);
+            
+            //Queue a delete for each game
+            for(int id: ids) {
+                sql.setInt(1, id);
+                sql.addBatch();
+            }
+            
+            //Only the games that were deleted by this batch count towards the statistics, so an ID
+            //that was given twice is only counted once
+            int[] counts = sql.executeBatch();
+            for(int i = 0; i < ids.length; i++) {
+                if(removed[i] != null && counts[i] == 1)
+                    updateStats(connection, removed[i], null);
+            }
+            
+            connection.getConnection().commit();
+            return true;
+        } catch (SQLException se) {
+            //Releasing the connection rolls back any games that were removed
+            System.out.println("Failed to remove " + ids.length + " games");
+            System.out.println(se);
+        } finally {
+            releaseConnection(connection);
         }
+        
+        return false;
+    }
+    
+    /**
+     * Creates a PlayerStats object from the current row of a query on the player statistics table
+     * @param query The query, positioned at the row to read
+     * @return The PlayerStats object
+     * @throws SQLException If the row could not be read
+     */
+    private static PlayerStats readStats(ResultSet query) throws SQLException {
+        int gamesSaved = query.getInt("GamesSaved");
+        float averageCompletion = gamesSaved > 0 ? (float)(query.getDouble("TotalCompletion") / gamesSaved) : 0;
+        
+        //The best solve time is null if the player has not solved a game
+        long bestTime = query.getLong("BestSolveTime");
+        Long bestSolveTime = query.wasNull() ? null : bestTime;
+        
+        return new PlayerStats(query.getString("PlayerName"), gamesSaved, query.getInt("GamesCompleted"), 
+                averageCompletion, bestSolveTime);
+    }
+    
+    /**
+     * Gets the statistics of a player from the player statistics table
+     * @param name The name to search for
+     * @return The statistics of the player, or null if the player has never saved a game or the query failed
+     */
+    @Override
+    public PlayerStats getPlayerStats(String name) {
+        SudokuPooledConnection connection = null;
+        
+        try {
+            connection = getConnection();
+            PreparedStatement sql = connection.prepare(SELECT_PLAYER_STATS_SQL);
+            sql.setString(1, name);
+
+            try (ResultSet query = sql.executeQuery()) {
+                if(query.next())
+                    return readStats(query);
+            }
+            
+        } catch (SQLException se) {
+            System.out.println("Failed to get statistics when supplied name " + name);
+            System.out.println(se);
+        } finally {
+            releaseConnection(connection);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Gets the statistics of the players with the fastest solved games, using the index on their best solve times
+     * @param limit The largest number of players to return
+     * @return An ArrayList containing the results
+     */
+    @Override
+    public ArrayList<PlayerStats> getLeaderboard(int limit) {
+        ArrayList<PlayerStats> results = new ArrayList<>();
+        if(limit <= 0)
+            return results;
+        
+        SudokuPooledConnection connection = null;
+        
+        try {
+            connection = getConnection();
+            PreparedStatement sql = connection.prepare(SELECT_LEADERBOARD_SQL);
+            sql.setInt(1, limit);
+
+            try (ResultSet query = sql.executeQuery()) {
+                while(query.next())
+                    results.add(readStats(query));
+            }
+            
+        } catch (SQLException se) {
+            System.out.println("Failed to get leaderboard");
+            System.out.println(se);
+        } finally {
+            releaseConnection(connection);
+        }
+        
+        return results;
     }
 }
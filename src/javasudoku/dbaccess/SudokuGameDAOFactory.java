@@ -0,0 +1,77 @@
+package javasudoku.dbaccess;
+
+import java.nio.file.Paths;
+import javasudoku.model.SudokuGameDAO;
+
+/**
+ * Creates the SudokuGameDAO used to store games, chosen by the system property javasudoku.storage:
+ * 
+ * derby   Games are stored in a Derby database by SudokuDBManager. This is the default.
+ * memory  Games are stored in memory by InMemorySudokuGameDAO, and are lost when the program stops.
+ * log     Games are stored in an append-only file by LogStructuredSudokuGameDAO. The file is named
+ *         by the system property javasudoku.storage.file, or is SudokuGames.log in the working directory.
+ * 
+ * Only the chosen storage is started, so the Derby database is not booted unless it is used.
+ * 
+ * The storage is wrapped in a CachingSudokuGameDAO that caches up to the number of games set by the
+ * system property javasudoku.storage.cacheSize, which is 64 by default. A size of 0 disables the cache.
+ * The cache does not see changes made by other programs, so it is disabled by default when the Derby
+ * database is shared in server or client mode, and is only used then if a cache size is set.
+ * @author Ishaiah Cross
+ */
+public final class SudokuGameDAOFactory {
+    public static final String STORAGE_PROPERTY = "javasudoku.storage";
+    public static final String STORAGE_FILE_PROPERTY = "javasudoku.storage.file";
+    public static final String CACHE_SIZE_PROPERTY = "javasudoku.storage.cacheSize";
+    
+    private static final String DEFAULT_LOG_FILE = "SudokuGames.log";
+    private static final int DEFAULT_CACHE_SIZE = 64;
+    
+    private SudokuGameDAOFactory() {
+        
+    }
+    
+    /**
+     * Creates the storage named by the javasudoku.storage system property, with a cache in front of it
+     * unless the cache is disabled
+     * @return The storage
+     */
+    public static SudokuGameDAO fromConfiguration() {
+        SudokuGameDAO storage = create(System.getProperty(STORAGE_PROPERTY, "derby"));
+        
+        //Games changed by another program would be served stale from the cache
+        boolean shared = storage instanceof SudokuDBManager && ((SudokuDBManager)storage).isShared();
+        int cacheSize = Integer.getInteger(CACHE_SIZE_PROPERTY, shared ? 0 : DEFAULT_CACHE_SIZE);
+        if(cacheSize <= 0)
+            return storage;
+        
+        return new CachingSudokuGameDAO(storage, cacheSize);
+    }
+    
+    /**
+     * Creates a storage by name. If the name is not recognised, or the storage could not be opened,
+     * the Derby database is used instead.
+     * @param storage The name of the storage: derby, memory, or log
+     * @return The storage
+     */
+    public static SudokuGameDAO create(String storage) {
+        switch(storage.toLowerCase()) {
+            case "memory":
+                return new InMemorySudokuGameDAO();
+            case "log":
+                LogStructuredSudokuGameDAO log = LogStructuredSudokuGameDAO.open(
+                        Paths.get(System.getProperty(STORAGE_FILE_PROPERTY, DEFAULT_LOG_FILE)));
+                if(log != null)
+                    return log;
+                
+                System.out.println("Using the Derby database instead.");
+                break;
+            case "derby":
+                break;
+            default:
+                System.out.println("Unknown storage '" + storage + "', using the Derby database instead.");
+        }
+        
+        return SudokuDBManager.getInstance();
+    }
+}
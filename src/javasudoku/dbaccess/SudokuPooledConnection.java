@@ -0,0 +1,111 @@
+package javasudoku.dbaccess;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+
+/**
+ * A database connection owned by a SudokuConnectionPool, which remembers the statements
+ * prepared on it so that each SQL string is only compiled by the database once. Statements
+ * that return generated keys are cached separately from those that do not.
+ *
+ * Statements returned by prepare belong to the connection and must not be closed by the caller,
+ * but any ResultSet they produce must be closed before the connection is released. A connection
+ * is only used by one thread at a time, so the cache is not synchronized.
+ *
+ * This class is not accessible outside of the javasudoku.dbaccess package.
+ * @author Ishaiah Cross
+ */
+class SudokuPooledConnection {
+    private final Connection connection;
+    private final HashMap<String, PreparedStatement> statementCache;
+    private final HashMap<String, PreparedStatement> generatedKeysCache;
+
+    /**
+     * @param connection The connection to wrap
+     */
+    SudokuPooledConnection(Connection connection) {
+        this.connection = connection;
+        this.statementCache = new HashMap<>();
+        this.generatedKeysCache = new HashMap<>();
+    }
+
+    /**
+     * @return The underlying connection, for statements that should not be cached
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Gets the prepared statement for an SQL string, preparing it if this connection
+     * has not prepared it before. Any parameters or batched commands left by previous
+     * users are cleared.
+     * @param sql The SQL of the statement
+     * @return The prepared statement
+     * @throws SQLException If the statement could not be prepared
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, false);
+    }
+
+    /**
+     * Gets the prepared statement for an SQL string, preparing it if this connection
+     * has not prepared it before. Any parameters or batched commands left by previous
+     * users are cleared.
+     * @param sql The SQL of the statement
+     * @param returnGeneratedKeys Whether or not the keys generated by the statement can be retrieved
+     * @return The prepared statement
+     * @throws SQLException If the statement could not be prepared
+     */
+    PreparedStatement prepare(String sql, boolean returnGeneratedKeys) throws SQLException {
+        HashMap<String, PreparedStatement> cache = returnGeneratedKeys ? generatedKeysCache : statementCache;
+        PreparedStatement statement = cache.get(sql);
+
+        if(statement == null || statement.isClosed()) {
+            statement = returnGeneratedKeys ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                    : connection.prepareStatement(sql);
+            cache.put(sql, statement);
+        } else {
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+
+        return statement;
+    }
+
+    /**
+     * @return The number of statements prepared on this connection
+     */
+    int getCachedStatementCount() {
+        return statementCache.size() + generatedKeysCache.size();
+    }
+
+    /**
+     * Closes every cached statement and then the connection itself
+     * @throws SQLException If the connection could not be closed
+     */
+    void close() throws SQLException {
+        closeAll(statementCache);
+        closeAll(generatedKeysCache);
+        connection.close();
+    }
+
+    /**
+     * Closes and removes every statement in a cache
+     * @param cache The cache to empty
+     */
+    private static void closeAll(HashMap<String, PreparedStatement> cache) {
+        for(PreparedStatement statement: cache.values()) {
+            try {
+                statement.close();
+            } catch (SQLException se) {
+                //The statement is closed along with the connection either way
+            }
+        }
+
+        cache.clear();
+    }
+}
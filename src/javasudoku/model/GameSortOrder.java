@@ -0,0 +1,38 @@
+package javasudoku.model;
+
+import java.util.Comparator;
+
+/**
+ * The orders in which saved games can be listed by a SudokuGameDAO
+ * @author Ishaiah Cross
+ */
+public enum GameSortOrder {
+    NEWEST_FIRST,
+    OLDEST_FIRST,
+    MOST_COMPLETE_FIRST,
+    LEAST_COMPLETE_FIRST;
+    
+    /**
+     * Gets a comparator that sorts game summaries into this order, for data storage that does
+     * not sort games itself. Games saved at the same time are ordered by game ID, matching the
+     * order used by SudokuDBManager. Dates are formatted so that they sort as text.
+     * @return The comparator
+     */
+    public Comparator<SudokuGameSummary> getComparator() {
+        Comparator<SudokuGameSummary> byDate = Comparator.comparing((SudokuGameSummary game) -> game.lastPlayedDate,
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        Comparator<SudokuGameSummary> byCompletion = Comparator.comparingDouble((SudokuGameSummary game) -> game.completionPercentage);
+        Comparator<SudokuGameSummary> byID = Comparator.comparingInt((SudokuGameSummary game) -> game.gameID);
+        
+        switch(this) {
+            case OLDEST_FIRST:
+                return byDate.thenComparing(byID);
+            case MOST_COMPLETE_FIRST:
+                return byCompletion.thenComparing(byID).reversed();
+            case LEAST_COMPLETE_FIRST:
+                return byCompletion.thenComparing(byID);
+            default:
+                return byDate.thenComparing(byID).reversed();
+        }
+    }
+}
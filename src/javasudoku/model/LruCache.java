@@ -0,0 +1,72 @@
+package javasudoku.model;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A cache that holds up to a fixed number of entries, and removes its least recently used entry
+ * once it is full. Reading or replacing an entry makes it the most recently used.
+ *
+ * This is shared by the caches of SudokuSolver and CachingSudokuGameDAO. It is not thread safe.
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ * @author Ishaiah Cross
+ */
+public final class LruCache<K, V> {
+    private final LinkedHashMap<K, V> entries;
+    private final int capacity;
+    
+    /**
+     * @param capacity The largest number of entries to hold
+     */
+    public LruCache(int capacity) {
+        //Entries are kept in access order, so the first entry is the least recently used
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.capacity = capacity;
+    }
+    
+    /**
+     * @param key The key of the entry
+     * @return The value of the entry, or null if there is no entry for the key
+     */
+    public V get(K key) {
+        return entries.get(key);
+    }
+    
+    /**
+     * Adds or replaces an entry, removing the least recently used entry if the cache is then over capacity
+     * @param key The key of the entry
+     * @param value The value of the entry
+     */
+    public void put(K key, V value) {
+        entries.put(key, value);
+        
+        if(entries.size() > capacity) {
+            Iterator<K> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+    
+    /**
+     * @param key The key of the entry to remove
+     * @return The value of the removed entry, or null if there was no entry for the key
+     */
+    public V remove(K key) {
+        return entries.remove(key);
+    }
+    
+    /**
+     * Removes every entry
+     */
+    public void clear() {
+        entries.clear();
+    }
+    
+    /**
+     * @return The number of entries held
+     */
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,22 @@
+package javasudoku.model;
+
+/**
+ * The statistics of a player across all of their saved games, which are kept up to date as
+ * games are saved rather than calculated from the games when they are requested.
+ * @author Ishaiah Cross
+ */
+public final class PlayerStats {
+    public final String playerName;
+    public final int gamesSaved;
+    public final int gamesCompleted;
+    public final float averageCompletion;
+    public final Long bestSolveTime; //The shortest play time of a solved game in milliseconds, or null if none were solved
+    
+    public PlayerStats(String playerName, int gamesSaved, int gamesCompleted, float averageCompletion, Long bestSolveTime) {
+        this.playerName = playerName;
+        this.gamesSaved = gamesSaved;
+        this.gamesCompleted = gamesCompleted;
+        this.averageCompletion = averageCompletion;
+        this.bestSolveTime = bestSolveTime;
+    }
+}
@@ -0,0 +1,16 @@
+package javasudoku.model;
+
+/**
+ * Defines the expected behavior for objects that provide new puzzles to the SudokuModel,
+ * such as the SudokuGenerator or a store of puzzles that were generated beforehand.
+ * @author Ishaiah Cross
+ */
+public interface PuzzleSource {
+    /**
+     * Provides a new partially solved Sudoku puzzle, with its clues marked as givens
+     * @param difficulty The desired difficulty of the puzzle, which is the number of cells
+     * the generator attempts to remove from a solved board
+     * @return The puzzle, or null if the source has no puzzles left
+     */
+    public SudokuBoard nextPuzzle(int difficulty);
+}
@@ -1,10 +1,15 @@
 package javasudoku.model;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.SwingUtilities;
 import javax.swing.table.AbstractTableModel;
 
 /**
- * A model for storing SudokuGame objects as table entries to be displayed
+ * A model for storing summaries of SudokuGame objects as table entries to be displayed
  * in table format. This model is derived from the model specified in the 
  * AbstractTableModel class
  * 
@@ -16,23 +21,113 @@ import javax.swing.table.AbstractTableModel;
  * name2         date2       percentage2
  * ...
  * 
+ * The games of a player are not all loaded at once. The model is created with the number of games
+ * and the first page of PAGE_SIZE game summaries, and later pages are fetched in the background by
+ * a PageLoader the first time one of their rows is displayed. The rows of a page show a placeholder
+ * until it arrives, and are then updated. Only the most recently used pages are kept. The boards of
+ * the games are never loaded by the model, and should be retrieved with SudokuGameDAO.getGame once
+ * a row has been selected.
+ * 
+ * The model must only be used from the Swing event dispatch thread, where fetched pages are added.
+ * 
  * @author Ishaiah Cross
  */
 public class SavedGameModel extends AbstractTableModel {
+    //The number of games fetched at a time, and the number of fetched pages kept in memory
+    public static final int PAGE_SIZE = 50;
+    private static final int MAX_CACHED_PAGES = 8;
+    private static final String LOADING_TEXT = "Loading...";
+    
     private final String[] columnHeaders = { "Player Name", "Save Date", "Completion Percentage" };
-    private ArrayList<SudokuGame> games = new ArrayList<>();
+    private final PageLoader loader;
+    private final int rowCount;
+    private final LinkedHashMap<Integer, ArrayList<SudokuGameSummary>> pages;
+    private final HashSet<Integer> loadingPages;
     
-    public SavedGameModel(ArrayList<SudokuGame> games) {
-        this.games = games;
+    /**
+     * Fetches a page of the listed game summaries without blocking the calling thread
+     */
+    public interface PageLoader {
+        /**
+         * @param offset The number of games to skip
+         * @param limit The largest number of summaries to fetch
+         * @return A future holding the summaries
+         */
+        CompletableFuture<ArrayList<SudokuGameSummary>> load(int offset, int limit);
     }
     
     /**
-     * Returns the object 
-     * @param rowIndex
-     * @return 
+     * @param rowCount The number of games that are listed
+     * @param firstPage The summaries of the first PAGE_SIZE games
+     * @param loader Fetches the other pages of summaries
      */
-    public SudokuGame getGame(int rowIndex) {
-        return games.get(rowIndex);
+    public SavedGameModel(int rowCount, ArrayList<SudokuGameSummary> firstPage, PageLoader loader) {
+        this.loader = loader;
+        this.rowCount = rowCount;
+        this.loadingPages = new HashSet<>();
+        
+        //Keep pages in access order, so that the least recently used page is removed first
+        this.pages = new LinkedHashMap<Integer, ArrayList<SudokuGameSummary>>(MAX_CACHED_PAGES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ArrayList<SudokuGameSummary>> eldest) {
+                return size() > MAX_CACHED_PAGES;
+            }
+        };
+        this.pages.put(0, firstPage);
+    }
+    
+    /**
+     * Returns the summary of the game displayed in a row. If its page has not been fetched,
+     * the page is fetched in the background, and the rows of the page are updated once it arrives.
+     * @param rowIndex The index of the row
+     * @return The summary, or null if it is still being fetched or could not be fetched
+     */
+    public SudokuGameSummary getSummary(int rowIndex) {
+        int pageIndex = rowIndex / PAGE_SIZE;
+        ArrayList<SudokuGameSummary> page = pages.get(pageIndex);
+        
+        if(page == null) {
+            loadPage(pageIndex);
+            return null;
+        }
+        
+        int indexInPage = rowIndex % PAGE_SIZE;
+        return indexInPage < page.size() ? page.get(indexInPage) : null;
+    }
+    
+    /**
+     * Fetches a page in the background, unless it is already being fetched
+     * @param pageIndex The index of the page
+     */
+    private void loadPage(int pageIndex) {
+        if(!loadingPages.add(pageIndex))
+            return;
+        
+        loader.load(pageIndex * PAGE_SIZE, PAGE_SIZE).whenComplete((ArrayList<SudokuGameSummary> page, Throwable error) -> {
+            SwingUtilities.invokeLater(() -> {
+                loadingPages.remove(pageIndex);
+                
+                //A page that could not be fetched is fetched again the next time one of its rows is displayed
+                if(error != null || page == null) {
+                    System.out.println("Failed to fetch saved games.");
+                    return;
+                }
+                
+                pages.put(pageIndex, page);
+                int firstRow = pageIndex * PAGE_SIZE;
+                fireTableRowsUpdated(firstRow, Math.min(rowCount, firstRow + PAGE_SIZE) - 1);
+            });
+        });
+    }
+    
+    /**
+     * Returns the ID of the game displayed in a row, which can be used to retrieve the full game
+     * @param rowIndex The index of the row
+     * @return The game ID, or null if the row has not been fetched
+     */
+    public Integer getGameID(int rowIndex) {
+        SudokuGameSummary summary = getSummary(rowIndex);
+        return summary != null ? summary.gameID : null;
     }
     
     @Override
@@ -42,7 +137,7 @@ public class SavedGameModel extends AbstractTableModel {
     
     @Override
     public int getRowCount() {
-        return games.size();
+        return rowCount;
     }
 
     @Override
@@ -52,7 +147,11 @@ public class SavedGameModel extends AbstractTableModel {
 
     @Override
     public Object getValueAt(int rowIndex, int columnIndex) {
-        SudokuGame selectedGame = games.get(rowIndex);
+        SudokuGameSummary selectedGame = getSummary(rowIndex);
+        
+        //The page may still be loading, or the game may have been removed since the games were counted
+        if(selectedGame == null)
+            return columnIndex == 0 && loadingPages.contains(rowIndex / PAGE_SIZE) ? LOADING_TEXT : null;
 
         switch(columnIndex) {
             case 0:
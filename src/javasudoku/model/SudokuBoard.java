@@ -1,5 +1,7 @@
 package javasudoku.model;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Represents a Sudoku board and provides functionality for interacting with the board
@@ -8,6 +10,28 @@ import java.util.ArrayList;
  * manage the rows, columns, and subgrids. This class also stores a set of constants
  * that determine the dimensions of the board.
  * 
+ * Cell values are stored in one small array per row. These row arrays are shared
+ * between a board and any forks or snapshots taken from it, and are only copied
+ * when one of the boards first writes to that row. The SudokuCell objects and
+ * SudokuCollections of a board are views over this storage, and are only created
+ * once they are first requested.
+ * 
+ * A board may hold conflicting values when they are placed with setCellUnchecked.
+ * A SudokuConflictIndex keeps track of which cells conflict with which of their peers,
+ * so that invalid cells can be found without rescanning the collections.
+ * 
+ * Cells can be marked as givens, i.e. the original clues of a puzzle. Givens are stored
+ * as a bitmask and cannot be changed using setCell or setCellUnchecked. The number of
+ * filled cells is also maintained, so that checking if the board is empty or solved does
+ * not require visiting every cell.
+ * 
+ * Each board also maintains a 64 bit Zobrist hash of its cell values, which is updated
+ * with every change. Boards with equal values always have equal hashes, so the hash can be
+ * used to quickly detect changes and duplicate boards.
+ * 
+ * A single board is not thread safe, but a fork may be handed to another thread
+ * and modified there independently of the board it was taken from.
+ * 
  * @author Ishaiah Cross
  */
 public class SudokuBoard {
@@ -27,30 +51,254 @@ public class SudokuBoard {
     public static final int CELL_MIN = 0;
     public static final int CELL_MAX = 9;
     
-    private final SudokuCell board[][];
-    private final ArrayList<SudokuCollection> collections;
+    //The number of bytes used by getGivensMask to store one bit for each cell
+    public static final int GIVENS_MASK_BYTES = (TOTAL_CELLS + Byte.SIZE - 1) / Byte.SIZE;
+    
+    //Random keys for each value of each cell, combined using XOR to produce the Zobrist hash of a board.
+    //The keys are generated from a fixed seed so that hashes are the same across runs.
+    private static final long ZOBRIST_SEED = 0x5D0C0BEEFL;
+    private static final long[][] ZOBRIST_KEYS = new long[TOTAL_CELLS][CELL_MAX + 1];
+    
+    static {
+        Random keyGenerator = new Random(ZOBRIST_SEED);
+        for(int index = 0; index < TOTAL_CELLS; index++) {
+            //Unassigned cells do not contribute to the hash, so an empty board has a hash of 0
+            for(int value = CELL_MIN + 1; value <= CELL_MAX; value++)
+                ZOBRIST_KEYS[index][value] = keyGenerator.nextLong();
+        }
+    }
+    
+    //The cell values of each row. A row may be shared with other boards unless it is marked as owned
+    private byte[][] rows;
+    private final boolean[] ownedRows;
+    //Snapshots can be read and forked, but never written to
+    private final boolean readOnly;
+    //Keeps track of cells that hold the same value as one of their peers
+    private SudokuConflictIndex conflicts;
+    private long zobristHash;
+    //The number of cells that are not unassigned
+    private int filledCount;
+    //One bit for each cell that is a given, for cells 0-63 and 64 onwards respectively
+    private long givensLow;
+    private long givensHigh;
+    
+    //Cell and collection views over the row storage, created on first use
+    private SudokuCell board[][];
+    private ArrayList<SudokuCollection> collections;
     
     public SudokuBoard() {
-        collections = new ArrayList<>();
-        board = new SudokuCell[SudokuBoard.GRID_SIZE][SudokuBoard.GRID_SIZE];
-        
         //Initialize the board with all zeroes (representing unassigned cells)
-        for(int y = 0; y < SudokuBoard.GRID_SIZE; y++) {
-            for(int x = 0; x < SudokuBoard.GRID_SIZE; x++) {
-                SudokuCoordinate position = new SudokuCoordinate(x, y);
-                board[y][x] = new SudokuCell(position, 0);
+        rows = new byte[SudokuBoard.GRID_SIZE][SudokuBoard.GRID_SIZE];
+        ownedRows = new boolean[SudokuBoard.GRID_SIZE];
+        Arrays.fill(ownedRows, true);
+        readOnly = false;
+        conflicts = new SudokuConflictIndex();
+        zobristHash = 0;
+        filledCount = 0;
+        givensLow = 0;
+        givensHigh = 0;
+    }
+    
+    /**
+     * Creates a board that shares the row storage of another board. Neither board
+     * owns any of the rows afterwards, so the first write to a row by either board
+     * copies that row.
+     * @param source The board to share storage with
+     * @param readOnly Whether or not the new board is a snapshot that cannot be modified
+     */
+    private SudokuBoard(SudokuBoard source, boolean readOnly) {
+        this.rows = source.rows.clone();
+        this.ownedRows = new boolean[SudokuBoard.GRID_SIZE];
+        this.readOnly = readOnly;
+        this.conflicts = source.conflicts.fork();
+        this.zobristHash = source.zobristHash;
+        this.filledCount = source.filledCount;
+        this.givensLow = source.givensLow;
+        this.givensHigh = source.givensHigh;
+        
+        Arrays.fill(source.ownedRows, false);
+    }
+    
+    /**
+     * Creates an independent, modifiable copy of this board. The copy is taken in
+     * constant time, and each board only copies the rows that it later writes to.
+     * @return A new board with the same cell values as this board
+     */
+    public SudokuBoard fork() {
+        return new SudokuBoard(this, false);
+    }
+    
+    /**
+     * Creates a read-only copy of the current state of this board in constant time.
+     * The snapshot is unaffected by later changes to this board, and can be passed to
+     * restoreSnapshot to undo those changes.
+     * @return A read-only board with the same cell values as this board
+     */
+    public SudokuBoard snapshot() {
+        return new SudokuBoard(this, true);
+    }
+    
+    /**
+     * Replaces the cell values of this board with those of another board, such as
+     * a snapshot previously taken from it. Existing SudokuCell objects obtained from this
+     * board remain valid and reflect the restored values.
+     * @param source The board to copy the cell values from
+     */
+    public void restoreSnapshot(SudokuBoard source) {
+        checkWritable();
+        this.rows = source.rows.clone();
+        this.conflicts = source.conflicts.fork();
+        this.zobristHash = source.zobristHash;
+        this.filledCount = source.filledCount;
+        this.givensLow = source.givensLow;
+        this.givensHigh = source.givensHigh;
+        Arrays.fill(this.ownedRows, false);
+        Arrays.fill(source.ownedRows, false);
+    }
+    
+    /**
+     * Gets the Zobrist hash of the cell values of this board. The hash is maintained as
+     * cells change, so this method runs in constant time.
+     * @return The 64 bit hash of the board
+     */
+    public long getZobristHash() {
+        return zobristHash;
+    }
+    
+    /**
+     * Checks if this board holds the same cell values as another board. Boards with
+     * different hashes are rejected without comparing their cells.
+     * @param other The board to compare with
+     * @return True if every cell of both boards has the same value, false otherwise
+     */
+    public boolean hasSameValues(SudokuBoard other) {
+        if(other == null || zobristHash != other.zobristHash)
+            return false;
+        
+        for(int y = 0; y < GRID_SIZE; y++) {
+            //Rows shared between forks are known to be equal
+            if(rows[y] != other.rows[y] && !Arrays.equals(rows[y], other.rows[y]))
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * @return True if this board is a snapshot and cannot be modified, false otherwise
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+    
+    /**
+     * Throws an exception if this board cannot be modified
+     */
+    private void checkWritable() {
+        if(readOnly)
+            throw new UnsupportedOperationException("A board snapshot cannot be modified");
+    }
+    
+    /**
+     * Reads a cell value directly from the row storage
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     * @return The value of the cell
+     */
+    int readValue(int x, int y) {
+        return rows[y][x];
+    }
+    
+    /**
+     * Prepares the board to have every cell value replaced using loadValue. All cells
+     * are unassigned, givens are cleared, and any rows shared with other boards are replaced.
+     * finishLoad must be called once every value has been loaded.
+     */
+    void beginLoad() {
+        checkWritable();
+        
+        for(int y = 0; y < GRID_SIZE; y++) {
+            if(ownedRows[y]) {
+                Arrays.fill(rows[y], (byte)0);
+            } else {
+                rows[y] = new byte[GRID_SIZE];
+                ownedRows[y] = true;
             }
-            
-            //Initialize the collections
-            collections.add(new SudokuRow(y));
-            collections.add(new SudokuColumn(y));
-            collections.add(new SudokuSubgrid(y));
         }
         
+        zobristHash = 0;
+        filledCount = 0;
+        givensLow = 0;
+        givensHigh = 0;
+    }
+    
+    /**
+     * Sets the value of an unassigned cell while loading a board, without checking for
+     * conflicts. Must only be called between beginLoad and finishLoad.
+     * @param index The index of the cell
+     * @param value The value of the cell, on the interval defined by CELL_MIN and CELL_MAX
+     */
+    void loadValue(int index, int value) {
+        if(value == 0)
+            return;
         
-        //Populate the collections
-        for(SudokuCollection c: collections)
-            c.populateCollection(this);
+        rows[index / GRID_SIZE][index % GRID_SIZE] = (byte)value;
+        zobristHash ^= ZOBRIST_KEYS[index][value];
+        filledCount++;
+    }
+    
+    /**
+     * Finds any conflicts between the values that were loaded since beginLoad
+     */
+    void finishLoad() {
+        conflicts.rebuild(this);
+    }
+    
+    /**
+     * Writes a cell value while a puzzle is being generated, without checking if the placement is
+     * valid or if the cell is a given. Any conflicts the value causes are recorded. Only used by
+     * SudokuGenerator for values that it knows are valid, before the givens are marked.
+     * @param index The index of the cell
+     * @param value The value to write, on the interval defined by CELL_MIN and CELL_MAX
+     */
+    void setGeneratedCell(int index, int value) {
+        writeValue(index, value, true);
+    }
+    
+    /**
+     * Writes a cell value to the row storage and updates the conflict index.
+     * If the row is shared with another board, it is copied first.
+     * @param index The index of the cell
+     * @param value The value to write
+     * @param checkConflicts Whether or not the new value may conflict with a peer. This
+     * can be false if the placement has already been checked with canPlaceAt.
+     */
+    private void writeValue(int index, int value, boolean checkConflicts) {
+        checkWritable();
+        
+        int x = index % GRID_SIZE;
+        int y = index / GRID_SIZE;
+        byte[] row = rows[y];
+        if(!ownedRows[y]) {
+            row = row.clone();
+            rows[y] = row;
+            ownedRows[y] = true;
+        }
+        
+        //Replace the key of the old value with the key of the new value
+        int oldValue = row[x];
+        zobristHash ^= ZOBRIST_KEYS[index][oldValue] ^ ZOBRIST_KEYS[index][value];
+        row[x] = (byte)value;
+        
+        if(oldValue == 0 && value != 0)
+            filledCount++;
+        else if(oldValue != 0 && value == 0)
+            filledCount--;
+        
+        //Any conflicts caused by the old value no longer apply
+        conflicts.clearConflicts(index);
+        if(checkConflicts)
+            conflicts.findConflicts(index, value, this);
     }
     
     /**
@@ -60,10 +308,18 @@ public class SudokuBoard {
      * @return True if the value could be placed at that location, false if not
      */
     public boolean setCell(SudokuCoordinate position, int value)  {
-        if(canPlaceAt(position, value)) {
-            SudokuCell cell = board[position.getY()][position.getX()];
-            cell.setCellValue(value);
-            
+        return setCell(position.getIndex(), value);
+    }
+    
+    /**
+     * Sets the value of a cell at a given cell index if possible
+     * @param index The index of the cell, as defined by SudokuCoordinate
+     * @param value The new value to set
+     * @return True if the value could be placed at that location, false if not
+     */
+    public boolean setCell(int index, int value) {
+        if(!isGiven(index) && canPlaceAt(index, value)) {
+            writeValue(index, value, false);
             return true;
         }
         
@@ -71,16 +327,204 @@ public class SudokuBoard {
     }
     
     /**
-     * Checks if the entire board is solved
+     * Sets the value of a cell at a given position, even if the value conflicts with
+     * another cell in the same row, column, or subgrid. Conflicting cells can be found
+     * using isConflicting. Givens are never changed.
+     * @param position The position of the cell
+     * @param value The new value to set. The value is clamped to lie within the interval
+     * defined by CELL_MIN and CELL_MAX
+     * @return True if the value was placed without conflicting with any other cell, false if
+     * it conflicts or the cell is a given
+     */
+    public boolean setCellUnchecked(SudokuCoordinate position, int value) {
+        return setCellUnchecked(position.getIndex(), value);
+    }
+    
+    /**
+     * Sets the value of a cell at a given cell index, even if the value conflicts with
+     * another cell in the same row, column, or subgrid. Givens are never changed.
+     * @param index The index of the cell, as defined by SudokuCoordinate
+     * @param value The new value to set. The value is clamped to lie within the interval
+     * defined by CELL_MIN and CELL_MAX
+     * @return True if the value was placed without conflicting with any other cell, false if
+     * it conflicts or the cell is a given
+     */
+    public boolean setCellUnchecked(int index, int value) {
+        if(isGiven(index))
+            return false;
+        
+        int clampedValue = Math.max(CELL_MIN, Math.min(CELL_MAX, value));
+        writeValue(index, clampedValue, true);
+        
+        return !conflicts.isConflicting(index);
+    }
+    
+    /**
+     * Checks if the cell at a given position holds the same value as another cell in
+     * its row, column, or subgrid
+     * @param position The position of the cell
+     * @return True if the cell conflicts with another cell, false otherwise
+     */
+    public boolean isConflicting(SudokuCoordinate position) {
+        return conflicts.isConflicting(position.getIndex());
+    }
+    
+    /**
+     * Checks if the cell at a given cell index holds the same value as another cell in
+     * its row, column, or subgrid
+     * @param index The index of the cell, as defined by SudokuCoordinate
+     * @return True if the cell conflicts with another cell, false otherwise
+     */
+    public boolean isConflicting(int index) {
+        return conflicts.isConflicting(index);
+    }
+    
+    /**
+     * @return True if any cells on the board conflict with each other, false otherwise
+     */
+    public boolean hasConflicts() {
+        return conflicts.getConflictCount() > 0;
+    }
+    
+    /**
+     * Gets the positions of all of the cells that conflict with the cell at the given position
+     * @param position The position of the cell
+     * @return The positions of the cells that hold the same value and share a row, column, or subgrid
+     */
+    public ArrayList<SudokuCoordinate> getConflictingPeers(SudokuCoordinate position) {
+        ArrayList<SudokuCoordinate> peers = new ArrayList<>();
+        int index = position.getIndex();
+        int mask = conflicts.getConflictMask(index);
+        
+        for(int slot = 0; slot < SudokuConflictIndex.PEER_COUNT; slot++) {
+            if((mask & (1 << slot)) != 0)
+                peers.add(SudokuCoordinate.of(SudokuConflictIndex.PEERS[index][slot]));
+        }
+        
+        return peers;
+    }
+    
+    /**
+     * Unassigns cells until no conflicts remain on the board. Cells are visited from
+     * top-left to bottom-right, and a cell is only unassigned if it still conflicts with
+     * another cell, so one cell of each conflicting pair is kept. Givens are never unassigned.
+     */
+    public void clearConflictingCells() {
+        for(int index = 0; index < TOTAL_CELLS && hasConflicts(); index++) {
+            if(conflicts.isConflicting(index) && !isGiven(index))
+                writeValue(index, 0, false);
+        }
+    }
+    
+    /**
+     * Checks if the cell at a given cell index is a given, i.e. one of the original clues of the puzzle
+     * @param index The index of the cell, as defined by SudokuCoordinate
+     * @return True if the cell is a given, false otherwise
+     */
+    public boolean isGiven(int index) {
+        if(index < Long.SIZE)
+            return (givensLow & (1L << index)) != 0;
+        
+        return (givensHigh & (1L << (index - Long.SIZE))) != 0;
+    }
+    
+    /**
+     * Checks if the cell at a given position is a given, i.e. one of the original clues of the puzzle
+     * @param position The position of the cell
+     * @return True if the cell is a given, false otherwise
+     */
+    public boolean isGiven(SudokuCoordinate position) {
+        return isGiven(position.getIndex());
+    }
+    
+    /**
+     * @return True if any cells on the board are givens, false otherwise
+     */
+    public boolean hasGivens() {
+        return givensLow != 0 || givensHigh != 0;
+    }
+    
+    /**
+     * Marks every cell that is currently filled as a given, and every other cell as
+     * a player entry. This should be called once a puzzle has been generated.
+     */
+    public void markGivens() {
+        checkWritable();
+        givensLow = 0;
+        givensHigh = 0;
+        
+        for(int index = 0; index < TOTAL_CELLS; index++) {
+            if(getCellValue(index) == 0)
+                continue;
+            
+            if(index < Long.SIZE)
+                givensLow |= 1L << index;
+            else
+                givensHigh |= 1L << (index - Long.SIZE);
+        }
+    }
+    
+    /**
+     * Gets the givens of the board as a bitmask of GIVENS_MASK_BYTES bytes, where bit
+     * (index % 8) of byte (index / 8) is set if the cell with that index is a given
+     * @return The givens bitmask
+     */
+    public byte[] getGivensMask() {
+        byte[] mask = new byte[GIVENS_MASK_BYTES];
+        for(int i = 0; i < GIVENS_MASK_BYTES; i++) {
+            long bits = i < Long.BYTES ? givensLow >>> (Byte.SIZE * i) : givensHigh >>> (Byte.SIZE * (i - Long.BYTES));
+            mask[i] = (byte)bits;
+        }
+        
+        return mask;
+    }
+    
+    /**
+     * Sets the givens of the board from a bitmask created by getGivensMask. The values
+     * of the cells are not changed.
+     * @param mask The givens bitmask
+     */
+    public void setGivensMask(byte[] mask) {
+        checkWritable();
+        givensLow = 0;
+        givensHigh = 0;
+        
+        for(int i = 0; i < Math.min(mask.length, GIVENS_MASK_BYTES); i++) {
+            long bits = mask[i] & 0xFFL;
+            if(i < Long.BYTES)
+                givensLow |= bits << (Byte.SIZE * i);
+            else
+                givensHigh |= bits << (Byte.SIZE * (i - Long.BYTES));
+        }
+        
+        //Ignore any bits beyond the last cell
+        givensHigh &= (1L << (TOTAL_CELLS - Long.SIZE)) - 1;
+    }
+    
+    /**
+     * Unassigns every cell that is not a given, returning the board to the original puzzle
+     */
+    public void resetToPuzzle() {
+        for(int index = 0; index < TOTAL_CELLS; index++) {
+            if(!isGiven(index) && getCellValue(index) != 0)
+                writeValue(index, 0, false);
+        }
+    }
+    
+    /**
+     * @return The number of cells on the board that are not unassigned
+     */
+    public int getFilledCount() {
+        return filledCount;
+    }
+    
+    /**
+     * Checks if the entire board is solved. A board is solved when every cell is
+     * filled and no cells conflict, which is checked in constant time.
      * @return True if the board is solved, false otherwise
      */
     public boolean isSolved() {
-        //If any of the collections are incomplete, the board is not solved
-        for(SudokuCollection c: collections)
-            if(!c.testCollectionComplete())
-                return false;
-        
-        return true;
+        return filledCount == TOTAL_CELLS && !hasConflicts();
     }
     
     /**
@@ -88,12 +532,7 @@ public class SudokuBoard {
      * @return True if the board is empty, false otherwise
      */
     public boolean isEmpty() {
-        //Iterate over only the first 3 collections in the arraylist, as these comprise every cell on the board
-        for(SudokuCollection c: collections.subList(0, SUBGRID_COUNT))
-            if(!c.testCollectionEmpty())
-                return false;
-        
-        return true;
+        return filledCount == 0;
     }
     
     /**
@@ -102,29 +541,77 @@ public class SudokuBoard {
      * @return The cell at the given position
      */
     public SudokuCell getCell(SudokuCoordinate position) {
-        SudokuCell cell = board[position.getY()][position.getX()];
+        SudokuCell cell = getBoard()[position.getY()][position.getX()];
         return cell;
     }
     
+    /**
+     * Gets the cell at a given cell index
+     * @param index The index of the desired cell, as defined by SudokuCoordinate
+     * @return The cell at the given index
+     */
+    public SudokuCell getCell(int index) {
+        return getBoard()[index / GRID_SIZE][index % GRID_SIZE];
+    }
+    
     /**
      * Gets the value of the cell at a given position
      * @param position The position of the desired cell
      * @return The value of the cell at the given position
      */
     public int getCellValue(SudokuCoordinate position) {
-        SudokuCell cell = board[position.getY()][position.getX()];
-        return cell.getCellValue();
+        return readValue(position.getX(), position.getY());
+    }
+    
+    /**
+     * Gets the value of the cell at a given cell index
+     * @param index The index of the desired cell, as defined by SudokuCoordinate
+     * @return The value of the cell at the given index
+     */
+    public int getCellValue(int index) {
+        return rows[index / GRID_SIZE][index % GRID_SIZE];
     }
 
     /**
      * @return The board as a 2 dimensional array of SudokuCell objects
      */
     public SudokuCell[][] getBoard() {
+        if(board == null) {
+            board = new SudokuCell[SudokuBoard.GRID_SIZE][SudokuBoard.GRID_SIZE];
+            
+            //Create a cell view for every position on the board
+            for(int y = 0; y < SudokuBoard.GRID_SIZE; y++) {
+                for(int x = 0; x < SudokuBoard.GRID_SIZE; x++) {
+                    board[y][x] = new SudokuCell(this, SudokuCoordinate.of(x, y));
+                }
+            }
+        }
+        
         return board;
     }
     
     /**
-     * Sets the board from a raw, non-jagged 2D array of SudokuCell objects.
+     * Creates the row, column, and subgrid collections if they have not been created yet
+     */
+    private void initializeCollections() {
+        if(collections != null)
+            return;
+        
+        collections = new ArrayList<>();
+        for(int i = 0; i < SudokuBoard.GRID_SIZE; i++) {
+            collections.add(new SudokuRow(i));
+            collections.add(new SudokuColumn(i));
+            collections.add(new SudokuSubgrid(i));
+        }
+        
+        //Populate the collections
+        for(SudokuCollection c: collections)
+            c.populateCollection(this);
+    }
+    
+    /**
+     * Sets the board from a raw, non-jagged 2D array of SudokuCell objects by
+     * copying the value of each cell.
      * 
      * If the board was not of the correct size, the board is not set.
      * @param rawBoard 
@@ -139,9 +626,10 @@ public class SudokuBoard {
             return;
         }
         
-        //Copy reach row into the board
+        //Copy the value of each cell into the board
         for(int row = 0; row < numRows; row++)
-            System.arraycopy(rawBoard[row], 0, this.board[row], 0, numCols);
+            for(int col = 0; col < numCols; col++)
+                writeValue(row * GRID_SIZE + col, rawBoard[row][col].getCellValue(), true);
     }
     
     /**
@@ -151,6 +639,7 @@ public class SudokuBoard {
      * @return All of the SudokuCollection objects in the collections arraylist that contain this coordinate
      */
     public ArrayList<SudokuCollection> getCollectionsAt(SudokuCoordinate position) {
+        initializeCollections();
         
         ArrayList<SudokuCollection> contains = new ArrayList<>();
         for(SudokuCollection collection: collections) {
@@ -168,23 +657,25 @@ public class SudokuBoard {
      * @return The first unassigned cell, or null if none was found
      */
     public SudokuCell getEmptyCell() {
-        SudokuCoordinate curPosition = new SudokuCoordinate(0,0);
-        
+        int index = getEmptyCellIndex();
+        return index == -1 ? null : getCell(index);
+    }
+    
+    /**
+     * Gets the index of the first unassigned sudoku cell on the board
+     * @return The index of the first unassigned cell, or -1 if none was found
+     */
+    public int getEmptyCellIndex() {
         //Iterate over every cell on the board
         for(int y = 0; y < SudokuBoard.GRID_SIZE; y++) {
             for(int x = 0; x < SudokuBoard.GRID_SIZE; x++) {
-                curPosition.setX(x);
-                curPosition.setY(y);
-                
-                //If an empty cell was found, return it
-                SudokuCell currentCell = getCell(curPosition);
-                if(currentCell.getCellValue() == 0)
-                    return currentCell;
-               
+                //If an empty cell was found, return its index
+                if(rows[y][x] == 0)
+                    return y * SudokuBoard.GRID_SIZE + x;
             }
         }
         
-        return null;
+        return -1;
     }
     
     /**
@@ -194,6 +685,16 @@ public class SudokuBoard {
      * @return True if the value could be placed at the position, otherwise false
      */
     public boolean canPlaceAt(SudokuCoordinate position, int value) {
+        return canPlaceAt(position.getIndex(), value);
+    }
+    
+    /**
+     * Determines whether or not a value can be placed at the given cell index
+     * @param index The index of the cell to check, as defined by SudokuCoordinate
+     * @param value The value to test
+     * @return True if the value could be placed at the cell, otherwise false
+     */
+    public boolean canPlaceAt(int index, int value) {
         //Cells can always be unassigned
         if(value == 0)
             return true;
@@ -202,18 +703,26 @@ public class SudokuBoard {
         if(value < SudokuBoard.CELL_MIN || value > SudokuBoard.CELL_MAX)
             return false;
         
-        //Get the collections that contain this position
-        ArrayList<SudokuCollection> collectionsContaining = getCollectionsAt(position);
-
-        //For each of the collections, check if the provided value exists in them
-        for(SudokuCollection c: collectionsContaining) {
-            //If the value existed in any of them, it cannot be placed here
-            
-            if(c.testValueExists(value))
+        int x = index % SudokuBoard.GRID_SIZE;
+        int y = index / SudokuBoard.GRID_SIZE;
+        
+        //Check the row and column containing this position
+        for(int i = 0; i < SudokuBoard.GRID_SIZE; i++) {
+            if(rows[y][i] == value || rows[i][x] == value)
                 return false;
         }
         
-        //If the value did not exist in any of the above collections, it can be placed
+        //Check the subgrid containing this position, starting from its top-left cell
+        int startX = x - (x % SudokuBoard.SUBGRID_SIZE);
+        int startY = y - (y % SudokuBoard.SUBGRID_SIZE);
+        for(int offsY = 0; offsY < SudokuBoard.SUBGRID_SIZE; offsY++) {
+            for(int offsX = 0; offsX < SudokuBoard.SUBGRID_SIZE; offsX++) {
+                if(rows[startY + offsY][startX + offsX] == value)
+                    return false;
+            }
+        }
+        
+        //If the value did not exist in the row, column, or subgrid, it can be placed
         return true;
     }
     
@@ -230,7 +739,7 @@ public class SudokuBoard {
 
         //Iterate over each number in the row
         for(int i = 0; i < SudokuBoard.GRID_SIZE; i++) {
-            int cellValue = board[rowNumber][i].getCellValue();
+            int cellValue = rows[rowNumber][i];
             rowBuilder.append(cellValue == 0 ? "." : ""+cellValue);
             rowBuilder.append(" ");
 
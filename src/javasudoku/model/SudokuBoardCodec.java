@@ -0,0 +1,222 @@
+package javasudoku.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A class containing methods to convert Sudoku boards to and from a compact binary
+ * form that can be written to files or binary database columns.
+ *
+ * Each cell value is packed into 4 bits, two cells to a byte, with the cell of the lower
+ * index in the high 4 bits. The 81 cells of a board take up VALUES_BYTES bytes. The givens
+ * bitmask of the board, as produced by SudokuBoard.getGivensMask, may optionally follow
+ * the values, for a total of ENCODED_BYTES_WITH_GIVENS bytes.
+ *
+ * A board that was started from a puzzle can also be split into the puzzle, which holds only the
+ * values of the givens, and the player entries, which hold the values of every other cell in the
+ * order of their indices, packed in the same way. Many games can share a single stored puzzle, and
+ * the entries of a game are smaller than the whole board.
+ *
+ * @author Ishaiah Cross
+ */
+public class SudokuBoardCodec {
+    //The number of bytes needed to store the values of every cell
+    public static final int VALUES_BYTES = (SudokuBoard.TOTAL_CELLS + 1) / 2;
+    //The number of bytes needed to store the values and the givens bitmask
+    public static final int ENCODED_BYTES_WITH_GIVENS = VALUES_BYTES + SudokuBoard.GIVENS_MASK_BYTES;
+
+    /**
+     * Converts a SudokuBoard into its binary form
+     * @param board The board to convert
+     * @param includeGivens Whether or not to append the givens bitmask of the board
+     * @return The encoded board
+     */
+    public static byte[] encode(SudokuBoard board, boolean includeGivens) {
+        byte[] data = new byte[includeGivens ? ENCODED_BYTES_WITH_GIVENS : VALUES_BYTES];
+        encode(board, includeGivens, ByteBuffer.wrap(data));
+
+        return data;
+    }
+
+    /**
+     * Writes the binary form of a SudokuBoard into a buffer, starting at the current position
+     * of the buffer. The position is advanced past the written bytes.
+     * @param board The board to convert
+     * @param includeGivens Whether or not to append the givens bitmask of the board
+     * @param target The buffer to write to
+     */
+    public static void encode(SudokuBoard board, boolean includeGivens, ByteBuffer target) {
+        for(int index = 0; index < SudokuBoard.TOTAL_CELLS; index += 2) {
+            int high = board.getCellValue(index);
+            int low = index + 1 < SudokuBoard.TOTAL_CELLS ? board.getCellValue(index + 1) : 0;
+            target.put((byte)((high << 4) | low));
+        }
+
+        if(includeGivens)
+            target.put(board.getGivensMask());
+    }
+
+    /**
+     * Converts the givens of a board into their binary form, leaving every other cell unassigned
+     * @param board The board to convert
+     * @return The encoded puzzle, of VALUES_BYTES bytes
+     */
+    public static byte[] encodePuzzle(SudokuBoard board) {
+        byte[] data = new byte[VALUES_BYTES];
+        for(int index = 0; index < SudokuBoard.TOTAL_CELLS; index++) {
+            int value = board.isGiven(index) ? board.getCellValue(index) : 0;
+            data[index / 2] |= index % 2 == 0 ? value << 4 : value;
+        }
+
+        return data;
+    }
+
+    /**
+     * Converts the player entries of a board into their binary form, which holds the value of every
+     * cell that is not a given
+     * @param board The board to convert
+     * @return The encoded entries
+     */
+    public static byte[] encodeEntries(SudokuBoard board) {
+        int entryCount = 0;
+        for(int index = 0; index < SudokuBoard.TOTAL_CELLS; index++) {
+            if(!board.isGiven(index))
+                entryCount++;
+        }
+
+        byte[] data = new byte[(entryCount + 1) / 2];
+        int entry = 0;
+        for(int index = 0; index < SudokuBoard.TOTAL_CELLS; index++) {
+            if(board.isGiven(index))
+                continue;
+
+            int value = board.getCellValue(index);
+            data[entry / 2] |= entry % 2 == 0 ? value << 4 : value;
+            entry++;
+        }
+
+        return data;
+    }
+
+    /**
+     * Creates and initializes a SudokuBoard from an encoded puzzle and the encoded player entries
+     * made on it. Every filled cell of the puzzle is a given on the created board.
+     * @param puzzle The encoded puzzle, or null if the board was not started from a puzzle
+     * @param entries The encoded player entries
+     * @return The initialized SudokuBoard, or null if the data was formatted incorrectly
+     */
+    public static SudokuBoard decodeEntries(byte[] puzzle, byte[] entries) {
+        if(puzzle != null && puzzle.length < VALUES_BYTES) {
+            System.out.println("Puzzle data was too short: " + puzzle.length + " bytes");
+            return null;
+        }
+
+        //Read the givens from the puzzle, and the rest of the cells from the entries
+        int[] values = new int[SudokuBoard.TOTAL_CELLS];
+        byte[] givensMask = new byte[SudokuBoard.GIVENS_MASK_BYTES];
+        int entry = 0;
+
+        for(int index = 0; index < SudokuBoard.TOTAL_CELLS; index++) {
+            int given = puzzle != null ? unpack(puzzle, index) : 0;
+            if(given != 0) {
+                values[index] = given;
+                givensMask[index / Byte.SIZE] |= 1 << (index % Byte.SIZE);
+                continue;
+            }
+
+            if(entry / 2 >= entries.length) {
+                System.out.println("Entry data was too short: " + entries.length + " bytes");
+                return null;
+            }
+
+            values[index] = unpack(entries, entry++);
+        }
+
+        SudokuBoard board = new SudokuBoard();
+        board.beginLoad();
+        for(int index = 0; index < SudokuBoard.TOTAL_CELLS; index++) {
+            if(values[index] > SudokuBoard.CELL_MAX) {
+                System.out.println("Board data contained invalid values at cell " + index);
+                board.finishLoad();
+                return null;
+            }
+
+            board.loadValue(index, values[index]);
+        }
+        board.finishLoad();
+        board.setGivensMask(givensMask);
+
+        return board;
+    }
+
+    /**
+     * @param data Values packed two to a byte
+     * @param position The position of the value among the packed values
+     * @return The value
+     */
+    private static int unpack(byte[] data, int position) {
+        int packed = data[position / 2] & 0xFF;
+        return position % 2 == 0 ? packed >>> 4 : packed & 0x0F;
+    }
+
+    /**
+     * Creates and initializes a SudokuBoard from its binary form. If the data is long
+     * enough to contain a givens bitmask, the givens are also set.
+     * @param data The encoded board
+     * @return The initialized SudokuBoard, or null if the data was formatted incorrectly
+     */
+    public static SudokuBoard decode(byte[] data) {
+        SudokuBoard board = new SudokuBoard();
+        if(!decodeInto(ByteBuffer.wrap(data), data.length >= ENCODED_BYTES_WITH_GIVENS, board))
+            return null;
+
+        return board;
+    }
+
+    /**
+     * Reads the binary form of a board from a buffer into an existing SudokuBoard, replacing
+     * all of its cell values. The values are loaded without checking each placement, but any
+     * conflicts between them are still recorded by the board.
+     *
+     * Reading starts at the current position of the buffer, and the position is advanced past
+     * the read bytes.
+     * @param source The buffer to read from
+     * @param includesGivens Whether or not a givens bitmask follows the cell values
+     * @param target The board to load the values into
+     * @return True if the board was read, false if the buffer was too short or contained a
+     * value outside of the interval defined by CELL_MIN and CELL_MAX. If false is returned, the
+     * contents of the target board are undefined.
+     */
+    public static boolean decodeInto(ByteBuffer source, boolean includesGivens, SudokuBoard target) {
+        int requiredBytes = includesGivens ? ENCODED_BYTES_WITH_GIVENS : VALUES_BYTES;
+        if(source.remaining() < requiredBytes) {
+            System.out.println("Board data was too short: " + source.remaining() + " bytes");
+            return false;
+        }
+
+        target.beginLoad();
+        for(int index = 0; index < SudokuBoard.TOTAL_CELLS; index += 2) {
+            int packed = source.get() & 0xFF;
+            int high = packed >>> 4;
+            int low = packed & 0x0F;
+
+            if(high > SudokuBoard.CELL_MAX || low > SudokuBoard.CELL_MAX) {
+                System.out.println("Board data contained invalid values at cell " + index);
+                target.finishLoad();
+                return false;
+            }
+
+            target.loadValue(index, high);
+            if(index + 1 < SudokuBoard.TOTAL_CELLS)
+                target.loadValue(index + 1, low);
+        }
+        target.finishLoad();
+
+        if(includesGivens) {
+            byte[] givens = new byte[SudokuBoard.GIVENS_MASK_BYTES];
+            source.get(givens);
+            target.setGivensMask(givens);
+        }
+
+        return true;
+    }
+}
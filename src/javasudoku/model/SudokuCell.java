@@ -9,10 +9,16 @@ package javasudoku.model;
  * 
  * A cell whose value is equal to CELL_MIN is assumed to be unassigned.
  * 
+ * Cells obtained from a SudokuBoard do not store their own value, and instead
+ * read and write the value held by the board at their position. Values written
+ * through such a cell are checked by the board in the same way as SudokuBoard.setCell.
+ * 
  * @author Ishaiah Cross
  */
 public final class SudokuCell {
     private final SudokuCoordinate position;
+    //The board that stores the value of this cell, or null if the cell stores its own value
+    private final SudokuBoard owner;
     private int cellValue;
     
     /**
@@ -22,22 +28,44 @@ public final class SudokuCell {
      */
     public SudokuCell(SudokuCoordinate position, int cellValue) {
         this.position = position;
+        this.owner = null;
         setCellValue(cellValue);
     }
+    
+    /**
+     * Initialize a cell whose value is stored by a SudokuBoard
+     * @param owner The board that stores the cell value
+     * @param position The position of the cell on the board
+     */
+    SudokuCell(SudokuBoard owner, SudokuCoordinate position) {
+        this.position = position;
+        this.owner = owner;
+    }
   
     /**
      * @return The cell value
      */
     public int getCellValue() {
+        if(owner != null)
+            return owner.readValue(position.getX(), position.getY());
+        
         return cellValue;
     }
 
     /**
      * @param cellValue The cell value to set. The cell value will be clamped to lie within the interval
      * defined by SudokuBoard.CELL_MIN and SudokuBoard.CELL_MAX
+     * @return True if the value was set, false if the cell belongs to a board and is a given, or the
+     * value conflicts with another cell of the board
      */
-    public void setCellValue(int cellValue) {
-        this.cellValue = Math.max(SudokuBoard.CELL_MIN, Math.min(SudokuBoard.CELL_MAX, cellValue));
+    public boolean setCellValue(int cellValue) {
+        int clampedValue = Math.max(SudokuBoard.CELL_MIN, Math.min(SudokuBoard.CELL_MAX, cellValue));
+        
+        if(owner != null)
+            return owner.setCell(position.getIndex(), clampedValue);
+        
+        this.cellValue = clampedValue;
+        return true;
     }
     
     /**
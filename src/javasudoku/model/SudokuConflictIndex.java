@@ -0,0 +1,245 @@
+package javasudoku.model;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of which cells on a SudokuBoard hold the same value as one of their peers,
+ * where the peers of a cell are the other cells that share its row, column, or subgrid.
+ *
+ * Each cell has a bitmask with one bit for each of its peers, which is set when the cell
+ * and that peer conflict. The masks are updated each time a cell changes, which only
+ * requires visiting the peers of that cell rather than every collection on the board.
+ *
+ * The masks are shared between the index of a board and the indexes of its forks,
+ * and are only copied when one of them first records a change.
+ *
+ * This class is not accessible outside of the javasudoku.model package.
+ * @author Ishaiah Cross
+ */
+final class SudokuConflictIndex {
+    //The number of peers of every cell: the rest of its row and column, and the 4 subgrid cells in neither
+    static final int PEER_COUNT = 2 * (SudokuBoard.GRID_SIZE - 1) + (SudokuBoard.SUBGRID_SIZE - 1) * (SudokuBoard.SUBGRID_SIZE - 1);
+
+    //The cell indexes of the peers of each cell, in ascending order
+    static final int[][] PEERS = new int[SudokuBoard.TOTAL_CELLS][PEER_COUNT];
+    //For each peer of a cell, the position of that cell in the peer's own list of peers
+    private static final int[][] PEER_SLOTS = new int[SudokuBoard.TOTAL_CELLS][PEER_COUNT];
+
+    static {
+        for(int index = 0; index < SudokuBoard.TOTAL_CELLS; index++) {
+            int numPeers = 0;
+            for(int other = 0; other < SudokuBoard.TOTAL_CELLS; other++) {
+                if(other != index && arePeers(index, other))
+                    PEERS[index][numPeers++] = other;
+            }
+        }
+
+        for(int index = 0; index < SudokuBoard.TOTAL_CELLS; index++) {
+            for(int slot = 0; slot < PEER_COUNT; slot++) {
+                int[] peersOfPeer = PEERS[PEERS[index][slot]];
+                for(int peerSlot = 0; peerSlot < PEER_COUNT; peerSlot++) {
+                    if(peersOfPeer[peerSlot] == index)
+                        PEER_SLOTS[index][slot] = peerSlot;
+                }
+            }
+        }
+    }
+
+    private int[] masks;
+    private boolean ownsMasks;
+    //The number of pairs of cells that currently conflict
+    private int conflictCount;
+
+    SudokuConflictIndex() {
+        this.masks = new int[SudokuBoard.TOTAL_CELLS];
+        this.ownsMasks = true;
+        this.conflictCount = 0;
+    }
+
+    /**
+     * Creates an index that shares the masks of another index
+     * @param source The index to share masks with
+     */
+    private SudokuConflictIndex(SudokuConflictIndex source) {
+        this.masks = source.masks;
+        this.ownsMasks = false;
+        this.conflictCount = source.conflictCount;
+
+        source.ownsMasks = false;
+    }
+
+    /**
+     * Determines whether or not two cells share a row, column, or subgrid
+     * @param first The index of the first cell
+     * @param second The index of the second cell
+     * @return True if the cells share a row, column, or subgrid, false otherwise
+     */
+    private static boolean arePeers(int first, int second) {
+        int firstX = first % SudokuBoard.GRID_SIZE;
+        int firstY = first / SudokuBoard.GRID_SIZE;
+        int secondX = second % SudokuBoard.GRID_SIZE;
+        int secondY = second / SudokuBoard.GRID_SIZE;
+
+        boolean sameSubgrid = firstX / SudokuBoard.SUBGRID_SIZE == secondX / SudokuBoard.SUBGRID_SIZE
+                && firstY / SudokuBoard.SUBGRID_SIZE == secondY / SudokuBoard.SUBGRID_SIZE;
+
+        return firstX == secondX || firstY == secondY || sameSubgrid;
+    }
+
+    /**
+     * Creates a copy of this index in constant time
+     * @return An index with the same conflicts as this index
+     */
+    SudokuConflictIndex fork() {
+        return new SudokuConflictIndex(this);
+    }
+
+    /**
+     * Copies the masks if they are shared with another index, so that they can be modified
+     */
+    private void ensureOwned() {
+        if(!ownsMasks) {
+            masks = masks.clone();
+            ownsMasks = true;
+        }
+    }
+
+    /**
+     * Removes all of the conflicts involving a cell. This should be called whenever
+     * the value of the cell changes.
+     * @param index The index of the cell
+     */
+    void clearConflicts(int index) {
+        int mask = masks[index];
+        if(mask == 0)
+            return;
+
+        ensureOwned();
+        for(int slot = 0; slot < PEER_COUNT; slot++) {
+            //Clear the bit for this cell in the mask of each peer it conflicted with
+            if((mask & (1 << slot)) != 0) {
+                masks[PEERS[index][slot]] &= ~(1 << PEER_SLOTS[index][slot]);
+                conflictCount--;
+            }
+        }
+
+        masks[index] = 0;
+    }
+
+    /**
+     * Records a conflict between a cell and each of its peers that hold the same value
+     * @param index The index of the cell
+     * @param value The value of the cell
+     * @param board The board containing the cell
+     */
+    void findConflicts(int index, int value, SudokuBoard board) {
+        if(value == 0)
+            return;
+
+        for(int slot = 0; slot < PEER_COUNT; slot++) {
+            int peer = PEERS[index][slot];
+            if(board.getCellValue(peer) == value) {
+                ensureOwned();
+                masks[index] |= 1 << slot;
+                masks[peer] |= 1 << PEER_SLOTS[index][slot];
+                conflictCount++;
+            }
+        }
+    }
+
+    /**
+     * Discards all recorded conflicts and finds every conflict on a board again.
+     *
+     * Each row, column, and subgrid is first checked for a repeated value, which is much
+     * cheaper than comparing every cell with its peers. Peers are only compared if a
+     * repeated value was found.
+     * @param board The board to find conflicts on
+     */
+    void rebuild(SudokuBoard board) {
+        if(ownsMasks) {
+            Arrays.fill(masks, 0);
+        } else {
+            masks = new int[SudokuBoard.TOTAL_CELLS];
+            ownsMasks = true;
+        }
+        conflictCount = 0;
+
+        if(!hasRepeatedValue(board))
+            return;
+
+        //Record each conflicting pair once, from the cell with the lower index
+        for(int index = 0; index < SudokuBoard.TOTAL_CELLS; index++) {
+            int value = board.getCellValue(index);
+            if(value == 0)
+                continue;
+
+            for(int slot = 0; slot < PEER_COUNT; slot++) {
+                int peer = PEERS[index][slot];
+                if(peer > index && board.getCellValue(peer) == value) {
+                    masks[index] |= 1 << slot;
+                    masks[peer] |= 1 << PEER_SLOTS[index][slot];
+                    conflictCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if any row, column, or subgrid of a board contains the same value more than once
+     * @param board The board to check
+     * @return True if a value is repeated, false otherwise
+     */
+    private static boolean hasRepeatedValue(SudokuBoard board) {
+        for(int unit = 0; unit < SudokuBoard.GRID_SIZE; unit++) {
+            int rowSeen = 0;
+            int columnSeen = 0;
+            int subgridSeen = 0;
+
+            int startX = SudokuBoard.SUBGRID_SIZE * (unit % SudokuBoard.SUBGRID_SIZE);
+            int startY = SudokuBoard.SUBGRID_SIZE * (unit / SudokuBoard.SUBGRID_SIZE);
+
+            for(int i = 0; i < SudokuBoard.GRID_SIZE; i++) {
+                int rowValue = board.readValue(i, unit);
+                int columnValue = board.readValue(unit, i);
+                int subgridValue = board.readValue(startX + i % SudokuBoard.SUBGRID_SIZE, startY + i / SudokuBoard.SUBGRID_SIZE);
+
+                //Bit 0 stands for unassigned cells, which may repeat
+                int rowBit = (1 << rowValue) & ~1;
+                int columnBit = (1 << columnValue) & ~1;
+                int subgridBit = (1 << subgridValue) & ~1;
+
+                if((rowSeen & rowBit) != 0 || (columnSeen & columnBit) != 0 || (subgridSeen & subgridBit) != 0)
+                    return true;
+
+                rowSeen |= rowBit;
+                columnSeen |= columnBit;
+                subgridSeen |= subgridBit;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param index The index of the cell
+     * @return True if the cell conflicts with any of its peers, false otherwise
+     */
+    boolean isConflicting(int index) {
+        return masks[index] != 0;
+    }
+
+    /**
+     * @param index The index of the cell
+     * @return A bitmask with bit n set if the cell conflicts with its nth peer in PEERS
+     */
+    int getConflictMask(int index) {
+        return masks[index];
+    }
+
+    /**
+     * @return The number of pairs of cells that currently conflict
+     */
+    int getConflictCount() {
+        return conflictCount;
+    }
+}
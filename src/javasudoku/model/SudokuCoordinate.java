@@ -9,11 +9,25 @@ package javasudoku.model;
  * within the JavaSudoku class.
  * 
  * The coordinate (0, 0) represents the top-left corner of the board.
+ * 
+ * Coordinates are immutable. One shared instance exists for every cell on the board,
+ * which can be retrieved using the static 'of' methods instead of creating new objects.
+ * Each coordinate also has a cell index on the interval [0, TOTAL_CELLS - 1], counting
+ * from left to right and then top to bottom.
  * @author Ishaiah Cross
  */
 public final class SudokuCoordinate {
-    private int x;
-    private int y;
+    //The shared coordinate instances, ordered by cell index
+    private static final SudokuCoordinate[] COORDINATES = new SudokuCoordinate[SudokuBoard.TOTAL_CELLS];
+    
+    static {
+        for(int index = 0; index < SudokuBoard.TOTAL_CELLS; index++)
+            COORDINATES[index] = new SudokuCoordinate(index % SudokuBoard.GRID_SIZE, index / SudokuBoard.GRID_SIZE);
+    }
+    
+    private final int x;
+    private final int y;
+    private final int index;
     
     /**
      * 
@@ -21,22 +35,38 @@ public final class SudokuCoordinate {
      * @param y The Y coordinate
      */
     public SudokuCoordinate(int x, int y)  {
-        setX(x);
-        setY(y);
+        this.x = Math.max(0, Math.min(SudokuBoard.GRID_SIZE - 1, x));
+        this.y = Math.max(0, Math.min(SudokuBoard.GRID_SIZE - 1, y));
+        this.index = this.y * SudokuBoard.GRID_SIZE + this.x;
     }
     
     /**
-     * @return The X coordinate 
+     * Gets the shared coordinate instance for an x, y coordinate pair. The coordinates
+     * are clamped in the same way as the constructor.
+     * @param x The X coordinate
+     * @param y The Y coordinate
+     * @return The coordinate instance
      */
-    public int getX() {
-        return x;
+    public static SudokuCoordinate of(int x, int y) {
+        x = Math.max(0, Math.min(SudokuBoard.GRID_SIZE - 1, x));
+        y = Math.max(0, Math.min(SudokuBoard.GRID_SIZE - 1, y));
+        return COORDINATES[y * SudokuBoard.GRID_SIZE + x];
     }
-
+    
     /**
-     * @param x The new X coordinate 
+     * Gets the shared coordinate instance for a cell index. The index is not clamped.
+     * @param index The cell index, on the interval [0, TOTAL_CELLS - 1]
+     * @return The coordinate instance
      */
-    public void setX(int x) {
-        this.x = Math.max(0, Math.min(SudokuBoard.GRID_SIZE - 1, x));
+    public static SudokuCoordinate of(int index) {
+        return COORDINATES[index];
+    }
+    
+    /**
+     * @return The X coordinate 
+     */
+    public int getX() {
+        return x;
     }
 
     /**
@@ -45,12 +75,12 @@ public final class SudokuCoordinate {
     public int getY() {
         return y;
     }
-
+    
     /**
-     * @param y The new Y coordinate 
+     * @return The cell index of this coordinate
      */
-    public void setY(int y) {
-        this.y = Math.max(0, Math.min(SudokuBoard.GRID_SIZE - 1, y));
+    public int getIndex() {
+        return index;
     }
     
     @Override
@@ -60,10 +90,7 @@ public final class SudokuCoordinate {
     
     @Override
     public int hashCode() {
-        int hash = 5;
-        hash = 17 * hash + x;
-        hash = 17 * hash + y;
-        return hash;
+        return index;
     }
 
     @Override
@@ -78,13 +105,7 @@ public final class SudokuCoordinate {
             return false;
         }
         final SudokuCoordinate other = (SudokuCoordinate) obj;
-        if (x != other.x) {
-            return false;
-        }
-        if (y != other.y) {
-            return false;
-        }
-        return true;
+        return index == other.index;
     }
 
    
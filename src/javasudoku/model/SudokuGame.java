@@ -2,10 +2,14 @@ package javasudoku.model;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 /**
  * A wrapper class that pairs a SudokuBoard instance with a player name and 
  * completion status, so that it can be written to the database.
+ * 
+ * The play time of a game is the number of milliseconds it has been open for, across every
+ * time it was played. Once the game is solved, this is the time the player took to solve it.
  * @author Ishaiah Cross
  */
 public final class SudokuGame {
@@ -18,6 +22,7 @@ public final class SudokuGame {
     public boolean isSolved;
     
     private Integer gameID = null;
+    private long playTime = 0;
     
     public SudokuGame(String playerName, SudokuBoard boardState) {
         this.playerName = playerName;
@@ -25,7 +30,7 @@ public final class SudokuGame {
         
         int totalCells = SudokuBoard.GRID_SIZE * SudokuBoard.GRID_SIZE;
         this.completionPercentage = ((float)getNumFilledCells()) / totalCells;
-        
+        this.isSolved = boardState != null && boardState.isSolved();
     }
 
     /**
@@ -38,13 +43,29 @@ public final class SudokuGame {
 
     /**
      * Sets the game ID. This should only be done
-     * after the game has been retrieved from a database to ensure the ID
+     * after the game has been retrieved from or added to a database to ensure the ID
      * corresponds to a unique identifier in data storage
      * @param gameID the gameID to set
      */
     public void setGameID(Integer gameID) {
         this.gameID = gameID;
     }
+    
+    /**
+     * Gets the number of milliseconds the game has been played for
+     * @return the play time
+     */
+    public long getPlayTime() {
+        return playTime;
+    }
+    
+    /**
+     * Sets the number of milliseconds the game has been played for
+     * @param playTime the play time to set
+     */
+    public void setPlayTime(long playTime) {
+        this.playTime = playTime;
+    }
    
     /**
      * Saves the current date to the object
@@ -52,7 +73,32 @@ public final class SudokuGame {
     public void saveLastPlayedDate() {
         //Get the current date
         LocalDateTime curTime = LocalDateTime.now();  
-        this.lastPlayedDate = formatter.format(curTime);
+        this.lastPlayedDate = formatDate(curTime);
+    }
+    
+    /**
+     * Converts a date into the form used by lastPlayedDate
+     * @param date The date to convert
+     * @return The date as a string
+     */
+    public static String formatDate(LocalDateTime date) {
+        return formatter.format(date);
+    }
+    
+    /**
+     * Reads a date in the form used by lastPlayedDate
+     * @param date The date as a string
+     * @return The date, or null if the string was not a valid date
+     */
+    public static LocalDateTime parseDate(String date) {
+        if(date == null)
+            return null;
+        
+        try {
+            return LocalDateTime.parse(date, formatter);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
     }
     
     /**
@@ -71,18 +117,7 @@ public final class SudokuGame {
         if(boardState == null)
             return 0;
         
-        int numCells = 0;
-        
-        SudokuCell[][] cellData = boardState.getBoard();
-        for (SudokuCell[] cellRow : cellData) {
-            for (SudokuCell cell : cellRow) {
-                int cellValue = cell.getCellValue();
-                if(cellValue != 0) //If the cell was not empty, increment the count
-                    numCells++;
-            }
-        }
-
-        return numCells;
+        return boardState.getFilledCount();
     }
 }
 
@@ -1,5 +1,6 @@
 package javasudoku.model;
 import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * Defines how classes should implement database access for the SudokuGame object by
@@ -16,10 +17,43 @@ public interface SudokuGameDAO {
     public SudokuGame getGame(int id);
     
     /**
-     * Add a SudokuGame object to the data storage
+     * This method should retrieve the solution of the puzzle that a stored SudokuGame was started from,
+     * given the unique ID of the game. Data storage that does not keep solutions may solve the puzzle instead.
+     * @param id The ID of the SudokuGame
+     * @return The solved board, or null if the game was not started from a puzzle or the puzzle has no solution
+     */
+    public SudokuBoard getSolution(int id);
+    
+    /**
+     * Add a SudokuGame object to the data storage, and set its ID to the unique ID it was stored under
      * @param game The SudokuGame object to store
+     * @return The unique ID of the stored game, or null if it could not be stored
+     */
+    public Integer addGame(SudokuGame game);
+    
+    /**
+     * Replace the stored state of an existing SudokuGame object, identified by its ID
+     * @param game The SudokuGame object to store, with the ID of the game it replaces
+     * @return True if the game was updated, false if it had no ID, no stored game had its ID, or
+     * it could not be stored
      */
-    public void addGame(SudokuGame game);
+    public boolean updateGame(SudokuGame game);
+    
+    /**
+     * Update a SudokuGame object if it is already in the data storage, otherwise add it. A game
+     * that is stored but could not be updated is not added again.
+     * @param game The SudokuGame object to store
+     * @return The unique ID of the stored game, or null if it could not be stored
+     */
+    public Integer saveGame(SudokuGame game);
+    
+    /**
+     * Add several SudokuGame objects to the data storage at once. Either all of the
+     * games are stored, or none of them are.
+     * @param games The SudokuGame objects to store
+     * @return True if the games were stored, false otherwise
+     */
+    public boolean addGames(Collection<SudokuGame> games);
     
     /**
      * Remove a game from the data storage given its unique ID
@@ -27,6 +61,14 @@ public interface SudokuGameDAO {
      */
     public void removeGame(int id);
     
+    /**
+     * Remove several games from the data storage at once given their unique IDs. Either all
+     * of the games are removed, or none of them are.
+     * @param ids The IDs of the SudokuGames to remove
+     * @return True if the games were removed, false otherwise
+     */
+    public boolean removeGames(int... ids);
+    
     /**
      * Return all of the SudokuGame objects whose player name
      * matches the provided parameter
@@ -36,6 +78,46 @@ public interface SudokuGameDAO {
      */
     public ArrayList<SudokuGame> getGamesByName(String name);
     
+    /**
+     * Return one page of the SudokuGame objects whose player name is exactly
+     * the provided parameter
+     * @param name The name to search for in data storage
+     * @param offset The number of matching games to skip
+     * @param limit The largest number of games to return
+     * @param sort The order of the matching games
+     * @return An ArrayList containing at most limit SudokuGame objects with a matching player name
+     */
+    public ArrayList<SudokuGame> getGamesByName(String name, int offset, int limit, GameSortOrder sort);
+    
+    /**
+     * Return the SudokuGame objects with the lowest IDs greater than the provided ID, in order of ID.
+     * Every stored game can be read in pages by passing the ID of the last game of each page, and
+     * games that are saved or removed between pages do not cause other games to be skipped.
+     * @param afterID The ID to start after, or 0 to start from the first game
+     * @param limit The largest number of games to return
+     * @return An ArrayList containing at most limit SudokuGame objects, in order of ID, or null if the
+     * games could not be read, so that a failed read is not mistaken for the end of the games
+     */
+    public ArrayList<SudokuGame> getGamesAfter(int afterID, int limit);
+    
+    /**
+     * Return summaries of one page of the SudokuGame objects whose player name is exactly
+     * the provided parameter. The boards of the games are not retrieved.
+     * @param name The name to search for in data storage
+     * @param offset The number of matching games to skip
+     * @param limit The largest number of summaries to return
+     * @param sort The order of the matching games
+     * @return An ArrayList containing at most limit summaries of games with a matching player name
+     */
+    public ArrayList<SudokuGameSummary> getGameSummaries(String name, int offset, int limit, GameSortOrder sort);
+    
+    /**
+     * Count the SudokuGame objects whose player name is exactly the provided parameter
+     * @param name The name to search for in data storage
+     * @return The number of stored games with a matching player name
+     */
+    public int getGameCount(String name);
+    
     /**
      * Gets all of the unique player names stored by SudokuGame objects
      * in data storage
@@ -43,4 +125,20 @@ public interface SudokuGameDAO {
      * storage
      */
     public ArrayList<String> getPlayerNames();
+    
+    /**
+     * Gets the statistics of a player, which should be kept up to date as games are stored
+     * and removed rather than calculated from the player's games
+     * @param name The player name, which must match exactly
+     * @return The statistics of the player, or null if the player has never stored a game
+     */
+    public PlayerStats getPlayerStats(String name);
+    
+    /**
+     * Gets the statistics of the players with the fastest solved games
+     * @param limit The largest number of players to return
+     * @return An ArrayList containing the statistics of at most limit players who have solved a game,
+     * ordered from the shortest best solve time to the longest
+     */
+    public ArrayList<PlayerStats> getLeaderboard(int limit);
 }
@@ -0,0 +1,21 @@
+package javasudoku.model;
+
+/**
+ * The details of a saved SudokuGame that are shown when listing saved games, without
+ * its board. A summary can be read from data storage much faster than the full game,
+ * which can be retrieved later using its game ID.
+ * @author Ishaiah Cross
+ */
+public final class SudokuGameSummary {
+    public final int gameID;
+    public final String playerName;
+    public final String lastPlayedDate;
+    public final float completionPercentage;
+    
+    public SudokuGameSummary(int gameID, String playerName, String lastPlayedDate, float completionPercentage) {
+        this.gameID = gameID;
+        this.playerName = playerName;
+        this.lastPlayedDate = lastPlayedDate;
+        this.completionPercentage = completionPercentage;
+    }
+}
@@ -11,7 +11,7 @@ import javasudoku.solver.SudokuSolver;
  * 
  * @author Ishaiah Cross
  */
-public class SudokuGenerator {
+public class SudokuGenerator implements PuzzleSource {
     private static final int MIN_DIFFICULTY = 5;
     private static final int MAX_DIFFICULTY = 75;
     
@@ -67,6 +67,7 @@ public class SudokuGenerator {
     
     /**
      * Generates a partially solved Sudoku puzzle with one unique solution.
+     * The remaining filled cells of the puzzle are marked as givens.
      * 
      * @param difficulty The desired difficulty, clamped between
      * MIN_DIFFICULTY and MAX_DIFFICULTY
@@ -79,10 +80,23 @@ public class SudokuGenerator {
         int numRemovalAttempts = getNumRemovalAttempts(difficulty); 
         //Remove cells from the board to create the puzzle
         removeCells(puzzle, numRemovalAttempts); 
+        //The cells that were not removed are the clues of the puzzle
+        puzzle.markGivens();
         
         return puzzle;
     }
     
+    /**
+     * Generates a new puzzle. A generator never runs out of puzzles.
+     * @param difficulty The desired difficulty, clamped between
+     * MIN_DIFFICULTY and MAX_DIFFICULTY
+     * @return A partially solved Sudoku board with one unique solution
+     */
+    @Override
+    public SudokuBoard nextPuzzle(int difficulty) {
+        return generatePuzzle(difficulty);
+    }
+    
     /**
      * Fills the diagonal subgrids of a Sudoku board with random values 1-9.
      * 
@@ -92,8 +106,6 @@ public class SudokuGenerator {
      * @param board The board to fill the diagonal subgrids of
      */
     private void fillSubgrids(SudokuBoard board) {
-        SudokuCoordinate curPosition = new SudokuCoordinate(0, 0);
-        
         for(int subgridIndex = 0; subgridIndex < SudokuBoard.SUBGRID_COUNT; subgridIndex++) {
             /*Since diagonal subgrids lie along the line y=x, this formula 
             gives the x and y coordinate of the top-left cell of each diagonal subgrid from top-left to bottom-right*/
@@ -107,15 +119,13 @@ public class SudokuGenerator {
             for(int offsY = 0; offsY < SudokuBoard.SUBGRID_SIZE; offsY++) {
                 for(int offsX = 0; offsX < SudokuBoard.SUBGRID_SIZE; offsX++) {
                     //Get the current position of the cell in the space of the entire board
-                    curPosition.setY(subgridCoordinate + offsY);
-                    curPosition.setX(subgridCoordinate + offsX);
+                    SudokuCoordinate curPosition = SudokuCoordinate.of(subgridCoordinate + offsX, subgridCoordinate + offsY);
                 
                     /*Fill the subgrid cells with subsequent unique values from the shuffled arraylist.
-                    We can set the value directly using setCellValue without checking for clashes first because
+                    We can set the value directly using setGeneratedCell without checking for clashes first because
                     we already know diagonal subgrids do not intersect with each other, and all the values
                     going into this subgrid are unique.*/
-                    SudokuCell cell = board.getCell(curPosition);
-                    cell.setCellValue(subgridRandomizer.get(randIndex));
+                    board.setGeneratedCell(curPosition.getIndex(), subgridRandomizer.get(randIndex));
                     
                     //Move to the next value from the arraylist
                     randIndex++;
@@ -137,27 +147,21 @@ public class SudokuGenerator {
      * @param n The number of removal attempts to make
      */
     private void removeCells(SudokuBoard board, int n) {
-        SudokuCoordinate curPosition = new SudokuCoordinate(0,0);
         Random rand = new Random();
         int totalAttempts = 0;
 
         //Iterate n times to remove n cells
         for(int i = 0; i < n; i++) {
-            int randX = rand.nextInt(SudokuBoard.GRID_SIZE);
-            int randY = rand.nextInt(SudokuBoard.GRID_SIZE);
-            
-            curPosition.setX(randX);
-            curPosition.setY(randY);
+            int randIndex = rand.nextInt(SudokuBoard.TOTAL_CELLS);
             
             //Store the value at this cell so it can be replaced if necessary
-            int cellValue = board.getCellValue(curPosition);
+            int cellValue = board.getCellValue(randIndex);
             
             //Remove this cell and check if there are now multiple solutions
-            board.setCell(curPosition, 0);
+            board.setCell(randIndex, 0);
             if(!solver.hasUniqueSolution(board)) {
                 //Restore the cell and try again. Set directly so that we do not have to check if the placement is valid
-                SudokuCell cellAt = board.getCell(curPosition);
-                cellAt.setCellValue(cellValue);
+                board.setGeneratedCell(randIndex, cellValue);
                 //Decrement i so that one more attempt is made to compensate
                 i--;
                 //Increment the total number of failed attempts. If we failed too many times, exit the function
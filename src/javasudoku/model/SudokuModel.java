@@ -16,11 +16,22 @@ public class SudokuModel extends Observable {
 
     private SudokuBoard board;
     private final SudokuGenerator generator;
+    private PuzzleSource puzzleSource;
     private String playerName;
     
     //TODO: Instantiate all the necessary objects & provide all the functionality for the necessary objects
     public SudokuModel() {
         this.generator = new SudokuGenerator();
+        this.puzzleSource = generator;
+    }
+    
+    /**
+     * Sets where new puzzles are taken from. If the source runs out of puzzles,
+     * new puzzles are generated instead.
+     * @param puzzleSource The source of new puzzles, or null to always generate new puzzles
+     */
+    public void setPuzzleSource(PuzzleSource puzzleSource) {
+        this.puzzleSource = puzzleSource != null ? puzzleSource : generator;
     }
     
     /**
@@ -54,11 +65,15 @@ public class SudokuModel extends Observable {
     }
     
     /**
-     * Initializes the current board as a partially solved puzzle.
+     * Initializes the current board as a partially solved puzzle, taken from the puzzle source.
      * @param difficulty The desired difficulty of the puzzle
      */
     public void startPuzzle(int difficulty) {
-        this.board = generator.generatePuzzle(difficulty);
+        SudokuBoard puzzle = puzzleSource.nextPuzzle(difficulty);
+        if(puzzle == null)
+            puzzle = generator.generatePuzzle(difficulty);
+        
+        this.board = puzzle;
         
         //Update observers, notify them about the new board state
         setChanged();
@@ -75,10 +90,17 @@ public class SudokuModel extends Observable {
         
     /**
      * Solves the current board. If no board has been initialized,
-     * this function will not do anything.
+     * this function will not do anything. If the board has givens, any player entries
+     * are removed before solving, as they may prevent the puzzle from being solved.
+     * Otherwise, only conflicting cells are removed.
      */
     public void solveBoard() {
         if (this.getBoard() != null) {
+            if(getBoard().hasGivens())
+                getBoard().resetToPuzzle();
+            else
+                getBoard().clearConflictingCells();
+            
             generator.getSolver().solveBoard(getBoard());
             
             //Update observers, notify them about the new board state
@@ -87,6 +109,36 @@ public class SudokuModel extends Observable {
         }
     }
     
+    /**
+     * Fills every cell of the current board that is not a given with its value from a known solution,
+     * instead of solving the board. If no board has been initialized, this function will not do anything.
+     * @param solution The solved board
+     */
+    public void showSolution(SudokuBoard solution) {
+        if (this.getBoard() != null) {
+            for(int index = 0; index < SudokuBoard.TOTAL_CELLS; index++)
+                getBoard().setCellUnchecked(index, solution.getCellValue(index));
+            
+            //Update observers, notify them about the new board state
+            setChanged();
+            notifyObservers(this.getBoard());
+        }
+    }
+    
+    /**
+     * Removes all player entries from the current board, leaving only the givens
+     * of the puzzle. If no board has been initialized, this function will not do anything.
+     */
+    public void resetToPuzzle() {
+        if (this.getBoard() != null) {
+            getBoard().resetToPuzzle();
+            
+            //Update observers, notify them about the new board state
+            setChanged();
+            notifyObservers(this.getBoard());
+        }
+    }
+    
     /**
      * Try to put a value at a given Sudoku cell
      * @param coordinate The coordinate of the cell to modify
@@ -133,12 +185,18 @@ public class SudokuModel extends Observable {
     
     /**
      * Returns the current state of this class as a SudokuGame object,
-     * which contains the completion amount, player, date, and board object
+     * which contains the completion amount, player, date, and board object.
+     * 
+     * The exported board is a copy of the current board with any conflicting
+     * cells removed, so later moves do not affect the exported game.
      * @return A fully initialized SudokuGame object encapsulating the current
      * state of this class
      */
     public SudokuGame exportGame() {
-        SudokuGame exportedGame = new SudokuGame(getPlayerName(), getBoard());
+        SudokuBoard exportedBoard = getBoard().fork();
+        exportedBoard.clearConflictingCells();
+        
+        SudokuGame exportedGame = new SudokuGame(getPlayerName(), exportedBoard);
         exportedGame.saveLastPlayedDate(); //Set the date
         
         return exportedGame;
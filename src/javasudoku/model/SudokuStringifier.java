@@ -1,9 +1,18 @@
 package javasudoku.model;
 
+import java.nio.ByteBuffer;
+import java.util.function.IntUnaryOperator;
+
 /**
  * A class containing methods to convert Sudoku boards to and from
  * one-line strings that can easily be written to text files or databases
  * 
+ * Boards can also be converted to and from the puzzle line format used by most
+ * published puzzle collections, in which each of the 81 cells is written as a single
+ * character in row order. Digits are used for assigned cells, and either '.' or '0' for
+ * unassigned cells. Lines can be read from and written to CharSequences, char arrays, and
+ * ByteBuffers without creating any intermediate strings.
+ * 
  * @author Ishaiah Cross
  */
 public class SudokuStringifier {
@@ -11,6 +20,10 @@ public class SudokuStringifier {
     public static final String CELL_SEPARATOR = ",";
     public static final String ROW_SEPARATOR = "/";
     
+    //The number of characters in a puzzle line, and the character written for unassigned cells
+    public static final int LINE_LENGTH = SudokuBoard.TOTAL_CELLS;
+    public static final char EMPTY_CELL_CHAR = '.';
+    
     /**
      * Converts a SudokuBoard into a one-line string that can be written to a file.
      * The string is formatted as follows:
@@ -61,7 +74,6 @@ public class SudokuStringifier {
             
             //Create a SudokuBoard that we will initialize using the retrieved data
             SudokuBoard board = new SudokuBoard();
-            SudokuCoordinate curCoordinate = new SudokuCoordinate(0, 0);
             
             //Split the board into rows
             String[] rows = boardStr.split(ROW_SEPARATOR);
@@ -73,12 +85,9 @@ public class SudokuStringifier {
                 
                 //Iterate over every number in this row, and use it to initialize the board
                 for(int colIndex = 0; colIndex < curRow.length; colIndex++) {
-                    curCoordinate.setX(colIndex);
-                    curCoordinate.setY(rowIndex);
-                    
                     //Convert the current  cell value into a number, and set it on the board
                     int curValue = Integer.parseInt(curRow[colIndex]);
-                    board.setCell(curCoordinate, curValue);
+                    board.setCell(SudokuCoordinate.of(colIndex, rowIndex), curValue);
                 }
             }
             
@@ -92,4 +101,143 @@ public class SudokuStringifier {
         
         return null;
     }
+    
+    /**
+     * Converts a character of a puzzle line into a cell value
+     * @param c The character to convert
+     * @return The cell value, 0 for an unassigned cell, or -1 if the character is not valid
+     */
+    private static int charToValue(int c) {
+        if(c == EMPTY_CELL_CHAR)
+            return 0;
+        
+        int value = c - '0';
+        return value >= 0 && value <= SudokuBoard.CELL_MAX ? value : -1;
+    }
+    
+    /**
+     * Creates and initializes a SudokuBoard from a puzzle line
+     * @param line The puzzle line, which must contain exactly LINE_LENGTH characters
+     * @return The initialized SudokuBoard, or null if the line was formatted incorrectly
+     */
+    public static SudokuBoard parseLine(CharSequence line) {
+        SudokuBoard board = new SudokuBoard();
+        if(line.length() != LINE_LENGTH || !parseLine(line, 0, board))
+            return null;
+        
+        return board;
+    }
+    
+    /**
+     * Loads the values of a puzzle line into a board, replacing all of its cell values.
+     * The values are loaded without checking each placement, but any conflicts between
+     * them are still recorded by the board.
+     * @param charAt Gives the character at each position of the puzzle line, from 0 to LINE_LENGTH - 1
+     * @param target The board to load the values into
+     * @return True if the line was read, false if it contained an invalid character
+     */
+    private static boolean loadLine(IntUnaryOperator charAt, SudokuBoard target) {
+        target.beginLoad();
+        for(int index = 0; index < LINE_LENGTH; index++) {
+            int value = charToValue(charAt.applyAsInt(index));
+            if(value == -1) {
+                target.finishLoad();
+                return false;
+            }
+            
+            target.loadValue(index, value);
+        }
+        target.finishLoad();
+        
+        return true;
+    }
+    
+    /**
+     * Reads a puzzle line into an existing SudokuBoard, replacing all of its cell values.
+     * The values are loaded without checking each placement, but any conflicts between
+     * them are still recorded by the board.
+     * @param line The characters containing the puzzle line
+     * @param offset The position of the first character of the puzzle line
+     * @param target The board to load the values into
+     * @return True if the line was read, false if it was too short or contained an invalid
+     * character. If false is returned, the contents of the target board are undefined.
+     */
+    public static boolean parseLine(CharSequence line, int offset, SudokuBoard target) {
+        if(offset < 0 || line.length() - offset < LINE_LENGTH)
+            return false;
+        
+        return loadLine((int index) -> line.charAt(offset + index), target);
+    }
+    
+    /**
+     * Reads a puzzle line into an existing SudokuBoard, replacing all of its cell values.
+     * @param line The characters containing the puzzle line
+     * @param offset The position of the first character of the puzzle line
+     * @param target The board to load the values into
+     * @return True if the line was read, false if it was too short or contained an invalid
+     * character. If false is returned, the contents of the target board are undefined.
+     * @see #parseLine(CharSequence, int, SudokuBoard)
+     */
+    public static boolean parseLine(char[] line, int offset, SudokuBoard target) {
+        if(offset < 0 || line.length - offset < LINE_LENGTH)
+            return false;
+        
+        return loadLine((int index) -> line[offset + index], target);
+    }
+    
+    /**
+     * Reads a puzzle line of single byte characters into an existing SudokuBoard, replacing
+     * all of its cell values. The position of the buffer is not changed.
+     * @param line The buffer containing the puzzle line
+     * @param offset The absolute position in the buffer of the first character of the puzzle line
+     * @param target The board to load the values into
+     * @return True if the line was read, false if it was too short or contained an invalid
+     * character. If false is returned, the contents of the target board are undefined.
+     * @see #parseLine(CharSequence, int, SudokuBoard)
+     */
+    public static boolean parseLine(ByteBuffer line, int offset, SudokuBoard target) {
+        if(offset < 0 || line.limit() - offset < LINE_LENGTH)
+            return false;
+        
+        return loadLine((int index) -> line.get(offset + index), target);
+    }
+    
+    /**
+     * Converts a SudokuBoard into a puzzle line, using EMPTY_CELL_CHAR for unassigned cells
+     * @param board The board to convert
+     * @return The puzzle line
+     */
+    public static String formatLine(SudokuBoard board) {
+        char[] line = new char[LINE_LENGTH];
+        formatLine(board, line, 0);
+        
+        return new String(line);
+    }
+    
+    /**
+     * Writes the puzzle line of a SudokuBoard into a char array
+     * @param board The board to convert
+     * @param target The array to write to, which must have room for LINE_LENGTH characters after the offset
+     * @param offset The position to write the first character of the puzzle line to
+     */
+    public static void formatLine(SudokuBoard board, char[] target, int offset) {
+        for(int index = 0; index < LINE_LENGTH; index++) {
+            int value = board.getCellValue(index);
+            target[offset + index] = value == 0 ? EMPTY_CELL_CHAR : (char)('0' + value);
+        }
+    }
+    
+    /**
+     * Writes the puzzle line of a SudokuBoard into a buffer as single byte characters,
+     * starting at the current position of the buffer. The position is advanced past the
+     * written characters.
+     * @param board The board to convert
+     * @param target The buffer to write to
+     */
+    public static void formatLine(SudokuBoard board, ByteBuffer target) {
+        for(int index = 0; index < LINE_LENGTH; index++) {
+            int value = board.getCellValue(index);
+            target.put(value == 0 ? (byte)EMPTY_CELL_CHAR : (byte)('0' + value));
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package javasudoku.solver;
+
+import java.util.Arrays;
+import javasudoku.model.LruCache;
+
+/**
+ * A bounded cache used by SudokuSolver to remember whether previously checked board
+ * states have a unique solution. States are found by the Zobrist hash of the board, and
+ * the values of the board encoded by SudokuBoardCodec are kept with each result, so that
+ * a different board state with the same hash is never given the result of another.
+ * 
+ * When the cache is full, the least recently used state is discarded.
+ * 
+ * This class is not accessible outside of the javasudoku.solver package.
+ * @author Ishaiah Cross
+ */
+class SolutionCache {
+    private final LruCache<Long, CachedResult> results;
+    
+    /**
+     * The result of checking a board state, along with the values of the board that was checked
+     */
+    private static class CachedResult {
+        final byte[] values;
+        final boolean isUnique;
+        
+        CachedResult(byte[] values, boolean isUnique) {
+            this.values = values;
+            this.isUnique = isUnique;
+        }
+    }
+    
+    /**
+     * @param capacity The maximum number of board states to remember
+     */
+    public SolutionCache(int capacity) {
+        this.results = new LruCache<>(capacity);
+    }
+    
+    /**
+     * @param boardHash The Zobrist hash of the board state
+     * @param values The values of the board state, encoded by SudokuBoardCodec without givens
+     * @return True if the state has a unique solution, false if it does not, or null if it is not cached
+     */
+    public Boolean get(long boardHash, byte[] values) {
+        CachedResult result = results.get(boardHash);
+        if(result == null || !Arrays.equals(result.values, values))
+            return null;
+        
+        return result.isUnique;
+    }
+    
+    /**
+     * @param boardHash The Zobrist hash of the board state
+     * @param values The values of the board state, encoded by SudokuBoardCodec without givens
+     * @param isUnique True if the state has a unique solution, false otherwise
+     */
+    public void put(long boardHash, byte[] values, boolean isUnique) {
+        results.put(boardHash, new CachedResult(values, isUnique));
+    }
+}
@@ -2,8 +2,7 @@ package javasudoku.solver;
 import java.util.ArrayList;
 import java.util.Collections;
 import javasudoku.model.SudokuBoard;
-import javasudoku.model.SudokuCell;
-import javasudoku.model.SudokuCoordinate;
+import javasudoku.model.SudokuBoardCodec;
 
 /**
  * Implements a backtracking algorithm to solve Sudoku puzzles. By default,
@@ -13,16 +12,23 @@ import javasudoku.model.SudokuCoordinate;
  * Random solutions can be generated by calling the randomizeSearchOrder
  * function before calling the solve function. 
  * 
+ * The results of hasUniqueSolution are remembered by board hash, along with the values
+ * of the board, so checking a board state that has already been checked does not run the search again.
+ * 
  * @author Ishaiah Cross
  */
 public class SudokuSolver {
+    //The number of board states whose uniqueness is remembered
+    private static final int SOLUTION_CACHE_SIZE = 1024;
     
     private final ArrayList<Integer> searchOrder;
+    private final SolutionCache uniqueSolutionCache;
     private boolean solved = false;
     
     public SudokuSolver() {
         this.solved = false;
         this.searchOrder = new ArrayList<>();
+        this.uniqueSolutionCache = new SolutionCache(SOLUTION_CACHE_SIZE);
  
         for(int i = 0; i < SudokuBoard.CELL_MAX; i++) {
             this.searchOrder.add(i);
@@ -50,14 +56,24 @@ public class SudokuSolver {
      * Uses a recursive backtracking algorithm to check if a Sudoku board 
      * has a unique solution.
      * 
+     * If the same board state has been checked before, the remembered result is returned.
+     * 
      * @param board The board to check for a unique solution
      * @return True if the board has a unique solution, otherwise false
      */
     public boolean hasUniqueSolution(SudokuBoard board) {
+        long boardHash = board.getZobristHash();
+        byte[] values = SudokuBoardCodec.encode(board, false);
+        Boolean cachedResult = uniqueSolutionCache.get(boardHash, values);
+        if(cachedResult != null)
+            return cachedResult;
+        
         SolutionCounter count = new SolutionCounter();
         hasUniqueSolutionRecursive(board, count);
         
-        return count.getNumSolutions() < 2;
+        boolean isUnique = count.getNumSolutions() < 2;
+        uniqueSolutionCache.put(boardHash, values, isUnique);
+        return isUnique;
     }
     
     /**
@@ -73,22 +89,21 @@ public class SudokuSolver {
      */
     private void hasUniqueSolutionRecursive(SudokuBoard board, SolutionCounter count) {
         //Find the first empty cell that can be tested for multiple solutions
-        SudokuCell cellCandidate = board.getEmptyCell();
+        int cellIndex = board.getEmptyCellIndex();
         //If there were no empty cells, we reached a solution, so increment the counter
-        if(cellCandidate == null) {
+        if(cellIndex == -1) {
             count.addSolution();
             return;
         }
         
-        SudokuCoordinate cellPosition = cellCandidate.getPosition();
-        //curPosition now contains the first empty cell, check that it only has one possibilty
+        //cellIndex now contains the first empty cell, check that it only has one possibilty
         for(int n: searchOrder) {
             //Attempt to put each number in this cell
-            if(board.setCell(cellPosition, n + 1)) {
+            if(board.setCell(cellIndex, n + 1)) {
                 //If we succeeded, count the number of solutions again using this configuration
                 hasUniqueSolutionRecursive(board, count);
                 //Unassign the cell so that we can backtrack other possible solutions
-                board.setCell(cellPosition, 0);
+                board.setCell(cellIndex, 0);
             }
             
             //Stop testing possibilities if more than one solution was found.
@@ -119,38 +134,30 @@ public class SudokuSolver {
      * @param status A SolvedStatus instance for the algorithm to keep track of whether or not a solution has been reached.
      */
     private void solveBoardRecursive(SudokuBoard board, SolvedStatus status) {
-        SudokuCoordinate curPosition = new SudokuCoordinate(0,0);
-
         //Iterate over every cell in the board     
-        for(int y = 0; y < SudokuBoard.GRID_SIZE; y++) {
-            for(int x = 0; x < SudokuBoard.GRID_SIZE; x++) {
-                //Update our current position
-                curPosition.setX(x);
-                curPosition.setY(y);
-                
-                //If the cell was empty (i.e. value of 0) attempt to put all possible values there
-                int cellValue = board.getCellValue(curPosition);
-                if(cellValue == 0) {
-                    //Try to put each value from 1-9 in this cell, and go with the first successful one. Backtrack later if it lead to a dead end.
-                    for(int n: searchOrder) {
-                        if(board.setCell(curPosition, n + 1)) {
-                            //Run the algorithm again on the updated board to solve for the next cell
-                            solveBoardRecursive(board, status);
-                            
-                            //If this call solved the board, we no longer need to keep checking so we return
-                            if(status.hasSolved)
-                                return;
-                            
-                            //When this point is reached and the board is not solved, something further up the stack determined we could not solve using this path, so we need to reset
-                            //the cell and backtrack
-                            board.setCell(curPosition, 0);
-                        }   
-                    }
-                    
-                    //If we have tried all numbers 1-9 without success, we need to return i.e. go back up the stack and try again
-                    return;
+        for(int curIndex = 0; curIndex < SudokuBoard.TOTAL_CELLS; curIndex++) {
+            //If the cell was empty (i.e. value of 0) attempt to put all possible values there
+            int cellValue = board.getCellValue(curIndex);
+            if(cellValue == 0) {
+                //Try to put each value from 1-9 in this cell, and go with the first successful one. Backtrack later if it lead to a dead end.
+                for(int n: searchOrder) {
+                    if(board.setCell(curIndex, n + 1)) {
+                        //Run the algorithm again on the updated board to solve for the next cell
+                        solveBoardRecursive(board, status);
+                        
+                        //If this call solved the board, we no longer need to keep checking so we return
+                        if(status.hasSolved)
+                            return;
+                        
+                        //When this point is reached and the board is not solved, something further up the stack determined we could not solve using this path, so we need to reset
+                        //the cell and backtrack
+                        board.setCell(curIndex, 0);
+                    }   
                 }
-            } 
+                
+                //If we have tried all numbers 1-9 without success, we need to return i.e. go back up the stack and try again
+                return;
+            }
         }
         
         //If we have reached this line, the entire grid has been filled, and a solution is found
@@ -126,7 +126,7 @@ public class BoardPanel extends javax.swing.JPanel {
             int subgridX = (i % 3);
             int subgridY = (i / 3);
    
-            SudokuCoordinate assignedCoordinate = new SudokuCoordinate(subgridX, subgridY);
+            SudokuCoordinate assignedCoordinate = SudokuCoordinate.of(subgridX, subgridY);
             SubgridPanel targetSubgrid = getSubgrids().get(i);
             
             //Update the subgrid coordinate
@@ -162,6 +162,46 @@ public class BoardPanel extends javax.swing.JPanel {
         }
     }
 
+    /**
+     * Sets whether the CellPanel object at the given coordinate is displayed as valid,
+     * where [0, 0] is the top-left cell and [8, 8] is the bottom-right cell
+     * @param x The x-coordinate of the cell
+     * @param y The y-coordinate of the cell
+     * @param valid True to display the cell as valid, false to display it as invalid
+     */
+    public void setCellValid(int x, int y, boolean valid) {
+        int subgridIndex = 0;
+        
+        try {
+            subgridIndex = (y / 3) * 3 + (x / 3);
+            SubgridPanel targetSubgrid = getSubgrids().get(subgridIndex); //Get the subgrid containing the coordinate
+            targetSubgrid.setCellValid(x % 3, y % 3, valid);
+        } catch(IndexOutOfBoundsException e) {
+            System.out.println("Out of bounds board coordinate: " + subgridIndex);
+            System.out.println("x: " + x + ", y: " + y);
+        }
+    }
+
+    /**
+     * Sets whether the text field of the CellPanel object at the given coordinate can be edited,
+     * where [0, 0] is the top-left cell and [8, 8] is the bottom-right cell
+     * @param x The x-coordinate of the cell
+     * @param y The y-coordinate of the cell
+     * @param active Whether or not the text field can be edited (true for editable, false for not)
+     */
+    public void setCellActive(int x, int y, boolean active) {
+        int subgridIndex = 0;
+        
+        try {
+            subgridIndex = (y / 3) * 3 + (x / 3);
+            SubgridPanel targetSubgrid = getSubgrids().get(subgridIndex); //Get the subgrid containing the coordinate
+            targetSubgrid.setCellActive(x % 3, y % 3, active);
+        } catch(IndexOutOfBoundsException e) {
+            System.out.println("Out of bounds board coordinate: " + subgridIndex);
+            System.out.println("x: " + x + ", y: " + y);
+        }
+    }
+
     /**
      * @return the subgrids
      */
@@ -141,7 +141,7 @@ public class SubgridPanel extends javax.swing.JPanel {
             int cellX = 3 * coordinate.getX() + (i % 3);
             int cellY = 3 * coordinate.getY() + (i / 3);
     
-            SudokuCoordinate assignedCoordinate = new SudokuCoordinate(cellX, cellY);
+            SudokuCoordinate assignedCoordinate = SudokuCoordinate.of(cellX, cellY);
             CellPanel targetPanel = getCells().get(i);
             
             //Set the cell's coordinate
@@ -169,6 +169,42 @@ public class SubgridPanel extends javax.swing.JPanel {
         }
     }
 
+    /**
+     * Sets whether the CellPanel object at the given coordinate within the subgrid is
+     * displayed as valid, where [0, 0] is the top-left cell and [2, 2] is the bottom-right cell
+     * @param x The x-coordinate of the cell
+     * @param y The y-coordinate of the cell
+     * @param valid True to display the cell as valid, false to display it as invalid
+     */
+    public void setCellValid(int x, int y, boolean valid) {
+        int cellIndex = y * 3 + x;
+        try {
+            CellPanel cell = getCells().get(cellIndex);
+            cell.setValid(valid);
+        } catch(IndexOutOfBoundsException e) {
+            System.out.println("Out of bounds subgrid coordinate: " + cellIndex);
+            System.out.println("x: " + x + ", y: " + y);
+        }
+    }
+
+    /**
+     * Sets whether the text field of the CellPanel object at the given coordinate within the
+     * subgrid can be edited, where [0, 0] is the top-left cell and [2, 2] is the bottom-right cell
+     * @param x The x-coordinate of the cell
+     * @param y The y-coordinate of the cell
+     * @param active Whether or not the text field can be edited (true for editable, false for not)
+     */
+    public void setCellActive(int x, int y, boolean active) {
+        int cellIndex = y * 3 + x;
+        try {
+            CellPanel cell = getCells().get(cellIndex);
+            cell.setActive(active);
+        } catch(IndexOutOfBoundsException e) {
+            System.out.println("Out of bounds subgrid coordinate: " + cellIndex);
+            System.out.println("x: " + x + ", y: " + y);
+        }
+    }
+
     /**
      * @return the cells
      */
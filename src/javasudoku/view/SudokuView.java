@@ -1,5 +1,6 @@
 package javasudoku.view;
 
+import java.awt.Cursor;
 import java.util.Observable;
 import java.util.Observer;
 import javax.swing.JButton;
@@ -183,6 +184,19 @@ public class SudokuView extends javax.swing.JFrame implements Observer {
         sudokuBoardPanel.setActive(activated);
     }
     
+    /**
+     * Shows whether or not the program is waiting for the database. While waiting, the buttons
+     * that start, load, or save games are disabled.
+     * @param loading True while waiting, false once finished
+     */
+    public void setLoading(boolean loading) {
+        for(JButton button: new JButton[] {newGameButton, loadGameButton, showSolButton, changeUserButton, newUserButton, quitButton})
+            button.setEnabled(!loading);
+        
+        errorLabel.setText(loading ? "Loading..." : "");
+        setCursor(loading ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+    }
+    
     /**
      * Resets all of the cells' text colours to black to indicate a valid board state
      * when a new game is started
@@ -191,6 +205,35 @@ public class SudokuView extends javax.swing.JFrame implements Observer {
         sudokuBoardPanel.setValid();
     }
     
+    /**
+     * Enables editing of the board, except for the cells that are givens of the puzzle
+     * @param board The board to read givens from
+     */
+    public void activateBoard(SudokuBoard board) {
+        activateBoard(true);
+        
+        for(int y = 0; y < SudokuBoard.GRID_SIZE; y++) {
+            for(int x = 0; x < SudokuBoard.GRID_SIZE; x++) {
+                if(board.isGiven(y * SudokuBoard.GRID_SIZE + x))
+                    sudokuBoardPanel.setCellActive(x, y, false);
+            }
+        }
+    }
+    
+    /**
+     * Displays every cell that conflicts with another cell on the given board as invalid,
+     * and every other cell as valid
+     * @param board The board to read conflicts from
+     */
+    public void showConflicts(SudokuBoard board) {
+        for(int y = 0; y < SudokuBoard.GRID_SIZE; y++) {
+            for(int x = 0; x < SudokuBoard.GRID_SIZE; x++) {
+                boolean conflicting = board.isConflicting(y * SudokuBoard.GRID_SIZE + x);
+                sudokuBoardPanel.setCellValid(x, y, !conflicting);
+            }
+        }
+    }
+    
     @Override
     public void update(Observable o, Object arg) {
         //Receive a SudokuBoard object
@@ -212,6 +255,9 @@ public class SudokuView extends javax.swing.JFrame implements Observer {
                 }
                 y++;
             }
+            
+            //Highlight any conflicting cells held by the board
+            showConflicts(boardObj);
         }
         //Receive a player name string
         else if(arg instanceof String) {
@@ -0,0 +1,148 @@
+package javasudoku.bulk;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import org.junit.Test;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuGenerator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.After;
+
+/**
+ * Contains unit tests to validate building and claiming puzzles from a MappedPuzzleStore:
+ *
+ * -A store built from a puzzle file should hold every puzzle of the file, in buckets that add up to the total
+ * -Each puzzle of a bucket should have the rating of the bucket, and have its filled cells marked as givens
+ * -Claiming puzzles until the store is empty should return every puzzle of the file exactly once
+ * -Claims should be saved in the store, so a store that is opened again has no puzzles left to claim
+ *
+ * Each unit test will provide a setup and teardown procedure involving
+ * writing a small puzzle file to a temporary folder, which is deleted after the test.
+ *
+ * @author Ishaiah Cross
+ */
+public class MappedPuzzleStoreTest {
+    private static final int NUM_PUZZLES = 40;
+    
+    //These will be instantiated before each test, and removed after each test
+    private Path folder;
+    private Path storeFile;
+    private ArrayList<SudokuBoard> puzzles;
+    private MappedPuzzleStore store;
+    
+    /**
+     * Write a file of generated puzzles of several difficulties, and build a store from it
+     * @throws IOException If the temporary folder could not be created
+     */
+    @Before
+    public void setupStore() throws IOException {
+        this.folder = Files.createTempDirectory("sudokustore");
+        this.storeFile = folder.resolve("puzzles.store");
+        Path puzzleFile = folder.resolve("puzzles.txt");
+        
+        SudokuGenerator generator = new SudokuGenerator();
+        this.puzzles = new ArrayList<>();
+        for(int i = 0; i < NUM_PUZZLES; i++)
+            puzzles.add(generator.generatePuzzle(10 + i % 50));
+        
+        //Small batches on two threads, so that batches are written to the store from both threads
+        PuzzleFileProcessor processor = new PuzzleFileProcessor(2, 4);
+        Assert.assertTrue(processor.exportBoards(puzzleFile, puzzles));
+        Assert.assertTrue(MappedPuzzleStore.build(puzzleFile, storeFile, processor));
+        
+        this.store = MappedPuzzleStore.open(storeFile);
+        Assert.assertNotNull(store);
+    }
+    
+    /**
+     * Close the store and delete the temporary folder after each test
+     * @throws IOException If the folder could not be deleted
+     */
+    @After
+    public void destroyStore() throws IOException {
+        if(this.store != null)
+            this.store.close();
+        
+        Files.deleteIfExists(folder.resolve("puzzles.txt"));
+        Files.deleteIfExists(storeFile);
+        Files.delete(folder);
+        
+        this.store = null;
+        this.puzzles = null;
+        this.storeFile = null;
+        this.folder = null;
+    }
+    
+    /**
+     * @param boards The boards to hash
+     * @return The hash of the values of each board
+     */
+    private static HashSet<Long> hashAll(ArrayList<SudokuBoard> boards) {
+        HashSet<Long> hashes = new HashSet<>();
+        for(SudokuBoard board: boards)
+            hashes.add(board.getZobristHash());
+        
+        return hashes;
+    }
+    
+    /**
+     * The store should hold every puzzle, and each bucket should only hold puzzles of its rating
+     */
+    @Test
+    public void puzzleStore_build_HoldsEveryPuzzleInItsBucket() {
+        Assert.assertEquals(NUM_PUZZLES, store.getPuzzleCount());
+        
+        int total = 0;
+        for(int rating = 0; rating <= SudokuBoard.TOTAL_CELLS; rating++) {
+            total += store.getBucketCount(rating);
+            
+            for(int index = 0; index < store.getBucketCount(rating); index++) {
+                SudokuBoard puzzle = store.getPuzzle(rating, index);
+                Assert.assertNotNull(puzzle);
+                Assert.assertEquals(rating, RatingBatchHandler.rate(puzzle));
+                Assert.assertTrue(puzzle.hasGivens());
+            }
+        }
+        
+        Assert.assertEquals(NUM_PUZZLES, total);
+    }
+    
+    /**
+     * Claiming until the store is empty should return each puzzle of the file once, and no other puzzles
+     */
+    @Test
+    public void puzzleStore_nextPuzzle_ClaimsEveryPuzzleOnce() {
+        ArrayList<SudokuBoard> claimed = new ArrayList<>();
+        SudokuBoard puzzle;
+        while((puzzle = store.nextPuzzle(40)) != null)
+            claimed.add(puzzle);
+        
+        Assert.assertEquals(NUM_PUZZLES, claimed.size());
+        Assert.assertEquals(hashAll(puzzles), hashAll(claimed));
+        for(int rating = 0; rating <= SudokuBoard.TOTAL_CELLS; rating++)
+            Assert.assertEquals(0, store.getUnclaimedCount(rating));
+    }
+    
+    /**
+     * Claims should be kept when the store is closed, so that puzzles are not claimed again after it is opened
+     */
+    @Test
+    public void puzzleStore_open_KeepsClaims() {
+        int claimedBeforeClose = NUM_PUZZLES / 2;
+        for(int i = 0; i < claimedBeforeClose; i++)
+            Assert.assertNotNull(store.nextPuzzle(30));
+        
+        store.close();
+        this.store = MappedPuzzleStore.open(storeFile);
+        Assert.assertNotNull(store);
+        
+        int claimedAfterOpen = 0;
+        while(store.nextPuzzle(30) != null)
+            claimedAfterOpen++;
+        
+        Assert.assertEquals(NUM_PUZZLES - claimedBeforeClose, claimedAfterOpen);
+    }
+}
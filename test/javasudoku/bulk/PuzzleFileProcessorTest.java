@@ -0,0 +1,196 @@
+package javasudoku.bulk;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuGenerator;
+import javasudoku.model.SudokuStringifier;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.After;
+
+/**
+ * Contains unit tests to validate reading and writing puzzle files with a PuzzleFileProcessor:
+ *
+ * -A file divided into many small chunks should have each of its puzzles read exactly once
+ * -Lines ending in CRLF should be read, and their line breaks kept when the puzzles are written back
+ * -Lines that do not hold a valid puzzle should be counted, while blank lines and comments are not
+ *
+ * Each unit test will provide a setup and teardown procedure involving
+ * generating puzzles and creating a temporary folder, which is deleted after the test.
+ *
+ * @author Ishaiah Cross
+ */
+public class PuzzleFileProcessorTest {
+    private static final int NUM_PUZZLES = 50;
+    
+    //These will be instantiated before each test, and removed after each test
+    private Path folder;
+    private Path puzzleFile;
+    private Path outputFile;
+    private ArrayList<SudokuBoard> puzzles;
+    
+    /**
+     * Generate puzzles of several difficulties, and create a temporary folder for the files
+     * @throws IOException If the folder could not be created
+     */
+    @Before
+    public void setupPuzzles() throws IOException {
+        this.folder = Files.createTempDirectory("sudokubulk");
+        this.puzzleFile = folder.resolve("puzzles.txt");
+        this.outputFile = folder.resolve("solved.txt");
+        
+        SudokuGenerator generator = new SudokuGenerator();
+        this.puzzles = new ArrayList<>();
+        for(int i = 0; i < NUM_PUZZLES; i++)
+            puzzles.add(generator.generatePuzzle(10 + i % 50));
+    }
+    
+    /**
+     * Delete the files and the temporary folder after each test
+     * @throws IOException If the folder could not be deleted
+     */
+    @After
+    public void destroyPuzzles() throws IOException {
+        Files.deleteIfExists(puzzleFile);
+        Files.deleteIfExists(outputFile);
+        Files.delete(folder);
+        
+        this.puzzles = null;
+        this.outputFile = null;
+        this.puzzleFile = null;
+        this.folder = null;
+    }
+    
+    /**
+     * A handler that keeps the puzzle line of every board it is given
+     */
+    private static class CollectingBatchHandler implements PuzzleBatchHandler {
+        private final List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        
+        @Override
+        public void handleBatch(SudokuBoard[] boards, int count) {
+            for(int i = 0; i < count; i++)
+                lines.add(SudokuStringifier.formatLine(boards[i]));
+        }
+        
+        /**
+         * @return The puzzle lines of every board handled so far, in sorted order
+         */
+        ArrayList<String> getSortedLines() {
+            ArrayList<String> sorted = new ArrayList<>(lines);
+            Collections.sort(sorted);
+            return sorted;
+        }
+    }
+    
+    /**
+     * @return The puzzle line of every generated puzzle, in sorted order
+     */
+    private ArrayList<String> getSortedPuzzleLines() {
+        ArrayList<String> sorted = new ArrayList<>();
+        for(SudokuBoard puzzle: puzzles)
+            sorted.add(SudokuStringifier.formatLine(puzzle));
+        
+        Collections.sort(sorted);
+        return sorted;
+    }
+    
+    /**
+     * Writes the generated puzzles to the puzzle file with a given line break
+     * @param lineBreak The characters written after each line
+     * @param extraLines Lines written before the puzzles
+     * @throws IOException If the file could not be written
+     */
+    private void writePuzzleFile(String lineBreak, String... extraLines) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for(String line: extraLines)
+            text.append(line).append(lineBreak);
+        
+        for(SudokuBoard puzzle: puzzles)
+            text.append(SudokuStringifier.formatLine(puzzle)).append(lineBreak);
+        
+        Files.write(puzzleFile, text.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * Many threads reading a file cut into chunks a few lines long should read every puzzle exactly once,
+     * even though the chunk size does not line up with the length of a line
+     */
+    @Test
+    public void puzzleFileProcessor_importPuzzles_ReadsEveryLineOnce() {
+        PuzzleFileProcessor processor = new PuzzleFileProcessor(8, 3);
+        Assert.assertTrue(processor.exportBoards(puzzleFile, puzzles));
+        
+        CollectingBatchHandler handler = new CollectingBatchHandler();
+        Assert.assertEquals(NUM_PUZZLES, processor.importPuzzles(puzzleFile, handler));
+        Assert.assertEquals(getSortedPuzzleLines(), handler.getSortedLines());
+        Assert.assertEquals(0, processor.getLastInvalidCount());
+    }
+    
+    /**
+     * Lines ending in CRLF should be read, and solving them in place should keep each line break
+     * @throws IOException If the files could not be read or written
+     */
+    @Test
+    public void puzzleFileProcessor_processPuzzles_KeepsCrlfLines() throws IOException {
+        writePuzzleFile("\r\n", "# solved by PuzzleFileProcessorTest", "");
+        PuzzleFileProcessor processor = new PuzzleFileProcessor(4, 4);
+        
+        CollectingBatchHandler handler = new CollectingBatchHandler();
+        Assert.assertEquals(NUM_PUZZLES, processor.importPuzzles(puzzleFile, handler));
+        Assert.assertEquals(getSortedPuzzleLines(), handler.getSortedLines());
+        Assert.assertEquals(0, processor.getLastInvalidCount());
+        
+        SolvingBatchHandler solver = new SolvingBatchHandler();
+        Assert.assertEquals(NUM_PUZZLES, processor.processPuzzles(puzzleFile, outputFile, solver));
+        Assert.assertEquals(NUM_PUZZLES, solver.getNumSolved());
+        Assert.assertEquals(Files.size(puzzleFile), Files.size(outputFile));
+        
+        String[] lines = new String(Files.readAllBytes(outputFile), StandardCharsets.US_ASCII).split("\n");
+        Assert.assertEquals(NUM_PUZZLES + 2, lines.length);
+        Assert.assertEquals("# solved by PuzzleFileProcessorTest\r", lines[0]);
+        Assert.assertEquals("\r", lines[1]);
+        for(int i = 0; i < NUM_PUZZLES; i++) {
+            String line = lines[i + 2];
+            Assert.assertEquals(SudokuStringifier.LINE_LENGTH + 1, line.length());
+            Assert.assertTrue(line.endsWith("\r"));
+            
+            SudokuBoard solution = SudokuStringifier.parseLine(line.substring(0, SudokuStringifier.LINE_LENGTH));
+            Assert.assertNotNull(solution);
+            Assert.assertTrue(solution.isSolved());
+        }
+    }
+    
+    /**
+     * Lines that are too short, have an invalid character, or run on past the puzzle should be counted
+     * as invalid, while puzzles followed by another column are read
+     * @throws IOException If the file could not be written
+     */
+    @Test
+    public void puzzleFileProcessor_importPuzzles_CountsInvalidLines() throws IOException {
+        String puzzleLine = SudokuStringifier.formatLine(puzzles.get(0));
+        writePuzzleFile("\n",
+                "# comment",
+                "",
+                puzzleLine.substring(1),
+                "x" + puzzleLine.substring(1),
+                puzzleLine + "1",
+                puzzleLine + ",extra column");
+        
+        PuzzleFileProcessor processor = new PuzzleFileProcessor(2, 4);
+        CollectingBatchHandler handler = new CollectingBatchHandler();
+        Assert.assertEquals(NUM_PUZZLES + 1, processor.importPuzzles(puzzleFile, handler));
+        Assert.assertEquals(3, processor.getLastInvalidCount());
+        
+        //The count is replaced by each file that is read
+        Assert.assertTrue(processor.exportBoards(puzzleFile, puzzles));
+        Assert.assertEquals(NUM_PUZZLES, processor.importPuzzles(puzzleFile, handler));
+        Assert.assertEquals(0, processor.getLastInvalidCount());
+    }
+}
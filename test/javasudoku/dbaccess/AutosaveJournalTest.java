@@ -0,0 +1,217 @@
+package javasudoku.dbaccess;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+import org.junit.Test;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuGame;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.After;
+
+/**
+ * Contains unit tests to validate journaling games with an AutosaveJournal in front of an InMemorySudokuGameDAO:
+ *
+ * -A journal left behind with moves in it should be replayed into data storage, and then emptied
+ * -A move cut off at the end of the journal should be ignored, keeping the moves before it
+ * -Consolidating should write the active game to data storage, and compact the journal to one checkpoint
+ * -Discarding should restore the game in data storage as it was last committed, or remove it if it never was
+ *
+ * Each unit test will provide a setup and teardown procedure involving
+ * opening a journal in a temporary folder, which is deleted after the test.
+ *
+ * @author Ishaiah Cross
+ */
+public class AutosaveJournalTest {
+    private static final String PLAYER = "journaltest";
+    
+    //These will be instantiated before each test, and removed after each test
+    private Path folder;
+    private Path journalFile;
+    private InMemorySudokuGameDAO storage;
+    private AsyncSudokuGameDAO db;
+    private AutosaveJournal journal;
+    
+    /**
+     * Create a temporary folder, and open a journal in it in front of empty storage
+     * @throws IOException If the folder could not be created
+     */
+    @Before
+    public void setupJournal() throws IOException {
+        this.folder = Files.createTempDirectory("sudokujournal");
+        this.journalFile = folder.resolve("autosave.journal");
+        this.storage = new InMemorySudokuGameDAO();
+        this.db = new AsyncSudokuGameDAO(() -> storage);
+        this.journal = AutosaveJournal.open(journalFile, db);
+    }
+    
+    /**
+     * Close the journal and the storage, and delete the temporary folder after each test
+     * @throws IOException If the folder could not be deleted
+     */
+    @After
+    public void destroyJournal() throws IOException {
+        this.journal.close();
+        this.db.close();
+        
+        try (Stream<Path> files = Files.list(folder)) {
+            for(Path file: (Iterable<Path>)files::iterator)
+                Files.delete(file);
+        }
+        Files.delete(folder);
+        
+        this.journal = null;
+        this.db = null;
+        this.storage = null;
+        this.journalFile = null;
+        this.folder = null;
+    }
+    
+    /**
+     * Starts journaling a new game, and makes three moves in the first row
+     */
+    private void startGameWithMoves() {
+        journal.startGame(new SudokuGame(PLAYER, new SudokuBoard()));
+        journal.recordMove(0, 1);
+        journal.recordMove(1, 2);
+        journal.recordMove(2, 3);
+    }
+    
+    /**
+     * Replays a copy of the journal as it is now, as if the program had stopped without closing it
+     * @param cutBytes The number of bytes to cut from the end of the copy before it is replayed
+     * @param replayStorage The storage to replay the journal into
+     * @return The copy of the journal, after it has been replayed
+     * @throws IOException If the journal could not be copied
+     */
+    private Path replayCopy(int cutBytes, InMemorySudokuGameDAO replayStorage) throws IOException {
+        Path copy = folder.resolve("copy.journal");
+        Files.copy(journalFile, copy);
+        
+        try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - cutBytes);
+        }
+        
+        AsyncSudokuGameDAO replayDB = new AsyncSudokuGameDAO(() -> replayStorage);
+        AutosaveJournal replayed = AutosaveJournal.open(copy, replayDB);
+        
+        //The replayed game is written on the I/O thread, before any task submitted after it
+        replayDB.connect().join();
+        replayed.close();
+        replayDB.close();
+        return copy;
+    }
+    
+    /**
+     * @param games The storage
+     * @return The only game of the test player in the storage
+     */
+    private static SudokuGame getOnlyGame(InMemorySudokuGameDAO games) {
+        ArrayList<SudokuGame> found = games.getGamesByName(PLAYER);
+        Assert.assertEquals(1, found.size());
+        return found.get(0);
+    }
+    
+    /**
+     * The moves in a journal that was not closed should be written to data storage when it is opened,
+     * and the journal emptied once they have been written
+     * @throws IOException If the journal could not be copied
+     */
+    @Test
+    public void autosaveJournal_open_ReplaysMoves() throws IOException {
+        startGameWithMoves();
+        
+        InMemorySudokuGameDAO replayStorage = new InMemorySudokuGameDAO();
+        Path copy = replayCopy(0, replayStorage);
+        
+        SudokuGame recovered = getOnlyGame(replayStorage);
+        Assert.assertEquals(1, recovered.boardState.getCellValue(0));
+        Assert.assertEquals(2, recovered.boardState.getCellValue(1));
+        Assert.assertEquals(3, recovered.boardState.getCellValue(2));
+        Assert.assertEquals(0, Files.size(copy));
+    }
+    
+    /**
+     * A move record that was only partly written should be ignored, and the moves before it replayed
+     * @throws IOException If the journal could not be copied
+     */
+    @Test
+    public void autosaveJournal_open_IgnoresCutOffMove() throws IOException {
+        startGameWithMoves();
+        
+        InMemorySudokuGameDAO replayStorage = new InMemorySudokuGameDAO();
+        replayCopy(1, replayStorage);
+        
+        SudokuGame recovered = getOnlyGame(replayStorage);
+        Assert.assertEquals(1, recovered.boardState.getCellValue(0));
+        Assert.assertEquals(2, recovered.boardState.getCellValue(1));
+        Assert.assertEquals(0, recovered.boardState.getCellValue(2));
+    }
+    
+    /**
+     * Consolidating should write the moves to data storage, and leave only a checkpoint in the journal
+     * @throws IOException If the size of the journal could not be read
+     */
+    @Test
+    public void autosaveJournal_consolidate_WritesGameAndCompacts() throws IOException {
+        journal.startGame(new SudokuGame(PLAYER, new SudokuBoard()));
+        long checkpointSize = Files.size(journalFile);
+        
+        journal.recordMove(0, 1);
+        journal.recordMove(1, 2);
+        Assert.assertTrue(Files.size(journalFile) > checkpointSize);
+        
+        Integer gameID = journal.consolidate().join();
+        Assert.assertNotNull(gameID);
+        Assert.assertEquals(gameID, journal.getGameID());
+        Assert.assertEquals(checkpointSize, Files.size(journalFile));
+        
+        SudokuGame saved = storage.getGame(gameID);
+        Assert.assertEquals(1, saved.boardState.getCellValue(0));
+        Assert.assertEquals(2, saved.boardState.getCellValue(1));
+        
+        //Nothing is written again until another move is made
+        Assert.assertNull(journal.consolidate().join());
+        Assert.assertEquals(1, storage.getGameCount(PLAYER));
+    }
+    
+    /**
+     * Discarding a committed game should put back the game as it was committed, undoing autosaved moves
+     */
+    @Test
+    public void autosaveJournal_discard_RestoresCommittedGame() {
+        SudokuBoard board = new SudokuBoard();
+        board.setCell(0, 1);
+        SudokuGame committed = new SudokuGame(PLAYER, board);
+        int gameID = storage.addGame(committed);
+        
+        journal.startGame(committed);
+        journal.recordMove(1, 2);
+        Assert.assertEquals(Integer.valueOf(gameID), journal.consolidate().join());
+        Assert.assertEquals(2, storage.getGame(gameID).boardState.getCellValue(1));
+        
+        journal.discard().join();
+        
+        SudokuGame restored = storage.getGame(gameID);
+        Assert.assertEquals(1, restored.boardState.getCellValue(0));
+        Assert.assertEquals(0, restored.boardState.getCellValue(1));
+        Assert.assertNull(journal.getGameID());
+    }
+    
+    /**
+     * Discarding a game that was autosaved but never committed should remove it from data storage
+     */
+    @Test
+    public void autosaveJournal_discard_RemovesUncommittedGame() {
+        startGameWithMoves();
+        Assert.assertNotNull(journal.consolidate().join());
+        Assert.assertEquals(1, storage.getGameCount(PLAYER));
+        
+        journal.discard().join();
+        Assert.assertEquals(0, storage.getGameCount(PLAYER));
+    }
+}
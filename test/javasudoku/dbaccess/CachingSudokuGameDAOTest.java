@@ -0,0 +1,213 @@
+package javasudoku.dbaccess;
+import org.junit.Test;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuGame;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.After;
+
+/**
+ * Contains unit tests to validate the caching of a CachingSudokuGameDAO in front of an InMemorySudokuGameDAO:
+ *
+ * -Reading the same game twice should query the storage once, and answer the second read from the cache
+ * -Reading a game that does not exist should not be cached
+ * -Adding a game should remove the cached game count and player names of its player
+ * -Updating a game should remove the cached game, so the next read returns the updated game
+ * -Saving a game should remove the cached game when it is updated, and the cached game count when it is added
+ * -Removing a game, alone or in a batch, should remove the cached game and game count
+ * -Games returned from the cache should be copies, so changing them does not change the cache
+ *
+ * Each unit test will provide a setup and teardown procedure involving initializing
+ * empty storage with a cache in front of it.
+ *
+ * @author Ishaiah Cross
+ */
+public class CachingSudokuGameDAOTest {
+    private static final String PLAYER = "cachetest";
+    
+    //These will be instantiated before each test, and removed after each test
+    private InMemorySudokuGameDAO storage;
+    private CachingSudokuGameDAO cache;
+    
+    /**
+     * Initialize empty storage, and a cache of up to 8 games in front of it
+     */
+    @Before
+    public void setupCache() {
+        this.storage = new InMemorySudokuGameDAO();
+        this.cache = new CachingSudokuGameDAO(storage, 8);
+    }
+    
+    /**
+     * Destroy the initialized objects after each test to work with clean objects
+     */
+    @After
+    public void destroyCache() {
+        this.cache.close();
+        this.cache = null;
+        this.storage = null;
+    }
+    
+    /**
+     * Creates a game with a single cell filled
+     * @param index The index of the filled cell
+     * @param value The value of the filled cell
+     * @return The game, which has not been added
+     */
+    private static SudokuGame createGame(int index, int value) {
+        SudokuBoard board = new SudokuBoard();
+        board.setCell(index, value);
+        return new SudokuGame(PLAYER, board);
+    }
+    
+    /**
+     * A game read a second time should be returned from the cache, counting one miss and then one hit
+     */
+    @Test
+    public void cachingDAO_getGame_SecondReadIsHit() {
+        int gameID = storage.addGame(createGame(0, 1));
+        
+        SudokuGame first = cache.getGame(gameID);
+        SudokuGame second = cache.getGame(gameID);
+        
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+        Assert.assertEquals(1, second.boardState.getCellValue(0));
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(0.5, cache.getHitRatio(), 0.0001);
+    }
+    
+    /**
+     * A game that does not exist should be queried every time it is read, as nothing is cached for it
+     */
+    @Test
+    public void cachingDAO_getGame_MissingGameNotCached() {
+        Assert.assertNull(cache.getGame(1000));
+        Assert.assertNull(cache.getGame(1000));
+        
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(0, cache.getHitCount());
+    }
+    
+    /**
+     * Adding a game should remove the cached game count of its player, and add the player to the cached names
+     */
+    @Test
+    public void cachingDAO_addGame_InvalidatesCount() {
+        Assert.assertEquals(0, cache.getGameCount(PLAYER));
+        Assert.assertTrue(cache.getPlayerNames().isEmpty());
+        
+        Assert.assertNotNull(cache.addGame(createGame(0, 1)));
+        cache.resetStatistics();
+        
+        //The count is read from the storage again, and the names are updated in place
+        Assert.assertEquals(1, cache.getGameCount(PLAYER));
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertTrue(cache.getPlayerNames().contains(PLAYER));
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+    
+    /**
+     * Updating a game should remove it from the cache, so the next read misses and returns the updated board
+     */
+    @Test
+    public void cachingDAO_updateGame_InvalidatesGame() {
+        int gameID = storage.addGame(createGame(0, 1));
+        cache.getGame(gameID);
+        
+        SudokuGame updated = createGame(0, 2);
+        updated.setGameID(gameID);
+        Assert.assertTrue(cache.updateGame(updated));
+        cache.resetStatistics();
+        
+        SudokuGame read = cache.getGame(gameID);
+        Assert.assertEquals(2, read.boardState.getCellValue(0));
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(0, cache.getHitCount());
+    }
+    
+    /**
+     * Saving an existing game should remove it from the cache, and saving a new game should remove the game count
+     */
+    @Test
+    public void cachingDAO_saveGame_InvalidatesGameAndCount() {
+        int gameID = storage.addGame(createGame(0, 1));
+        cache.getGame(gameID);
+        Assert.assertEquals(1, cache.getGameCount(PLAYER));
+        
+        //Saving with the existing ID updates the game
+        SudokuGame updated = createGame(0, 3);
+        updated.setGameID(gameID);
+        Assert.assertEquals(Integer.valueOf(gameID), cache.saveGame(updated));
+        cache.resetStatistics();
+        
+        Assert.assertEquals(3, cache.getGame(gameID).boardState.getCellValue(0));
+        Assert.assertEquals(1, cache.getMissCount());
+        
+        //Saving without an ID adds a new game
+        Assert.assertEquals(1, cache.getGameCount(PLAYER));
+        Integer newID = cache.saveGame(createGame(1, 4));
+        Assert.assertNotNull(newID);
+        Assert.assertNotEquals(Integer.valueOf(gameID), newID);
+        cache.resetStatistics();
+        
+        Assert.assertEquals(2, cache.getGameCount(PLAYER));
+        Assert.assertEquals(1, cache.getMissCount());
+    }
+    
+    /**
+     * Removing a game should remove it and the game count of its player from the cache
+     */
+    @Test
+    public void cachingDAO_removeGame_InvalidatesGameAndCount() {
+        int gameID = storage.addGame(createGame(0, 1));
+        cache.getGame(gameID);
+        Assert.assertEquals(1, cache.getGameCount(PLAYER));
+        
+        cache.removeGame(gameID);
+        
+        Assert.assertNull(cache.getGame(gameID));
+        Assert.assertEquals(0, cache.getGameCount(PLAYER));
+        Assert.assertTrue(cache.getPlayerNames().isEmpty());
+    }
+    
+    /**
+     * Removing games in a batch should remove each of them from the cache
+     */
+    @Test
+    public void cachingDAO_removeGames_InvalidatesEachGame() {
+        int firstID = storage.addGame(createGame(0, 1));
+        int secondID = storage.addGame(createGame(1, 2));
+        int keptID = storage.addGame(createGame(2, 3));
+        cache.getGame(firstID);
+        cache.getGame(secondID);
+        cache.getGame(keptID);
+        Assert.assertEquals(3, cache.getGameCount(PLAYER));
+        
+        Assert.assertTrue(cache.removeGames(firstID, secondID));
+        cache.resetStatistics();
+        
+        Assert.assertNull(cache.getGame(firstID));
+        Assert.assertNull(cache.getGame(secondID));
+        Assert.assertNotNull(cache.getGame(keptID));
+        Assert.assertEquals(1, cache.getGameCount(PLAYER));
+        
+        //Only the game that was kept is still cached
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+    
+    /**
+     * Changing a game returned from the cache should not change the game returned by the next read
+     */
+    @Test
+    public void cachingDAO_getGame_ReturnsCopies() {
+        int gameID = storage.addGame(createGame(0, 1));
+        
+        SudokuGame first = cache.getGame(gameID);
+        first.boardState.setCell(0, 5);
+        
+        Assert.assertEquals(1, cache.getGame(gameID).boardState.getCellValue(0));
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+}
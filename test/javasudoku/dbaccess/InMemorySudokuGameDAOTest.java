@@ -0,0 +1,210 @@
+package javasudoku.dbaccess;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import org.junit.Test;
+import javasudoku.model.GameSortOrder;
+import javasudoku.model.PlayerStats;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuGame;
+import javasudoku.model.SudokuGenerator;
+import javasudoku.solver.SudokuSolver;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.After;
+
+/**
+ * Contains unit tests to validate storing games in an InMemorySudokuGameDAO:
+ *
+ * -Saving a game should add it the first time, and update the same stored game each time after that
+ * -Updating a game that has no ID, or whose stored game was removed, should fail without adding it
+ * -A player's games should be listed in pages that follow the sort order, without repeating or skipping games
+ * -The statistics of a player should match their stored games after games are added, replaced, and removed
+ *
+ * Each unit test will provide a setup and teardown procedure involving
+ * initializing empty storage, which is discarded after the test.
+ *
+ * @author Ishaiah Cross
+ */
+public class InMemorySudokuGameDAOTest {
+    private static final String PLAYER = "memorytest";
+    private static final String OTHER_PLAYER = "memoryother";
+    
+    //This will be instantiated before each test, and removed after each test
+    private InMemorySudokuGameDAO storage;
+    
+    /**
+     * Initialize empty storage before each test
+     */
+    @Before
+    public void setupStorage() {
+        this.storage = new InMemorySudokuGameDAO();
+    }
+    
+    /**
+     * Discard the storage after each test
+     */
+    @After
+    public void destroyStorage() {
+        this.storage = null;
+    }
+    
+    /**
+     * Creates a game with a number of cells filled in the first row
+     * @param name The player name
+     * @param filledCells The number of cells to fill, up to GRID_SIZE
+     * @param daysAgo The number of days since the game was last played
+     * @return The game, which has not been stored
+     */
+    private static SudokuGame createGame(String name, int filledCells, int daysAgo) {
+        SudokuBoard board = new SudokuBoard();
+        for(int i = 0; i < filledCells; i++)
+            board.setCell(i, i + 1);
+        
+        SudokuGame game = new SudokuGame(name, board);
+        game.setDate(SudokuGame.formatDate(LocalDateTime.now().minusDays(daysAgo)));
+        return game;
+    }
+    
+    /**
+     * Creates a game whose board is solved
+     * @param name The player name
+     * @param playTime The play time of the game in milliseconds
+     * @return The game, which has not been stored
+     */
+    private static SudokuGame createSolvedGame(String name, long playTime) {
+        SudokuBoard board = new SudokuGenerator().generatePuzzle(20);
+        new SudokuSolver().solveBoard(board);
+        Assert.assertTrue(board.isSolved());
+        
+        SudokuGame game = new SudokuGame(name, board);
+        game.saveLastPlayedDate();
+        game.setPlayTime(playTime);
+        return game;
+    }
+    
+    /**
+     * Saving a new game should add it and set its ID, and saving it again should replace the same stored game
+     */
+    @Test
+    public void inMemoryDAO_saveGame_AddsThenUpdatesInPlace() {
+        SudokuGame game = createGame(PLAYER, 1, 0);
+        Integer gameID = storage.saveGame(game);
+        Assert.assertNotNull(gameID);
+        Assert.assertEquals(gameID, game.getGameID());
+        
+        SudokuGame changed = createGame(PLAYER, 3, 0);
+        changed.setGameID(gameID);
+        changed.setPlayTime(4000);
+        Assert.assertEquals(gameID, storage.saveGame(changed));
+        
+        Assert.assertEquals(1, storage.getGameCount(PLAYER));
+        SudokuGame stored = storage.getGame(gameID);
+        Assert.assertEquals(3, stored.boardState.getCellValue(2));
+        Assert.assertEquals(4000, stored.getPlayTime());
+        
+        //Changes made to the game after it was saved do not reach the stored game
+        changed.boardState.setCell(3, 4);
+        Assert.assertEquals(0, storage.getGame(gameID).boardState.getCellValue(3));
+    }
+    
+    /**
+     * Updating a game without an ID, or a game that was removed, should fail and leave the storage unchanged
+     */
+    @Test
+    public void inMemoryDAO_updateGame_RejectsUnstoredGame() {
+        Assert.assertFalse(storage.updateGame(createGame(PLAYER, 1, 0)));
+        
+        SudokuGame game = createGame(PLAYER, 1, 0);
+        int gameID = storage.addGame(game);
+        storage.removeGame(gameID);
+        
+        Assert.assertFalse(storage.updateGame(game));
+        Assert.assertEquals(0, storage.getGameCount(PLAYER));
+        Assert.assertNull(storage.getGame(gameID));
+    }
+    
+    /**
+     * Reading a player's games a page at a time should return every game once, in the requested order,
+     * and leave out the games of other players
+     */
+    @Test
+    public void inMemoryDAO_getGamesByName_PagesInSortOrder() {
+        int[] ids = new int[7];
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = storage.addGame(createGame(PLAYER, 1 + i % 4, i));
+        
+        storage.addGame(createGame(OTHER_PLAYER, 1, 0));
+        
+        //The games were added from newest to oldest
+        ArrayList<Integer> newestFirst = new ArrayList<>();
+        for(int offset = 0; offset < ids.length; offset += 3) {
+            ArrayList<SudokuGame> page = storage.getGamesByName(PLAYER, offset, 3, GameSortOrder.NEWEST_FIRST);
+            Assert.assertEquals(Math.min(3, ids.length - offset), page.size());
+            for(SudokuGame game: page)
+                newestFirst.add(game.getGameID());
+        }
+        
+        for(int i = 0; i < ids.length; i++)
+            Assert.assertEquals(Integer.valueOf(ids[i]), newestFirst.get(i));
+        
+        ArrayList<SudokuGame> oldest = storage.getGamesByName(PLAYER, 0, 2, GameSortOrder.OLDEST_FIRST);
+        Assert.assertEquals(Integer.valueOf(ids[6]), oldest.get(0).getGameID());
+        Assert.assertEquals(Integer.valueOf(ids[5]), oldest.get(1).getGameID());
+        
+        //Every game is listed once, from the most to the least complete
+        HashSet<Integer> seen = new HashSet<>();
+        float lastCompletion = Float.MAX_VALUE;
+        for(SudokuGame game: storage.getGamesByName(PLAYER, 0, ids.length, GameSortOrder.MOST_COMPLETE_FIRST)) {
+            Assert.assertTrue(game.completionPercentage <= lastCompletion);
+            Assert.assertTrue(seen.add(game.getGameID()));
+            lastCompletion = game.completionPercentage;
+        }
+        
+        Assert.assertEquals(ids.length, seen.size());
+        Assert.assertTrue(storage.getGamesByName(PLAYER, ids.length, 3, GameSortOrder.NEWEST_FIRST).isEmpty());
+    }
+    
+    /**
+     * The statistics of a player should be updated as games are added, replaced, and removed, and the best
+     * solve time should be found again from the remaining games once the game that held it is removed
+     */
+    @Test
+    public void inMemoryDAO_getPlayerStats_FollowsAddsAndRemoves() {
+        Assert.assertNull(storage.getPlayerStats(PLAYER));
+        
+        SudokuGame unsolved = createGame(PLAYER, 9, 0);
+        int unsolvedID = storage.addGame(unsolved);
+        int fastID = storage.addGame(createSolvedGame(PLAYER, 1000));
+        int slowID = storage.addGame(createSolvedGame(PLAYER, 5000));
+        storage.addGame(createSolvedGame(OTHER_PLAYER, 500));
+        
+        PlayerStats stats = storage.getPlayerStats(PLAYER);
+        Assert.assertEquals(3, stats.gamesSaved);
+        Assert.assertEquals(2, stats.gamesCompleted);
+        Assert.assertEquals((unsolved.completionPercentage + 2) / 3, stats.averageCompletion, 0.0001);
+        Assert.assertEquals(Long.valueOf(1000), stats.bestSolveTime);
+        
+        Assert.assertTrue(storage.removeGames(fastID));
+        stats = storage.getPlayerStats(PLAYER);
+        Assert.assertEquals(2, stats.gamesSaved);
+        Assert.assertEquals(1, stats.gamesCompleted);
+        Assert.assertEquals(Long.valueOf(5000), stats.bestSolveTime);
+        
+        //Replacing the solved game with an unsolved board takes away its solve
+        SudokuGame replaced = createGame(PLAYER, 9, 0);
+        replaced.setGameID(slowID);
+        Assert.assertTrue(storage.updateGame(replaced));
+        stats = storage.getPlayerStats(PLAYER);
+        Assert.assertEquals(2, stats.gamesSaved);
+        Assert.assertEquals(0, stats.gamesCompleted);
+        Assert.assertNull(stats.bestSolveTime);
+        
+        //A player keeps their statistics after their last game is removed
+        Assert.assertTrue(storage.removeGames(unsolvedID, slowID));
+        stats = storage.getPlayerStats(PLAYER);
+        Assert.assertEquals(0, stats.gamesSaved);
+        Assert.assertEquals(0, stats.averageCompletion, 0);
+        Assert.assertEquals(Long.valueOf(500), storage.getPlayerStats(OTHER_PLAYER).bestSolveTime);
+    }
+}
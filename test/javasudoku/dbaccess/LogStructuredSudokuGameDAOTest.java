@@ -0,0 +1,232 @@
+package javasudoku.dbaccess;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+import org.junit.Test;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuGame;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.After;
+
+/**
+ * Contains unit tests to validate the durability of a LogStructuredSudokuGameDAO:
+ *
+ * -Games added, updated, and removed should be the same after the log is closed and replayed
+ * -A record cut off at the end of the log should be removed when it is replayed, keeping the records before it
+ * -A corrupted record at the end of the log should be removed, and games added afterwards should be replayed
+ * -Compacting the log should keep the live games, shrink the log, and not reuse the IDs of removed games
+ * -The log should be compacted once most of its records have been replaced or removed
+ *
+ * Each unit test will provide a setup and teardown procedure involving
+ * creating a temporary folder for the log, which is deleted after the test.
+ *
+ * @author Ishaiah Cross
+ */
+public class LogStructuredSudokuGameDAOTest {
+    private static final String PLAYER = "logtest";
+    
+    //These will be instantiated before each test, and removed after each test
+    private Path folder;
+    private Path logFile;
+    private LogStructuredSudokuGameDAO store;
+    
+    /**
+     * Create a temporary folder, and open a new log in it
+     * @throws IOException If the folder could not be created
+     */
+    @Before
+    public void setupLog() throws IOException {
+        this.folder = Files.createTempDirectory("sudokulog");
+        this.logFile = folder.resolve("games.log");
+        this.store = LogStructuredSudokuGameDAO.open(logFile);
+        Assert.assertNotNull(store);
+    }
+    
+    /**
+     * Close the log and delete the temporary folder after each test
+     * @throws IOException If the folder could not be deleted
+     */
+    @After
+    public void destroyLog() throws IOException {
+        if(this.store != null)
+            this.store.close();
+        
+        try (Stream<Path> files = Files.list(folder)) {
+            for(Path file: (Iterable<Path>)files::iterator)
+                Files.delete(file);
+        }
+        Files.delete(folder);
+        
+        this.store = null;
+        this.logFile = null;
+        this.folder = null;
+    }
+    
+    /**
+     * Creates a game with a single cell filled
+     * @param index The index of the filled cell
+     * @param value The value of the filled cell
+     * @return The game, which has not been added
+     */
+    private static SudokuGame createGame(int index, int value) {
+        SudokuBoard board = new SudokuBoard();
+        board.setCell(index, value);
+        SudokuGame game = new SudokuGame(PLAYER, board);
+        game.saveLastPlayedDate();
+        return game;
+    }
+    
+    /**
+     * Closes the log and opens it again, replaying every record
+     */
+    private void reopen() {
+        this.store.close();
+        this.store = LogStructuredSudokuGameDAO.open(logFile);
+        Assert.assertNotNull(store);
+    }
+    
+    /**
+     * The games in the log should be the same after replaying it as they were before it was closed
+     */
+    @Test
+    public void logDAO_replay_RestoresChanges() {
+        int keptID = store.addGame(createGame(0, 1));
+        int updatedID = store.addGame(createGame(1, 2));
+        int removedID = store.addGame(createGame(2, 3));
+        
+        SudokuGame updated = createGame(1, 4);
+        updated.setGameID(updatedID);
+        updated.setPlayTime(5000);
+        Assert.assertTrue(store.updateGame(updated));
+        Assert.assertTrue(store.removeGames(removedID));
+        
+        reopen();
+        
+        Assert.assertEquals(2, store.getGameCount(PLAYER));
+        Assert.assertEquals(1, store.getGame(keptID).boardState.getCellValue(0));
+        Assert.assertEquals(4, store.getGame(updatedID).boardState.getCellValue(1));
+        Assert.assertEquals(5000, store.getGame(updatedID).getPlayTime());
+        Assert.assertNull(store.getGame(removedID));
+        Assert.assertEquals(2, store.getPlayerStats(PLAYER).gamesSaved);
+    }
+    
+    /**
+     * A record that was only partly written should be removed, and the records before it kept
+     * @throws IOException If the log could not be cut
+     */
+    @Test
+    public void logDAO_replay_TruncatesCutOffRecord() throws IOException {
+        int firstID = store.addGame(createGame(0, 1));
+        long sizeAfterFirst = Files.size(logFile);
+        store.addGame(createGame(1, 2));
+        store.close();
+        
+        //Cut the second record in half, as if the program stopped while writing it
+        long fullSize = Files.size(logFile);
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(sizeAfterFirst + (fullSize - sizeAfterFirst) / 2);
+        }
+        
+        this.store = LogStructuredSudokuGameDAO.open(logFile);
+        Assert.assertNotNull(store);
+        Assert.assertEquals(sizeAfterFirst, Files.size(logFile));
+        Assert.assertEquals(1, store.getGameCount(PLAYER));
+        Assert.assertNotNull(store.getGame(firstID));
+    }
+    
+    /**
+     * A record whose checksum does not match should be removed, and games added after it should be replayed
+     * @throws IOException If the log could not be changed
+     */
+    @Test
+    public void logDAO_replay_TruncatesCorruptRecord() throws IOException {
+        int firstID = store.addGame(createGame(0, 1));
+        long sizeAfterFirst = Files.size(logFile);
+        store.addGame(createGame(1, 2));
+        store.close();
+        
+        //Change the last byte of the second record, so its checksum no longer matches
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long last = channel.size() - 1;
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, last);
+            value.put(0, (byte)(value.get(0) ^ 0xFF));
+            value.rewind();
+            channel.write(value, last);
+        }
+        
+        this.store = LogStructuredSudokuGameDAO.open(logFile);
+        Assert.assertNotNull(store);
+        Assert.assertEquals(sizeAfterFirst, Files.size(logFile));
+        Assert.assertEquals(1, store.getGameCount(PLAYER));
+        
+        //The log can still be added to after the record is removed
+        int addedID = store.addGame(createGame(2, 3));
+        reopen();
+        
+        Assert.assertNotNull(store.getGame(firstID));
+        Assert.assertEquals(3, store.getGame(addedID).boardState.getCellValue(2));
+    }
+    
+    /**
+     * Compacting should keep only the live games, and games added after compaction and replay should not
+     * be given the ID of a game that was removed
+     * @throws IOException If the size of the log could not be read
+     */
+    @Test
+    public void logDAO_compact_KeepsGamesAndNextID() throws IOException {
+        int keptID = store.addGame(createGame(0, 1));
+        int removedID = 0;
+        for(int i = 0; i < 10; i++) {
+            removedID = store.addGame(createGame(1, 2));
+            Assert.assertTrue(store.removeGames(removedID));
+        }
+        
+        long sizeBefore = Files.size(logFile);
+        Assert.assertTrue(store.compact());
+        Assert.assertTrue(Files.size(logFile) < sizeBefore);
+        
+        reopen();
+        
+        Assert.assertEquals(1, store.getGameCount(PLAYER));
+        Assert.assertEquals(1, store.getGame(keptID).boardState.getCellValue(0));
+        
+        //The highest ID was removed before compaction, so it must not be given out again
+        int addedID = store.addGame(createGame(2, 3));
+        Assert.assertTrue(addedID > removedID);
+    }
+    
+    /**
+     * Once most records in a large log are obsolete, the log should be compacted by the write that made them obsolete
+     * @throws IOException If the size of the log could not be read
+     */
+    @Test
+    public void logDAO_compactIfNeeded_CompactsObsoleteLog() throws IOException {
+        ArrayList<SudokuGame> games = new ArrayList<>();
+        for(int i = 0; i < 1000; i++)
+            games.add(createGame(i % SudokuBoard.TOTAL_CELLS, 1 + i % SudokuBoard.GRID_SIZE));
+        
+        Assert.assertTrue(store.addGames(games));
+        long sizeBefore = Files.size(logFile);
+        
+        int[] removedIDs = new int[games.size() - 1];
+        for(int i = 0; i < removedIDs.length; i++)
+            removedIDs[i] = games.get(i).getGameID();
+        
+        Assert.assertTrue(store.removeGames(removedIDs));
+        
+        //The log now holds only the next ID and the one remaining game
+        Assert.assertTrue(Files.size(logFile) < sizeBefore / 100);
+        
+        reopen();
+        
+        Assert.assertEquals(1, store.getGameCount(PLAYER));
+        Assert.assertNotNull(store.getGame(games.get(games.size() - 1).getGameID()));
+    }
+}
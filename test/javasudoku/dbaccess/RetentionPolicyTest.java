@@ -0,0 +1,202 @@
+package javasudoku.dbaccess;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import org.junit.Test;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuGame;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.After;
+
+/**
+ * Contains unit tests to validate purging games from an InMemorySudokuGameDAO with a RetentionPolicy:
+ *
+ * -Only the most recent games of each player should be kept when the number of games is limited
+ * -Games older than the age limit should be removed, and games whose date cannot be read should be kept
+ * -Games should be appended to the archive before they are removed from the storage
+ * -A game that is in use should never be removed
+ * -A purge of storage that cannot read its games should stop without removing anything
+ *
+ * Each unit test will provide a setup and teardown procedure involving initializing
+ * empty storage, and a temporary folder for the archive which is deleted after the test.
+ *
+ * @author Ishaiah Cross
+ */
+public class RetentionPolicyTest {
+    private static final String PLAYER = "retentiontest";
+    private static final String OTHER_PLAYER = "retentionother";
+    
+    //These will be instantiated before each test, and removed after each test
+    private Path folder;
+    private Path archiveFile;
+    private InMemorySudokuGameDAO storage;
+    
+    /**
+     * Initialize empty storage, and create a temporary folder for the archive
+     * @throws IOException If the folder could not be created
+     */
+    @Before
+    public void setupStorage() throws IOException {
+        this.folder = Files.createTempDirectory("sudokuretention");
+        this.archiveFile = folder.resolve("games.archive");
+        this.storage = new InMemorySudokuGameDAO();
+    }
+    
+    /**
+     * Delete the archive and the temporary folder after each test
+     * @throws IOException If the folder could not be deleted
+     */
+    @After
+    public void destroyStorage() throws IOException {
+        Files.deleteIfExists(archiveFile);
+        Files.delete(folder);
+        
+        this.storage = null;
+        this.archiveFile = null;
+        this.folder = null;
+    }
+    
+    /**
+     * Adds a game that was last played a number of days ago
+     * @param games The storage to add the game to
+     * @param name The player name
+     * @param daysAgo The number of days since the game was last played
+     * @return The ID of the added game
+     */
+    private static int addGame(InMemorySudokuGameDAO games, String name, int daysAgo) {
+        return addGame(games, name, SudokuGame.formatDate(LocalDateTime.now().minusDays(daysAgo)));
+    }
+    
+    /**
+     * Adds a game with a single cell filled and a given last played date
+     * @param games The storage to add the game to
+     * @param name The player name
+     * @param date The last played date, which does not have to be a valid date
+     * @return The ID of the added game
+     */
+    private static int addGame(InMemorySudokuGameDAO games, String name, String date) {
+        SudokuBoard board = new SudokuBoard();
+        board.setCell(0, 1);
+        SudokuGame game = new SudokuGame(name, board);
+        game.setDate(date);
+        return games.addGame(game);
+    }
+    
+    /**
+     * @return The number of games in the archive, or -1 if it could not be read
+     */
+    private int countArchived() {
+        return GameBackup.restore(new InMemorySudokuGameDAO(), archiveFile);
+    }
+    
+    /**
+     * Only the newest games of each player should be kept, and the games removed should be archived
+     */
+    @Test
+    public void retentionPolicy_purge_KeepsNewestGamesOfEachPlayer() {
+        int[] ids = new int[6];
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = addGame(storage, PLAYER, ids.length - i);
+        
+        addGame(storage, OTHER_PLAYER, 10);
+        addGame(storage, OTHER_PLAYER, 20);
+        
+        RetentionPolicy policy = new RetentionPolicy(0, 3, archiveFile);
+        Assert.assertEquals(3, policy.purge(storage));
+        
+        Assert.assertEquals(3, storage.getGameCount(PLAYER));
+        Assert.assertEquals(2, storage.getGameCount(OTHER_PLAYER));
+        for(int i = 0; i < ids.length; i++)
+            Assert.assertEquals(i >= 3, storage.getGame(ids[i]) != null);
+        
+        Assert.assertEquals(3, countArchived());
+    }
+    
+    /**
+     * Games past the age limit should be removed, while games whose dates cannot be read are kept
+     */
+    @Test
+    public void retentionPolicy_purge_RemovesOldGamesAndKeepsUnreadableDates() {
+        int firstOldID = addGame(storage, PLAYER, 100);
+        int secondOldID = addGame(storage, PLAYER, 50);
+        int recentID = addGame(storage, PLAYER, 1);
+        
+        //The first sorts before every valid date, and the second after every valid date
+        int unreadableFirstID = addGame(storage, PLAYER, "0000/99/99 99:99:99");
+        int unreadableLastID = addGame(storage, PLAYER, "unknown");
+        
+        RetentionPolicy policy = new RetentionPolicy(30, 0, archiveFile);
+        Assert.assertEquals(2, policy.purge(storage));
+        
+        Assert.assertNull(storage.getGame(firstOldID));
+        Assert.assertNull(storage.getGame(secondOldID));
+        Assert.assertNotNull(storage.getGame(recentID));
+        Assert.assertNotNull(storage.getGame(unreadableFirstID));
+        Assert.assertNotNull(storage.getGame(unreadableLastID));
+        Assert.assertEquals(2, countArchived());
+    }
+    
+    /**
+     * Each batch should be in the archive by the time it is removed from the storage
+     */
+    @Test
+    public void retentionPolicy_purge_ArchivesBeforeRemoving() {
+        int[] archivedWhenRemoved = {-1};
+        InMemorySudokuGameDAO checked = new InMemorySudokuGameDAO() {
+            @Override
+            public synchronized boolean removeGames(int... ids) {
+                archivedWhenRemoved[0] = countArchived();
+                return super.removeGames(ids);
+            }
+        };
+        
+        for(int i = 0; i < 5; i++)
+            addGame(checked, PLAYER, 5 - i);
+        
+        RetentionPolicy policy = new RetentionPolicy(0, 2, archiveFile);
+        Assert.assertEquals(3, policy.purge(checked));
+        Assert.assertEquals(3, archivedWhenRemoved[0]);
+        Assert.assertEquals(2, checked.getGameCount(PLAYER));
+    }
+    
+    /**
+     * A game that is in use should be kept, while the other games past the limit are removed
+     */
+    @Test
+    public void retentionPolicy_purge_KeepsGameInUse() {
+        int[] ids = new int[5];
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = addGame(storage, PLAYER, ids.length - i);
+        
+        RetentionPolicy policy = new RetentionPolicy(0, 2, null);
+        Assert.assertEquals(2, policy.purge(storage, (int gameID) -> gameID == ids[0]));
+        
+        Assert.assertNotNull(storage.getGame(ids[0]));
+        Assert.assertNull(storage.getGame(ids[1]));
+        Assert.assertNull(storage.getGame(ids[2]));
+        Assert.assertEquals(3, storage.getGameCount(PLAYER));
+    }
+    
+    /**
+     * Storage that lists games but cannot read them should not be asked for the same batch forever
+     */
+    @Test(timeout = 10000)
+    public void retentionPolicy_purge_StopsWhenGamesCannotBeRead() {
+        InMemorySudokuGameDAO failing = new InMemorySudokuGameDAO() {
+            @Override
+            public synchronized SudokuGame getGame(int id) {
+                return null;
+            }
+        };
+        
+        for(int i = 0; i < 5; i++)
+            addGame(failing, PLAYER, 100 + i);
+        
+        RetentionPolicy policy = new RetentionPolicy(30, 1, archiveFile);
+        Assert.assertEquals(0, policy.purge(failing));
+        Assert.assertEquals(5, failing.getGameCount(PLAYER));
+        Assert.assertFalse(Files.exists(archiveFile));
+    }
+}
@@ -0,0 +1,116 @@
+package javasudoku.dbaccess;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Measures the time taken to look up a game by its UID when the statement is prepared for every
+ * lookup, as SudokuDBManager used to do, compared to reusing the statement cached by a
+ * SudokuPooledConnection.
+ *
+ * The benchmark runs against an in-memory Derby database, so the saved games are not touched.
+ * It is not run as part of the unit tests, and can be run with:
+ *
+ * java -cp build/classes:build/test/classes:lib/derby.jar javasudoku.dbaccess.StatementCacheBenchmark
+ *
+ * @author Ishaiah Cross
+ */
+public class StatementCacheBenchmark {
+    private static final String URL = "jdbc:derby:memory:StatementCacheBenchmark;create=true";
+    private static final String SELECT_SQL = "SELECT * FROM Games WHERE UID = ?";
+
+    private static final int NUM_ROWS = 1000;
+    private static final int NUM_LOOKUPS = 20000;
+    private static final int NUM_ROUNDS = 5;
+
+    public static void main(String[] args) throws SQLException {
+        SudokuPooledConnection connection = new SudokuPooledConnection(DriverManager.getConnection(URL));
+        createTable(connection.getConnection());
+
+        for(int round = 1; round <= NUM_ROUNDS; round++) {
+            long uncachedTime = timeUncached(connection.getConnection());
+            long cachedTime = timeCached(connection);
+
+            System.out.printf("Round %d: prepared per lookup %.1f us, cached %.1f us%n", round,
+                    uncachedTime / 1000.0 / NUM_LOOKUPS, cachedTime / 1000.0 / NUM_LOOKUPS);
+        }
+
+        connection.close();
+    }
+
+    /**
+     * Creates and fills a table with the same shape as the games table
+     * @param connection The connection to the database
+     * @throws SQLException If the table could not be created
+     */
+    private static void createTable(Connection connection) throws SQLException {
+        try (PreparedStatement create = connection.prepareStatement("CREATE TABLE Games ("
+                + "UID INT NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1),"
+                + "SaveDate VARCHAR(50) NOT NULL,"
+                + "PlayerName VARCHAR(15) NOT NULL,"
+                + "GameBinary VARCHAR(52) FOR BIT DATA,"
+                + "PRIMARY KEY (UID))")) {
+            create.executeUpdate();
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO Games (SaveDate, PlayerName, GameBinary) VALUES (?,?,?)")) {
+            for(int i = 0; i < NUM_ROWS; i++) {
+                insert.setString(1, "2020/10/30 21:43:19");
+                insert.setString(2, "player" + (i % 10));
+                insert.setBytes(3, new byte[52]);
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * @param connection The connection to the database
+     * @return The time taken in nanoseconds when a statement is prepared for every lookup
+     * @throws SQLException If a lookup failed
+     */
+    private static long timeUncached(Connection connection) throws SQLException {
+        long start = System.nanoTime();
+
+        for(int i = 0; i < NUM_LOOKUPS; i++) {
+            try (PreparedStatement sql = connection.prepareStatement(SELECT_SQL)) {
+                sql.setInt(1, i % NUM_ROWS + 1);
+                readRow(sql);
+            }
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * @param connection The connection to the database
+     * @return The time taken in nanoseconds when the cached statement is reused for every lookup
+     * @throws SQLException If a lookup failed
+     */
+    private static long timeCached(SudokuPooledConnection connection) throws SQLException {
+        long start = System.nanoTime();
+
+        for(int i = 0; i < NUM_LOOKUPS; i++) {
+            PreparedStatement sql = connection.prepare(SELECT_SQL);
+            sql.setInt(1, i % NUM_ROWS + 1);
+            readRow(sql);
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Runs a lookup and reads its row
+     * @param sql The statement to run
+     * @throws SQLException If the row could not be read
+     */
+    private static void readRow(PreparedStatement sql) throws SQLException {
+        try (ResultSet query = sql.executeQuery()) {
+            if(!query.next() || query.getBytes("GameBinary") == null)
+                throw new SQLException("Missing row");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package javasudoku.dbaccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import javasudoku.model.GameSortOrder;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuGame;
+import javasudoku.model.SudokuGameDAO;
+import javasudoku.model.SudokuGenerator;
+
+/**
+ * Compares the throughput of the storage backends that can be chosen with SudokuGameDAOFactory.
+ * Each backend runs the same workload of single adds, updates, lookups by ID, and listings of
+ * one page of a player's games.
+ *
+ * The Derby database and the game log are created in a temporary directory, so the saved games
+ * are not touched. The benchmark is not run as part of the unit tests, and can be run with:
+ *
+ * java -cp build/classes:build/test/classes:lib/derby.jar javasudoku.dbaccess.StorageBenchmark
+ *
+ * @author Ishaiah Cross
+ */
+public class StorageBenchmark {
+    private static final int NUM_PLAYERS = 10;
+    private static final int NUM_GAMES = 1000;
+    private static final int NUM_UPDATES = 1000;
+    private static final int NUM_LOOKUPS = 10000;
+    private static final int NUM_LISTINGS = 1000;
+    private static final int PAGE_SIZE = 50;
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("StorageBenchmark");
+        System.setProperty("javasudoku.db.url", "jdbc:derby:" + directory.resolve("SudokuDB") + ";create=true");
+
+        //Every backend stores the same boards
+        SudokuGenerator generator = new SudokuGenerator();
+        SudokuBoard[] boards = new SudokuBoard[PAGE_SIZE];
+        for(int i = 0; i < boards.length; i++)
+            boards[i] = generator.nextPuzzle(i % SudokuBoard.TOTAL_CELLS);
+
+        //Warm up the code shared by every backend before anything is measured
+        run(null, new InMemorySudokuGameDAO(), boards);
+        run("memory", new InMemorySudokuGameDAO(), boards);
+
+        LogStructuredSudokuGameDAO log = LogStructuredSudokuGameDAO.open(directory.resolve("SudokuGames.log"));
+        run("log", log, boards);
+        log.close();
+
+        SudokuDBManager derby = SudokuDBManager.getInstance();
+        run("derby", derby, boards);
+        derby.close();
+    }
+
+    /**
+     * Runs the workload against a backend and prints the throughput of each operation
+     * @param name The name of the backend, or null to run the workload without printing
+     * @param dao The backend, which should be empty
+     * @param boards The boards to store
+     */
+    private static void run(String name, SudokuGameDAO dao, SudokuBoard[] boards) {
+        Random random = new Random(1);
+        ArrayList<Integer> gameIDs = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for(int i = 0; i < NUM_GAMES; i++) {
+            SudokuGame game = new SudokuGame("player" + (i % NUM_PLAYERS), boards[i % boards.length]);
+            game.saveLastPlayedDate();
+            gameIDs.add(dao.addGame(game));
+        }
+        long addTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for(int i = 0; i < NUM_UPDATES; i++) {
+            int gameID = gameIDs.get(random.nextInt(gameIDs.size()));
+            SudokuGame game = new SudokuGame("player" + (gameID % NUM_PLAYERS), boards[random.nextInt(boards.length)]);
+            game.saveLastPlayedDate();
+            game.setGameID(gameID);
+            dao.updateGame(game);
+        }
+        long updateTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for(int i = 0; i < NUM_LOOKUPS; i++) {
+            if(dao.getGame(gameIDs.get(random.nextInt(gameIDs.size()))) == null)
+                throw new IllegalStateException("Missing game");
+        }
+        long lookupTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for(int i = 0; i < NUM_LISTINGS; i++)
+            dao.getGameSummaries("player" + random.nextInt(NUM_PLAYERS), 0, PAGE_SIZE, GameSortOrder.NEWEST_FIRST);
+        long listingTime = System.nanoTime() - start;
+
+        if(name == null)
+            return;
+
+        System.out.printf("%-6s add %8.0f/s, update %8.0f/s, lookup %9.0f/s, listing %8.0f/s%n", name,
+                perSecond(NUM_GAMES, addTime), perSecond(NUM_UPDATES, updateTime),
+                perSecond(NUM_LOOKUPS, lookupTime), perSecond(NUM_LISTINGS, listingTime));
+    }
+
+    /**
+     * @param count The number of operations
+     * @param nanos The time they took in nanoseconds
+     * @return The number of operations per second
+     */
+    private static double perSecond(int count, long nanos) {
+        return count * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,328 @@
+package javasudoku.dbaccess;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import org.junit.Test;
+import javasudoku.model.GameSortOrder;
+import javasudoku.model.PlayerStats;
+import javasudoku.model.SudokuBoard;
+import javasudoku.model.SudokuGame;
+import javasudoku.model.SudokuGenerator;
+import javasudoku.model.SudokuStringifier;
+import javasudoku.solver.SudokuSolver;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.AfterClass;
+
+/**
+ * Contains unit tests to validate storing games in the Derby database through a SudokuDBManager:
+ *
+ * -Games saved by the first version of the game should be readable, listed by date, and counted in the
+ *  statistics of their players once the tables have been upgraded
+ * -Saving a game should add it the first time, and update the same stored game each time after that
+ * -Updating a game that has no ID, or whose stored game was removed, should fail without adding it
+ * -A player's games should be listed in pages that follow the sort order, without repeating or skipping games
+ * -The statistics of a player should match their stored games after games are added, replaced, and removed
+ * -A batch of puzzles should only add the puzzles that are not already stored
+ *
+ * SudokuDBManager is a singleton, so the database is created in memory once for all of the tests, and
+ * each test stores games under its own player names. The tables of the first version of the game are
+ * created before the manager opens the database, so that it upgrades them. The database is closed
+ * after the last test, which discards it.
+ *
+ * @author Ishaiah Cross
+ */
+public class SudokuDBManagerTest {
+    private static final String URL = "jdbc:derby:memory:SudokuDBManagerTest;create=true";
+    //The tables of the first version were created in the schema of this user
+    private static final String USER = "SudokuGame";
+    private static final String PASS = "pdc";
+    private static final String UPGRADE_PLAYER = "derbyupgrade";
+    private static final String UPGRADE_OTHER_PLAYER = "derbyupgrade2";
+    
+    //The boards saved by the first version, from the oldest to the newest
+    private static final SudokuBoard[] UPGRADE_BOARDS = new SudokuBoard[3];
+    private static final String[] UPGRADE_DATES = {"2020/10/01 09:00:00", "2020/10/02 10:30:00", "2020/10/03 12:45:30"};
+    
+    //This will be instantiated before the first test, and closed after the last test
+    private static SudokuDBManager db;
+    
+    /**
+     * Create the games table as the first version of the game did, save games to it in the same form,
+     * and then open the database with a SudokuDBManager
+     * @throws SQLException If the tables of the first version could not be created
+     */
+    @BeforeClass
+    public static void setupDatabase() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, USER, PASS);
+                Statement create = connection.createStatement()) {
+            create.executeUpdate("CREATE TABLE SudokuGames ("
+                    + "UID INT NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1),"
+                    + "SaveDate VARCHAR(50) NOT NULL,"
+                    + "FilledCells FLOAT,"
+                    + "PlayerName VARCHAR(" + SudokuDBManager.MAX_NAME_LENGTH + ") NOT NULL,"
+                    + "GameData VARCHAR(500) NOT NULL,"
+                    + "PRIMARY KEY (UID))");
+            
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO SudokuGames (SaveDate, FilledCells, PlayerName, GameData) VALUES (?,?,?,?)")) {
+                //Saved out of date order, so that listing by date does not match listing by UID
+                for(int i: new int[] {1, 0, 2}) {
+                    UPGRADE_BOARDS[i] = createBoard(i + 2);
+                    SudokuGame game = new SudokuGame(UPGRADE_PLAYER, UPGRADE_BOARDS[i]);
+                    insert.setString(1, UPGRADE_DATES[i]);
+                    insert.setFloat(2, game.completionPercentage);
+                    insert.setString(3, game.playerName);
+                    insert.setString(4, SudokuStringifier.boardToString(game.boardState));
+                    insert.executeUpdate();
+                }
+                
+                insert.setString(1, UPGRADE_DATES[0]);
+                insert.setFloat(2, 0);
+                insert.setString(3, UPGRADE_OTHER_PLAYER);
+                insert.setString(4, SudokuStringifier.boardToString(new SudokuBoard()));
+                insert.executeUpdate();
+            }
+        }
+        
+        System.setProperty("javasudoku.db.url", URL);
+        db = SudokuDBManager.getInstance();
+    }
+    
+    /**
+     * Close the database after the last test
+     */
+    @AfterClass
+    public static void destroyDatabase() {
+        db.close();
+        db = null;
+    }
+    
+    /**
+     * Creates a board with a number of cells filled in the first row
+     * @param filledCells The number of cells to fill, up to GRID_SIZE
+     * @return The board
+     */
+    private static SudokuBoard createBoard(int filledCells) {
+        SudokuBoard board = new SudokuBoard();
+        for(int i = 0; i < filledCells; i++)
+            board.setCell(i, i + 1);
+        
+        return board;
+    }
+    
+    /**
+     * Creates a game with a number of cells filled in the first row
+     * @param name The player name
+     * @param filledCells The number of cells to fill, up to GRID_SIZE
+     * @param daysAgo The number of days since the game was last played
+     * @return The game, which has not been stored
+     */
+    private static SudokuGame createGame(String name, int filledCells, int daysAgo) {
+        SudokuGame game = new SudokuGame(name, createBoard(filledCells));
+        game.setDate(SudokuGame.formatDate(LocalDateTime.now().minusDays(daysAgo)));
+        return game;
+    }
+    
+    /**
+     * Creates a game whose board is solved
+     * @param name The player name
+     * @param playTime The play time of the game in milliseconds
+     * @return The game, which has not been stored
+     */
+    private static SudokuGame createSolvedGame(String name, long playTime) {
+        SudokuBoard board = new SudokuGenerator().generatePuzzle(20);
+        new SudokuSolver().solveBoard(board);
+        Assert.assertTrue(board.isSolved());
+        
+        SudokuGame game = new SudokuGame(name, board);
+        game.saveLastPlayedDate();
+        game.setPlayTime(playTime);
+        return game;
+    }
+    
+    /**
+     * Games saved by the first version should keep their boards and dates, be listed in date order, and be
+     * counted in the statistics of their players, which are kept up to date by games saved after the upgrade
+     */
+    @Test
+    public void sudokuDBManager_upgrade_KeepsBaselineGames() {
+        Assert.assertEquals(3, db.getGameCount(UPGRADE_PLAYER));
+        Assert.assertTrue(db.getPlayerNames().contains(UPGRADE_PLAYER));
+        Assert.assertTrue(db.getPlayerNames().contains(UPGRADE_OTHER_PLAYER));
+        
+        ArrayList<SudokuGame> games = db.getGamesByName(UPGRADE_PLAYER, 0, 10, GameSortOrder.OLDEST_FIRST);
+        Assert.assertEquals(3, games.size());
+        for(int i = 0; i < games.size(); i++) {
+            SudokuGame game = games.get(i);
+            Assert.assertEquals(UPGRADE_DATES[i], game.lastPlayedDate);
+            Assert.assertEquals(SudokuStringifier.boardToString(UPGRADE_BOARDS[i]), SudokuStringifier.boardToString(game.boardState));
+            Assert.assertEquals(game.boardState.toString(), db.getGame(game.getGameID()).boardState.toString());
+        }
+        
+        PlayerStats stats = db.getPlayerStats(UPGRADE_PLAYER);
+        Assert.assertEquals(3, stats.gamesSaved);
+        Assert.assertEquals(0, stats.gamesCompleted);
+        Assert.assertNull(stats.bestSolveTime);
+        
+        SudokuGame added = createGame(UPGRADE_PLAYER, 9, 0);
+        Assert.assertNotNull(db.addGame(added));
+        Assert.assertEquals(4, db.getPlayerStats(UPGRADE_PLAYER).gamesSaved);
+        Assert.assertEquals(added.getGameID(), db.getGamesByName(UPGRADE_PLAYER, 0, 1, GameSortOrder.NEWEST_FIRST).get(0).getGameID());
+    }
+    
+    /**
+     * Saving a new game should add it and set its ID, and saving it again should replace the same stored game
+     */
+    @Test
+    public void sudokuDBManager_saveGame_AddsThenUpdatesInPlace() {
+        String player = "derbysave";
+        SudokuGame game = createGame(player, 1, 0);
+        Integer gameID = db.saveGame(game);
+        Assert.assertNotNull(gameID);
+        Assert.assertEquals(gameID, game.getGameID());
+        
+        SudokuGame changed = createGame(player, 3, 0);
+        changed.setGameID(gameID);
+        changed.setPlayTime(4000);
+        Assert.assertEquals(gameID, db.saveGame(changed));
+        
+        Assert.assertEquals(1, db.getGameCount(player));
+        SudokuGame stored = db.getGame(gameID);
+        Assert.assertEquals(3, stored.boardState.getCellValue(2));
+        Assert.assertEquals(4000, stored.getPlayTime());
+        Assert.assertEquals(1, db.getPlayerStats(player).gamesSaved);
+    }
+    
+    /**
+     * Updating a game without an ID, or a game that was removed, should fail and leave the database unchanged
+     */
+    @Test
+    public void sudokuDBManager_updateGame_RejectsUnstoredGame() {
+        String player = "derbyupdate";
+        Assert.assertFalse(db.updateGame(createGame(player, 1, 0)));
+        
+        SudokuGame game = createGame(player, 1, 0);
+        int gameID = db.addGame(game);
+        db.removeGame(gameID);
+        
+        Assert.assertFalse(db.updateGame(game));
+        Assert.assertEquals(0, db.getGameCount(player));
+        Assert.assertNull(db.getGame(gameID));
+        Assert.assertEquals(0, db.getPlayerStats(player).gamesSaved);
+    }
+    
+    /**
+     * Reading a player's games a page at a time should return every game once, in the requested order,
+     * and leave out the games of other players
+     */
+    @Test
+    public void sudokuDBManager_getGamesByName_PagesInSortOrder() {
+        String player = "derbypages";
+        int[] ids = new int[7];
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = db.addGame(createGame(player, 1 + i % 4, i));
+        
+        db.addGame(createGame(player + "other", 1, 0));
+        
+        //The games were added from newest to oldest
+        ArrayList<Integer> newestFirst = new ArrayList<>();
+        for(int offset = 0; offset < ids.length; offset += 3) {
+            ArrayList<SudokuGame> page = db.getGamesByName(player, offset, 3, GameSortOrder.NEWEST_FIRST);
+            Assert.assertEquals(Math.min(3, ids.length - offset), page.size());
+            for(SudokuGame game: page)
+                newestFirst.add(game.getGameID());
+        }
+        
+        for(int i = 0; i < ids.length; i++)
+            Assert.assertEquals(Integer.valueOf(ids[i]), newestFirst.get(i));
+        
+        ArrayList<SudokuGame> oldest = db.getGamesByName(player, 0, 2, GameSortOrder.OLDEST_FIRST);
+        Assert.assertEquals(Integer.valueOf(ids[6]), oldest.get(0).getGameID());
+        Assert.assertEquals(Integer.valueOf(ids[5]), oldest.get(1).getGameID());
+        
+        //Every game is listed once, from the most to the least complete
+        ArrayList<Integer> seen = new ArrayList<>();
+        float lastCompletion = Float.MAX_VALUE;
+        for(SudokuGame game: db.getGamesByName(player, 0, ids.length, GameSortOrder.MOST_COMPLETE_FIRST)) {
+            Assert.assertTrue(game.completionPercentage <= lastCompletion);
+            Assert.assertFalse(seen.contains(game.getGameID()));
+            seen.add(game.getGameID());
+            lastCompletion = game.completionPercentage;
+        }
+        
+        Assert.assertEquals(ids.length, seen.size());
+        Assert.assertTrue(db.getGamesByName(player, ids.length, 3, GameSortOrder.NEWEST_FIRST).isEmpty());
+    }
+    
+    /**
+     * The statistics of a player should be updated as games are added, replaced, and removed, and the best
+     * solve time should be found again from the remaining games once the game that held it is removed
+     */
+    @Test
+    public void sudokuDBManager_getPlayerStats_FollowsAddsAndRemoves() {
+        String player = "derbystats";
+        String otherPlayer = "derbystatsother";
+        Assert.assertNull(db.getPlayerStats(player));
+        
+        SudokuGame unsolved = createGame(player, 9, 0);
+        int unsolvedID = db.addGame(unsolved);
+        int fastID = db.addGame(createSolvedGame(player, 1000));
+        int slowID = db.addGame(createSolvedGame(player, 5000));
+        db.addGame(createSolvedGame(otherPlayer, 500));
+        
+        PlayerStats stats = db.getPlayerStats(player);
+        Assert.assertEquals(3, stats.gamesSaved);
+        Assert.assertEquals(2, stats.gamesCompleted);
+        Assert.assertEquals((unsolved.completionPercentage + 2) / 3, stats.averageCompletion, 0.0001);
+        Assert.assertEquals(Long.valueOf(1000), stats.bestSolveTime);
+        
+        Assert.assertTrue(db.removeGames(fastID));
+        stats = db.getPlayerStats(player);
+        Assert.assertEquals(2, stats.gamesSaved);
+        Assert.assertEquals(1, stats.gamesCompleted);
+        Assert.assertEquals(Long.valueOf(5000), stats.bestSolveTime);
+        
+        //Replacing the solved game with an unsolved board takes away its solve
+        SudokuGame replaced = createGame(player, 9, 0);
+        replaced.setGameID(slowID);
+        Assert.assertTrue(db.updateGame(replaced));
+        stats = db.getPlayerStats(player);
+        Assert.assertEquals(2, stats.gamesSaved);
+        Assert.assertEquals(0, stats.gamesCompleted);
+        Assert.assertNull(stats.bestSolveTime);
+        
+        //A player keeps their statistics after their last game is removed, but is no longer listed
+        Assert.assertTrue(db.removeGames(unsolvedID, slowID));
+        stats = db.getPlayerStats(player);
+        Assert.assertEquals(0, stats.gamesSaved);
+        Assert.assertEquals(0, stats.averageCompletion, 0);
+        Assert.assertFalse(db.getPlayerNames().contains(player));
+        Assert.assertEquals(Long.valueOf(500), db.getPlayerStats(otherPlayer).bestSolveTime);
+    }
+    
+    /**
+     * Adding a batch of puzzles should only add the puzzles that are not stored yet, and skip boards
+     * that repeat a puzzle of the same batch or are empty
+     */
+    @Test
+    public void sudokuDBManager_addPuzzles_SkipsStoredPuzzles() {
+        SudokuGenerator generator = new SudokuGenerator();
+        SudokuBoard[] boards = new SudokuBoard[5];
+        for(int i = 0; i < 3; i++)
+            boards[i] = generator.generatePuzzle(30);
+        
+        boards[3] = boards[0].fork();
+        boards[4] = new SudokuBoard();
+        
+        Assert.assertEquals(3, db.addPuzzles(boards, boards.length));
+        Assert.assertEquals(0, db.addPuzzles(boards, boards.length));
+        
+        boards[0] = generator.generatePuzzle(30);
+        Assert.assertEquals(1, db.addPuzzles(boards, 2));
+    }
+}
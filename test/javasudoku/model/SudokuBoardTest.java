@@ -1,4 +1,5 @@
 package javasudoku.model;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import org.junit.Test;
 import javasudoku.model.*;
@@ -17,6 +18,15 @@ import org.junit.After;
  * -A cell should be intersected by three SudokuCollection objects corresponding to a row, column, and subgrid
  * -A board should be able to check if it is in a solved state using isSolved, which uses its SudokuCollection objects
  * -Attempting to find an empty cell on a board that is fully solved should return null
+ * -Modifying a fork of a board should not modify the original board, and vice versa
+ * -Restoring a snapshot should undo any changes made to a board since the snapshot was taken
+ * -Cells accessed by index should be the same cells accessed by the equivalent coordinate
+ * -Conflicting values placed with setCellUnchecked should be tracked until one of the cells changes
+ * -The hash of a board should depend only on its cell values
+ * -Givens of a generated puzzle should be protected, including from their cell objects, survive a round trip through their bitmask, and be kept by resetToPuzzle
+ * -A board encoded with SudokuBoardCodec should decode to the same values, givens, and conflicts
+ * -A board split into its puzzle and player entries should decode to the same board, and share the puzzle with other games
+ * -A puzzle line should accept '.' and '0' for unassigned cells, reject invalid characters, and round trip a board
  * 
  * Each unit test will provide a setup and teardown procedure involving
  * initializing an empty board and generator, before modifications are done on the board
@@ -237,4 +247,266 @@ public class SudokuBoardTest {
         //Assert that the empty cell was null, i.e. that no cell was found
         Assert.assertNull(emptyCell);
    }
+   
+   /**
+    * Asserts that a fork of a board initially has the same cell values as the board,
+    * and that changes made to either board afterwards are not visible in the other
+    */
+   @Test
+   public void sudokuBoard_fork_ChangesAreIndependent() {
+        SudokuCoordinate sharedCoordinate = new SudokuCoordinate(0, 0);
+        SudokuCoordinate forkCoordinate = new SudokuCoordinate(4, 0);
+        SudokuCoordinate boardCoordinate = new SudokuCoordinate(8, 8);
+        board.setCell(sharedCoordinate, 5);
+        
+        //The fork should contain the value that was set before it was taken
+        SudokuBoard fork = board.fork();
+        Assert.assertEquals(5, fork.getCellValue(sharedCoordinate));
+        
+        //Modify both boards, including through a cell object of the fork
+        fork.setCell(forkCoordinate, 3);
+        fork.getCell(sharedCoordinate).setCellValue(7);
+        board.setCell(boardCoordinate, 1);
+        
+        //Assert that each board only sees its own changes
+        Assert.assertEquals(5, board.getCellValue(sharedCoordinate));
+        Assert.assertEquals(0, board.getCellValue(forkCoordinate));
+        Assert.assertEquals(7, fork.getCellValue(sharedCoordinate));
+        Assert.assertEquals(0, fork.getCellValue(boardCoordinate));
+   }
+   
+   /**
+    * Asserts that restoring a snapshot returns a board to the state it was in
+    * when the snapshot was taken, and that the snapshot itself cannot be modified
+    */
+   @Test
+   public void sudokuBoard_restoreSnapshot_UndoesChanges() {
+        SudokuSolver testSolver = new SudokuSolver();
+        testSolver.solveBoard(board);
+        
+        //Take a snapshot of the solved board, then clear one of its cells
+        SudokuBoard solved = board.snapshot();
+        SudokuCoordinate testCoordinate = new SudokuCoordinate(3, 6);
+        board.getCell(testCoordinate).setCellValue(0);
+        Assert.assertFalse(board.isSolved());
+        
+        //Restoring the snapshot should return the board to the solved state
+        board.restoreSnapshot(solved);
+        Assert.assertTrue(board.isSolved());
+        
+        //The snapshot itself should reject any changes
+        try {
+            solved.setCell(testCoordinate, 0);
+            Assert.fail("A snapshot should not be modifiable");
+        } catch(UnsupportedOperationException e) {
+            Assert.assertTrue(solved.isReadOnly());
+        }
+   }
+   
+   /**
+    * Asserts that the shared coordinate instances map to the expected cell index,
+    * and that the index-based methods of the board access the same cell as their
+    * coordinate-based equivalents
+    */
+   @Test
+   public void sudokuBoard_indexMethods_MatchCoordinateMethods() {
+        int testX = 6;
+        int testY = 4;
+        int testIndex = testY * SudokuBoard.GRID_SIZE + testX;
+        int testValue = 9;
+        
+        //The same shared instance should be returned for the coordinate pair and the index
+        SudokuCoordinate testCoordinate = SudokuCoordinate.of(testX, testY);
+        Assert.assertSame(testCoordinate, SudokuCoordinate.of(testIndex));
+        Assert.assertEquals(testIndex, testCoordinate.getIndex());
+        
+        //Set the value by index and read it back by coordinate
+        Assert.assertTrue(board.setCell(testIndex, testValue));
+        Assert.assertEquals(testValue, board.getCellValue(testCoordinate));
+        Assert.assertSame(board.getCell(testCoordinate), board.getCell(testIndex));
+        
+        //The value can no longer be placed in the same row
+        Assert.assertFalse(board.canPlaceAt(testY * SudokuBoard.GRID_SIZE, testValue));
+   }
+   
+   /**
+    * Asserts that a board keeps conflicting values placed with setCellUnchecked,
+    * that both cells are reported as conflicting with each other, and that the conflict
+    * is removed once one of the cells is changed
+    */
+   @Test
+   public void sudokuBoard_setCellUnchecked_TracksConflicts() {
+        int testValue = 9;
+        SudokuCoordinate firstCoordinate = new SudokuCoordinate(0, 0);
+        SudokuCoordinate secondCoordinate = new SudokuCoordinate(7, 0);
+        
+        //Place the same value twice along a row
+        Assert.assertTrue(board.setCellUnchecked(firstCoordinate, testValue));
+        Assert.assertFalse(board.setCellUnchecked(secondCoordinate, testValue));
+        
+        //Both values should be kept, and each cell should conflict with the other
+        Assert.assertEquals(testValue, board.getCellValue(secondCoordinate));
+        Assert.assertTrue(board.hasConflicts());
+        Assert.assertEquals(1, board.getConflictingPeers(firstCoordinate).size());
+        Assert.assertEquals(secondCoordinate, board.getConflictingPeers(firstCoordinate).get(0));
+        Assert.assertTrue(board.isConflicting(secondCoordinate));
+        
+        //Changing one of the cells should remove the conflict from both
+        board.setCellUnchecked(secondCoordinate, testValue - 1);
+        Assert.assertFalse(board.isConflicting(firstCoordinate));
+        Assert.assertFalse(board.isConflicting(secondCoordinate));
+        Assert.assertFalse(board.hasConflicts());
+   }
+   
+   /**
+    * Asserts that the Zobrist hash of a board changes when a cell changes, returns
+    * to its previous value when the change is undone, and matches the hash of a separately
+    * built board with the same values
+    */
+   @Test
+   public void sudokuBoard_getZobristHash_DependsOnlyOnValues() {
+        SudokuCoordinate firstCoordinate = new SudokuCoordinate(2, 3);
+        SudokuCoordinate secondCoordinate = new SudokuCoordinate(5, 8);
+        long emptyHash = board.getZobristHash();
+        
+        //Setting a cell should change the hash, and clearing it should restore the hash
+        board.setCell(firstCoordinate, 4);
+        Assert.assertNotEquals(emptyHash, board.getZobristHash());
+        board.setCell(firstCoordinate, 0);
+        Assert.assertEquals(emptyHash, board.getZobristHash());
+        
+        //Boards with the same values set in a different order should have the same hash
+        board.setCell(firstCoordinate, 4);
+        board.setCell(secondCoordinate, 7);
+        SudokuBoard otherBoard = new SudokuBoard();
+        otherBoard.setCell(secondCoordinate, 7);
+        otherBoard.setCell(firstCoordinate, 4);
+        
+        Assert.assertEquals(board.getZobristHash(), otherBoard.getZobristHash());
+        Assert.assertTrue(board.hasSameValues(otherBoard));
+   }
+   
+   /**
+    * Asserts that the filled cells of a generated puzzle are marked as givens, that
+    * givens cannot be changed, that the givens bitmask can be copied to another board,
+    * and that resetToPuzzle removes only player entries
+    */
+   @Test
+   public void sudokuBoard_givens_ProtectedAndRestored() {
+        SudokuBoard puzzle = generator.generatePuzzle(40);
+        int givenIndex = -1;
+        int emptyIndex = puzzle.getEmptyCellIndex();
+        for(int i = 0; i < SudokuBoard.TOTAL_CELLS && givenIndex == -1; i++)
+            if(puzzle.getCellValue(i) != 0)
+                givenIndex = i;
+        
+        //Filled cells are givens, and cannot be changed
+        Assert.assertTrue(puzzle.isGiven(givenIndex));
+        Assert.assertFalse(puzzle.isGiven(emptyIndex));
+        Assert.assertFalse(puzzle.setCellUnchecked(givenIndex, 0));
+        Assert.assertNotEquals(0, puzzle.getCellValue(givenIndex));
+        
+        //Writing through a cell object should not change a given either
+        Assert.assertFalse(puzzle.getCell(givenIndex).setCellValue(0));
+        Assert.assertNotEquals(0, puzzle.getCellValue(givenIndex));
+        
+        //The givens bitmask should produce the same givens on another board
+        board.setGivensMask(puzzle.getGivensMask());
+        Assert.assertTrue(board.isGiven(givenIndex));
+        Assert.assertFalse(board.isGiven(emptyIndex));
+        
+        //Resetting should remove a player entry but keep the givens
+        int filledCount = puzzle.getFilledCount();
+        puzzle.setCellUnchecked(emptyIndex, 1);
+        puzzle.resetToPuzzle();
+        Assert.assertEquals(0, puzzle.getCellValue(emptyIndex));
+        Assert.assertEquals(filledCount, puzzle.getFilledCount());
+   }
+   
+   /**
+    * Asserts that a board encoded with SudokuBoardCodec decodes to a board with the
+    * same values, givens, and conflicts, and that malformed data is rejected
+    */
+   @Test
+   public void sudokuBoard_codec_RoundTripsBoard() {
+        SudokuBoard puzzle = generator.generatePuzzle(40);
+        int emptyIndex = puzzle.getEmptyCellIndex();
+        
+        //Place a value that conflicts with one of the givens
+        int givenIndex = -1;
+        for(int i = 0; i < SudokuBoard.TOTAL_CELLS && givenIndex == -1; i++)
+            if(puzzle.getCellValue(i) != 0 && !puzzle.canPlaceAt(emptyIndex, puzzle.getCellValue(i)))
+                givenIndex = i;
+        puzzle.setCellUnchecked(emptyIndex, puzzle.getCellValue(givenIndex));
+        
+        byte[] data = SudokuBoardCodec.encode(puzzle, true);
+        Assert.assertEquals(SudokuBoardCodec.ENCODED_BYTES_WITH_GIVENS, data.length);
+        
+        SudokuBoard decoded = SudokuBoardCodec.decode(data);
+        Assert.assertTrue(decoded.hasSameValues(puzzle));
+        Assert.assertArrayEquals(puzzle.getGivensMask(), decoded.getGivensMask());
+        Assert.assertEquals(puzzle.getZobristHash(), decoded.getZobristHash());
+        Assert.assertEquals(puzzle.getFilledCount(), decoded.getFilledCount());
+        Assert.assertTrue(decoded.isConflicting(emptyIndex));
+        
+        //Values above CELL_MAX cannot be decoded
+        data[0] = (byte)0xF0;
+        Assert.assertNull(SudokuBoardCodec.decode(data));
+   }
+   
+   /**
+    * Asserts that a board split into its encoded puzzle and player entries decodes to a board
+    * with the same values and givens, and that another game of the same puzzle encodes the same puzzle
+    */
+   @Test
+   public void sudokuBoard_codec_RoundTripsEntries() {
+        SudokuBoard puzzle = generator.generatePuzzle(40);
+        SudokuBoard game = puzzle.fork();
+        int emptyIndex = game.getEmptyCellIndex();
+        game.setCellUnchecked(emptyIndex, 1);
+        
+        byte[] puzzleData = SudokuBoardCodec.encodePuzzle(game);
+        byte[] entries = SudokuBoardCodec.encodeEntries(game);
+        Assert.assertArrayEquals(SudokuBoardCodec.encodePuzzle(puzzle), puzzleData);
+        Assert.assertTrue(entries.length < SudokuBoardCodec.VALUES_BYTES);
+        
+        SudokuBoard decoded = SudokuBoardCodec.decodeEntries(puzzleData, entries);
+        Assert.assertTrue(decoded.hasSameValues(game));
+        Assert.assertArrayEquals(game.getGivensMask(), decoded.getGivensMask());
+        Assert.assertEquals(1, decoded.getCellValue(emptyIndex));
+        
+        //A board without givens is stored entirely as entries
+        board.setCell(0, 5);
+        SudokuBoard freeform = SudokuBoardCodec.decodeEntries(null, SudokuBoardCodec.encodeEntries(board));
+        Assert.assertTrue(freeform.hasSameValues(board));
+        Assert.assertFalse(freeform.hasGivens());
+        
+        Assert.assertNull(SudokuBoardCodec.decodeEntries(puzzleData, new byte[0]));
+   }
+   
+   /**
+    * Asserts that a puzzle line is parsed into a reused board with either character for
+    * unassigned cells, that formatting the board produces the same line, and that lines
+    * containing invalid characters are rejected
+    */
+   @Test
+   public void sudokuBoard_parseLine_RoundTripsBoard() {
+        SudokuBoard puzzle = generator.generatePuzzle(40);
+        String line = SudokuStringifier.formatLine(puzzle);
+        Assert.assertEquals(SudokuStringifier.LINE_LENGTH, line.length());
+        
+        //Parse the line with zeros for unassigned cells into a board that already has values
+        board.setCell(0, 5);
+        Assert.assertTrue(SudokuStringifier.parseLine(line.replace('.', '0'), 0, board));
+        Assert.assertTrue(board.hasSameValues(puzzle));
+        Assert.assertEquals(line, SudokuStringifier.formatLine(board));
+        
+        //The same line should be read from a byte buffer at an offset
+        ByteBuffer buffer = ByteBuffer.wrap(("\n" + line).getBytes());
+        Assert.assertTrue(SudokuStringifier.parseLine(buffer, 1, board));
+        Assert.assertTrue(board.hasSameValues(puzzle));
+        
+        Assert.assertNull(SudokuStringifier.parseLine(line.replace('.', 'x')));
+        Assert.assertNull(SudokuStringifier.parseLine(line.substring(1)));
+   }
 }